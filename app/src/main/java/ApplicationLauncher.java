@@ -1,3 +1,9 @@
+import java.util.Arrays;
+
+import Controller.BatchRenderer;
+import Controller.ScriptRunner;
+import Model.BinaryUtils;
+import Model.DiagramGenerator;
 import View.CLI;
 import View.GUI;
 
@@ -6,8 +12,21 @@ public class ApplicationLauncher {
         // Check for the "--cli" command-line parameter
         if (args.length > 0 && args[0].equals("--cli")) {
             CLI.main(args); // Launch CLI
+        } else if (args.length > 0 && args[0].equals("--render")) {
+            // Render model files to images without a window, for machines with no display
+            System.setProperty("java.awt.headless", "true");
+            System.exit(BatchRenderer.run(Arrays.copyOfRange(args, 1, args.length)));
+        } else if (args.length > 0 && args[0].equals("--script")) {
+            // Run a file of CLI commands without prompting
+            System.exit(ScriptRunner.run(Arrays.copyOfRange(args, 1, args.length)));
+        } else if (args.length > 0 && args[0].equals("--convert")) {
+            // Convert a model file between JSON and the binary format, chosen by file extension
+            System.exit(BinaryUtils.run(Arrays.copyOfRange(args, 1, args.length)));
+        } else if (args.length > 0 && args[0].equals("--generate")) {
+            // Write a large generated diagram, for trying the editor at scale
+            System.exit(DiagramGenerator.run(Arrays.copyOfRange(args, 1, args.length)));
         } else {
             GUI.main(args); // Launch GUI by default
         }
     }
-}
\ No newline at end of file
+}
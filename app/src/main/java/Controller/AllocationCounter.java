@@ -0,0 +1,130 @@
+package Controller;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Counts the bytes of memory the current thread allocates between {@link #start()} and
+ * {@link #stop()}, such as during one repaint of the diagram. Counting is turned on by
+ * starting the program with {@code -Duml.allocations=true}; otherwise both methods do nothing.
+ * Every so many counts, the average is printed to the console.
+ */
+public class AllocationCounter {
+    /** The system property that turns counting on */
+    public static final String PROPERTY = "uml.allocations";
+
+    /** The JVM's thread counters, or null if counting is off or not supported */
+    private final com.sun.management.ThreadMXBean threads;
+
+    /** What is being counted, used in the printed report */
+    private final String label;
+
+    /** How many counts to take between reports */
+    private final int reportEvery;
+
+    private long startBytes;
+    private long lastBytes;
+    private long totalBytes;
+    private long count;
+
+    /**
+     * Creates a counter that is on if the {@value #PROPERTY} system property is {@code true}.
+     *
+     * @param label       What is being counted, such as "repaint".
+     * @param reportEvery How many counts to take between reports, or 0 to never print.
+     */
+    public AllocationCounter(String label, int reportEvery) {
+        this(label, reportEvery, Boolean.getBoolean(PROPERTY));
+    }
+
+    /**
+     * Creates a counter.
+     *
+     * @param label       What is being counted, such as "repaint".
+     * @param reportEvery How many counts to take between reports, or 0 to never print.
+     * @param enabled     Whether to count at all.
+     */
+    public AllocationCounter(String label, int reportEvery, boolean enabled) {
+        this.label = label;
+        this.reportEvery = reportEvery;
+        this.threads = enabled ? allocationCounters() : null;
+    }
+
+    /**
+     * Returns whether this counter is counting.
+     *
+     * @return {@code true} if counts are being taken.
+     */
+    public boolean isEnabled() {
+        return threads != null;
+    }
+
+    /**
+     * Starts counting the allocations of the current thread.
+     */
+    public void start() {
+        if (threads != null) {
+            startBytes = threads.getCurrentThreadAllocatedBytes();
+        }
+    }
+
+    /**
+     * Stops counting, adds the count to the totals, and prints a report if one is due.
+     *
+     * @return The number of bytes allocated since {@link #start()}, or 0 if counting is off.
+     */
+    public long stop() {
+        if (threads == null) {
+            return 0;
+        }
+        lastBytes = threads.getCurrentThreadAllocatedBytes() - startBytes;
+        totalBytes += lastBytes;
+        count++;
+        if (reportEvery > 0 && count % reportEvery == 0) {
+            System.out.println("Allocated per " + label + ": last " + lastBytes + " bytes, average "
+                    + getAverageBytes() + " bytes over " + count);
+        }
+        return lastBytes;
+    }
+
+    /**
+     * Returns the number of bytes allocated during the last count.
+     *
+     * @return The bytes allocated last time.
+     */
+    public long getLastBytes() {
+        return lastBytes;
+    }
+
+    /**
+     * Returns the average number of bytes allocated per count.
+     *
+     * @return The average bytes, or 0 if nothing has been counted.
+     */
+    public long getAverageBytes() {
+        return (count > 0) ? totalBytes / count : 0;
+    }
+
+    /**
+     * Returns the number of counts taken.
+     *
+     * @return The number of counts.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the JVM's per-thread allocation counters, turned on, or null if this JVM does not have them.
+     */
+    private static com.sun.management.ThreadMXBean allocationCounters() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean threadBean
+                && threadBean.isThreadAllocatedMemorySupported()) {
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+            return threadBean;
+        }
+        System.out.println("Allocation counting is not supported by this JVM.");
+        return null;
+    }
+}
@@ -0,0 +1,214 @@
+package Controller;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import Model.BinaryUtils;
+import Model.JsonUtils;
+import Model.UmlEditorModel;
+
+/**
+ * Renders saved diagrams to image files without opening a window, for building diagrams
+ * on machines with no display. Each JSON model file is loaded into its own model and
+ * exported with {@link ImageExporter}, and several files are rendered at the same time.
+ *
+ * Started from {@code ApplicationLauncher} with:
+ * {@code --render <file or directory>... [--out <directory>] [--format png|svg] [--threads <n>]}
+ */
+public class BatchRenderer {
+    /** The image formats that can be rendered */
+    public static final List<String> FORMATS = List.of("png", "svg");
+
+    private final Path outputDirectory;
+    private final String format;
+    private final int threads;
+
+    /**
+     * Creates a renderer.
+     *
+     * @param outputDirectory Where to write the images, or {@code null} to write each next to its model file.
+     * @param format          The image format, one of {@link #FORMATS}.
+     * @param threads         How many threads to render with in total.
+     */
+    public BatchRenderer(Path outputDirectory, String format, int threads) {
+        if (!FORMATS.contains(format)) {
+            throw new IllegalArgumentException("Unsupported format '" + format + "', expected one of " + FORMATS);
+        }
+        this.outputDirectory = outputDirectory;
+        this.format = format;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Finds the model files to render. Directories are searched (not recursively) for
+     * {@code .json} and {@code .umlb} files; files are used as given.
+     *
+     * @param inputs The files and directories named on the command line.
+     * @return The model files, in a stable order.
+     * @throws IOException If a directory cannot be read or an input does not exist.
+     */
+    public static List<Path> findModelFiles(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> entries = Files.list(input)) {
+                    entries.filter(path -> Files.isRegularFile(path) && (path.toString().endsWith(".json")
+                            || BinaryUtils.isBinaryFile(path.toString())))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else if (Files.isRegularFile(input)) {
+                files.add(input);
+            } else {
+                throw new IOException("No such file or directory: " + input);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Renders one model file.
+     *
+     * @param modelFile   The JSON model file.
+     * @param tileThreads How many threads draw the tiles of the image.
+     * @return The image file written.
+     * @throws IOException If the model cannot be loaded or the image cannot be written.
+     */
+    public Path render(Path modelFile, int tileThreads) throws IOException {
+        UmlEditorModel model = JsonUtils.load(modelFile.toString());
+        Path imageFile = imageFileFor(modelFile);
+        Path parent = imageFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Map<String, Point> positions = ImageExporter.positionsOf(model);
+        Dimension size;
+        if (format.equals("svg")) {
+            size = SvgExporter.exportDiagram(model, positions, imageFile.toString());
+        } else {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(imageFile), 1 << 16)) {
+                size = ImageExporter.exportDiagram(model, positions, out, tileThreads);
+            }
+        }
+        System.out.println("Rendered '" + modelFile + "' to '" + imageFile + "' (" + size.width + "x"
+                + size.height + ").");
+        return imageFile;
+    }
+
+    /**
+     * Renders every model file, several at a time. A file that fails is reported and the
+     * others are still rendered.
+     *
+     * @param modelFiles The JSON model files.
+     * @return The number of files that could not be rendered.
+     */
+    public int renderAll(List<Path> modelFiles) {
+        if (modelFiles.isEmpty()) {
+            return 0;
+        }
+        // Split the threads between files, and between the tiles of each file when there are few files
+        int fileThreads = Math.min(threads, modelFiles.size());
+        int tileThreads = Math.max(1, threads / fileThreads);
+        ExecutorService pool = Executors.newFixedThreadPool(fileThreads);
+        try {
+            List<Future<Path>> results = new ArrayList<>();
+            for (Path modelFile : modelFiles) {
+                results.add(pool.submit(() -> render(modelFile, tileThreads)));
+            }
+
+            int failures = 0;
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    results.get(i).get();
+                } catch (ExecutionException e) {
+                    failures++;
+                    System.out.println("Failed to render '" + modelFiles.get(i) + "': " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return failures + (results.size() - i);
+                }
+            }
+            return failures;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the renderer from command-line arguments.
+     *
+     * @param args The arguments after {@code --render}.
+     * @return The exit status: 0 if every file was rendered, 1 if any failed, 2 for bad arguments.
+     */
+    public static int run(String[] args) {
+        List<Path> inputs = new ArrayList<>();
+        Path outputDirectory = null;
+        String format = "png";
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--out":
+                        outputDirectory = Paths.get(args[++i]);
+                        break;
+                    case "--format":
+                        format = args[++i].toLowerCase();
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        inputs.add(Paths.get(args[i]));
+                        break;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            inputs.clear();
+        }
+        if (inputs.isEmpty()) {
+            System.out.println("Usage: --render <file or directory>... [--out <directory>] [--format "
+                    + String.join("|", FORMATS) + "] [--threads <n>]");
+            return 2;
+        }
+
+        try {
+            BatchRenderer renderer = new BatchRenderer(outputDirectory, format, threads);
+            List<Path> modelFiles = findModelFiles(inputs);
+            int failures = renderer.renderAll(modelFiles);
+            System.out.println("Rendered " + (modelFiles.size() - failures) + " of " + modelFiles.size()
+                    + " diagrams.");
+            return (failures == 0) ? 0 : 1;
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println(e.getMessage());
+            return 2;
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    private Path imageFileFor(Path modelFile) {
+        String name = modelFile.getFileName().toString();
+        if (name.endsWith(".json")) {
+            name = name.substring(0, name.length() - ".json".length());
+        } else if (BinaryUtils.isBinaryFile(name)) {
+            name = name.substring(0, name.length() - BinaryUtils.EXTENSION.length());
+        }
+        name += "." + format;
+        Path directory = (outputDirectory != null) ? outputDirectory : modelFile.toAbsolutePath().getParent();
+        return (directory != null) ? directory.resolve(name) : Paths.get(name);
+    }
+}
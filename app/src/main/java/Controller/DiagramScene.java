@@ -0,0 +1,742 @@
+package Controller;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.Stroke;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import Model.RelationshipType;
+import Model.UmlClass;
+import Model.UmlEditorModel;
+import Model.UmlRelationship;
+
+/**
+ * The laid out diagram drawn by the GUI. The size and text of every class box, and the
+ * line and arrowhead of every relationship, are worked out once and kept between repaints.
+ * A box is only laid out again when its class changes, and a relationship line only when
+ * one of the boxes at its ends changes or moves, so dragging a class only redoes that box
+ * and the relationships attached to it. The boxes and lines are also kept in a
+ * {@link SpatialGrid}, so finding the box under the mouse and the shapes inside the area
+ * being repainted does not look at every shape in the diagram.
+ */
+public class DiagramScene {
+    /** Dotted line pattern for realization */
+    private static final float[] DOTTED_PATTERN = { 2f, 5f };
+    private static final Stroke DOTTED = new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10f,
+            DOTTED_PATTERN, 0f);
+
+    /** Dashed line pattern for aggregation */
+    private static final float[] DASHED_PATTERN = { 10f, 5f };
+    private static final Stroke DASHED = new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10f,
+            DASHED_PATTERN, 0f);
+
+    /** Solid line, used to reset the stroke after a patterned line */
+    private static final Stroke SOLID = new BasicStroke();
+
+    /** The size of an arrowhead */
+    private static final int ARROW_SIZE = 10;
+
+    /** The width and height of a cell of the grids the shapes are kept in */
+    private static final int CELL_SIZE = 256;
+
+    /**
+     * The layout of one class box. Everything but the position is relative to the top left
+     * corner of the box, so moving the box does not lay it out again.
+     */
+    public static final class ClassBox {
+        private final String name;
+        private int x;
+        private int y;
+        private int width;
+        private int height;
+        /** The size used to pick the box with the mouse */
+        private int hitWidth;
+        private int hitHeight;
+        private String[] fieldLines;
+        private List<String> methodLines;
+        /** The class and content version the layout was made from */
+        private UmlClass source;
+        private long contentVersion;
+        private Font font;
+        private Font hitFont;
+        /** The last update that found this class in the diagram */
+        private long seen;
+
+        private ClassBox(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name of the class in this box.
+         *
+         * @return The class name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the drawn bounds of this box.
+         *
+         * @return The bounds of the box outline.
+         */
+        public Rectangle getBounds() {
+            return new Rectangle(x, y, width, height);
+        }
+
+        /**
+         * Returns the area this box is drawn in, including the right and bottom edges of the outline.
+         *
+         * @return The painted area of the box.
+         */
+        public Rectangle getPaintBounds() {
+            return new Rectangle(x, y, width + 1, height + 1);
+        }
+
+        /**
+         * Returns the area of this box that picks it with the mouse.
+         *
+         * @return The area that can be clicked.
+         */
+        public Rectangle getHitBounds() {
+            return new Rectangle(x, y, hitWidth, hitHeight);
+        }
+
+        /**
+         * Returns the drawn height of this box.
+         *
+         * @return The height of the box.
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Returns the attribute lines drawn in this box.
+         *
+         * @return The attributes, as "type name".
+         */
+        public List<String> getFieldLines() {
+            return Collections.unmodifiableList(Arrays.asList(fieldLines));
+        }
+
+        /**
+         * Returns the method lines drawn in this box.
+         *
+         * @return The method signatures.
+         */
+        public List<String> getMethodLines() {
+            return methodLines;
+        }
+    }
+
+    /**
+     * The layout of one relationship line and its arrowhead.
+     */
+    public static final class Edge {
+        private final UmlRelationship relationship;
+        /** Where the relationship is in the list, which is the order lines are drawn in */
+        private final int order;
+        /** How many relationships between the same two classes come before this one */
+        private final int lineOffset;
+        private boolean visible;
+        private boolean dirty = true;
+        private int x1;
+        private int y1;
+        private int x2;
+        private int y2;
+        private int arrowX;
+        private int arrowY;
+
+        private Edge(UmlRelationship relationship, int order, int lineOffset) {
+            this.relationship = relationship;
+            this.order = order;
+            this.lineOffset = lineOffset;
+        }
+
+        /**
+         * Returns the relationship this line is drawn for.
+         *
+         * @return The relationship.
+         */
+        public UmlRelationship getRelationship() {
+            return relationship;
+        }
+
+        /**
+         * Returns whether this relationship starts and ends at the same class.
+         *
+         * @return {@code true} for a relationship from a class to itself.
+         */
+        public boolean isSelfLoop() {
+            return relationship.getSource().equals(relationship.getDestination());
+        }
+
+        /**
+         * Returns whether this line is drawn, which it is when both of its classes are drawn.
+         *
+         * @return {@code true} if the line is drawn.
+         */
+        public boolean isVisible() {
+            return visible;
+        }
+
+        /**
+         * Returns where the line starts. Lines from a class to itself have only an arrowhead.
+         *
+         * @return The start of the line.
+         */
+        public Point getStart() {
+            return new Point(x1, y1);
+        }
+
+        /**
+         * Returns where the line ends.
+         *
+         * @return The end of the line.
+         */
+        public Point getEnd() {
+            return new Point(x2, y2);
+        }
+
+        /**
+         * Returns the tip of the arrowhead.
+         *
+         * @return The point the arrowhead is drawn at.
+         */
+        public Point getArrowTip() {
+            return new Point(arrowX, arrowY);
+        }
+
+        /**
+         * Returns the area this line and its arrowhead are drawn in, or {@code null} if it is not drawn.
+         *
+         * @return The bounds of the line and arrowhead.
+         */
+        public Rectangle getBounds() {
+            if (!visible) {
+                return null;
+            }
+            Rectangle bounds = new Rectangle(arrowX - ARROW_SIZE, arrowY - 2 * ARROW_SIZE, 2 * ARROW_SIZE,
+                    2 * ARROW_SIZE);
+            if (!isSelfLoop()) {
+                bounds.add(new Rectangle(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1), Math.abs(y2 - y1)));
+            }
+            bounds.grow(1, 1); // Room for the line width
+            return bounds;
+        }
+    }
+
+    /** The boxes, by class name */
+    private final Map<String, ClassBox> boxes = new HashMap<>();
+
+    /** The relationship lines, in the order the relationships are listed */
+    private final List<Edge> edges = new ArrayList<>();
+
+    /** The relationship lines touching each class */
+    private final Map<String, List<Edge>> edgesByClass = new HashMap<>();
+
+    /** The boxes and the drawn lines, by where they are in the diagram */
+    private final SpatialGrid<ClassBox> boxGrid = new SpatialGrid<>(CELL_SIZE);
+    private final SpatialGrid<Edge> edgeGrid = new SpatialGrid<>(CELL_SIZE);
+
+    /** The relationships the lines were made from, to tell when they change */
+    private List<UmlRelationship> edgesSource;
+    private long edgesVersion = -1;
+
+    /** Counts updates, to find boxes whose class is no longer drawn */
+    private long generation;
+
+    /** Counts how many boxes and lines were laid out, for checking that unchanged ones are kept */
+    private long boxLayouts;
+    private long edgeLayouts;
+
+    /**
+     * Brings the layout up to date with the model and the class positions, redoing only what changed.
+     *
+     * @param model      The model being drawn.
+     * @param positions  The position of each class box.
+     * @param metrics    The font metrics the text is drawn with.
+     * @param hitMetrics The font metrics used to size the area that picks a box with the mouse.
+     */
+    public void update(UmlEditorModel model, Map<String, Point> positions, FontMetrics metrics,
+            FontMetrics hitMetrics) {
+        List<UmlRelationship> relationships = model.getRelationships();
+        if (relationships != edgesSource || model.getRelationshipsVersion() != edgesVersion) {
+            rebuildEdges(relationships);
+            edgesSource = relationships;
+            edgesVersion = model.getRelationshipsVersion();
+        }
+
+        generation++;
+        int drawn = 0;
+        for (Map.Entry<String, Point> entry : positions.entrySet()) {
+            String name = entry.getKey();
+            Point position = entry.getValue();
+            if (position == null) {
+                continue;
+            }
+            drawn++;
+            ClassBox box = boxes.get(name);
+            boolean changed = false;
+            if (box == null) {
+                box = new ClassBox(name);
+                boxes.put(name, box);
+                changed = true;
+            }
+            box.seen = generation;
+
+            UmlClass umlClass = model.getClass(name);
+            if (changed || box.source != umlClass
+                    || (umlClass != null && umlClass.getContentVersion() != box.contentVersion)
+                    || !metrics.getFont().equals(box.font) || !hitMetrics.getFont().equals(box.hitFont)) {
+                layOut(box, umlClass, metrics, hitMetrics);
+                changed = true;
+            }
+            if (box.x != position.x || box.y != position.y) {
+                box.x = position.x;
+                box.y = position.y;
+                changed = true;
+            }
+            if (changed) {
+                boxGrid.put(box, box.getPaintBounds().union(box.getHitBounds()));
+                markEdges(name);
+            }
+        }
+
+        // Drop the boxes of classes that are no longer drawn
+        if (boxes.size() != drawn) {
+            boxes.values().removeIf(box -> {
+                if (box.seen != generation) {
+                    boxGrid.remove(box);
+                    markEdges(box.name);
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        for (Edge edge : edges) {
+            if (edge.dirty) {
+                layOut(edge);
+            }
+        }
+    }
+
+    /**
+     * Draws the relationship lines and then the class boxes. Only the shapes inside the
+     * clip of the graphics are drawn, such as the visible part of the diagram or the area
+     * around a dragged class.
+     *
+     * @param g The graphics to draw with.
+     * @return The number of lines and boxes drawn.
+     */
+    public int paint(Graphics g) {
+        Graphics2D g2d = (Graphics2D) g;
+        Rectangle clip = g.getClipBounds();
+        int drawn = 0;
+        if (clip == null) {
+            for (Edge edge : edges) {
+                if (edge.visible) {
+                    paintEdge(g2d, edge);
+                    drawn++;
+                }
+            }
+            for (ClassBox box : boxes.values()) {
+                paintBox(g, box);
+            }
+            return drawn + boxes.size();
+        }
+
+        // Lines are drawn in the order of the relationships so overlapping lines look the same on every repaint
+        List<Edge> visibleEdges = edgeGrid.query(clip);
+        visibleEdges.sort((a, b) -> Integer.compare(a.order, b.order));
+        for (Edge edge : visibleEdges) {
+            paintEdge(g2d, edge);
+        }
+        int[] boxesDrawn = {0};
+        boxGrid.query(clip, box -> {
+            if (clip.intersects(box.x, box.y, box.width + 1, box.height + 1)) {
+                paintBox(g, box);
+                boxesDrawn[0]++;
+            }
+        });
+        return visibleEdges.size() + boxesDrawn[0];
+    }
+
+    /**
+     * Returns the box that is picked by clicking a point.
+     *
+     * @param point The point clicked.
+     * @return The box whose clickable area contains the point, or {@code null} if there is none.
+     */
+    public ClassBox findBoxAt(Point point) {
+        for (ClassBox box : boxGrid.at(point.x, point.y)) {
+            if (box.getHitBounds().contains(point)) {
+                return box;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the area covered by the whole diagram.
+     *
+     * @return The bounds of every box and line, or {@code null} if nothing is drawn.
+     */
+    public Rectangle getBounds() {
+        Rectangle bounds = null;
+        for (ClassBox box : boxes.values()) {
+            bounds = (bounds == null) ? box.getPaintBounds() : bounds.union(box.getPaintBounds());
+        }
+        for (Edge edge : edges) {
+            Rectangle edgeBounds = edge.getBounds();
+            if (edgeBounds != null) {
+                bounds = (bounds == null) ? edgeBounds : bounds.union(edgeBounds);
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns the number of class boxes laid out.
+     *
+     * @return The number of boxes.
+     */
+    public int getBoxCount() {
+        return boxes.size();
+    }
+
+    /**
+     * Returns the area covered by a class box and every relationship line attached to it,
+     * which is all that has to be repainted when only that class moves.
+     *
+     * @param className The name of the class.
+     * @return The area to repaint, or {@code null} if the class is not drawn.
+     */
+    public Rectangle getDirtyBounds(String className) {
+        ClassBox box = boxes.get(className);
+        if (box == null) {
+            return null;
+        }
+        Rectangle bounds = box.getPaintBounds();
+        for (Edge edge : getEdges(className)) {
+            Rectangle edgeBounds = edge.getBounds();
+            if (edgeBounds != null) {
+                bounds.add(edgeBounds);
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns the box of a class.
+     *
+     * @param className The name of the class.
+     * @return The box, or {@code null} if the class is not drawn.
+     */
+    public ClassBox getBox(String className) {
+        return boxes.get(className);
+    }
+
+    /**
+     * Returns every class box.
+     *
+     * @return The boxes, in no particular order.
+     */
+    public Collection<ClassBox> getBoxes() {
+        return Collections.unmodifiableCollection(boxes.values());
+    }
+
+    /**
+     * Returns every relationship line, including ones that are not drawn.
+     *
+     * @return The lines, in the order the relationships are listed.
+     */
+    public List<Edge> getEdges() {
+        return Collections.unmodifiableList(edges);
+    }
+
+    /**
+     * Returns the color relationship lines of a type are drawn in.
+     *
+     * @param type The type of relationship.
+     * @return The line color.
+     */
+    public static Color lineColor(RelationshipType type) {
+        switch (type) {
+            case Inheritance:
+                return Color.BLUE;
+            case Realization:
+                return Color.GREEN;
+            case Aggregation:
+                return Color.ORANGE;
+            default:
+                return Color.RED;
+        }
+    }
+
+    /**
+     * Returns the dash pattern relationship lines of a type are drawn with.
+     *
+     * @param type The type of relationship.
+     * @return The lengths of the dashes and gaps, or {@code null} for a solid line.
+     */
+    public static float[] dashPattern(RelationshipType type) {
+        switch (type) {
+            case Realization:
+                return DOTTED_PATTERN.clone();
+            case Aggregation:
+                return DASHED_PATTERN.clone();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the outline of the arrowhead for a type of relationship.
+     *
+     * @param type The type of relationship.
+     * @param x    The x coordinate of the tip.
+     * @param y    The y coordinate of the tip.
+     * @return The arrowhead shape.
+     */
+    public static Polygon arrowhead(RelationshipType type, int x, int y) {
+        int arrowSize = ARROW_SIZE;
+        switch (type) {
+            case Aggregation:
+            case Composition:
+                // Diamond
+                return new Polygon(new int[] { x, x - arrowSize, x, x + arrowSize },
+                        new int[] { y, y - arrowSize, y - (2 * arrowSize), y - arrowSize }, 4);
+            default:
+                // Triangle
+                return new Polygon(new int[] { x, x - arrowSize, x + arrowSize },
+                        new int[] { y, y - arrowSize, y - arrowSize }, 3);
+        }
+    }
+
+    /**
+     * Returns whether the arrowhead for a type of relationship is filled in or only outlined.
+     *
+     * @param type The type of relationship.
+     * @return {@code true} for a filled arrowhead.
+     */
+    public static boolean isArrowheadFilled(RelationshipType type) {
+        // Inheritance and realization get an open triangle, aggregation a hollow diamond
+        return type != RelationshipType.Inheritance && type != RelationshipType.Realization
+                && type != RelationshipType.Aggregation;
+    }
+
+    /**
+     * Returns the relationship lines touching a class.
+     *
+     * @param className The name of the class.
+     * @return The lines whose source or destination is the class.
+     */
+    public List<Edge> getEdges(String className) {
+        return edgesByClass.getOrDefault(className, List.of());
+    }
+
+    /**
+     * Returns how many times a class box has been laid out.
+     *
+     * @return The number of box layouts.
+     */
+    public long getBoxLayouts() {
+        return boxLayouts;
+    }
+
+    /**
+     * Returns how many times a relationship line has been laid out.
+     *
+     * @return The number of line layouts.
+     */
+    public long getEdgeLayouts() {
+        return edgeLayouts;
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Makes a line for every relationship, keeping count of the lines between each pair
+     * of classes so they can be drawn apart from each other.
+     */
+    private void rebuildEdges(List<UmlRelationship> relationships) {
+        edges.clear();
+        edgesByClass.clear();
+        edgeGrid.clear();
+        Map<String, Integer> relationshipCount = new HashMap<>();
+        for (UmlRelationship relationship : relationships) {
+            String relationshipKey = relationship.getSource() + "-" + relationship.getDestination();
+            int lineOffset = relationshipCount.getOrDefault(relationshipKey, 0);
+            relationshipCount.put(relationshipKey, lineOffset + 1);
+
+            Edge edge = new Edge(relationship, edges.size(), lineOffset);
+            edges.add(edge);
+            edgesByClass.computeIfAbsent(relationship.getSource(), name -> new ArrayList<>()).add(edge);
+            if (!edge.isSelfLoop()) {
+                edgesByClass.computeIfAbsent(relationship.getDestination(), name -> new ArrayList<>()).add(edge);
+            }
+        }
+    }
+
+    private void markEdges(String className) {
+        List<Edge> touching = edgesByClass.get(className);
+        if (touching != null) {
+            for (Edge edge : touching) {
+                edge.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Works out the size and text of a class box.
+     */
+    private void layOut(ClassBox box, UmlClass umlClass, FontMetrics metrics, FontMetrics hitMetrics) {
+        box.source = umlClass;
+        box.contentVersion = (umlClass != null) ? umlClass.getContentVersion() : 0;
+        box.font = metrics.getFont();
+        box.hitFont = hitMetrics.getFont();
+
+        int fieldCount = (umlClass != null) ? umlClass.getFields().size() : 0;
+        box.fieldLines = new String[fieldCount];
+        box.methodLines = (umlClass != null) ? umlClass.getMethods() : List.of();
+
+        // Start with a default width, and widen the box to fit the class name, attributes, and methods
+        int maxWidth = Math.max(100, metrics.stringWidth(box.name) + 20); // 20 for padding
+        int hitWidth = hitMetrics.stringWidth(box.name) + 100;
+        if (umlClass != null) {
+            int index = 0;
+            for (Map.Entry<String, String> entry : umlClass.getFields().entrySet()) {
+                String attribute = entry.getValue() + " " + entry.getKey(); // "type name"
+                box.fieldLines[index++] = attribute;
+                maxWidth = Math.max(maxWidth, metrics.stringWidth(attribute) + 20);
+                hitWidth = Math.max(hitWidth, hitMetrics.stringWidth(attribute) + 20);
+            }
+            for (String methodSignature : box.methodLines) {
+                maxWidth = Math.max(maxWidth, metrics.stringWidth(methodSignature) + 20);
+                hitWidth = Math.max(hitWidth, hitMetrics.stringWidth(methodSignature) + 20);
+            }
+        }
+
+        box.width = maxWidth;
+        box.height = 50 + (fieldCount * 15) + (box.methodLines.size() * 15); // Base height + attributes and methods
+        box.hitWidth = hitWidth;
+        box.hitHeight = 50 + (fieldCount * 15);
+        boxLayouts++;
+    }
+
+    /**
+     * Works out where a relationship line and its arrowhead go.
+     */
+    private void layOut(Edge edge) {
+        edge.dirty = false;
+        edgeLayouts++;
+        UmlRelationship relationship = edge.relationship;
+        ClassBox source = boxes.get(relationship.getSource());
+        ClassBox destination = boxes.get(relationship.getDestination());
+        edge.visible = source != null && destination != null && relationship.getType() != null;
+        if (!edge.visible) {
+            edgeGrid.remove(edge);
+            return;
+        }
+
+        int offset = edge.lineOffset * 5; // Vertical offset so lines between the same classes do not overlap
+        if (edge.isSelfLoop()) {
+            // The arrowhead goes at the top middle of the box
+            edge.arrowX = source.x + 50;
+            edge.arrowY = source.y + offset;
+            edgeGrid.put(edge, edge.getBounds());
+            return;
+        }
+
+        // Aggregation and composition end further below the box to leave room for the diamond
+        int arrowheadOffset = switch (relationship.getType()) {
+            case Aggregation, Composition -> 20;
+            default -> 10;
+        };
+        edge.x1 = source.x + 50; // Start from the bottom middle
+        edge.y1 = source.y + source.height + offset;
+        edge.x2 = destination.x + 50; // Line ends below the box
+        edge.y2 = destination.y + destination.height + arrowheadOffset;
+        edge.arrowX = edge.x2;
+        edge.arrowY = edge.y2;
+        edgeGrid.put(edge, edge.getBounds());
+    }
+
+    private static void paintEdge(Graphics2D g2d, Edge edge) {
+        // Determine color and line style based on relationship type
+        RelationshipType type = edge.relationship.getType();
+        Stroke stroke = switch (type) {
+            case Realization -> DOTTED;
+            case Aggregation -> DASHED;
+            default -> null;
+        };
+        g2d.setColor(lineColor(type));
+        if (!edge.isSelfLoop()) {
+            if (stroke != null) {
+                g2d.setStroke(stroke);
+            }
+            g2d.drawLine(edge.x1, edge.y1, edge.x2, edge.y2);
+            if (stroke != null) {
+                g2d.setStroke(SOLID); // Reset stroke to solid
+            }
+        }
+        drawArrow(g2d, edge.arrowX, edge.arrowY, edge.relationship);
+
+        // Reset the color to black for class boxes
+        g2d.setColor(Color.BLACK);
+    }
+
+    private static void paintBox(Graphics g, ClassBox box) {
+        int x = box.x;
+        int y = box.y;
+
+        // Draw the rectangle for the class
+        g.drawRect(x, y, box.width, box.height);
+
+        // Draw the class name
+        g.drawString(box.name, x + 10, y + 20);
+
+        // Draw a line to separate class name and attributes
+        g.drawLine(x, y + 30, x + box.width, y + 30);
+
+        // Draw attributes
+        int attributeY = y + 45; // Start position for attributes
+        for (String attribute : box.fieldLines) {
+            g.drawString(attribute, x + 10, attributeY);
+            attributeY += 15; // Move down for the next attribute
+        }
+
+        // Draw methods
+        int methodY = attributeY + 10; // Start position for methods (after attributes)
+        for (String methodSignature : box.methodLines) {
+            g.drawString(methodSignature, x + 10, methodY);
+            methodY += 15; // Move down for the next method
+        }
+    }
+
+    // Draw an arrowhead for the type of a relationship
+    private static void drawArrow(Graphics g, int x, int y, UmlRelationship relationship) {
+        Polygon shape = arrowhead(relationship.getType(), x, y);
+        if (isArrowheadFilled(relationship.getType())) {
+            g.fillPolygon(shape);
+        } else {
+            g.drawPolygon(shape); // Draw only the outline
+        }
+    }
+}
@@ -3,11 +3,39 @@ package Controller;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.imageio.ImageIO;
 import java.io.IOException;
 
+import Model.UmlClass;
+import Model.UmlEditorModel;
+
 public class ImageExporter {
+    /** The width and height of the tiles the diagram is drawn in */
+    public static final int TILE_SIZE = 512;
+
+    /** Blank space around the diagram */
+    static final int MARGIN = 20;
+
+    /** The font the diagram is drawn with, the same as the GUI's default */
+    static final Font FONT = new Font(Font.DIALOG, Font.PLAIN, 12);
+
+    /** Space between classes that have no position and are placed in a grid */
+    private static final int GRID_X = 250;
+    private static final int GRID_Y = 200;
 
     // Method to capture a JPanel as an image and export it to a file
     public static void exportPanelAsImage(JPanel panel, String fileName) {
@@ -28,4 +56,172 @@ public class ImageExporter {
             System.out.println("Error exporting image.");
         }
     }
+
+    /**
+     * Exports the whole diagram to a PNG file, however big it is. The diagram is drawn in
+     * tiles on a pool of worker threads, one row of tiles at a time, and each row is
+     * written to the file as soon as it is done, so only two rows of tiles are ever in
+     * memory. No window is needed, so this also works from the CLI and without a display.
+     *
+     * @param model     The model to draw.
+     * @param positions The position of each class box.
+     * @param fileName  The file to write.
+     * @return The size of the image written.
+     * @throws IOException If the file cannot be written.
+     */
+    public static Dimension exportDiagram(UmlEditorModel model, Map<String, Point> positions, String fileName)
+            throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16)) {
+            return exportDiagram(model, positions, out, Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Exports the whole diagram as a PNG image.
+     *
+     * @param model     The model to draw.
+     * @param positions The position of each class box.
+     * @param out       Where to write the image. It is closed when the image is done.
+     * @param threads   How many threads draw tiles.
+     * @return The size of the image written.
+     * @throws IOException If the image cannot be written.
+     */
+    public static Dimension exportDiagram(UmlEditorModel model, Map<String, Point> positions, OutputStream out,
+            int threads) throws IOException {
+        // Lay out the diagram once; the tiles only read the layout
+        DiagramScene scene = layOut(model, positions);
+        Rectangle area = exportArea(scene);
+        if ((long) area.width * TILE_SIZE > Integer.MAX_VALUE) {
+            throw new IOException("The diagram is too wide to export (" + area.width + " pixels)");
+        }
+
+        int columns = (area.width + TILE_SIZE - 1) / TILE_SIZE;
+        int rows = (area.height + TILE_SIZE - 1) / TILE_SIZE;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "image-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ThreadLocal<BufferedImage> tiles = ThreadLocal.withInitial(
+                () -> new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB));
+
+        try (PngWriter writer = new PngWriter(out, area.width, area.height)) {
+            // Two strips: one being written to the file while the tiles of the next are drawn
+            int[][] strips = { new int[area.width * TILE_SIZE], new int[area.width * TILE_SIZE] };
+            List<Future<?>> pending = drawStrip(pool, tiles, scene, area, 0, columns, strips[0]);
+            for (int row = 0; row < rows; row++) {
+                waitFor(pending);
+                pending = (row + 1 < rows)
+                        ? drawStrip(pool, tiles, scene, area, row + 1, columns, strips[(row + 1) % 2])
+                        : List.of();
+                int stripHeight = Math.min(TILE_SIZE, area.height - row * TILE_SIZE);
+                writer.writeRows(strips[row % 2], 0, area.width, stripHeight);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return area.getSize();
+    }
+
+    /**
+     * Returns the position of every class in a model, placing the classes that have no
+     * position in a grid so they do not cover each other.
+     *
+     * @param model The model.
+     * @return The position of each class, by class name.
+     */
+    public static Map<String, Point> positionsOf(UmlEditorModel model) {
+        Map<String, Point> positions = new HashMap<>();
+        List<String> unplaced = new ArrayList<>();
+        for (Map.Entry<String, UmlClass> entry : model.getClasses().entrySet()) {
+            Point position = entry.getValue().getPosition();
+            if (position != null) {
+                positions.put(entry.getKey(), position);
+            } else {
+                unplaced.add(entry.getKey());
+            }
+        }
+        unplaced.sort(null);
+        int columns = Math.max(1, (int) Math.ceil(Math.sqrt(unplaced.size())));
+        for (int i = 0; i < unplaced.size(); i++) {
+            positions.put(unplaced.get(i), new Point((i % columns) * GRID_X, (i / columns) * GRID_Y));
+        }
+        return positions;
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Lays out the diagram with the export font, without needing a window.
+     */
+    static DiagramScene layOut(UmlEditorModel model, Map<String, Point> positions) {
+        DiagramScene scene = new DiagramScene();
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        Graphics2D scratchGraphics = scratch.createGraphics();
+        FontMetrics metrics = scratchGraphics.getFontMetrics(FONT);
+        scratchGraphics.dispose();
+        scene.update(model, positions, metrics, metrics);
+        return scene;
+    }
+
+    /**
+     * Returns the area of the diagram to export: everything drawn, with a margin around it.
+     */
+    static Rectangle exportArea(DiagramScene scene) {
+        Rectangle area = scene.getBounds();
+        if (area == null) {
+            area = new Rectangle(0, 0, 0, 0);
+        }
+        area.grow(MARGIN, MARGIN);
+        return area;
+    }
+
+    /**
+     * Starts drawing every tile in one row of tiles into a strip of pixels.
+     */
+    private static List<Future<?>> drawStrip(ExecutorService pool, ThreadLocal<BufferedImage> tiles,
+            DiagramScene scene, Rectangle area, int row, int columns, int[] strip) {
+        List<Future<?>> futures = new ArrayList<>(columns);
+        for (int column = 0; column < columns; column++) {
+            int tileX = column * TILE_SIZE;
+            int tileY = row * TILE_SIZE;
+            int tileWidth = Math.min(TILE_SIZE, area.width - tileX);
+            int tileHeight = Math.min(TILE_SIZE, area.height - tileY);
+            futures.add(pool.submit(() -> {
+                BufferedImage tile = tiles.get();
+                Graphics2D g = tile.createGraphics();
+                try {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+                    g.setColor(Color.BLACK);
+                    g.setFont(FONT);
+                    g.translate(-(area.x + tileX), -(area.y + tileY));
+                    g.setClip(area.x + tileX, area.y + tileY, tileWidth, tileHeight);
+                    scene.paint(g);
+                } finally {
+                    g.dispose();
+                }
+
+                // Copy the tile into its place in the strip
+                int[] pixels = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+                for (int y = 0; y < tileHeight; y++) {
+                    System.arraycopy(pixels, y * TILE_SIZE, strip, y * area.width + tileX, tileWidth);
+                }
+            }));
+        }
+        return futures;
+    }
+
+    private static void waitFor(List<Future<?>> futures) throws IOException {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Image export was interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to draw the diagram: " + e.getCause(), e.getCause());
+        }
+    }
 }
@@ -0,0 +1,195 @@
+package Controller;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a PNG image a few rows at a time, so an image far bigger than memory can be
+ * written as long as its rows are handed over from top to bottom. Pixels are written as
+ * 8-bit RGB, and each row is stored as its difference from the row above, which makes the
+ * plain background of a diagram compress to almost nothing.
+ */
+public class PngWriter implements Closeable {
+    /** The bytes every PNG file starts with */
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    /** The "Up" filter, which stores each byte as its difference from the byte above it */
+    private static final int FILTER_UP = 2;
+
+    /** How many compressed bytes to collect before writing them as one chunk */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final ChunkStream chunks = new ChunkStream();
+    private final DeflaterOutputStream compressed;
+
+    /** The row being written and the row above it, as RGB bytes */
+    private byte[] row;
+    private byte[] previous;
+    private final byte[] filtered;
+
+    private int rowsWritten;
+    private boolean closed;
+
+    /**
+     * Starts writing an image.
+     *
+     * @param out    Where to write the image. It is closed when the writer is closed.
+     * @param width  The width of the image, in pixels.
+     * @param height The height of the image, in pixels.
+     * @throws IOException If the start of the image cannot be written.
+     */
+    public PngWriter(OutputStream out, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive");
+        }
+        if ((long) width * 3 + 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Image is too wide");
+        }
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.row = new byte[width * 3];
+        this.previous = new byte[width * 3];
+        this.filtered = new byte[width * 3 + 1];
+        this.compressed = new DeflaterOutputStream(chunks, deflater, CHUNK_SIZE);
+
+        this.out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8; // Bits per sample
+        header[9] = 2; // RGB
+        header[10] = 0; // Deflate compression
+        header[11] = 0; // Standard filtering
+        header[12] = 0; // Not interlaced
+        writeChunk("IHDR", header, header.length);
+    }
+
+    /**
+     * Writes the next rows of the image.
+     *
+     * @param pixels The pixels, as RGB values; any alpha is ignored.
+     * @param offset Where the first pixel of the first row is in the array.
+     * @param stride How far apart the rows are in the array.
+     * @param rows   How many rows to write.
+     * @throws IOException If the rows cannot be written.
+     */
+    public void writeRows(int[] pixels, int offset, int stride, int rows) throws IOException {
+        if (closed) {
+            throw new IOException("Image is already closed");
+        }
+        if (rowsWritten + rows > height) {
+            throw new IOException("More rows than the image height");
+        }
+        for (int r = 0; r < rows; r++) {
+            int start = offset + r * stride;
+            for (int x = 0, i = 0; x < width; x++) {
+                int pixel = pixels[start + x];
+                row[i++] = (byte) (pixel >> 16);
+                row[i++] = (byte) (pixel >> 8);
+                row[i++] = (byte) pixel;
+            }
+            filtered[0] = FILTER_UP;
+            for (int i = 0; i < row.length; i++) {
+                filtered[i + 1] = (byte) (row[i] - previous[i]);
+            }
+            compressed.write(filtered);
+
+            byte[] swap = previous;
+            previous = row;
+            row = swap;
+        }
+        rowsWritten += rows;
+    }
+
+    /**
+     * Finishes the image and closes the stream it was written to.
+     *
+     * @throws IOException If the image cannot be finished, or fewer rows were written than its height.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            compressed.finish();
+            chunks.flushChunk();
+            writeChunk("IEND", new byte[0], 0);
+            if (rowsWritten != height) {
+                throw new IOException("Only " + rowsWritten + " of " + height + " rows were written");
+            }
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Collects compressed bytes and writes them out as image data chunks.
+     */
+    private final class ChunkStream extends OutputStream {
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int count;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, n);
+                count += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        void flushChunk() throws IOException {
+            if (count > 0) {
+                writeChunk("IDAT", buffer, count);
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package Controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import Model.JsonUtils;
+import Model.Metrics;
+import Model.RelationshipType;
+import Model.UmlEditorModel;
+
+/**
+ * Runs a script of CLI commands without prompting. Each line of the script is one whole
+ * command with its arguments, so a file of thousands of edits can be applied in one go.
+ * Nothing is printed while the script runs; the lines that failed are collected and
+ * reported at the end with how fast the script ran.
+ *
+ * Methods are written as a signature such as {@code run(int count, String name)}, followed
+ * by the return type. Blank lines and lines starting with {@code #} are skipped.
+ *
+ * <pre>
+ * add-class Shape
+ * add-field Shape int sides
+ * add-method Shape scale(double factor, boolean keepCenter) void
+ * add-relationship Circle Shape Inheritance
+ * </pre>
+ */
+public class ScriptRunner {
+    /** The commands a script can use, with their arguments, for error messages and help */
+    public static final List<String> USAGE = List.of(
+            "add-class <class>",
+            "delete-class <class>",
+            "rename-class <class> <new name>",
+            "add-field <class> <type> <field>",
+            "delete-field <class> <field>",
+            "rename-field <class> <field> <new name>",
+            "change-field-type <class> <field> <new type>",
+            "add-method <class> <name(type name, ...)> <return type>",
+            "delete-method <class> <name(type name, ...)> <return type>",
+            "rename-method <class> <name(type name, ...)> <return type> <new name>",
+            "change-return-type <class> <name(type name, ...)> <return type> <new return type>",
+            "remove-parameter <class> <name(type name, ...)> <return type> <parameter>",
+            "change-parameters <class> <name(type name, ...)> <return type> <(type name, ...)>",
+            "add-relationship <source> <destination> <type>",
+            "delete-relationship <source> <destination> <type>",
+            "change-relationship-type <source> <destination> <type> <new type>",
+            "undo",
+            "redo",
+            "begin",
+            "commit",
+            "rollback",
+            "save <file>",
+            "load <file>",
+            "metrics");
+
+    /** The most failed lines kept for the summary */
+    private static final int MAX_FAILURES_KEPT = 100;
+
+    /**
+     * A line of the script that could not be run.
+     */
+    public static final class Failure {
+        private final int lineNumber;
+        private final String line;
+        private final String reason;
+
+        private Failure(int lineNumber, String line, String reason) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.reason = reason;
+        }
+
+        /**
+         * Returns the number of the line, counting from 1.
+         *
+         * @return The line number.
+         */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Returns the text of the line.
+         *
+         * @return The line.
+         */
+        public String getLine() {
+            return line;
+        }
+
+        /**
+         * Returns why the line failed.
+         *
+         * @return The reason.
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + lineNumber + ": " + reason + " (" + line + ")";
+        }
+    }
+
+    /**
+     * What happened when a script was run.
+     */
+    public static final class Result {
+        private final int commands;
+        private final int failureCount;
+        private final List<Failure> failures;
+        private final long elapsedNanos;
+
+        private Result(int commands, int failureCount, List<Failure> failures, long elapsedNanos) {
+            this.commands = commands;
+            this.failureCount = failureCount;
+            this.failures = Collections.unmodifiableList(failures);
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns the number of commands run, including the ones that failed.
+         *
+         * @return The number of commands.
+         */
+        public int getCommands() {
+            return commands;
+        }
+
+        /**
+         * Returns the number of commands that failed.
+         *
+         * @return The number of failures.
+         */
+        public int getFailureCount() {
+            return failureCount;
+        }
+
+        /**
+         * Returns the first of the lines that failed.
+         *
+         * @return Up to the first 100 failed lines.
+         */
+        public List<Failure> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Returns how long the script took to run.
+         *
+         * @return The time taken, in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns a report of how many commands ran, how fast, and which failed.
+         *
+         * @return The report, one or more lines.
+         */
+        public String summary() {
+            double seconds = elapsedNanos / 1e9;
+            StringBuilder summary = new StringBuilder();
+            summary.append(String.format("Ran %d commands in %.3f s (%.0f commands/s), %d failed.", commands,
+                    seconds, (seconds > 0) ? commands / seconds : 0.0, failureCount));
+            for (Failure failure : failures) {
+                summary.append(System.lineSeparator()).append("  ").append(failure);
+            }
+            if (failureCount > failures.size()) {
+                summary.append(System.lineSeparator()).append("  ... and ").append(failureCount - failures.size())
+                        .append(" more");
+            }
+            return summary.toString();
+        }
+    }
+
+    private UmlEditorModel model;
+    private UmlEditor editor;
+
+    /**
+     * Creates a script runner that edits a model.
+     *
+     * @param model  The model to edit.
+     * @param editor The editor the changes are made through, so they can be undone.
+     */
+    public ScriptRunner(UmlEditorModel model, UmlEditor editor) {
+        this.model = model;
+        this.editor = editor;
+    }
+
+    /**
+     * Returns the model being edited, which is a new one after a {@code load} command.
+     *
+     * @return The model.
+     */
+    public UmlEditorModel getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the editor the changes are made through, which is a new one after a {@code load} command.
+     *
+     * @return The editor.
+     */
+    public UmlEditor getEditor() {
+        return editor;
+    }
+
+    /**
+     * Runs a script file.
+     *
+     * @param script The script file.
+     * @return What happened.
+     * @throws IOException If the file cannot be read.
+     */
+    public Result run(Path script) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(script, StandardCharsets.UTF_8)) {
+            return run(reader);
+        }
+    }
+
+    /**
+     * Runs a script, one command per line.
+     *
+     * @param reader The script.
+     * @return What happened.
+     * @throws IOException If the script cannot be read.
+     */
+    public Result run(BufferedReader reader) throws IOException {
+        long start = System.nanoTime();
+        int commands = 0;
+        int failureCount = 0;
+        List<Failure> failures = new ArrayList<>();
+        editor.setQuiet(true);
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                commands++;
+                String reason = execute(trimmed);
+                if (reason != null) {
+                    failureCount++;
+                    if (failures.size() < MAX_FAILURES_KEPT) {
+                        failures.add(new Failure(lineNumber, trimmed, reason));
+                    }
+                }
+            }
+            if (editor.isInTransaction()) {
+                // A script that stops part way through a transaction leaves the model as it was
+                editor.rollbackTransaction();
+                failureCount++;
+                if (failures.size() < MAX_FAILURES_KEPT) {
+                    failures.add(new Failure(lineNumber, "", "transaction was not committed, rolled back"));
+                }
+            }
+        } finally {
+            editor.setQuiet(false);
+        }
+        return new Result(commands, failureCount, failures, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs one command.
+     *
+     * @param line The command and its arguments.
+     * @return {@code null} if the command worked, or why it failed.
+     */
+    public String execute(String line) {
+        List<String> words = split(line);
+        if (words.isEmpty()) {
+            return null;
+        }
+        String command = words.get(0);
+        List<String> args = words.subList(1, words.size());
+        try {
+            switch (command) {
+                case "add-class":
+                    expect(args, 1, command);
+                    return check(editor.addClass(args.get(0)));
+                case "delete-class":
+                    expect(args, 1, command);
+                    return check(editor.deleteClass(args.get(0)));
+                case "rename-class":
+                    expect(args, 2, command);
+                    return check(editor.renameClass(args.get(0), args.get(1)));
+                case "add-field":
+                    expect(args, 3, command);
+                    return check(editor.addField(args.get(0), args.get(1), args.get(2)));
+                case "delete-field":
+                    expect(args, 2, command);
+                    return check(editor.deleteField(args.get(0), args.get(1)));
+                case "rename-field":
+                    expect(args, 3, command);
+                    return check(editor.renameField(args.get(0), args.get(1), args.get(2)));
+                case "change-field-type":
+                    expect(args, 3, command);
+                    return check(editor.updateFieldType(args.get(0), args.get(1), args.get(2)));
+                case "add-method":
+                    expect(args, 3, command);
+                    return check(editor.addMethod(args.get(0), methodName(args.get(1)), parameters(args.get(1)),
+                            args.get(2)));
+                case "delete-method":
+                    expect(args, 3, command);
+                    return check(editor.deleteMethod(args.get(0), methodName(args.get(1)), parameters(args.get(1)),
+                            args.get(2)));
+                case "rename-method":
+                    expect(args, 4, command);
+                    return check(editor.renameMethod(args.get(0), methodName(args.get(1)), parameters(args.get(1)),
+                            args.get(2), args.get(3)));
+                case "change-return-type":
+                    expect(args, 4, command);
+                    return check(editor.changeReturnType(args.get(0), methodName(args.get(1)),
+                            parameters(args.get(1)), args.get(2), args.get(3)));
+                case "remove-parameter":
+                    expect(args, 4, command);
+                    return removeParameter(args);
+                case "change-parameters":
+                    expect(args, 4, command);
+                    return check(editor.changeParameters(args.get(0), methodName(args.get(1)),
+                            parameters(args.get(1)), args.get(2), parameters(args.get(3))));
+                case "add-relationship":
+                    expect(args, 3, command);
+                    return check(editor.addRelationship(args.get(0), args.get(1), relationshipType(args.get(2))));
+                case "delete-relationship":
+                    expect(args, 3, command);
+                    return check(editor.deleteRelationship(args.get(0), args.get(1), relationshipType(args.get(2))));
+                case "change-relationship-type":
+                    expect(args, 4, command);
+                    return check(editor.changeRelationshipType(args.get(0), args.get(1),
+                            relationshipType(args.get(2)), relationshipType(args.get(3))));
+                case "undo":
+                    expect(args, 0, command);
+                    if (editor.isInTransaction()) {
+                        return "cannot undo inside a transaction";
+                    }
+                    return editor.undo() ? null : "nothing to undo";
+                case "redo":
+                    expect(args, 0, command);
+                    if (editor.isInTransaction()) {
+                        return "cannot redo inside a transaction";
+                    }
+                    return editor.redo() ? null : "nothing to redo";
+                case "begin":
+                    expect(args, 0, command);
+                    editor.beginTransaction();
+                    return null;
+                case "commit":
+                    expect(args, 0, command);
+                    editor.commitTransaction();
+                    return null;
+                case "rollback":
+                    expect(args, 0, command);
+                    editor.rollbackTransaction();
+                    return null;
+                case "save":
+                    expect(args, 1, command);
+                    JsonUtils.save(model, args.get(0));
+                    return null;
+                case "load":
+                    expect(args, 1, command);
+                    if (editor.isInTransaction()) {
+                        return "cannot load inside a transaction";
+                    }
+                    model = JsonUtils.load(args.get(0));
+                    editor = new UmlEditor(model);
+                    editor.setQuiet(true);
+                    return null;
+                case "metrics":
+                    expect(args, 0, command);
+                    System.out.print(Metrics.report());
+                    return null;
+                default:
+                    return "unknown command '" + command + "'";
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return e.getMessage();
+        } catch (IOException e) {
+            return "file error: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Runs script files from command-line arguments against a new, empty model. Scripts
+     * can {@code load} a model to start from and {@code save} the result.
+     *
+     * @param args The script files, run in order on the same model.
+     * @return The exit status: 0 if every command worked, 1 if any failed, 2 if a script cannot be read.
+     */
+    public static int run(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: --script <script file>...");
+            System.out.println("Commands, one per line:");
+            for (String usage : USAGE) {
+                System.out.println("  " + usage);
+            }
+            return 2;
+        }
+
+        UmlEditorModel model = new UmlEditorModel();
+        ScriptRunner runner = new ScriptRunner(model, new UmlEditor(model));
+        int failures = 0;
+        for (String script : args) {
+            try {
+                Result result = runner.run(Paths.get(script));
+                System.out.println(script + ": " + result.summary());
+                failures += result.getFailureCount();
+            } catch (IOException e) {
+                System.out.println("Failed to read script '" + script + "': " + e.getMessage());
+                return 2;
+            }
+        }
+        return (failures == 0) ? 0 : 1;
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    private static String check(boolean done) {
+        return done ? null : "rejected by the model";
+    }
+
+    private static void expect(List<String> args, int count, String command) {
+        if (args.size() != count) {
+            for (String usage : USAGE) {
+                if (usage.equals(command) || usage.startsWith(command + " ")) {
+                    throw new IllegalArgumentException("usage: " + usage);
+                }
+            }
+            throw new IllegalArgumentException("wrong number of arguments");
+        }
+    }
+
+    private String removeParameter(List<String> args) {
+        List<String[]> parameters = parameters(args.get(1));
+        for (String[] parameter : parameters) {
+            if (parameter[1].equals(args.get(3))) {
+                return check(editor.removeParameter(args.get(0), methodName(args.get(1)), parameters, args.get(2),
+                        parameter));
+            }
+        }
+        return "no parameter '" + args.get(3) + "' in " + args.get(1);
+    }
+
+    private static RelationshipType relationshipType(String name) {
+        for (RelationshipType type : RelationshipType.values()) {
+            if (type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("unknown relationship type '" + name + "'");
+    }
+
+    /**
+     * Returns the name in a signature such as {@code run(int count)}.
+     */
+    private static String methodName(String signature) {
+        int open = signature.indexOf('(');
+        if (open <= 0 || !signature.endsWith(")")) {
+            throw new IllegalArgumentException("expected a method signature such as name(type name), got '"
+                    + signature + "'");
+        }
+        return signature.substring(0, open);
+    }
+
+    /**
+     * Returns the parameters in a signature such as {@code run(int count)} or a list such as {@code (int count)}.
+     */
+    private static List<String[]> parameters(String signature) {
+        int open = signature.indexOf('(');
+        if (open < 0 || !signature.endsWith(")")) {
+            throw new IllegalArgumentException("expected parameters such as (type name), got '" + signature + "'");
+        }
+        String inside = signature.substring(open + 1, signature.length() - 1).trim();
+        List<String[]> parameters = new ArrayList<>();
+        if (inside.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : inside.split(",")) {
+            String[] pair = parameter.trim().split("\\s+");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("expected a parameter as 'type name', got '" + parameter.trim()
+                        + "'");
+            }
+            parameters.add(pair);
+        }
+        return parameters;
+    }
+
+    /**
+     * Splits a line into words at spaces, keeping everything between parentheses in one word.
+     */
+    private static List<String> split(String line) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+            }
+            if (Character.isWhitespace(c) && depth == 0) {
+                if (word.length() > 0) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                }
+            } else {
+                word.append(c);
+            }
+        }
+        if (word.length() > 0) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+}
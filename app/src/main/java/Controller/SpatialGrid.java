@@ -0,0 +1,257 @@
+package Controller;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A uniform grid over the diagram that finds the shapes in an area without looking at
+ * every shape. Each shape is filed under every grid cell its bounds overlap, so finding
+ * the shapes at a point or in the visible area only looks at the shapes in those cells.
+ * Shapes that would cover a very large number of cells, such as a line across the whole
+ * diagram, are kept in a separate list that every search looks at.
+ *
+ * @param <T> The type of the shapes.
+ */
+public class SpatialGrid<T> {
+    /** Shapes covering more cells than this on a side are not filed under cells */
+    private static final int MAX_CELLS_PER_SIDE = 64;
+
+    /**
+     * A shape, its bounds, and the range of cells it is filed under.
+     */
+    private static final class Entry<T> {
+        final T item;
+        final Rectangle bounds;
+        final int minColumn;
+        final int minRow;
+        final int maxColumn;
+        final int maxRow;
+
+        Entry(T item, Rectangle bounds, int minColumn, int minRow, int maxColumn, int maxRow) {
+            this.item = item;
+            this.bounds = bounds;
+            this.minColumn = minColumn;
+            this.minRow = minRow;
+            this.maxColumn = maxColumn;
+            this.maxRow = maxRow;
+        }
+    }
+
+    /** The width and height of a cell */
+    private final int cellSize;
+
+    /** The shapes filed under each cell, keyed by the cell's column and row */
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+
+    /** The shapes too big to file under cells */
+    private final List<Entry<T>> oversized = new ArrayList<>();
+
+    /** Every shape, by the shape itself */
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+
+    /**
+     * Creates an empty grid.
+     *
+     * @param cellSize The width and height of a cell, in pixels.
+     */
+    public SpatialGrid(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds a shape, or moves it if it is already in the grid.
+     *
+     * @param item   The shape.
+     * @param bounds The area the shape covers.
+     */
+    public void put(T item, Rectangle bounds) {
+        Entry<T> old = entries.get(item);
+        if (old != null) {
+            if (old.bounds.equals(bounds)) {
+                return;
+            }
+            remove(item);
+        }
+
+        Rectangle copy = new Rectangle(bounds);
+        int minColumn = cellOf(copy.x);
+        int minRow = cellOf(copy.y);
+        int maxColumn = cellOf(copy.x + Math.max(copy.width, 1) - 1);
+        int maxRow = cellOf(copy.y + Math.max(copy.height, 1) - 1);
+        Entry<T> entry = new Entry<>(item, copy, minColumn, minRow, maxColumn, maxRow);
+        entries.put(item, entry);
+
+        if (isOversized(entry)) {
+            oversized.add(entry);
+            return;
+        }
+        for (int column = minColumn; column <= maxColumn; column++) {
+            for (int row = minRow; row <= maxRow; row++) {
+                cells.computeIfAbsent(key(column, row), key -> new ArrayList<>(4)).add(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes a shape.
+     *
+     * @param item The shape.
+     * @return {@code true} if the shape was in the grid.
+     */
+    public boolean remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        if (isOversized(entry)) {
+            oversized.remove(entry);
+            return true;
+        }
+        for (int column = entry.minColumn; column <= entry.maxColumn; column++) {
+            for (int row = entry.minRow; row <= entry.maxRow; row++) {
+                long key = key(column, row);
+                List<Entry<T>> cell = cells.get(key);
+                if (cell != null) {
+                    cell.remove(entry);
+                    if (cell.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes every shape.
+     */
+    public void clear() {
+        cells.clear();
+        oversized.clear();
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of shapes in the grid.
+     *
+     * @return The number of shapes.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the bounds a shape was added with.
+     *
+     * @param item The shape.
+     * @return The bounds of the shape, or {@code null} if it is not in the grid.
+     */
+    public Rectangle getBounds(T item) {
+        Entry<T> entry = entries.get(item);
+        return (entry != null) ? new Rectangle(entry.bounds) : null;
+    }
+
+    /**
+     * Passes every shape whose bounds intersect an area to an action, each shape once.
+     *
+     * @param area   The area to search.
+     * @param action What to do with each shape found.
+     */
+    public void query(Rectangle area, Consumer<T> action) {
+        for (Entry<T> entry : oversized) {
+            if (entry.bounds.intersects(area)) {
+                action.accept(entry.item);
+            }
+        }
+
+        int minColumn = cellOf(area.x);
+        int minRow = cellOf(area.y);
+        int maxColumn = cellOf(area.x + Math.max(area.width, 1) - 1);
+        int maxRow = cellOf(area.y + Math.max(area.height, 1) - 1);
+        if ((long) (maxColumn - minColumn + 1) * (maxRow - minRow + 1) > cells.size()) {
+            // The area covers more cells than are filled, so look at the filled ones instead
+            for (Entry<T> entry : entries.values()) {
+                if (!isOversized(entry) && entry.bounds.intersects(area)) {
+                    action.accept(entry.item);
+                }
+            }
+            return;
+        }
+
+        for (int column = minColumn; column <= maxColumn; column++) {
+            for (int row = minRow; row <= maxRow; row++) {
+                List<Entry<T>> cell = cells.get(key(column, row));
+                if (cell == null) {
+                    continue;
+                }
+                for (Entry<T> entry : cell) {
+                    // A shape in several cells is only reported from the first cell the search shares with it
+                    if (column == Math.max(entry.minColumn, minColumn) && row == Math.max(entry.minRow, minRow)
+                            && entry.bounds.intersects(area)) {
+                        action.accept(entry.item);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns every shape whose bounds intersect an area.
+     *
+     * @param area The area to search.
+     * @return The shapes found.
+     */
+    public List<T> query(Rectangle area) {
+        List<T> found = new ArrayList<>();
+        query(area, found::add);
+        return found;
+    }
+
+    /**
+     * Returns the shapes whose bounds contain a point.
+     *
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @return The shapes found.
+     */
+    public List<T> at(int x, int y) {
+        List<T> found = new ArrayList<>();
+        for (Entry<T> entry : oversized) {
+            if (entry.bounds.contains(x, y)) {
+                found.add(entry.item);
+            }
+        }
+        List<Entry<T>> cell = cells.get(key(cellOf(x), cellOf(y)));
+        if (cell != null) {
+            for (Entry<T> entry : cell) {
+                if (entry.bounds.contains(x, y)) {
+                    found.add(entry.item);
+                }
+            }
+        }
+        return found;
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    private int cellOf(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    private static boolean isOversized(Entry<?> entry) {
+        return entry.maxColumn - entry.minColumn >= MAX_CELLS_PER_SIDE
+                || entry.maxRow - entry.minRow >= MAX_CELLS_PER_SIDE;
+    }
+}
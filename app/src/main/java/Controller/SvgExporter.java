@@ -0,0 +1,187 @@
+package Controller;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import Model.RelationshipType;
+import Model.UmlEditorModel;
+
+/**
+ * Exports the diagram as an SVG vector image. The boxes and lines are laid out exactly as
+ * the GUI draws them, then written out one element at a time as SVG text, so nothing is
+ * rasterised and the file stays small and sharp at any zoom. Classes are written in name
+ * order so the same model always gives the same file.
+ */
+public class SvgExporter {
+
+    /**
+     * Exports the whole diagram to an SVG file.
+     *
+     * @param model     The model to draw.
+     * @param positions The position of each class box.
+     * @param fileName  The file to write.
+     * @return The size of the image written.
+     * @throws IOException If the file cannot be written.
+     */
+    public static Dimension exportDiagram(UmlEditorModel model, Map<String, Point> positions, String fileName)
+            throws IOException {
+        try (Writer out = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8)) {
+            return exportDiagram(model, positions, out);
+        }
+    }
+
+    /**
+     * Exports the whole diagram as SVG text.
+     *
+     * @param model     The model to draw.
+     * @param positions The position of each class box.
+     * @param out       Where to write the SVG. It is flushed but not closed.
+     * @return The size of the image written.
+     * @throws IOException If the SVG cannot be written.
+     */
+    public static Dimension exportDiagram(UmlEditorModel model, Map<String, Point> positions, Writer out)
+            throws IOException {
+        DiagramScene scene = ImageExporter.layOut(model, positions);
+        Rectangle area = ImageExporter.exportArea(scene);
+        Writer writer = (out instanceof BufferedWriter) ? out : new BufferedWriter(out, 1 << 16);
+
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + area.width + "\" height=\""
+                + area.height + "\" viewBox=\"" + area.x + " " + area.y + " " + area.width + " " + area.height
+                + "\">\n");
+        writeStyle(writer);
+        writer.write("<rect x=\"" + area.x + "\" y=\"" + area.y + "\" width=\"" + area.width + "\" height=\""
+                + area.height + "\" fill=\"#ffffff\"/>\n");
+
+        // Relationship lines first, in the order the relationships are listed, then the class boxes on top
+        for (DiagramScene.Edge edge : scene.getEdges()) {
+            if (edge.isVisible()) {
+                writeEdge(writer, edge);
+            }
+        }
+        List<DiagramScene.ClassBox> boxes = new ArrayList<>(scene.getBoxes());
+        boxes.sort(Comparator.comparing(DiagramScene.ClassBox::getName));
+        for (DiagramScene.ClassBox box : boxes) {
+            writeBox(writer, box);
+        }
+
+        writer.write("</svg>\n");
+        writer.flush();
+        return area.getSize();
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Writes the styles shared by all boxes and by all lines of each relationship type,
+     * so each element only has to name its class.
+     */
+    private static void writeStyle(Writer writer) throws IOException {
+        writer.write("<style>\n");
+        writer.write("text{font-family:" + ImageExporter.FONT.getFamily() + ",sans-serif;font-size:"
+                + ImageExporter.FONT.getSize() + "px;fill:#000000}\n");
+        writer.write(".box{fill:none;stroke:#000000}\n");
+        for (RelationshipType type : RelationshipType.values()) {
+            String color = hex(DiagramScene.lineColor(type));
+            float[] dashes = DiagramScene.dashPattern(type);
+            writer.write("." + type + "{fill:none;stroke:" + color);
+            if (dashes != null) {
+                writer.write(";stroke-dasharray:");
+                for (int i = 0; i < dashes.length; i++) {
+                    writer.write((i > 0 ? "," : "") + number(dashes[i]));
+                }
+            }
+            writer.write("}\n");
+            if (DiagramScene.isArrowheadFilled(type)) {
+                writer.write("." + type + "-head{fill:" + color + ";stroke:none}\n");
+            } else {
+                writer.write("." + type + "-head{fill:none;stroke:" + color + "}\n");
+            }
+        }
+        writer.write("</style>\n");
+    }
+
+    private static void writeEdge(Writer writer, DiagramScene.Edge edge) throws IOException {
+        RelationshipType type = edge.getRelationship().getType();
+        if (!edge.isSelfLoop()) {
+            Point start = edge.getStart();
+            Point end = edge.getEnd();
+            writer.write("<line class=\"" + type + "\" x1=\"" + start.x + "\" y1=\"" + start.y + "\" x2=\"" + end.x
+                    + "\" y2=\"" + end.y + "\"/>\n");
+        }
+        Point tip = edge.getArrowTip();
+        Polygon head = DiagramScene.arrowhead(type, tip.x, tip.y);
+        writer.write("<polygon class=\"" + type + "-head\" points=\"");
+        for (int i = 0; i < head.npoints; i++) {
+            writer.write((i > 0 ? " " : "") + head.xpoints[i] + "," + head.ypoints[i]);
+        }
+        writer.write("\"/>\n");
+    }
+
+    private static void writeBox(Writer writer, DiagramScene.ClassBox box) throws IOException {
+        Rectangle bounds = box.getBounds();
+        int x = bounds.x;
+        int y = bounds.y;
+
+        // The same layout as the box drawn in the GUI
+        writer.write("<g>\n<rect class=\"box\" x=\"" + x + "\" y=\"" + y + "\" width=\"" + bounds.width
+                + "\" height=\"" + bounds.height + "\"/>\n");
+        writeText(writer, box.getName(), x + 10, y + 20);
+        writer.write("<line class=\"box\" x1=\"" + x + "\" y1=\"" + (y + 30) + "\" x2=\"" + (x + bounds.width)
+                + "\" y2=\"" + (y + 30) + "\"/>\n");
+        int lineY = y + 45;
+        for (String attribute : box.getFieldLines()) {
+            writeText(writer, attribute, x + 10, lineY);
+            lineY += 15;
+        }
+        lineY += 10;
+        for (String methodSignature : box.getMethodLines()) {
+            writeText(writer, methodSignature, x + 10, lineY);
+            lineY += 15;
+        }
+        writer.write("</g>\n");
+    }
+
+    private static void writeText(Writer writer, String text, int x, int y) throws IOException {
+        writer.write("<text x=\"" + x + "\" y=\"" + y + "\" xml:space=\"preserve\">");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    writer.write("&lt;");
+                    break;
+                case '>':
+                    writer.write("&gt;");
+                    break;
+                case '&':
+                    writer.write("&amp;");
+                    break;
+                default:
+                    writer.write(c);
+                    break;
+            }
+        }
+        writer.write("</text>\n");
+    }
+
+    private static String hex(Color color) {
+        return String.format("#%06x", color.getRGB() & 0xFFFFFF);
+    }
+
+    private static String number(float value) {
+        return (value == (int) value) ? Integer.toString((int) value) : Float.toString(value);
+    }
+}
@@ -1,6 +1,8 @@
 package Controller;
 
+import java.awt.Dimension;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -15,6 +17,7 @@ import org.jline.reader.LineReaderBuilder;
 import org.jline.reader.impl.completer.StringsCompleter;
 
 import Model.JsonUtils;
+import Model.Metrics;
 import Model.RelationshipType;
 import Model.UmlClass;
 import Model.UmlClass.Method;
@@ -43,7 +46,7 @@ public class UmlCliController {
             "add-method", "delete-method", "rename-method",
             "add-parameter", "delete-parameter", "change-parameter",
             "list-classes", "list-class", "list-relationship",
-            "undo", "redo", "help", "exit"));
+            "export-image", "export-svg", "run-script", "metrics", "undo", "redo", "help", "exit"));
 
     /**
      * Constructs a new UmlCliController.
@@ -129,6 +132,15 @@ public class UmlCliController {
                 case "load":
                     handleLoad();
                     break;
+                case "export-image":
+                    handleExportImage();
+                    break;
+                case "export-svg":
+                    handleExportSvg();
+                    break;
+                case "run-script":
+                    handleRunScript();
+                    break;
                 case "list-classes":
                     handleListClasses();
                     break;
@@ -138,6 +150,9 @@ public class UmlCliController {
                 case "list-relationships":
                     handleListRelationships();
                     break;
+                case "metrics":
+                    handleMetrics();
+                    break;
                 case "help":
 
                     // Displays a list of available commands
@@ -684,6 +699,66 @@ public class UmlCliController {
         }
     }
 
+    /**
+     * Handles exporting the diagram to a PNG image.
+     * Prompts the user to enter a filename and draws every class and relationship into it.
+     */
+    public void handleExportImage() {
+        System.out.println("Enter a filename to export to: ");
+        String imageFilename = scanner.nextLine().trim();
+        if (!imageFilename.endsWith(".png")) {
+            imageFilename += ".png";
+        }
+
+        try {
+            Dimension size = ImageExporter.exportDiagram(model, ImageExporter.positionsOf(model), imageFilename);
+            System.out.println("Image exported to '" + imageFilename + "' (" + size.width + "x" + size.height + ").");
+        } catch (IOException e) {
+            System.out.println("Failed to export image: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles exporting the diagram to an SVG vector image.
+     * Prompts the user to enter a filename and writes every class and relationship into it.
+     */
+    public void handleExportSvg() {
+        System.out.println("Enter a filename to export to: ");
+        String imageFilename = scanner.nextLine().trim();
+        if (!imageFilename.endsWith(".svg")) {
+            imageFilename += ".svg";
+        }
+
+        try {
+            SvgExporter.exportDiagram(model, ImageExporter.positionsOf(model), imageFilename);
+            System.out.println("Image exported to '" + imageFilename + "'.");
+        } catch (IOException e) {
+            System.out.println("Failed to export image: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles running a script of commands from a file.
+     * Prompts the user to enter a filename, runs every command in it without prompting,
+     * and reports how many commands ran and which failed.
+     */
+    public void handleRunScript() {
+        System.out.println("Enter a script filename to run: ");
+        String scriptFilename = scanner.nextLine().trim();
+
+        ScriptRunner runner = new ScriptRunner(model, umlEditor);
+        try {
+            ScriptRunner.Result result = runner.run(Paths.get(scriptFilename));
+            System.out.println(result.summary());
+        } catch (IOException e) {
+            System.out.println("Failed to read script: " + e.getMessage());
+        }
+
+        // A script can load another model
+        model = runner.getModel();
+        umlEditor = runner.getEditor();
+    }
+
     /**
      * Handles listing all classes in the UML model.
      * Displays each class to the user.
@@ -727,6 +802,14 @@ public class UmlCliController {
         }
     }
 
+    /**
+     * Handles the 'metrics' command by showing how many times each edit, save, load and
+     * repaint has run in this session and how long they took.
+     */
+    public void handleMetrics() {
+        view.displayMessage(Metrics.report());
+    }
+
     public void handleUndo() {
         umlEditor.undo();
         System.out.println("Undo performed.");
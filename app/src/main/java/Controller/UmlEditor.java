@@ -5,44 +5,294 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import Model.Memento;
+import Model.Command;
+import Model.CommandHistory;
+import Model.Commands;
+import Model.FlightRecorderEvents;
+import Model.Journal;
+import Model.Metrics;
+import Model.OperationMetrics;
 import Model.RelationshipType;
 import Model.UmlClass;
 import Model.UmlEditorModel;
 
 public class UmlEditor {
+    /** The group each change is timed under in {@link Metrics} */
+    private static final String METRICS_GROUP = "Edit";
+
+    private static final OperationMetrics UNDO_METRICS = Metrics.operation(METRICS_GROUP, "undo");
+    private static final OperationMetrics REDO_METRICS = Metrics.operation(METRICS_GROUP, "redo");
+    private static final OperationMetrics MOVE_METRICS = Metrics.operation(METRICS_GROUP, "move class");
+
     /** The model that holds the classes and relationships for this Uml Editor */
     private UmlEditorModel model;
 
+    /** The changes made through this editor, which can be undone and redone */
+    private final CommandHistory history;
+
+    /** Whether messages about each change are printed */
+    private boolean quiet;
+
+    /** The changes made since a transaction began, or {@code null} when there is no transaction */
+    private List<Command> transaction;
+
+    /** The autosave journal each change is recorded in, or {@code null} if there is none */
+    private Journal journal;
+
     /*----------------------------------------------------------------------------------------------------------------*/
-    private Memento memento = new Memento();
 
     public UmlEditor(UmlEditorModel initialModel) {
-        this.model = initialModel; // Use a deep copy here
-        memento.saveState(this.model); // Save initial state
+        this(initialModel, CommandHistory.DEFAULT_MAX_DEPTH, CommandHistory.DEFAULT_MAX_BYTES);
     }
 
-    // Undo the last action
-    public void undo() {
-        UmlEditorModel previousState = memento.undoState();
-        if (previousState != null) {
-            this.model = previousState;
-            System.out.println("Undo performed.");
-        } else {
-            System.out.println("Nothing to undo.");
+    /**
+     * Creates an editor with a limited undo history.
+     * 
+     * @param initialModel The model to edit.
+     * @param historyDepth The most changes that can be undone.
+     * @param historyBytes The most memory, in bytes, the undo history may use.
+     */
+    public UmlEditor(UmlEditorModel initialModel, int historyDepth, long historyBytes) {
+        this.model = initialModel;
+        this.history = new CommandHistory(historyDepth, historyBytes);
+    }
+
+    /**
+     * Turns the messages this editor prints about each change off or on, such as while a
+     * script of many changes is run.
+     * 
+     * @param quiet {@code true} to stop printing messages.
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    /**
+     * Returns the undo history of this editor.
+     * 
+     * @return The undo history.
+     */
+    public CommandHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Records every change made through this editor from now on in an autosave journal.
+     * 
+     * @param journal The journal, or {@code null} to stop recording.
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Returns the autosave journal changes are recorded in.
+     * 
+     * @return The journal, or {@code null} if there is none.
+     */
+    public Journal getJournal() {
+        return journal;
+    }
+
+    // Undo the last action by reversing its command
+    public boolean undo() {
+        checkNoTransaction();
+        long start = System.nanoTime();
+        FlightRecorderEvents.EditEvent event = new FlightRecorderEvents.EditEvent();
+        event.begin();
+        boolean undone = false;
+        try {
+            undone = history.undo(model);
+            if (undone && journal != null) {
+                journal.recordUndo();
+            }
+        } finally {
+            UNDO_METRICS.record(start, undone);
+            commitEvent(event, "undo", null, undone);
         }
+        report(undone ? "Undo performed." : "Nothing to undo.");
+        return undone;
     }
 
-    // Redo the last undone action
-    public void redo() {
-        UmlEditorModel nextState = memento.redoState();
-        if (nextState != null) {
-            this.model = nextState;
-            System.out.println("Redo performed.");
+    // Redo the last undone action by applying its command again
+    public boolean redo() {
+        checkNoTransaction();
+        long start = System.nanoTime();
+        FlightRecorderEvents.EditEvent event = new FlightRecorderEvents.EditEvent();
+        event.begin();
+        boolean redone = false;
+        try {
+            redone = history.redo(model);
+            if (redone && journal != null) {
+                journal.recordRedo();
+            }
+        } finally {
+            REDO_METRICS.record(start, redone);
+            commitEvent(event, "redo", null, redone);
+        }
+        if (redone) {
+            report("Redo performed.");
         } else {
-            System.out.println("Nothing to redo.");
+            report(history.canRedo() ? "Redo failed, the change no longer applies." : "Nothing to redo.");
+        }
+        return redone;
+    }
+
+    // Print a message about a change, unless this editor is quiet
+    private void report(String message) {
+        if (!quiet) {
+            System.out.println(message);
+        }
+    }
+
+    /**
+     * Applies a change to the model and records it in the undo history. How long it took,
+     * and whether it was refused, is recorded in {@link Metrics} under the command's name
+     * and as a flight recorder event.
+     * 
+     * @param command The change to make.
+     * @return {@code true} if the model was changed, {@code false} otherwise.
+     */
+    private boolean execute(Command command) {
+        OperationMetrics metrics = Metrics.operation(METRICS_GROUP, command.getName());
+        long start = System.nanoTime();
+        FlightRecorderEvents.EditEvent event = new FlightRecorderEvents.EditEvent();
+        event.begin();
+        boolean changed = false;
+        try {
+            if (transaction != null) {
+                // Record the change with the rest of the transaction instead of on its own
+                changed = model.write(() -> command.apply(model));
+                if (changed) {
+                    transaction.add(command);
+                }
+            } else {
+                changed = history.execute(command, model);
+            }
+            if (changed && journal != null) {
+                journal.recordCommand(command);
+            }
+            return changed;
+        } finally {
+            metrics.record(start, changed);
+            Object[] arguments = command.getArguments();
+            String className = (arguments != null && arguments.length > 1 && arguments[1] instanceof String name)
+                    ? name : null;
+            commitEvent(event, command.getName(), className, changed);
         }
+    }
 
+    // Fills in and commits a flight recorder event for a change that has finished, if it is being recorded
+    private static void commitEvent(FlightRecorderEvents.EditEvent event, String operation, String className,
+            boolean succeeded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.className = className;
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    /* TRANSACTIONS */
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Starts a transaction. The changes made until the transaction is committed are
+     * undone and redone together as a single change, or can all be rolled back.
+     * 
+     * @throws IllegalStateException If a transaction has already begun.
+     */
+    public void beginTransaction() {
+        if (transaction != null) {
+            throw new IllegalStateException("A transaction has already begun");
+        }
+        transaction = new ArrayList<>();
+        if (journal != null) {
+            journal.recordBegin();
+        }
+    }
+
+    /**
+     * Ends the transaction and records its changes in the undo history as a single change.
+     * 
+     * @return {@code true} if the transaction changed the model, {@code false} if it made no changes.
+     * @throws IllegalStateException If there is no transaction.
+     */
+    public boolean commitTransaction() {
+        List<Command> changes = endTransaction();
+        if (journal != null) {
+            journal.recordCommit(!changes.isEmpty());
+        }
+        if (changes.isEmpty()) {
+            return false;
+        }
+        history.record(Commands.batch("transaction", changes));
+        return true;
+    }
+
+    /**
+     * Ends the transaction and reverses all of its changes, newest first.
+     * The undo history is left as it was before the transaction began.
+     * 
+     * @throws IllegalStateException If there is no transaction.
+     */
+    public void rollbackTransaction() {
+        List<Command> changes = endTransaction();
+        model.write(() -> {
+            for (int i = changes.size() - 1; i >= 0; i--) {
+                changes.get(i).invert(model);
+            }
+            return null;
+        });
+        if (journal != null) {
+            journal.recordRollback();
+        }
+    }
+
+    /**
+     * Returns whether a transaction has begun and not yet been committed or rolled back.
+     * 
+     * @return {@code true} if there is a transaction, {@code false} otherwise.
+     */
+    public boolean isInTransaction() {
+        return transaction != null;
+    }
+
+    /**
+     * Makes some changes in a transaction, committing them if they all run and rolling
+     * them back if any of them throws.
+     * 
+     * @param changes The changes to make through this editor.
+     * @return {@code true} if the changes changed the model, {@code false} otherwise.
+     */
+    public boolean runInTransaction(Runnable changes) {
+        beginTransaction();
+        try {
+            changes.run();
+        } catch (RuntimeException | Error e) {
+            rollbackTransaction();
+            throw e;
+        }
+        return commitTransaction();
+    }
+
+    // Stop recording into the transaction and return what it recorded
+    private List<Command> endTransaction() {
+        if (transaction == null) {
+            throw new IllegalStateException("There is no transaction");
+        }
+        List<Command> changes = transaction;
+        transaction = null;
+        return changes;
+    }
+
+    // Undoing in the middle of a transaction would mix up its changes with earlier ones
+    private void checkNoTransaction() {
+        if (transaction != null) {
+            throw new IllegalStateException("Commit or roll back the transaction first");
+        }
     }
     /*----------------------------------------------------------------------------------------------------------------*/
     /* CLASS MANAGEMENT METHODS */
@@ -60,7 +310,7 @@ public class UmlEditor {
         if (name == null || name.isEmpty() || name.contains(" ")) {
             return false;
         }
-        return model.addClass(name, position); // Pass the position to the model
+        return execute(Commands.addClass(name, position)); // Pass the position to the model
     }
 
     /**
@@ -76,7 +326,7 @@ public class UmlEditor {
         if (name == null || name.isEmpty() || name.contains(" ")) {
             return false;
         }
-        return model.addClass(name);
+        return execute(Commands.addClass(name));
     }
 
     /**
@@ -89,7 +339,7 @@ public class UmlEditor {
         if (name == null || name.isEmpty()) {
             return false;
         }
-        return model.deleteClass(name);
+        return execute(Commands.deleteClass(name));
     }
 
     /**
@@ -105,7 +355,49 @@ public class UmlEditor {
             return false;
         }
 
-        return model.renameClass(oldName, newName);
+        return execute(Commands.renameClass(oldName, newName));
+    }
+
+    /**
+     * Moves a class to a new position. Moving is not added to the undo history.
+     *
+     * @param name     The name of the class.
+     * @param position The new position of the class.
+     * @return {@code true} if the class was moved, {@code false} if there is no such class.
+     */
+    public boolean moveClass(String name, Point position) {
+        return moveClass(name, position, true);
+    }
+
+    /**
+     * Moves a class to a position it passes through while being dragged. Unlike
+     * {@link #moveClass(String, Point)}, the move is not autosaved, so a drag does not fill the
+     * journal with every point along the way; call {@code moveClass} with the final position
+     * once the drag ends.
+     *
+     * @param name     The name of the class.
+     * @param position The new position of the class.
+     * @return {@code true} if the class was moved, {@code false} if there is no such class.
+     */
+    public boolean dragClass(String name, Point position) {
+        return moveClass(name, position, false);
+    }
+
+    // Move a class, autosaving the new position if asked to
+    private boolean moveClass(String name, Point position, boolean journaled) {
+        long start = System.nanoTime();
+        FlightRecorderEvents.EditEvent event = new FlightRecorderEvents.EditEvent();
+        event.begin();
+        boolean moved = model.classExist(name);
+        if (moved) {
+            model.updateClassPosition(name, position);
+            if (journaled && journal != null) {
+                journal.recordPosition(name, position);
+            }
+        }
+        MOVE_METRICS.record(start, moved);
+        commitEvent(event, "move class", name, moved);
+        return moved;
     }
 
     /**
@@ -153,15 +445,15 @@ public class UmlEditor {
     public boolean addField(String className, String fieldType, String fieldName) {
         UmlClass umlClass = model.getUmlClass(className);
         if (umlClass != null) {
-            System.out.println(
+            report(
                     "Attempting to add field: " + fieldName + " of type: " + fieldType + " to class: " + className);
-            boolean result = umlClass.addField(fieldType, fieldName);
+            boolean result = execute(Commands.addField(className, fieldType, fieldName));
             if (!result) {
-                System.out.println("Field '" + fieldName + "' already exists in class '" + className + "'.");
+                report("Field '" + fieldName + "' already exists in class '" + className + "'.");
             }
             return result;
         }
-        System.out.println("Class '" + className + "' not found.");
+        report("Class '" + className + "' not found.");
         return false;
     }
 
@@ -175,7 +467,7 @@ public class UmlEditor {
     public boolean deleteField(String className, String fieldName) {
         UmlClass umlClass = model.getUmlClass(className);
         if (umlClass != null) {
-            return umlClass.deleteField(fieldName);
+            return execute(Commands.deleteField(className, fieldName));
         }
         return false;
     }
@@ -191,7 +483,7 @@ public class UmlEditor {
     public boolean renameField(String className, String oldFieldName, String newFieldName) {
         UmlClass umlClass = model.getUmlClass(className);
         if (umlClass != null) {
-            return umlClass.renameField(oldFieldName, newFieldName);
+            return execute(Commands.renameField(className, oldFieldName, newFieldName));
         }
         return false;
     }
@@ -208,20 +500,20 @@ public class UmlEditor {
     public boolean updateFieldType(String className, String fieldName, String newFieldType) {
         // Validate input
         if (newFieldType.isEmpty()) {
-            System.out.println("Field type cannot be empty.");
+            report("Field type cannot be empty.");
             return false;
         }
         
         UmlClass umlClass = model.getUmlClass(className);
         if (umlClass != null) {
-            System.out.println("Attempting to update field: " + fieldName + " to type: " + newFieldType + " in class: " + className);
-            boolean result = umlClass.updateFieldType(fieldName, newFieldType);
+            report("Attempting to update field: " + fieldName + " to type: " + newFieldType + " in class: " + className);
+            boolean result = execute(Commands.updateFieldType(className, fieldName, newFieldType));
             if (!result) {
-                System.out.println("Field '" + fieldName + "' not found in class '" + className + "' or failed to update type.");
+                report("Field '" + fieldName + "' not found in class '" + className + "' or failed to update type.");
             }
             return result;
         }
-        System.out.println("Class '" + className + "' not found.");
+        report("Class '" + className + "' not found.");
         return false;
     }
 
@@ -241,7 +533,7 @@ public class UmlEditor {
     public boolean addMethod(String className, String methodName, List<String[]> paraList, String returnType) {
         UmlClass umlClass = model.getUmlClass(className);
         if (umlClass != null) {
-            return umlClass.addMethod(methodName, paraList, returnType);
+            return execute(Commands.addMethod(className, methodName, paraList, returnType));
         }
         return false;
     }
@@ -258,7 +550,7 @@ public class UmlEditor {
     public boolean deleteMethod(String className, String methodName, List<String[]> paraList, String returnType) {
         UmlClass umlClass = model.getUmlClass(className);
         if (umlClass != null) {
-            return umlClass.deleteMethod(methodName, paraList, returnType);
+            return execute(Commands.deleteMethod(className, methodName, paraList, returnType));
         }
         return false;
     }
@@ -277,7 +569,7 @@ public class UmlEditor {
             String newName) {
         UmlClass umlClass = model.getUmlClass(className);
         if (umlClass != null) {
-            return umlClass.renameMethod(oldName, paraList, returnType, newName);
+            return execute(Commands.renameMethod(className, oldName, paraList, returnType, newName));
         }
         return false;
     }
@@ -296,7 +588,7 @@ public class UmlEditor {
                                         String newType) {
         UmlClass umlClass = model.getUmlClass(className);
         if (umlClass != null) {
-            return umlClass.changeReturnType(methodName, paraList, oldType, newType);
+            return execute(Commands.changeReturnType(className, methodName, paraList, oldType, newType));
         }
         return false;
     }
@@ -319,7 +611,7 @@ public class UmlEditor {
             String returnType, String[] parameterPair) {
         UmlClass umlClass = model.getUmlClass(className);
         if (umlClass != null) {
-            return umlClass.removeParameter(methodName, parameters, returnType, parameterPair);
+            return execute(Commands.removeParameter(className, methodName, parameters, returnType, parameterPair));
         }
         return false;
     }
@@ -338,7 +630,7 @@ public class UmlEditor {
             String returnType, List<String[]> newParameters) {
         UmlClass umlClass = model.getUmlClass(className);
         if (umlClass != null) {
-            return umlClass.changeParameters(methodName, oldParameters, returnType, newParameters);
+            return execute(Commands.changeParameters(className, methodName, oldParameters, returnType, newParameters));
         }
         return false;
     }
@@ -357,7 +649,7 @@ public class UmlEditor {
      */
     public boolean addRelationship(String source, String destination, RelationshipType type) {
         if (model.classExist(source) && model.classExist(destination)) {
-            return model.addRelationship(source, destination, type);
+            return execute(Commands.addRelationship(source, destination, type));
         }
         return false; // One or both classes do not exist
     }
@@ -373,7 +665,7 @@ public class UmlEditor {
      */
     public boolean deleteRelationship(String source, String destination, RelationshipType type) {
         if (model.classExist(source) && model.classExist(destination)) {
-            return model.deleteRelationship(source, destination, type);
+            return execute(Commands.deleteRelationship(source, destination, type));
         }
         return false;
     }
@@ -390,7 +682,7 @@ public class UmlEditor {
     public boolean changeRelationshipType(String source, String destination, RelationshipType currentType,
             RelationshipType newType) {
         if (model.classExist(source) && model.classExist(destination)) {
-            return model.changeRelationshipType(source, destination, currentType, newType);
+            return execute(Commands.changeRelationshipType(source, destination, currentType, newType));
         }
         return false;
     }
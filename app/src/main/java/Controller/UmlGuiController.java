@@ -1,25 +1,28 @@
 package Controller;
 
-import java.awt.BasicStroke;
 import java.awt.BorderLayout;
-import java.awt.Color;
 import java.awt.Component;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
-import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -36,12 +39,22 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.SwingWorker;
 import javax.swing.border.EmptyBorder;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import Model.AutosaveLock;
+import Model.FlightRecorderEvents;
+import Model.Journal;
 import Model.JsonUtils;
+import Model.Metrics;
+import Model.ModelCounters;
+import Model.ModelListener;
+import Model.ModelView;
+import Model.OperationMetrics;
 import Model.RelationshipType;
 import Model.UmlClass;
 import Model.UmlClass.Method;
@@ -55,6 +68,22 @@ public class UmlGuiController extends JFrame {
     private DrawingPanel drawingPanel;
     private JTextArea outputArea;
 
+    // The file being loaded or saved in the background, and its progress
+    private SwingWorker<?, Void> fileTask;
+    private JPanel progressPanel;
+    private JLabel progressLabel;
+    private JProgressBar progressBar;
+
+    // Where the model is autosaved after every change, and the journal that does it
+    private static final Path AUTOSAVE_DIRECTORY = Paths.get(System.getProperty("user.home"), ".uml-editor",
+            "autosave");
+    private Journal journal;
+    private AutosaveLock autosaveLock;
+
+    // Counts kept up to date from the model's change events, and the listener that updates the menus from them
+    private ModelCounters counters;
+    private final ModelListener menuListener = change -> updateButtonStates();
+
     // Declare menu items as instance variables
     private JMenuItem deleteClassItem;
     private JMenuItem renameClassItem;
@@ -73,7 +102,7 @@ public class UmlGuiController extends JFrame {
     private JMenuItem changeReturnTypeItem;
 
     public UmlGuiController() {
-        umlEditorModel = UmlEditorModel.getInstance(); // Using the singleton instance
+        umlEditorModel = new UmlEditorModel(); // Each window edits its own model
         umlEditor = new UmlEditor(umlEditorModel);
         classPositions = new HashMap<>(); // Initialize class positions
         setTitle("UML Editor");
@@ -96,6 +125,7 @@ public class UmlGuiController extends JFrame {
         addMenuItem(fileMenu, "Save UML File", e -> showSaveFilePanel());
         addMenuItem(fileMenu, "Load UML File", e -> showLoadFilePanel());
         addMenuItem(fileMenu, "Export as Image", e -> exportAsImage());
+        addMenuItem(fileMenu, "Export as SVG", e -> exportAsSvg());
         menuBar.add(fileMenu);
 
         // Create the "Class" menu and initialize menu items
@@ -135,10 +165,83 @@ public class UmlGuiController extends JFrame {
         // Set the menu bar
         setJMenuBar(menuBar);
 
+        // Progress of a file being loaded or saved in the background, hidden until one is
+        progressPanel = new JPanel(new BorderLayout(10, 0));
+        progressPanel.setBorder(new EmptyBorder(4, 8, 4, 8));
+        progressLabel = new JLabel();
+        progressBar = new JProgressBar(0, 100);
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> {
+            if (fileTask != null) {
+                fileTask.cancel(true);
+            }
+        });
+        progressPanel.add(progressLabel, BorderLayout.WEST);
+        progressPanel.add(progressBar, BorderLayout.CENTER);
+        progressPanel.add(cancelButton, BorderLayout.EAST);
+        progressPanel.setVisible(false);
+        add(progressPanel, BorderLayout.SOUTH);
+
+        // Keep the menus up to date as the model changes
+        watchModel(umlEditorModel);
+
+        // Pick up where the last session left off, and keep autosaving from here
+        startAutosave();
+
         // Initially update button states
         updateButtonStates();
     }
 
+    // Recover the last session if it did not close cleanly, then record every change made in this window
+    private void startAutosave() {
+        try {
+            // Only one window autosaves, so windows do not overwrite or delete each other's files
+            autosaveLock = AutosaveLock.tryLock(AUTOSAVE_DIRECTORY);
+            if (autosaveLock == null) {
+                outputArea.append("Autosave is off: another window is already autosaving.\n");
+                return;
+            }
+            UmlEditorModel recovered = Journal.recover(AUTOSAVE_DIRECTORY);
+            if (recovered != null && !recovered.getClasses().isEmpty()) {
+                showLoadedModel(recovered);
+                outputArea.append("Recovered the last session from autosave.\n");
+            }
+            journal = new Journal(AUTOSAVE_DIRECTORY, umlEditorModel, Journal.DEFAULT_COMPACT_EVERY);
+            umlEditor.setJournal(journal);
+        } catch (IOException e) {
+            outputArea.append("Autosave is off: " + e.getMessage() + "\n");
+            releaseAutosaveLock();
+            return;
+        }
+
+        // Write out the last changes before the window closes
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                try {
+                    journal.close();
+                    Journal.delete(AUTOSAVE_DIRECTORY); // Closed cleanly, so there is nothing to recover next time
+                } catch (IOException ex) {
+                    System.out.println("Autosave could not finish: " + ex.getMessage());
+                } finally {
+                    releaseAutosaveLock();
+                }
+            }
+        });
+    }
+
+    // Let another window autosave
+    private void releaseAutosaveLock() {
+        if (autosaveLock != null) {
+            try {
+                autosaveLock.close();
+            } catch (IOException e) {
+                System.out.println("Autosave lock could not be released: " + e.getMessage());
+            }
+            autosaveLock = null;
+        }
+    }
+
     private void exportAsImage() {
         // Create a file chooser for saving the file
         JFileChooser fileChooser = new JFileChooser();
@@ -163,8 +266,38 @@ public class UmlGuiController extends JFrame {
                 fileToSave = new File(fileToSave.getAbsolutePath() + ".png");
             }
 
-            // Call the ImageExporter to save the image at the chosen location
-            ImageExporter.exportPanelAsImage(drawingPanel, fileToSave.getAbsolutePath());
+            // Call the ImageExporter to save the whole diagram at the chosen location
+            try {
+                ImageExporter.exportDiagram(umlEditorModel, classPositions, fileToSave.getAbsolutePath());
+                System.out.println("Image exported successfully!");
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(this, "Error exporting image: " + e.getMessage());
+            }
+        }
+    }
+
+    private void exportAsSvg() {
+        // Create a file chooser for saving the file
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setSelectedFile(new File("UML_Editor_exported_image.svg"));
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("SVG Image", "svg"));
+
+        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            File fileToSave = fileChooser.getSelectedFile();
+
+            // Ensure the file has the correct extension if not provided
+            if (!fileToSave.getName().endsWith(".svg")) {
+                fileToSave = new File(fileToSave.getAbsolutePath() + ".svg");
+            }
+
+            // Write the diagram as vector shapes instead of pixels
+            try {
+                SvgExporter.exportDiagram(umlEditorModel, classPositions, fileToSave.getAbsolutePath());
+                System.out.println("Image exported successfully!");
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(this, "Error exporting image: " + e.getMessage());
+            }
         }
     }
 
@@ -176,30 +309,22 @@ public class UmlGuiController extends JFrame {
         return menuItem;
     }
 
-    private void updateButtonStates() {
-        // Check if there are any classes
-        boolean hasClasses = !umlEditorModel.getClasses().isEmpty();
-    
-        // Initialize variables to check for fields and methods across all classes
-        boolean hasFields = false;
-        boolean hasMethods = false;
-    
-        // Check each class for fields and methods
-        for (UmlClass umlClass : umlEditorModel.getClasses().values()) {
-            if (!umlClass.getFields().isEmpty()) {
-                hasFields = true;
-            }
-            if (!umlClass.getMethods().isEmpty()) {
-                hasMethods = true;
-            }
-            // If both haveFields and hasMethods are true, no need to continue checking
-            if (hasFields && hasMethods) {
-                break;
-            }
+    // Count the model and listen to its changes, instead of the current model, which it replaces
+    private void watchModel(UmlEditorModel model) {
+        if (counters != null) {
+            counters.detach();
         }
-    
-        // Check if there are any relationships
-        boolean hasRelationships = !umlEditorModel.getRelationships().isEmpty();
+        umlEditorModel.removeModelListener(menuListener);
+        counters = new ModelCounters(model);
+        model.addModelListener(menuListener); // Added after the counters, so they are up to date when it runs
+    }
+
+    private void updateButtonStates() {
+        // The counters are kept up to date as the model changes, so no class has to be looked at
+        boolean hasClasses = counters.getClassCount() > 0;
+        boolean hasFields = counters.getFieldCount() > 0;
+        boolean hasMethods = counters.getMethodCount() > 0;
+        boolean hasRelationships = counters.getRelationshipCount() > 0;
     
         // Enable/disable relevant items
         deleteClassItem.setEnabled(hasClasses);
@@ -252,11 +377,10 @@ public class UmlGuiController extends JFrame {
             int xPosition = random.nextInt(500); // Change range as needed
             int yPosition = random.nextInt(500); // Change range as needed
 
-            if (umlEditorModel.addClass(className, new Point(xPosition, yPosition))) {
+            if (umlEditor.addClass(className, new Point(xPosition, yPosition))) {
                 addClassRectangle(className, xPosition, yPosition); // Draw rectangle for the new class
                 drawingPanel.revalidate();
                 drawingPanel.repaint();
-                updateButtonStates(); // Update button states after adding
             } 
             else if (className.isEmpty()) {
                 JOptionPane.showMessageDialog(dialog,
@@ -302,11 +426,10 @@ public class UmlGuiController extends JFrame {
         JButton submitButton = new JButton("Submit");
         submitButton.addActionListener(e -> {
             String className = (String) classComboBox.getSelectedItem(); // Get selected class name
-            umlEditorModel.deleteClass(className);
+            umlEditor.deleteClass(className);
                 removeClassRectangle(className);
                 drawingPanel.revalidate();
                 drawingPanel.repaint();
-                updateButtonStates(); // Update button states after deletion
             dialog.dispose();
         });
 
@@ -343,11 +466,10 @@ public class UmlGuiController extends JFrame {
         submitButton.addActionListener(e -> {
             String oldName = (String) oldClassComboBox.getSelectedItem(); // Get selected old class name
             String newName = newClassNameField.getText();
-            if (umlEditorModel.renameClass(oldName, newName)) {
+            if (umlEditor.renameClass(oldName, newName)) {
                 renameClassRectangle(oldName, newName);
                 drawingPanel.revalidate();
                 drawingPanel.repaint();
-                updateButtonStates(); // Update button states after renaming
             } 
             else if (newName.isEmpty()) {
                 JOptionPane.showMessageDialog(dialog,
@@ -428,7 +550,6 @@ public class UmlGuiController extends JFrame {
             // Success path
             drawingPanel.revalidate();
             drawingPanel.repaint();
-            updateButtonStates(); // Update button states after adding the field
 
             fieldTypeField.setText(""); // Clear the field type
             fieldNameField.setText(""); // Clear the field name
@@ -648,7 +769,6 @@ public class UmlGuiController extends JFrame {
             // Success path
             drawingPanel.revalidate();
             drawingPanel.repaint();
-            updateButtonStates(); // Update button states after updating the field
 
             newFieldTypeField.setText(""); // Clear the field type
             dialog.dispose();
@@ -709,7 +829,6 @@ public class UmlGuiController extends JFrame {
                 outputArea.append("Method '" + methodName + "' added to class '" + className + "'.\n");
                 drawingPanel.revalidate();
                 drawingPanel.repaint();
-                updateButtonStates(); // Update button states after adding the method
                 dialog.dispose(); // Close dialog only if successful
             } else {
                 // Display an error message in the output area or GUI
@@ -780,12 +899,12 @@ public class UmlGuiController extends JFrame {
             if (selectedClass != null && selectedMethodString != null) {
                 Method selectedMethod = methodMap.get(selectedMethodString); // Retrieve the actual Method object
                 if (selectedMethod != null) {
-                    boolean success = umlEditorModel.getClass(selectedClass).deleteMethod(selectedMethod.getName());
+                    boolean success = umlEditor.deleteMethod(selectedClass, selectedMethod.getName(),
+                            selectedMethod.getParameters(), selectedMethod.getReturnType());
 
                     if (success) {
                         drawingPanel.revalidate();
                         drawingPanel.repaint();
-                        updateButtonStates(); // Reflect changes in button states
                     }
                 }
             }
@@ -847,7 +966,8 @@ public class UmlGuiController extends JFrame {
             Method selectedMethod = methodMap.get(selectedMethodString);
 
             if (className != null && selectedMethod != null) {
-                if (umlEditorModel.renameMethod(className, selectedMethod.getName(), newMethodName)) {
+                if (umlEditor.renameMethod(className, selectedMethod.getName(), selectedMethod.getParameters(),
+                        selectedMethod.getReturnType(), newMethodName)) {
                     outputArea.append(
                             "Method '" + selectedMethod.getName() + "' renamed to '" + newMethodName + "' in class '"
                                     + className + "'.\n");
@@ -1253,12 +1373,11 @@ public class UmlGuiController extends JFrame {
                 return;
             }
 
-            if (umlEditorModel.addRelationship(source, destination, type)) {
+            if (umlEditor.addRelationship(source, destination, type)) {
                 outputArea.append(
                         "Added relationship from '" + source + "' to '" + destination + "' of type '" + type + "'.\n");
                 drawingPanel.revalidate();
                 drawingPanel.repaint();
-                updateButtonStates(); // Update button states after adding the relationship
             } else {
                 outputArea.append("Failed to add relationship from '" + source + "' to '" + destination + "'.\n");
             }
@@ -1331,7 +1450,7 @@ public class UmlGuiController extends JFrame {
                 return;
             }
 
-            if (umlEditorModel.deleteRelationship(source, destination, type)) {
+            if (umlEditor.deleteRelationship(source, destination, type)) {
                 outputArea.append("Deleted relationship of type '" + type + "' between '" + source + "' and '"
                         + destination + "'.\n");
                 drawingPanel.revalidate();
@@ -1418,7 +1537,7 @@ public class UmlGuiController extends JFrame {
                 return;
             }
 
-            if (umlEditorModel.changeRelationshipType(source, destination, currentType, newType)) {
+            if (umlEditor.changeRelationshipType(source, destination, currentType, newType)) {
                 outputArea.append("Changed relationship type from '" + currentType + "' to '" + newType + "' between '"
                         + source + "' and '" + destination + "'.\n");
                 drawingPanel.revalidate();
@@ -1443,54 +1562,124 @@ public class UmlGuiController extends JFrame {
     private void showSaveFilePanel() {
         JFileChooser fileChooser = new JFileChooser();
         int option = fileChooser.showSaveDialog(null);
-        if (option == JFileChooser.APPROVE_OPTION) {
+        if (option == JFileChooser.APPROVE_OPTION && checkNoFileTask()) {
             File file = fileChooser.getSelectedFile();
-            try {
-                JsonUtils.save(umlEditorModel, file.getAbsolutePath()); // Ensure save method includes positions
-                outputArea.append("File saved successfully to " + file.getAbsolutePath() + ".\n");
-            } catch (IOException ex) {
-                outputArea.append("Failed to save file: " + ex.getMessage() + "\n");
-            }
+            // Save a fixed view of the model, so editing can carry on while it is written
+            ModelView view = umlEditorModel.view();
+            runFileTask("Saving " + file.getName(), new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() throws IOException {
+                    JsonUtils.save(view, file.getAbsolutePath(), true,
+                            fraction -> setProgress((int) (fraction * 100)));
+                    return null;
+                }
+
+                @Override
+                protected void done() {
+                    finishFileTask();
+                    try {
+                        get();
+                        outputArea.append("File saved successfully to " + file.getAbsolutePath() + ".\n");
+                    } catch (CancellationException | InterruptedException ex) {
+                        outputArea.append("Save cancelled.\n");
+                    } catch (ExecutionException ex) {
+                        outputArea.append("Failed to save file: " + ex.getCause().getMessage() + "\n");
+                    }
+                }
+            });
         }
     }
 
-    // Load File Panel
     private void showLoadFilePanel() {
         JFileChooser fileChooser = new JFileChooser();
         int option = fileChooser.showOpenDialog(null);
-        if (option == JFileChooser.APPROVE_OPTION) {
+        if (option == JFileChooser.APPROVE_OPTION && checkNoFileTask()) {
             File file = fileChooser.getSelectedFile();
-            try {
-                umlEditorModel = JsonUtils.load(file.getAbsolutePath()); // Load the model
-
-                // Clear previous class positions
-                classPositions.clear();
-
-                // Populate classPositions based on the loaded UML editor
-                for (Map.Entry<String, UmlClass> entry : umlEditorModel.getClasses().entrySet()) {
-                    String className = entry.getKey();
+            // Read the file in the background, and only switch to the new model once it is complete
+            runFileTask("Loading " + file.getName(), new SwingWorker<UmlEditorModel, Void>() {
+                @Override
+                protected UmlEditorModel doInBackground() throws IOException {
+                    return JsonUtils.load(file.getAbsolutePath(), null,
+                            fraction -> setProgress((int) (fraction * 100)));
+                }
 
-                    // Load the position from the UmlClass if it exists
-                    Point position = entry.getValue().getPosition();
-                    if (position != null) {
-                        classPositions.put(className, position);
-                    } else {
-                        // If no position is set, you can set a default one
-                        classPositions.put(className, new Point(100, 100)); // Adjust as needed
+                @Override
+                protected void done() {
+                    finishFileTask();
+                    try {
+                        showLoadedModel(get());
+                        outputArea.append("File loaded successfully from " + file.getAbsolutePath() + ".\n");
+                    } catch (CancellationException | InterruptedException ex) {
+                        outputArea.append("Load cancelled.\n");
+                    } catch (ExecutionException ex) {
+                        outputArea.append("Failed to load file: " + ex.getCause().getMessage() + "\n");
                     }
                 }
+            });
+        }
+    }
 
-                // Repaint the panel to show loaded classes and relationships
-                drawingPanel.repaint();
+    // Switch the window over to a model that was just loaded
+    private void showLoadedModel(UmlEditorModel loaded) {
+        watchModel(loaded);
+        umlEditorModel = loaded;
+        umlEditor = new UmlEditor(loaded);
+        if (journal != null) {
+            journal.compact(loaded); // Autosave the loaded model from now on
+            umlEditor.setJournal(journal);
+        }
+
+        // Clear previous class positions
+        classPositions.clear();
 
-                // Update button states after loading the project
-                updateButtonStates(); // Ensure buttons are updated based on loaded data
+        // Populate classPositions based on the loaded UML editor
+        for (Map.Entry<String, UmlClass> entry : umlEditorModel.getClasses().entrySet()) {
+            String className = entry.getKey();
 
-                outputArea.append("File loaded successfully from " + file.getAbsolutePath() + ".\n");
-            } catch (IOException ex) {
-                outputArea.append("Failed to load file: " + ex.getMessage() + "\n");
+            // Load the position from the UmlClass if it exists
+            Point position = entry.getValue().getPosition();
+            if (position != null) {
+                classPositions.put(className, position);
+            } else {
+                // If no position is set, you can set a default one
+                classPositions.put(className, new Point(100, 100)); // Adjust as needed
             }
         }
+
+        // Repaint the panel to show loaded classes and relationships
+        drawingPanel.repaint();
+
+        // Update button states after loading the project
+        updateButtonStates(); // Ensure buttons are updated based on loaded data
+    }
+
+    // Only one file is loaded or saved at a time
+    private boolean checkNoFileTask() {
+        if (fileTask != null) {
+            JOptionPane.showMessageDialog(this, "Wait for the current file to finish, or cancel it.");
+            return false;
+        }
+        return true;
+    }
+
+    // Start a load or save in the background, showing its progress until it finishes
+    private void runFileTask(String description, SwingWorker<?, Void> task) {
+        fileTask = task;
+        progressLabel.setText(description);
+        progressBar.setValue(0);
+        progressPanel.setVisible(true);
+        task.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                progressBar.setValue((Integer) event.getNewValue());
+            }
+        });
+        task.execute();
+    }
+
+    // Hide the progress of a load or save that has finished or been cancelled
+    private void finishFileTask() {
+        fileTask = null;
+        progressPanel.setVisible(false);
     }
 
     private void addClassRectangle(String className, int x, int y) {
@@ -1515,6 +1704,14 @@ public class UmlGuiController extends JFrame {
     private class DrawingPanel extends JPanel {
         private Point dragStartPoint;
         private String selectedClassName;
+        // Whether the selected class has been dragged, so its final position is autosaved on release
+        private boolean dragged;
+        // Counts the memory each repaint allocates when run with -Duml.allocations=true
+        private final AllocationCounter repaintAllocations = new AllocationCounter("repaint", 50);
+        // How long each repaint takes, for the metrics command and JMX
+        private final OperationMetrics repaintMetrics = Metrics.operation("Diagram", "repaint");
+        // The laid out boxes and lines, kept between repaints
+        private final DiagramScene scene = new DiagramScene();
 
         public DrawingPanel() {
             // Add mouse listeners for dragging
@@ -1522,26 +1719,23 @@ public class UmlGuiController extends JFrame {
                 @Override
                 public void mousePressed(MouseEvent e) {
                     // Check if a class is clicked
-                    for (Map.Entry<String, Point> entry : classPositions.entrySet()) {
-                        String className = entry.getKey();
-                        Point position = entry.getValue();
-
-                        int boxWidth = getBoxWidth(className); // Now works without Graphics
-
-                        Rectangle rect = new Rectangle(position.x, position.y, boxWidth,
-                                50 + (umlEditorModel.getClass(className).getFields().size() * 15));
-                        if (rect.contains(e.getPoint())) {
-                            selectedClassName = className; // Set the selected class
-                            dragStartPoint = e.getPoint(); // Store the initial drag point
-                            break;
-                        }
+                    DiagramScene.ClassBox box = findBoxAt(e.getPoint());
+                    if (box != null) {
+                        selectedClassName = box.getName(); // Set the selected class
+                        dragStartPoint = e.getPoint(); // Store the initial drag point
+                        dragged = false;
                     }
                 }
 
                 @Override
                 public void mouseReleased(MouseEvent e) {
+                    // Autosave only where the class ended up, not every point along the drag
+                    if (selectedClassName != null && dragged) {
+                        umlEditor.moveClass(selectedClassName, classPositions.get(selectedClassName));
+                    }
                     // Clear selection on mouse release
                     selectedClassName = null;
+                    dragged = false;
                     dragStartPoint = null;
                 }
             });
@@ -1554,17 +1748,30 @@ public class UmlGuiController extends JFrame {
                         Point currentPoint = e.getPoint();
                         Point oldPosition = classPositions.get(selectedClassName);
                         if (oldPosition != null) {
+                            // Remember where the class and its relationship lines were drawn
+                            Rectangle dirty = scene.getDirtyBounds(selectedClassName);
+
                             // Calculate the new position
                             int newX = oldPosition.x + (currentPoint.x - dragStartPoint.x);
                             int newY = oldPosition.y + (currentPoint.y - dragStartPoint.y);
                             classPositions.put(selectedClassName, new Point(newX, newY)); // Update the position
 
-                            // Update the position in the model as well
-                            umlEditorModel.updateClassPosition(selectedClassName, new Point(newX, newY)); // Update
-                                                                                                          // model
+                            // Update the position in the model as well, without autosaving each step
+                            umlEditor.dragClass(selectedClassName, new Point(newX, newY));
+                            dragged = true;
 
                             dragStartPoint = currentPoint; // Update the drag start point for smooth dragging
-                            repaint(); // Repaint the panel to show the updated position
+
+                            // Repaint only where the class and its lines were and where they are now
+                            FontMetrics metrics = getFontMetrics(getFont());
+                            scene.update(umlEditorModel, classPositions, metrics, metrics);
+                            Rectangle moved = scene.getDirtyBounds(selectedClassName);
+                            if (dirty != null && moved != null) {
+                                dirty.add(moved);
+                                repaint(dirty);
+                            } else {
+                                repaint(); // Repaint the panel to show the updated position
+                            }
                         }
                     }
                 }
@@ -1573,282 +1780,37 @@ public class UmlGuiController extends JFrame {
 
         @Override
         protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-
-            // Create a map to keep track of how many relationships exist between class
-            // pairs
-            Map<String, Integer> relationshipCount = new HashMap<>();
-
-            // Draw relationships
-            for (UmlRelationship relationship : umlEditorModel.getRelationships()) {
-                Point sourcePosition = classPositions.get(relationship.getSource());
-                Point destinationPosition = classPositions.get(relationship.getDestination());
-
-                if (sourcePosition != null && destinationPosition != null) {
-                    Graphics2D g2d = (Graphics2D) g;
-
-                    // Generate a unique key for the relationship between the source and destination
-                    // classes
-                    String relationshipKey = relationship.getSource() + "-" + relationship.getDestination();
-
-                    // Increment the count for this specific relationship key
-                    int lineOffset = relationshipCount.getOrDefault(relationshipKey, 0);
-                    relationshipCount.put(relationshipKey, lineOffset + 1);
-
-                    // Calculate vertical offset for the line to avoid overlap
-                    int offset = lineOffset * 5; // Adjust this value for spacing
-
-                    // Define an offset for the arrowhead
-                    int arrowheadOffset1 = 10; // Increase this value to move the arrowhead further out
-                    int arrowheadOffset2 = 20; // Increase this value to move the arrowhead further out
-
-                    // Determine color and line style based on relationship type
-                    switch (relationship.getType()) {
-                        case Inheritance:
-                            g2d.setColor(Color.BLUE); // Color for inheritance
-                            // Check for self-relationship
-                            if (relationship.getSource().equals(relationship.getDestination())) {
-                                // Draw the arrowhead shape at the top middle of the box
-                                drawArrow(g, sourcePosition.x + 50,
-                                        sourcePosition.y + offset, // Arrowhead at the top of the source box
-                                        "Inheritance"); // Pass "inheritance" for arrowhead style
-                            } else {
-                                g2d.drawLine(sourcePosition.x + 50,
-                                        // Start from the bottom middle
-                                        sourcePosition.y + getBoxHeight(relationship.getSource()) + offset,
-                                        destinationPosition.x + 50,
-                                        // Line ends below the box
-                                        destinationPosition.y + getBoxHeight(relationship.getDestination()) + 10);
-                                drawArrow(g, destinationPosition.x + 50,
-                                        destinationPosition.y + getBoxHeight(relationship.getDestination())
-                                                + arrowheadOffset1, // Offset for arrowhead
-                                        "Inheritance"); // Pass "inheritance" for arrowhead style
-                            }
-                            break;
-
-                        case Realization:
-                            g2d.setColor(Color.GREEN); // Color for realization
-                            // Check for self-relationship
-                            if (relationship.getSource().equals(relationship.getDestination())) {
-                                // Draw the arrowhead shape at the top middle of the box
-                                drawArrow(g, sourcePosition.x + 50,
-                                        sourcePosition.y + offset, // Arrowhead at the top of the source box
-                                        "Realization"); // Pass "realization" for arrowhead style
-                            } else {
-                                // Draw dotted line for realization
-                                float[] dottedPattern = { 2f, 5f }; // Dotted line pattern
-                                g2d.setStroke(new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10f,
-                                        dottedPattern, 0f));
-                                g2d.drawLine(sourcePosition.x + 50,
-                                        sourcePosition.y + getBoxHeight(relationship.getSource()) + offset, // Start
-                                                                                                            // from the
-                                                                                                            // bottom
-                                                                                                            // middle
-                                        destinationPosition.x + 50,
-                                        destinationPosition.y + getBoxHeight(relationship.getDestination()) + 10); // Line
-                                                                                                                   // ends
-                                                                                                                   // below
-                                                                                                                   // the
-                                                                                                                   // box
-                                g2d.setStroke(new BasicStroke()); // Reset stroke to solid
-                                drawArrow(g, destinationPosition.x + 50,
-                                        destinationPosition.y + getBoxHeight(relationship.getDestination())
-                                                + arrowheadOffset1, // Offset for arrowhead
-                                        "Realization"); // Pass "realization" for arrowhead style
-                            }
-                            break;
-
-                        case Aggregation:
-                            g2d.setColor(Color.ORANGE); // Color for aggregation
-                            // Check for self-relationship
-                            if (relationship.getSource().equals(relationship.getDestination())) {
-                                // Draw the arrowhead shape at the top middle of the box
-                                drawArrow(g, sourcePosition.x + 50,
-                                        sourcePosition.y + offset, // Arrowhead at the top of the source box
-                                        "Aggregation"); // Pass "aggregation" for arrowhead style
-                            } else {
-                                // Draw dashed line for aggregation
-                                float[] dashPattern = { 10f, 5f }; // Dashed line pattern
-                                g2d.setStroke(new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10f,
-                                        dashPattern, 0f));
-                                g2d.drawLine(sourcePosition.x + 50,
-                                        sourcePosition.y + getBoxHeight(relationship.getSource()) + offset, // Start
-                                                                                                            // from the
-                                                                                                            // bottom
-                                                                                                            // middle
-                                        destinationPosition.x + 50,
-                                        destinationPosition.y + getBoxHeight(relationship.getDestination()) + 20); // Line
-                                                                                                                   // ends
-                                                                                                                   // below
-                                                                                                                   // the
-                                                                                                                   // box
-                                g2d.setStroke(new BasicStroke()); // Reset stroke to solid
-                                drawArrow(g, destinationPosition.x + 50,
-                                        destinationPosition.y + getBoxHeight(relationship.getDestination())
-                                                + arrowheadOffset2, // Offset for arrowhead
-                                        "Aggregation"); // Pass "aggregation" for arrowhead style
-                            }
-                            break;
-
-                        case Composition:
-                            g2d.setColor(Color.RED); // Color for composition
-                            // Check for self-relationship
-                            if (relationship.getSource().equals(relationship.getDestination())) {
-                                // Draw the arrowhead shape at the top middle of the box
-                                drawArrow(g, sourcePosition.x + 50,
-                                        sourcePosition.y + offset, // Arrowhead at the top of the source box
-                                        "Composition"); // Pass "composition" for arrowhead style
-                            } else {
-                                g2d.drawLine(sourcePosition.x + 50,
-                                        sourcePosition.y + getBoxHeight(relationship.getSource()) + offset, // Start
-                                                                                                            // from the
-                                                                                                            // bottom
-                                                                                                            // middle
-                                        destinationPosition.x + 50,
-                                        destinationPosition.y + getBoxHeight(relationship.getDestination()) + 20); // Line
-                                                                                                                   // ends
-                                                                                                                   // below
-                                                                                                                   // the
-                                                                                                                   // box
-                                drawArrow(g, destinationPosition.x + 50,
-                                        destinationPosition.y + getBoxHeight(relationship.getDestination())
-                                                + arrowheadOffset2, // Offset for arrowhead
-                                        "Composition"); // Pass "composition" for arrowhead style
-                            }
-                            break;
-                    }
-
-                    // Reset the color to black for class boxes
-                    g2d.setColor(Color.BLACK);
-                }
-            }
-
-            // Draw rectangles for each class
-            for (Map.Entry<String, Point> entry : classPositions.entrySet()) {
-                String className = entry.getKey();
-                Point position = entry.getValue();
-                UmlClass umlClass = umlEditorModel.getClass(className);
-                int boxHeight = getBoxHeight(className); // Get dynamic box height
-
-                // Calculate the maximum width needed for the box
-                int maxWidth = 100; // Start with a default width for the box
-                FontMetrics metrics = g.getFontMetrics();
-
-                // Get the width of the class name
-                maxWidth = Math.max(maxWidth, metrics.stringWidth(className) + 20); // 20 for padding
-
-                // Calculate the width for attributes and construct their representation
-                if (umlClass != null) {
-                    for (Map.Entry<String, String> entre : umlClass.getFields().entrySet()) {
-                        String attribute = entre.getValue() + " " + entre.getKey(); // "type name"
-                        maxWidth = Math.max(maxWidth, metrics.stringWidth(attribute) + 20);
-                    }
-
-                    // Calculate the width for methods
-                    for (String methodSignature : umlClass.getMethods()) {
-                        maxWidth = Math.max(maxWidth, metrics.stringWidth(methodSignature) + 20);
-                    }
-                }
-
-                // Draw the rectangle for the class
-                g.drawRect(position.x, position.y, maxWidth, boxHeight);
-
-                // Draw the class name
-                g.drawString(className, position.x + 10, position.y + 20);
-
-                // Draw a line to separate class name and attributes
-                g.drawLine(position.x, position.y + 30, position.x + maxWidth, position.y + 30);
-
-                // Draw attributes
-                if (umlClass != null) {
-                    int attributeY = position.y + 45; // Start position for attributes
-                    for (Map.Entry<String, String> entre : umlClass.getFields().entrySet()) {
-                        String attribute = entre.getValue() + " " + entre.getKey(); // "type name"
-                        g.drawString(attribute, position.x + 10, attributeY);
-                        attributeY += 15; // Move down for the next attribute
-                    }
-
-                    // Draw methods
-                    int methodY = attributeY + 10; // Start position for methods (after attributes)
-                    for (String methodSignature : umlClass.getMethods()) {
-                        g.drawString(methodSignature, position.x + 10, methodY);
-                        methodY += 15; // Move down for the next method
-                    }
-                }
-            }
-        }
-
-        // Method to draw an arrowhead for different relationship types
-        private void drawArrow(Graphics g, int x, int y, String relationshipType) {
-            int arrowSize = 10; // Size of the arrowhead
-
-            switch (relationshipType) {
-                case "Inheritance":
-                    // Open triangle arrowhead for inheritance
-                    int[] inhXPoints = { x, x - arrowSize, x + arrowSize };
-                    int[] inhYPoints = { y, y - arrowSize, y - arrowSize };
-                    g.drawPolygon(inhXPoints, inhYPoints, 3); // Draw only the outline
-                    break;
-
-                case "Realization":
-                    // Open triangle arrowhead for realization, similar to inheritance
-                    int[] realXPoints = { x, x - arrowSize, x + arrowSize };
-                    int[] realYPoints = { y, y - arrowSize, y - arrowSize };
-                    g.drawPolygon(realXPoints, realYPoints, 3); // Draw only the outline
-                    break;
-
-                case "Aggregation":
-                    // Hollow diamond for aggregation
-                    int[] aggXPoints = { x, x - arrowSize, x, x + arrowSize };
-                    int[] aggYPoints = { y, y - arrowSize, y - (2 * arrowSize), y - arrowSize };
-                    g.drawPolygon(aggXPoints, aggYPoints, 4); // Draw diamond shape
-                    break;
-
-                case "Composition":
-                    // Filled diamond for composition
-                    int[] compXPoints = { x, x - arrowSize, x, x + arrowSize };
-                    int[] compYPoints = { y, y - arrowSize, y - (2 * arrowSize), y - arrowSize };
-                    g.fillPolygon(compXPoints, compYPoints, 4); // Fill diamond shape
-                    break;
-
-                default:
-                    // Simple filled triangle arrowhead for unrecognized relationships (association)
-                    int[] defaultXPoints = { x, x - arrowSize, x + arrowSize };
-                    int[] defaultYPoints = { y, y - arrowSize, y - arrowSize };
-                    g.fillPolygon(defaultXPoints, defaultYPoints, 3);
-                    break;
+            long start = System.nanoTime();
+            boolean painted = false;
+            FlightRecorderEvents.RepaintEvent event = new FlightRecorderEvents.RepaintEvent();
+            event.begin();
+            repaintAllocations.start();
+            try {
+                super.paintComponent(g);
+                event.shapes = paintDiagram(g);
+                painted = true;
+            } finally {
+                repaintAllocations.stop();
+                repaintMetrics.record(start, painted);
+                event.commit();
             }
         }
 
-        // Helper method to get the box height based on the class name
-        private int getBoxHeight(String className) {
-            UmlClass umlClass = umlEditorModel.getClass(className);
-            int attributeCount = (umlClass != null) ? umlClass.getFields().size() : 0;
-            int methodCount = (umlClass != null) ? umlClass.getMethods().size() : 0; // Get the number of methods
-            return 50 + (attributeCount * 15) + (methodCount * 15); // Base height + dynamic attribute and method height
+        // Bring the retained layout up to date and draw it, returning the number of shapes drawn
+        private int paintDiagram(Graphics g) {
+            scene.update(umlEditorModel, classPositions, g.getFontMetrics(), getFontMetrics(getFont()));
+            return scene.paint(g);
         }
 
-        // Get width of class box
-        public int getBoxWidth(String className) {
-            // Assuming you have access to the FontMetrics from paintComponent
-            FontMetrics metrics = getFontMetrics(getFont()); // or get a specific font you are using
-            int width = metrics.stringWidth(className) + 100; // 20 for padding
-
-            // Assuming you have UmlClass object
-            UmlClass umlClass = umlEditorModel.getClass(className);
-            if (umlClass != null) {
-                for (Map.Entry<String, String> entry : umlClass.getFields().entrySet()) {
-                    String attribute = entry.getValue() + " " + entry.getKey(); // "type name"
-                    width = Math.max(width, metrics.stringWidth(attribute) + 20);
-                }
-
-                // Methods width
-                for (String methodSignature : umlClass.getMethods()) {
-                    width = Math.max(width, metrics.stringWidth(methodSignature) + 20);
-                }
+        // Find the box under a point as it was last drawn, laying out the diagram if a class has not been drawn yet
+        private DiagramScene.ClassBox findBoxAt(Point point) {
+            DiagramScene.ClassBox box = scene.findBoxAt(point);
+            if (box == null && scene.getBoxCount() != classPositions.size()) {
+                FontMetrics metrics = getFontMetrics(getFont());
+                scene.update(umlEditorModel, classPositions, metrics, metrics);
+                box = scene.findBoxAt(point);
             }
-
-            return width;
+            return box;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps an autosave directory to one {@link Journal} at a time. Two journals in one directory
+ * would number their files the same and delete each other's, so a window that cannot take the
+ * lock, because another window or another run of the program holds it, does not autosave.
+ * The lock is held until it is closed, or until the program stops, however it stops.
+ */
+public final class AutosaveLock implements Closeable {
+    /** The file the lock is taken on, inside the autosave directory */
+    private static final String FILE_NAME = "autosave.lock";
+
+    private final FileChannel channel;
+
+    private AutosaveLock(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Takes the lock on an autosave directory, if no one else holds it.
+     *
+     * @param directory The autosave directory, which is created if needed.
+     * @return The lock, or {@code null} if it is held elsewhere.
+     * @throws IOException If the lock file cannot be opened.
+     */
+    public static AutosaveLock tryLock(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel channel = FileChannel.open(directory.resolve(FILE_NAME), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // Held by another window in this program
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            channel.close();
+            return null;
+        }
+        return new AutosaveLock(channel);
+    }
+
+    /**
+     * Releases the lock, so another window can autosave to the directory.
+     *
+     * @throws IOException If the lock file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close(); // Closing the channel releases its lock
+    }
+}
@@ -0,0 +1,436 @@
+package Model;
+
+import java.awt.Point;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Saves and loads models in a compact binary format, used for files ending in {@value #EXTENSION}.
+ * {@link JsonUtils} picks this format by the file extension, so every place that loads or saves a
+ * model can read and write both formats.
+ * <p>
+ * A file starts with the bytes {@code UMLB} and a format version. Every count and length is written
+ * as a variable length integer, so small numbers take a single byte. Every string is written in full
+ * only the first time it appears and after that as its number in a table of the strings seen so far,
+ * so type names like {@code int} and class names used in relationships take one or two bytes each.
+ * The classes, relationships, and positions then follow in the same order as in a JSON file.
+ */
+public final class BinaryUtils {
+    /** The extension of binary model files */
+    public static final String EXTENSION = ".umlb";
+
+    /** The first bytes of every binary model file */
+    private static final byte[] MAGIC = {'U', 'M', 'L', 'B'};
+
+    /** The version of the format this class writes, and the newest it can read */
+    static final int VERSION = 1;
+
+    /** The string reference meaning {@code null} */
+    private static final int NULL_STRING = 0;
+
+    /** The string reference meaning a new string follows; higher references are table index + 2 */
+    private static final int NEW_STRING = 1;
+
+    /** The size of the file buffers */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The most room made for a list before its items are read, since a count in a damaged file can be anything */
+    private static final int MAX_PRESIZE = 1024;
+
+    private BinaryUtils() {
+    }
+
+    /**
+     * Returns whether a file name is for the binary format.
+     *
+     * @param filename The file name.
+     * @return {@code true} if the name ends in {@value #EXTENSION}, ignoring case.
+     */
+    public static boolean isBinaryFile(String filename) {
+        return filename.regionMatches(true, filename.length() - EXTENSION.length(), EXTENSION, 0,
+                EXTENSION.length());
+    }
+
+    /**
+     * Converts a model file from one format to the other, or to the same format, choosing
+     * each format by its file extension.
+     *
+     * @param source The file to read.
+     * @param target The file to write.
+     * @throws IOException If the source cannot be read or the target cannot be written.
+     */
+    public static void convert(String source, String target) throws IOException {
+        JsonUtils.save(JsonUtils.load(source), target, !isBinaryFile(target));
+    }
+
+    /**
+     * Converts model files from the command line.
+     *
+     * @param args The file to read and the file to write.
+     * @return The exit code: 0 if the file was converted, 1 if it failed, and 2 for bad arguments.
+     */
+    public static int run(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: --convert <input file> <output file>  (files ending in " + EXTENSION
+                    + " are binary, anything else is JSON)");
+            return 2;
+        }
+        try {
+            long start = System.nanoTime();
+            convert(args[0], args[1]);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Converted " + args[0] + " (" + Files.size(Paths.get(args[0])) + " bytes) to "
+                    + args[1] + " (" + Files.size(Paths.get(args[1])) + " bytes) in " + millis + " ms.");
+            return 0;
+        } catch (IOException e) {
+            System.out.println("Failed to convert " + args[0] + ": " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    // Writing
+
+    /**
+     * Writes a model to a stream.
+     *
+     * @param stream        The stream to write to, which is flushed but not closed.
+     * @param classes       The classes, keyed by name.
+     * @param relationships The relationships.
+     * @param positions     The class positions, keyed by class name.
+     * @param onProgress    Called with the fraction of the classes written so far, from 0 to 1, or {@code null}.
+     * @throws IOException If the stream cannot be written.
+     */
+    static void writeModel(OutputStream stream, Map<String, UmlClass> classes, List<UmlRelationship> relationships,
+            Map<String, Point> positions, DoubleConsumer onProgress) throws IOException {
+        Writer out = new Writer(new BufferedOutputStream(stream, BUFFER_SIZE));
+        out.bytes.write(MAGIC);
+        out.writeVarInt(VERSION);
+
+        out.writeVarInt(classes.size());
+        int written = 0;
+        int reported = 0;
+        for (Map.Entry<String, UmlClass> entry : classes.entrySet()) {
+            out.writeString(entry.getKey());
+            writeClass(out, entry.getValue());
+            written++;
+            if (onProgress != null && written * 100L / classes.size() > reported) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Save cancelled");
+                }
+                reported = (int) (written * 100L / classes.size());
+                onProgress.accept(reported / 100.0);
+            }
+        }
+
+        out.writeVarInt(relationships.size());
+        for (UmlRelationship relationship : relationships) {
+            out.writeString(relationship.getSource());
+            out.writeString(relationship.getDestination());
+            out.writeVarInt((relationship.getType() != null) ? relationship.getType().ordinal() + 1 : 0);
+        }
+
+        int positionCount = 0;
+        for (Point position : positions.values()) {
+            if (position != null) {
+                positionCount++;
+            }
+        }
+        out.writeVarInt(positionCount);
+        for (Map.Entry<String, Point> entry : positions.entrySet()) {
+            if (entry.getValue() != null) {
+                out.writeString(entry.getKey());
+                out.writePoint(entry.getValue());
+            }
+        }
+        out.bytes.flush();
+    }
+
+    private static void writeClass(Writer out, UmlClass umlClass) throws IOException {
+        out.writeString(umlClass.getName());
+
+        Map<String, String> fields = umlClass.fieldsView();
+        out.writeVarInt(fields.size());
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            out.writeString(field.getKey());
+            out.writeString(field.getValue());
+        }
+
+        List<UmlClass.Method> methods = umlClass.getMethodsList();
+        out.writeVarInt(methods.size());
+        for (UmlClass.Method method : methods) {
+            out.writeString(method.getName());
+            out.writeString(method.getReturnType());
+            writeParameters(out, method.getParameters());
+        }
+
+        Point position = umlClass.getPosition();
+        out.bytes.write((position != null) ? 1 : 0);
+        if (position != null) {
+            out.writePoint(position);
+        }
+        writeParameters(out, umlClass.getParametersNull());
+    }
+
+    // The number of parameters plus one, or 0 for null, then the parts of each parameter
+    private static void writeParameters(Writer out, List<String[]> parameters) throws IOException {
+        if (parameters == null) {
+            out.writeVarInt(0);
+            return;
+        }
+        out.writeVarInt(parameters.size() + 1);
+        for (String[] parameter : parameters) {
+            out.writeVarInt(parameter.length);
+            for (String part : parameter) {
+                out.writeString(part);
+            }
+        }
+    }
+
+    /**
+     * Writes variable length integers and interned strings to a stream.
+     */
+    private static final class Writer {
+        private final OutputStream bytes;
+        private final Map<String, Integer> table = new HashMap<>();
+
+        Writer(OutputStream bytes) {
+            this.bytes = bytes;
+        }
+
+        // Seven bits at a time, lowest first, with the top bit set on every byte but the last
+        void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                bytes.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes.write(value);
+        }
+
+        // Zigzag encoded, so small negative numbers are small too
+        void writeSignedVarInt(int value) throws IOException {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        void writePoint(Point point) throws IOException {
+            writeSignedVarInt(point.x);
+            writeSignedVarInt(point.y);
+        }
+
+        void writeString(String string) throws IOException {
+            if (string == null) {
+                writeVarInt(NULL_STRING);
+                return;
+            }
+            Integer index = table.get(string);
+            if (index != null) {
+                writeVarInt(index + 2);
+                return;
+            }
+            table.put(string, table.size());
+            byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(NEW_STRING);
+            writeVarInt(utf8.length);
+            bytes.write(utf8);
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    // Reading
+
+    /**
+     * Reads a model from a stream.
+     *
+     * @param stream        The stream to read from, which is not closed.
+     * @param onClassLoaded Called with each class as it is read, or {@code null}.
+     * @return The model.
+     * @throws IOException If the stream cannot be read or does not hold a binary model.
+     */
+    static UmlEditorModel readModel(InputStream stream, Consumer<UmlClass> onClassLoaded) throws IOException {
+        Reader in = new Reader(new BufferedInputStream(stream, BUFFER_SIZE));
+        for (byte expected : MAGIC) {
+            if (in.readByte() != expected) {
+                throw new IOException("Not a binary UML file");
+            }
+        }
+        int version = in.readVarInt();
+        if (version > VERSION) {
+            throw new IOException("Unsupported binary format version " + version);
+        }
+
+        UmlEditorModel model = new UmlEditorModel();
+        int classCount = in.readCount();
+        for (int i = 0; i < classCount; i++) {
+            String className = in.readString();
+            UmlClass umlClass = readClass(in);
+            model.putClass(className, umlClass);
+            if (onClassLoaded != null) {
+                onClassLoaded.accept(umlClass);
+            }
+        }
+
+        int relationshipCount = in.readCount();
+        RelationshipType[] types = RelationshipType.values();
+        List<UmlRelationship> relationships = new ArrayList<>(Math.min(relationshipCount, MAX_PRESIZE));
+        for (int i = 0; i < relationshipCount; i++) {
+            String source = in.readString();
+            String destination = in.readString();
+            int type = in.readVarInt();
+            if (type < 0 || type > types.length) {
+                throw new IOException("Unknown relationship type " + type);
+            }
+            relationships.add(new UmlRelationship(source, destination, (type == 0) ? null : types[type - 1]));
+        }
+        model.setRelationships(relationships);
+
+        int positionCount = in.readCount();
+        for (int i = 0; i < positionCount; i++) {
+            String className = in.readString();
+            model.getClassPositions().put(className, in.readPoint());
+        }
+
+        if (in.bytes.read() != -1) {
+            throw new IOException("Invalid binary format: unexpected data after the model");
+        }
+        return model;
+    }
+
+    private static UmlClass readClass(Reader in) throws IOException {
+        UmlClass umlClass = new UmlClass((String) null);
+        umlClass.setName(in.readString());
+
+        int fieldCount = in.readCount();
+        for (int i = 0; i < fieldCount; i++) {
+            String fieldName = in.readString();
+            umlClass.putLoadedField(fieldName, in.readString());
+        }
+
+        int methodCount = in.readCount();
+        List<UmlClass.Method> methods = umlClass.getMethodsList();
+        for (int i = 0; i < methodCount; i++) {
+            String name = in.readString();
+            String returnType = in.readString();
+            List<String[]> parameters = readParameters(in);
+            methods.add(umlClass.new Method(name, (parameters != null) ? parameters : new ArrayList<>(), returnType));
+        }
+
+        if (in.readByte() != 0) {
+            umlClass.setPosition(in.readPoint());
+        }
+        List<String[]> parametersNull = readParameters(in);
+        if (parametersNull != null) {
+            umlClass.setLoadedParametersNull(parametersNull);
+        }
+        return umlClass;
+    }
+
+    private static List<String[]> readParameters(Reader in) throws IOException {
+        int count = in.readCount();
+        if (count == 0) {
+            return null;
+        }
+        List<String[]> parameters = new ArrayList<>(Math.min(count - 1, MAX_PRESIZE));
+        List<String> parts = new ArrayList<>();
+        for (int i = 1; i < count; i++) {
+            int length = in.readCount();
+            parts.clear();
+            for (int j = 0; j < length; j++) {
+                parts.add(in.readString());
+            }
+            parameters.add(parts.toArray(new String[0]));
+        }
+        return parameters;
+    }
+
+    /**
+     * Reads variable length integers and interned strings from a stream.
+     */
+    private static final class Reader {
+        private final InputStream bytes;
+        private final List<String> table = new ArrayList<>();
+        private byte[] buffer = new byte[64];
+
+        Reader(InputStream bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() throws IOException {
+            int b = bytes.read();
+            if (b < 0) {
+                throw new EOFException("Binary UML file ends too soon");
+            }
+            return b;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Invalid binary format: number too long");
+        }
+
+        // A count or length, which can never be negative
+        int readCount() throws IOException {
+            int count = readVarInt();
+            if (count < 0) {
+                throw new IOException("Invalid binary format: negative count");
+            }
+            return count;
+        }
+
+        Point readPoint() throws IOException {
+            int x = readVarInt();
+            int y = readVarInt();
+            return new Point((x >>> 1) ^ -(x & 1), (y >>> 1) ^ -(y & 1));
+        }
+
+        String readString() throws IOException {
+            int reference = readCount();
+            if (reference == NULL_STRING) {
+                return null;
+            }
+            if (reference != NEW_STRING) {
+                if (reference - 2 >= table.size()) {
+                    throw new IOException("Invalid binary format: unknown string " + reference);
+                }
+                return table.get(reference - 2);
+            }
+            int length = readCount();
+            int read = 0;
+            while (read < length) {
+                if (read == buffer.length) {
+                    // Grow only as the bytes arrive, so a damaged length cannot ask for more memory than the file holds
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(length, buffer.length * 2L));
+                }
+                int count = bytes.read(buffer, read, Math.min(length, buffer.length) - read);
+                if (count < 0) {
+                    throw new EOFException("Binary UML file ends too soon");
+                }
+                read += count;
+            }
+            String string = new String(buffer, 0, length, StandardCharsets.UTF_8);
+            table.add(string);
+            return string;
+        }
+    }
+}
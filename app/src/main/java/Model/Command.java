@@ -0,0 +1,47 @@
+package Model;
+
+/**
+ * A single reversible change to a {@link UmlEditorModel}.
+ * A command remembers just enough about the model to undo itself,
+ * so the undo history only stores the changes instead of whole copies of the model.
+ */
+public interface Command {
+
+    /**
+     * Makes the change to the model.
+     * 
+     * @param model The model to change.
+     * @return {@code true} if the model was changed, {@code false} if the change was not valid.
+     */
+    boolean apply(UmlEditorModel model);
+
+    /**
+     * Reverses a change that was applied successfully, leaving the model exactly as it was before.
+     * 
+     * @param model The model to change back.
+     */
+    void invert(UmlEditorModel model);
+
+    /**
+     * Returns a rough estimate of the memory this command holds on to, in bytes.
+     * 
+     * @return The estimated size of the command.
+     */
+    long estimatedBytes();
+
+    /**
+     * Returns a short description of the change, such as "add class".
+     * 
+     * @return The name of the command.
+     */
+    String getName();
+
+    /**
+     * Returns the name of the {@link Commands} factory that made this command followed by
+     * the arguments it was given, so the same command can be made again with
+     * {@link Commands#fromArguments(Object[])}, such as when an autosave journal is replayed.
+     * 
+     * @return The factory name and arguments, or {@code null} if the command cannot be made again this way.
+     */
+    Object[] getArguments();
+}
@@ -0,0 +1,285 @@
+package Model;
+
+/**
+ * A bounded undo and redo history of {@link Command}s, kept in a ring buffer.
+ * The history holds at most a fixed number of commands, and drops the oldest ones
+ * when the commands together are estimated to use more than a memory budget.
+ */
+public class CommandHistory {
+    /** The number of commands kept when no depth is given */
+    public static final int DEFAULT_MAX_DEPTH = 500;
+
+    /** The memory budget, in bytes, used when no budget is given */
+    public static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+
+    /** The commands, oldest first, starting at {@link #start} and wrapping around */
+    private Command[] commands;
+
+    /** The estimated size of each command when it was recorded, in the same slots as the commands */
+    private long[] sizes;
+
+    /** The index in {@link #commands} of the oldest command */
+    private int start;
+
+    /** The number of commands stored, both undoable and redoable */
+    private int size;
+
+    /** The number of stored commands that are applied, and so can be undone */
+    private int applied;
+
+    /** The estimated memory used by the stored commands */
+    private long bytes;
+
+    /** The most memory the stored commands may use */
+    private long maxBytes;
+
+    /**
+     * Creates a history with the default depth and memory budget.
+     */
+    public CommandHistory() {
+        this(DEFAULT_MAX_DEPTH, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a history with a given depth and memory budget.
+     * 
+     * @param maxDepth The most commands to keep.
+     * @param maxBytes The most memory, in bytes, the kept commands may use.
+     */
+    public CommandHistory(int maxDepth, long maxBytes) {
+        if (maxDepth < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("History depth and memory budget must be positive");
+        }
+        this.commands = new Command[maxDepth];
+        this.sizes = new long[maxDepth];
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Applies a command to a model and records it so it can be undone.
+     * Any commands that were undone can no longer be redone afterwards.
+     * 
+     * @param command The command to apply.
+     * @param model   The model to change.
+     * @return {@code true} if the command changed the model, {@code false} otherwise.
+     */
+    public boolean execute(Command command, UmlEditorModel model) {
+        if (!model.write(() -> command.apply(model))) {
+            return false; // Nothing changed, so there is nothing to undo
+        }
+        record(command);
+        return true;
+    }
+
+    /**
+     * Records a command that was already applied to the model, so it can be undone.
+     * Any commands that were undone can no longer be redone afterwards.
+     * 
+     * @param command The command that was applied.
+     */
+    public void record(Command command) {
+        // Drop the commands that could have been redone
+        while (size > applied) {
+            dropNewest();
+        }
+
+        if (size == commands.length) {
+            dropOldest();
+        }
+        long commandBytes = command.estimatedBytes();
+        commands[slot(size)] = command;
+        sizes[slot(size)] = commandBytes;
+        size++;
+        applied++;
+        bytes += commandBytes;
+        trimToBudget();
+    }
+
+    /**
+     * Undoes the last applied command.
+     * 
+     * @param model The model to change back.
+     * @return {@code true} if a command was undone, {@code false} if there was nothing to undo.
+     */
+    public boolean undo(UmlEditorModel model) {
+        if (applied == 0) {
+            return false;
+        }
+        applied--;
+        Command command = at(applied);
+        model.write(() -> {
+            command.invert(model);
+            return null;
+        });
+        return true;
+    }
+
+    /**
+     * Applies the last undone command again.
+     * 
+     * @param model The model to change.
+     * @return {@code true} if a command was redone, {@code false} if there was nothing to redo
+     *         or the command no longer applies, in which case nothing is redone.
+     */
+    public boolean redo(UmlEditorModel model) {
+        if (applied == size) {
+            return false;
+        }
+        Command command = at(applied);
+        if (!model.write(() -> command.apply(model))) {
+            return false; // The cursor stays, so the history still matches the model
+        }
+        applied++;
+        return true;
+    }
+
+    /**
+     * Returns whether there is a command to undo.
+     * 
+     * @return {@code true} if a command can be undone, {@code false} otherwise.
+     */
+    public boolean canUndo() {
+        return applied > 0;
+    }
+
+    /**
+     * Returns whether there is a command to redo.
+     * 
+     * @return {@code true} if a command can be redone, {@code false} otherwise.
+     */
+    public boolean canRedo() {
+        return applied < size;
+    }
+
+    /**
+     * Returns the number of commands that can be undone.
+     * 
+     * @return The number of undoable commands.
+     */
+    public int getUndoCount() {
+        return applied;
+    }
+
+    /**
+     * Returns the number of commands that can be redone.
+     * 
+     * @return The number of redoable commands.
+     */
+    public int getRedoCount() {
+        return size - applied;
+    }
+
+    /**
+     * Returns the estimated memory used by the stored commands.
+     * 
+     * @return The estimated size of the history, in bytes.
+     */
+    public long getEstimatedBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the most commands the history keeps.
+     * 
+     * @return The history depth.
+     */
+    public int getMaxDepth() {
+        return commands.length;
+    }
+
+    /**
+     * Returns the most memory the stored commands may use.
+     * 
+     * @return The memory budget, in bytes.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Changes the depth and memory budget, dropping the oldest commands if they no longer fit.
+     * 
+     * @param maxDepth The most commands to keep.
+     * @param maxBytes The most memory, in bytes, the kept commands may use.
+     */
+    public void setLimits(int maxDepth, long maxBytes) {
+        if (maxDepth < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("History depth and memory budget must be positive");
+        }
+        while (size > maxDepth) {
+            dropOldest();
+        }
+        Command[] resized = new Command[maxDepth];
+        long[] resizedSizes = new long[maxDepth];
+        for (int i = 0; i < size; i++) {
+            resized[i] = at(i);
+            resizedSizes[i] = sizes[slot(i)];
+        }
+        commands = resized;
+        sizes = resizedSizes;
+        start = 0;
+        this.maxBytes = maxBytes;
+        trimToBudget();
+    }
+
+    /**
+     * Forgets every command.
+     */
+    public void clear() {
+        commands = new Command[commands.length];
+        sizes = new long[sizes.length];
+        start = 0;
+        size = 0;
+        applied = 0;
+        bytes = 0;
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Returns the index in the ring buffer of the n-th oldest command.
+     */
+    private int slot(int index) {
+        return (start + index) % commands.length;
+    }
+
+    private Command at(int index) {
+        return commands[slot(index)];
+    }
+
+    /**
+     * Forgets the oldest command. Commands that were undone are dropped from the
+     * redo side instead, so the model never needs a command that was forgotten.
+     */
+    private void dropOldest() {
+        if (applied == 0) {
+            dropNewest();
+            return;
+        }
+        bytes -= sizes[start];
+        commands[start] = null;
+        start = (start + 1) % commands.length;
+        size--;
+        applied--;
+    }
+
+    /**
+     * Forgets the newest command, which must be one that was undone.
+     */
+    private void dropNewest() {
+        int last = slot(size - 1);
+        bytes -= sizes[last];
+        commands[last] = null;
+        size--;
+    }
+
+    /**
+     * Drops the oldest commands until the history fits in its memory budget,
+     * always keeping the most recent command so it can still be undone.
+     */
+    private void trimToBudget() {
+        while (bytes > maxBytes && size > 1) {
+            dropOldest();
+        }
+    }
+}
@@ -0,0 +1,1086 @@
+package Model;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the reversible commands for every change the editor can make to a model.
+ * Each command finds what it changes by name when it is applied, and keeps only
+ * the pieces of the model it removed or overwrote so that it can put them back.
+ */
+public final class Commands {
+
+    /** Rough size of an object header and a few references */
+    private static final long OBJECT_BYTES = 32;
+
+    private Commands() {
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    /* CLASS COMMANDS */
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Creates a command that adds a class.
+     * 
+     * @param name The name of the new class.
+     * @return The command.
+     */
+    public static Command addClass(String name) {
+        return new AddClass(name, false, null);
+    }
+
+    /**
+     * Creates a command that adds a class at a position.
+     * 
+     * @param name     The name of the new class.
+     * @param position The initial position of the new class.
+     * @return The command.
+     */
+    public static Command addClass(String name, Point position) {
+        return new AddClass(name, true, position);
+    }
+
+    /**
+     * Creates a command that deletes a class and every relationship involving it.
+     * 
+     * @param name The name of the class.
+     * @return The command.
+     */
+    public static Command deleteClass(String name) {
+        return new DeleteClass(name);
+    }
+
+    /**
+     * Creates a command that renames a class.
+     * 
+     * @param oldName The current name of the class.
+     * @param newName The new name of the class.
+     * @return The command.
+     */
+    public static Command renameClass(String oldName, String newName) {
+        return new RenameClass(oldName, newName);
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    /* FIELD COMMANDS */
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Creates a command that adds a field to a class.
+     * 
+     * @param className The name of the class.
+     * @param fieldType The type of the field.
+     * @param fieldName The name of the field.
+     * @return The command.
+     */
+    public static Command addField(String className, String fieldType, String fieldName) {
+        return new AddField(className, fieldType, fieldName);
+    }
+
+    /**
+     * Creates a command that deletes a field from a class.
+     * 
+     * @param className The name of the class.
+     * @param fieldName The name of the field.
+     * @return The command.
+     */
+    public static Command deleteField(String className, String fieldName) {
+        return new DeleteField(className, fieldName);
+    }
+
+    /**
+     * Creates a command that renames a field in a class.
+     * 
+     * @param className The name of the class.
+     * @param oldName   The current name of the field.
+     * @param newName   The new name of the field.
+     * @return The command.
+     */
+    public static Command renameField(String className, String oldName, String newName) {
+        return new RenameField(className, oldName, newName);
+    }
+
+    /**
+     * Creates a command that changes the type of a field.
+     * 
+     * @param className The name of the class.
+     * @param fieldName The name of the field.
+     * @param newType   The new type of the field.
+     * @return The command.
+     */
+    public static Command updateFieldType(String className, String fieldName, String newType) {
+        return new UpdateFieldType(className, fieldName, newType);
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    /* METHOD COMMANDS */
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Creates a command that adds a method to a class.
+     * 
+     * @param className  The name of the class.
+     * @param methodName The name of the method.
+     * @param parameters The parameters of the method.
+     * @param returnType The return type of the method.
+     * @return The command.
+     */
+    public static Command addMethod(String className, String methodName, List<String[]> parameters,
+            String returnType) {
+        return new AddMethod(className, methodName, parameters, returnType);
+    }
+
+    /**
+     * Creates a command that deletes a method from a class.
+     * 
+     * @param className  The name of the class.
+     * @param methodName The name of the method.
+     * @param parameters The parameters of the method.
+     * @param returnType The return type of the method.
+     * @return The command.
+     */
+    public static Command deleteMethod(String className, String methodName, List<String[]> parameters,
+            String returnType) {
+        return new DeleteMethod(className, methodName, parameters, returnType);
+    }
+
+    /**
+     * Creates a command that renames a method.
+     * 
+     * @param className  The name of the class.
+     * @param oldName    The current name of the method.
+     * @param parameters The parameters of the method.
+     * @param returnType The return type of the method.
+     * @param newName    The new name of the method.
+     * @return The command.
+     */
+    public static Command renameMethod(String className, String oldName, List<String[]> parameters,
+            String returnType, String newName) {
+        // Keep a copy, since the caller may pass the method's own list, which later edits change
+        List<String[]> copy = copyOf(parameters);
+        return new EditMethod("rename method", className, oldName, copy, returnType, newName.length(),
+                "renameMethod", className, oldName, copy, returnType, newName) {
+            @Override
+            boolean edit(UmlClass umlClass) {
+                return umlClass.renameMethod(oldName, copy, returnType, newName);
+            }
+        };
+    }
+
+    /**
+     * Creates a command that changes the return type of a method.
+     * 
+     * @param className  The name of the class.
+     * @param methodName The name of the method.
+     * @param parameters The parameters of the method.
+     * @param oldType    The current return type of the method.
+     * @param newType    The new return type of the method.
+     * @return The command.
+     */
+    public static Command changeReturnType(String className, String methodName, List<String[]> parameters,
+            String oldType, String newType) {
+        // Keep a copy, since the caller may pass the method's own list, which later edits change
+        List<String[]> copy = copyOf(parameters);
+        return new EditMethod("change return type", className, methodName, copy, oldType, newType.length(),
+                "changeReturnType", className, methodName, copy, oldType, newType) {
+            @Override
+            boolean edit(UmlClass umlClass) {
+                return umlClass.changeReturnType(methodName, copy, oldType, newType);
+            }
+        };
+    }
+
+    /**
+     * Creates a command that removes a parameter from a method.
+     * 
+     * @param className     The name of the class.
+     * @param methodName    The name of the method.
+     * @param parameters    The parameters of the method.
+     * @param returnType    The return type of the method.
+     * @param parameterPair The type and name of the parameter to remove.
+     * @return The command.
+     */
+    public static Command removeParameter(String className, String methodName, List<String[]> parameters,
+            String returnType, String[] parameterPair) {
+        // Keep copies, since the caller may pass the method's own list, which the removal itself changes
+        List<String[]> copy = copyOf(parameters);
+        String[] pair = (parameterPair != null) ? parameterPair.clone() : null;
+        return new EditMethod("remove parameter", className, methodName, copy, returnType, 0,
+                "removeParameter", className, methodName, copy, returnType, pair) {
+            @Override
+            boolean edit(UmlClass umlClass) {
+                return umlClass.removeParameter(methodName, copy, returnType, pair);
+            }
+        };
+    }
+
+    /**
+     * Creates a command that replaces the parameters of a method.
+     * 
+     * @param className     The name of the class.
+     * @param methodName    The name of the method.
+     * @param oldParameters The current parameters of the method.
+     * @param returnType    The return type of the method.
+     * @param newParameters The new parameters of the method.
+     * @return The command.
+     */
+    public static Command changeParameters(String className, String methodName, List<String[]> oldParameters,
+            String returnType, List<String[]> newParameters) {
+        // Keep copies, so the caller changing its lists later cannot change what redo does
+        List<String[]> oldCopy = copyOf(oldParameters);
+        List<String[]> newCopy = copyOf(newParameters);
+        return new EditMethod("change parameters", className, methodName, oldCopy, returnType,
+                sizeOf(newCopy), "changeParameters", className, methodName, oldCopy, returnType, newCopy) {
+            @Override
+            boolean edit(UmlClass umlClass) {
+                return umlClass.changeParameters(methodName, oldCopy, returnType, newCopy);
+            }
+        };
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    /* RELATIONSHIP COMMANDS */
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Creates a command that adds a relationship.
+     * 
+     * @param source      The source class.
+     * @param destination The destination class.
+     * @param type        The type of the relationship.
+     * @return The command.
+     */
+    public static Command addRelationship(String source, String destination, RelationshipType type) {
+        return new AddRelationship(source, destination, type);
+    }
+
+    /**
+     * Creates a command that deletes a relationship.
+     * 
+     * @param source      The source class.
+     * @param destination The destination class.
+     * @param type        The type of the relationship.
+     * @return The command.
+     */
+    public static Command deleteRelationship(String source, String destination, RelationshipType type) {
+        return new DeleteRelationship(source, destination, type);
+    }
+
+    /**
+     * Creates a command that changes the type of a relationship.
+     * 
+     * @param source      The source class.
+     * @param destination The destination class.
+     * @param currentType The current type of the relationship.
+     * @param newType     The new type of the relationship.
+     * @return The command.
+     */
+    public static Command changeRelationshipType(String source, String destination, RelationshipType currentType,
+            RelationshipType newType) {
+        return new ChangeRelationshipType(source, destination, currentType, newType);
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    /* BATCH COMMANDS */
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Creates a command made of several commands that were already applied one after another,
+     * so they can be undone and redone together as a single change.
+     * 
+     * @param name     A short description of the whole change.
+     * @param commands The commands, in the order they were applied.
+     * @return The command.
+     */
+    public static Command batch(String name, List<Command> commands) {
+        return new Batch(name, commands);
+    }
+
+    /**
+     * Makes a command again from the factory name and arguments returned by {@link Command#getArguments()}.
+     * Relationship types may be given either as {@link RelationshipType} values or by name.
+     *
+     * @param arguments The factory name followed by its arguments.
+     * @return The command.
+     * @throws IllegalArgumentException If the factory name is unknown or the arguments do not fit it.
+     */
+    @SuppressWarnings("unchecked")
+    public static Command fromArguments(Object[] arguments) {
+        if (arguments == null || arguments.length == 0 || !(arguments[0] instanceof String)) {
+            throw new IllegalArgumentException("Missing command name");
+        }
+        Object[] a = arguments;
+        try {
+            switch ((String) a[0]) {
+                case "addClass":
+                    return (a.length > 2) ? addClass((String) a[1], (Point) a[2]) : addClass((String) a[1]);
+                case "deleteClass":
+                    return deleteClass((String) a[1]);
+                case "renameClass":
+                    return renameClass((String) a[1], (String) a[2]);
+                case "addField":
+                    return addField((String) a[1], (String) a[2], (String) a[3]);
+                case "deleteField":
+                    return deleteField((String) a[1], (String) a[2]);
+                case "renameField":
+                    return renameField((String) a[1], (String) a[2], (String) a[3]);
+                case "updateFieldType":
+                    return updateFieldType((String) a[1], (String) a[2], (String) a[3]);
+                case "addMethod":
+                    return addMethod((String) a[1], (String) a[2], (List<String[]>) a[3], (String) a[4]);
+                case "deleteMethod":
+                    return deleteMethod((String) a[1], (String) a[2], (List<String[]>) a[3], (String) a[4]);
+                case "renameMethod":
+                    return renameMethod((String) a[1], (String) a[2], (List<String[]>) a[3], (String) a[4],
+                            (String) a[5]);
+                case "changeReturnType":
+                    return changeReturnType((String) a[1], (String) a[2], (List<String[]>) a[3], (String) a[4],
+                            (String) a[5]);
+                case "removeParameter":
+                    return removeParameter((String) a[1], (String) a[2], (List<String[]>) a[3], (String) a[4],
+                            (String[]) a[5]);
+                case "changeParameters":
+                    return changeParameters((String) a[1], (String) a[2], (List<String[]>) a[3], (String) a[4],
+                            (List<String[]>) a[5]);
+                case "addRelationship":
+                    return addRelationship((String) a[1], (String) a[2], typeOf(a[3]));
+                case "deleteRelationship":
+                    return deleteRelationship((String) a[1], (String) a[2], typeOf(a[3]));
+                case "changeRelationshipType":
+                    return changeRelationshipType((String) a[1], (String) a[2], typeOf(a[3]), typeOf(a[4]));
+                default:
+                    throw new IllegalArgumentException("Unknown command: " + a[0]);
+            }
+        } catch (ClassCastException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Wrong arguments for " + a[0], e);
+        }
+    }
+
+    // A relationship type, given either as the type or its name
+    private static RelationshipType typeOf(Object type) {
+        return (type instanceof String) ? RelationshipType.valueOf((String) type) : (RelationshipType) type;
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    /* SIZE ESTIMATES */
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Estimates the memory used by a string.
+     */
+    static long sizeOf(String string) {
+        return (string == null) ? 0 : 40 + 2L * string.length();
+    }
+
+    /**
+     * Copies a list of parameters, so a command does not share it with its caller.
+     */
+    static List<String[]> copyOf(List<String[]> parameters) {
+        return (parameters != null) ? new ArrayList<>(parameters) : null;
+    }
+
+    /**
+     * Estimates the memory used by a list of parameters.
+     */
+    static long sizeOf(List<String[]> parameters) {
+        if (parameters == null) {
+            return 0;
+        }
+        long size = OBJECT_BYTES;
+        for (String[] element : parameters) {
+            size += OBJECT_BYTES;
+            for (String part : element) {
+                size += sizeOf(part);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the memory used by a class and everything in it.
+     */
+    static long sizeOf(UmlClass umlClass) {
+        long size = OBJECT_BYTES + sizeOf(umlClass.getName());
+        for (Map.Entry<String, String> field : umlClass.getFields().entrySet()) {
+            size += OBJECT_BYTES + sizeOf(field.getKey()) + sizeOf(field.getValue());
+        }
+        for (UmlClass.Method method : umlClass.getMethodsList()) {
+            size += OBJECT_BYTES + sizeOf(method.getName()) + sizeOf(method.getReturnType())
+                    + sizeOf(method.getParameters());
+        }
+        return size;
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Adds a class, and on undo deletes it and puts back any position it replaced.
+     */
+    private static final class AddClass implements Command {
+        private final String name;
+        private final boolean withPosition;
+        private final Point position;
+        private boolean hadPosition;
+        private Point oldPosition;
+
+        AddClass(String name, boolean withPosition, Point position) {
+            this.name = name;
+            this.withPosition = withPosition;
+            this.position = position;
+        }
+
+        @Override
+        public boolean apply(UmlEditorModel model) {
+            if (!withPosition) {
+                return model.addClass(name);
+            }
+            hadPosition = model.getClassPositions().containsKey(name);
+            oldPosition = model.getClassPositions().get(name);
+            return model.addClass(name, position);
+        }
+
+        @Override
+        public void invert(UmlEditorModel model) {
+            model.deleteClass(name);
+            if (withPosition) {
+                model.restoreClassPosition(name, hadPosition, oldPosition);
+            }
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return OBJECT_BYTES + sizeOf(name);
+        }
+
+        @Override
+        public String getName() {
+            return "add class";
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return withPosition ? new Object[] {"addClass", name, position} : new Object[] {"addClass", name};
+        }
+    }
+
+    /**
+     * Deletes a class, keeping the class and its relationships so undo can put them back.
+     */
+    private static final class DeleteClass implements Command {
+        private final String name;
+        private UmlClass removed;
+        private RelationshipIndex.Removal removedRelationships;
+
+        DeleteClass(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean apply(UmlEditorModel model) {
+            UmlClass umlClass = model.getUmlClass(name);
+            if (umlClass == null) {
+                return false;
+            }
+
+            // The model remembers where each relationship involving the class was
+            removed = umlClass;
+            removedRelationships = model.deleteClassForUndo(name);
+            return removedRelationships != null;
+        }
+
+        @Override
+        public void invert(UmlEditorModel model) {
+            model.putClass(name, removed);
+            model.restoreRelationships(removedRelationships);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            long size = OBJECT_BYTES + sizeOf(name) + ((removed != null) ? sizeOf(removed) : 0);
+            int count = (removedRelationships != null) ? removedRelationships.size() : 0;
+            return size + count * (3 * OBJECT_BYTES);
+        }
+
+        @Override
+        public String getName() {
+            return "delete class";
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return new Object[] {"deleteClass", name};
+        }
+    }
+
+    /**
+     * Renames a class, and on undo renames it back.
+     */
+    private static final class RenameClass implements Command {
+        private final String oldName;
+        private final String newName;
+
+        RenameClass(String oldName, String newName) {
+            this.oldName = oldName;
+            this.newName = newName;
+        }
+
+        @Override
+        public boolean apply(UmlEditorModel model) {
+            return model.renameClass(oldName, newName);
+        }
+
+        @Override
+        public void invert(UmlEditorModel model) {
+            model.renameClass(newName, oldName);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return OBJECT_BYTES + sizeOf(oldName) + sizeOf(newName);
+        }
+
+        @Override
+        public String getName() {
+            return "rename class";
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return new Object[] {"renameClass", oldName, newName};
+        }
+    }
+
+    /**
+     * The shared parts of the commands that change a single class.
+     */
+    private abstract static class ClassCommand implements Command {
+        final String className;
+
+        ClassCommand(String className) {
+            this.className = className;
+        }
+
+        @Override
+        public boolean apply(UmlEditorModel model) {
+            UmlClass umlClass = model.getUmlClass(className);
+            return umlClass != null && apply(umlClass);
+        }
+
+        @Override
+        public void invert(UmlEditorModel model) {
+            invert(model.getUmlClass(className));
+        }
+
+        abstract boolean apply(UmlClass umlClass);
+
+        abstract void invert(UmlClass umlClass);
+    }
+
+    /**
+     * Adds a field, and on undo deletes it.
+     */
+    private static final class AddField extends ClassCommand {
+        private final String fieldType;
+        private final String fieldName;
+
+        AddField(String className, String fieldType, String fieldName) {
+            super(className);
+            this.fieldType = fieldType;
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        boolean apply(UmlClass umlClass) {
+            return umlClass.addField(fieldType, fieldName);
+        }
+
+        @Override
+        void invert(UmlClass umlClass) {
+            umlClass.deleteField(fieldName);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return OBJECT_BYTES + sizeOf(className) + sizeOf(fieldType) + sizeOf(fieldName);
+        }
+
+        @Override
+        public String getName() {
+            return "add field";
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return new Object[] {"addField", className, fieldType, fieldName};
+        }
+    }
+
+    /**
+     * Deletes a field, and on undo puts it back where it was.
+     */
+    private static final class DeleteField extends ClassCommand {
+        private final String fieldName;
+        private String fieldType;
+        private int index;
+
+        DeleteField(String className, String fieldName) {
+            super(className);
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        boolean apply(UmlClass umlClass) {
+            index = umlClass.indexOfField(fieldName);
+            fieldType = umlClass.getFields().get(fieldName);
+            return umlClass.deleteField(fieldName);
+        }
+
+        @Override
+        void invert(UmlClass umlClass) {
+            umlClass.insertField(index, fieldName, fieldType);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return OBJECT_BYTES + sizeOf(className) + sizeOf(fieldType) + sizeOf(fieldName);
+        }
+
+        @Override
+        public String getName() {
+            return "delete field";
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return new Object[] {"deleteField", className, fieldName};
+        }
+    }
+
+    /**
+     * Renames a field, and on undo gives it back its old name and place.
+     */
+    private static final class RenameField extends ClassCommand {
+        private final String oldName;
+        private final String newName;
+        private int index;
+
+        RenameField(String className, String oldName, String newName) {
+            super(className);
+            this.oldName = oldName;
+            this.newName = newName;
+        }
+
+        @Override
+        boolean apply(UmlClass umlClass) {
+            index = umlClass.indexOfField(oldName);
+            return umlClass.renameField(oldName, newName);
+        }
+
+        @Override
+        void invert(UmlClass umlClass) {
+            // Renaming moves the field to the end, so put it back at its old index
+            String fieldType = umlClass.getFields().get(newName);
+            umlClass.deleteField(newName);
+            umlClass.insertField(index, oldName, fieldType);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return OBJECT_BYTES + sizeOf(className) + sizeOf(oldName) + sizeOf(newName);
+        }
+
+        @Override
+        public String getName() {
+            return "rename field";
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return new Object[] {"renameField", className, oldName, newName};
+        }
+    }
+
+    /**
+     * Changes the type of a field, and on undo changes it back.
+     */
+    private static final class UpdateFieldType extends ClassCommand {
+        private final String fieldName;
+        private final String newType;
+        private String oldType;
+
+        UpdateFieldType(String className, String fieldName, String newType) {
+            super(className);
+            this.fieldName = fieldName;
+            this.newType = newType;
+        }
+
+        @Override
+        boolean apply(UmlClass umlClass) {
+            oldType = umlClass.getFields().get(fieldName);
+            return umlClass.updateFieldType(fieldName, newType);
+        }
+
+        @Override
+        void invert(UmlClass umlClass) {
+            umlClass.updateFieldType(fieldName, oldType);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return OBJECT_BYTES + sizeOf(className) + sizeOf(fieldName) + sizeOf(newType) + sizeOf(oldType);
+        }
+
+        @Override
+        public String getName() {
+            return "change field type";
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return new Object[] {"updateFieldType", className, fieldName, newType};
+        }
+    }
+
+    /**
+     * Adds a method, and on undo removes it.
+     */
+    private static final class AddMethod extends ClassCommand {
+        private final String methodName;
+        private final List<String[]> parameters;
+        private final String returnType;
+        private UmlClass.Method added;
+
+        AddMethod(String className, String methodName, List<String[]> parameters, String returnType) {
+            super(className);
+            this.methodName = methodName;
+            this.parameters = copyOf(parameters);
+            this.returnType = returnType;
+        }
+
+        @Override
+        boolean apply(UmlClass umlClass) {
+            if (!umlClass.addMethod(methodName, parameters, returnType)) {
+                return false;
+            }
+            added = umlClass.getMethodsList().getLast();
+            return true;
+        }
+
+        @Override
+        void invert(UmlClass umlClass) {
+            umlClass.removeMethod(added);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return OBJECT_BYTES + sizeOf(className) + sizeOf(methodName) + sizeOf(parameters) + sizeOf(returnType);
+        }
+
+        @Override
+        public String getName() {
+            return "add method";
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return new Object[] {"addMethod", className, methodName, parameters, returnType};
+        }
+    }
+
+    /**
+     * Deletes a method, and on undo puts the same method back where it was.
+     */
+    private static final class DeleteMethod extends ClassCommand {
+        private final String methodName;
+        private final List<String[]> parameters;
+        private final String returnType;
+        private UmlClass.Method removed;
+        private int index;
+
+        DeleteMethod(String className, String methodName, List<String[]> parameters, String returnType) {
+            super(className);
+            this.methodName = methodName;
+            this.parameters = copyOf(parameters);
+            this.returnType = returnType;
+        }
+
+        @Override
+        boolean apply(UmlClass umlClass) {
+            removed = umlClass.findMethod(methodName, parameters, returnType);
+            index = umlClass.getMethodsList().indexOf(removed);
+            return umlClass.deleteMethod(methodName, parameters, returnType);
+        }
+
+        @Override
+        void invert(UmlClass umlClass) {
+            umlClass.insertMethod(index, removed);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return OBJECT_BYTES + sizeOf(className) + sizeOf(methodName) + 2 * sizeOf(parameters)
+                    + sizeOf(returnType);
+        }
+
+        @Override
+        public String getName() {
+            return "delete method";
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return new Object[] {"deleteMethod", className, methodName, parameters, returnType};
+        }
+    }
+
+    /**
+     * Edits a method in place, and on undo gives it back its old name, parameters, and return type.
+     */
+    private abstract static class EditMethod extends ClassCommand {
+        private final String name;
+        private final String lookupName;
+        private final List<String[]> lookupParameters;
+        private final String lookupReturnType;
+        private final long extraBytes;
+        private final Object[] arguments;
+        private UmlClass.Method edited;
+        private String savedName;
+        private List<String[]> savedParameters;
+        private String savedReturnType;
+
+        EditMethod(String name, String className, String methodName, List<String[]> parameters, String returnType,
+                long extraBytes, Object... arguments) {
+            super(className);
+            this.name = name;
+            this.lookupName = methodName;
+            this.lookupParameters = parameters;
+            this.lookupReturnType = returnType;
+            this.extraBytes = extraBytes;
+            this.arguments = arguments;
+        }
+
+        @Override
+        boolean apply(UmlClass umlClass) {
+            edited = umlClass.findMethod(lookupName, lookupParameters, lookupReturnType);
+            if (edited != null) {
+                savedName = edited.getName();
+                savedParameters = new ArrayList<>(edited.getParameters());
+                savedReturnType = edited.getReturnType();
+            }
+            return edit(umlClass);
+        }
+
+        @Override
+        void invert(UmlClass umlClass) {
+            edited.setName(savedName);
+            edited.setParameters(savedParameters); // Copied by the method
+            edited.setReturnType(savedReturnType);
+        }
+
+        /**
+         * Makes the change to the method through the class.
+         */
+        abstract boolean edit(UmlClass umlClass);
+
+        @Override
+        public long estimatedBytes() {
+            return OBJECT_BYTES + sizeOf(className) + sizeOf(lookupName) + 2 * sizeOf(lookupParameters)
+                    + sizeOf(lookupReturnType) + extraBytes;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return arguments.clone();
+        }
+    }
+
+    /**
+     * Adds a relationship, and on undo deletes it.
+     */
+    private static final class AddRelationship implements Command {
+        private final String source;
+        private final String destination;
+        private final RelationshipType type;
+
+        AddRelationship(String source, String destination, RelationshipType type) {
+            this.source = source;
+            this.destination = destination;
+            this.type = type;
+        }
+
+        @Override
+        public boolean apply(UmlEditorModel model) {
+            return model.addRelationship(source, destination, type);
+        }
+
+        @Override
+        public void invert(UmlEditorModel model) {
+            model.deleteRelationship(source, destination, type);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return OBJECT_BYTES + sizeOf(source) + sizeOf(destination);
+        }
+
+        @Override
+        public String getName() {
+            return "add relationship";
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return new Object[] {"addRelationship", source, destination, type};
+        }
+    }
+
+    /**
+     * Deletes a relationship, and on undo puts it back where it was.
+     */
+    private static final class DeleteRelationship implements Command {
+        private final String source;
+        private final String destination;
+        private final RelationshipType type;
+        private RelationshipIndex.Removal removed;
+
+        DeleteRelationship(String source, String destination, RelationshipType type) {
+            this.source = source;
+            this.destination = destination;
+            this.type = type;
+        }
+
+        @Override
+        public boolean apply(UmlEditorModel model) {
+            removed = model.deleteRelationshipForUndo(source, destination, type);
+            return removed != null;
+        }
+
+        @Override
+        public void invert(UmlEditorModel model) {
+            model.restoreRelationships(removed);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return 3 * OBJECT_BYTES + sizeOf(source) + sizeOf(destination);
+        }
+
+        @Override
+        public String getName() {
+            return "delete relationship";
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return new Object[] {"deleteRelationship", source, destination, type};
+        }
+    }
+
+    /**
+     * Changes the type of a relationship, and on undo changes it back.
+     */
+    private static final class ChangeRelationshipType implements Command {
+        private final String source;
+        private final String destination;
+        private final RelationshipType currentType;
+        private final RelationshipType newType;
+
+        ChangeRelationshipType(String source, String destination, RelationshipType currentType,
+                RelationshipType newType) {
+            this.source = source;
+            this.destination = destination;
+            this.currentType = currentType;
+            this.newType = newType;
+        }
+
+        @Override
+        public boolean apply(UmlEditorModel model) {
+            return model.changeRelationshipType(source, destination, currentType, newType);
+        }
+
+        @Override
+        public void invert(UmlEditorModel model) {
+            model.changeRelationshipType(source, destination, newType, currentType);
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return OBJECT_BYTES + sizeOf(source) + sizeOf(destination);
+        }
+
+        @Override
+        public String getName() {
+            return "change relationship type";
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return new Object[] {"changeRelationshipType", source, destination, currentType, newType};
+        }
+    }
+
+    /**
+     * Applies a list of commands in order, and on undo inverts them in reverse order.
+     */
+    private static final class Batch implements Command {
+        private final String name;
+        private final Command[] commands;
+        private long bytes = -1; // Worked out once, the first time it is asked for
+
+        Batch(String name, List<Command> commands) {
+            this.name = name;
+            this.commands = commands.toArray(new Command[0]);
+        }
+
+        @Override
+        public boolean apply(UmlEditorModel model) {
+            for (int i = 0; i < commands.length; i++) {
+                if (!commands[i].apply(model)) {
+                    // Leave the model as it was rather than half changed
+                    for (int j = i - 1; j >= 0; j--) {
+                        commands[j].invert(model);
+                    }
+                    return false;
+                }
+            }
+            return commands.length > 0;
+        }
+
+        @Override
+        public void invert(UmlEditorModel model) {
+            for (int i = commands.length - 1; i >= 0; i--) {
+                commands[i].invert(model);
+            }
+        }
+
+        @Override
+        public long estimatedBytes() {
+            if (bytes < 0) {
+                long size = OBJECT_BYTES + sizeOf(name) + 8L * commands.length;
+                for (Command command : commands) {
+                    size += command.estimatedBytes();
+                }
+                bytes = size;
+            }
+            return bytes;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return null; // Journals record the commands of a transaction one at a time
+        }
+    }
+}
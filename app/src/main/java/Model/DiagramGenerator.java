@@ -0,0 +1,253 @@
+package Model;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates large, realistic diagrams for load and scale testing. Classes are laid out
+ * in a square grid and given fields, methods (some of them overloads) and relationships
+ * to nearby classes. The same settings and seed always give exactly the same diagram,
+ * so results from before and after a change can be compared.
+ *
+ * The settings are chained, for example
+ * {@code new DiagramGenerator(42).maxFields(10).relationshipsPerClass(3).generate(50_000)}.
+ *
+ * Started from {@code ApplicationLauncher} with:
+ * {@code --generate <class count> <output file> [--seed <n>]}
+ */
+public class DiagramGenerator {
+    /** The seed used when none is given */
+    public static final long DEFAULT_SEED = 420;
+
+    /** Common field and parameter types, so names repeat the way they do in real diagrams */
+    private static final String[] TYPES = {"int", "long", "double", "boolean", "String", "List<String>",
+            "Map<String,Integer>", "Optional<Object>"};
+
+    /** The horizontal and vertical space between class boxes */
+    private static final int SPACING_X = 260;
+    private static final int SPACING_Y = 220;
+
+    private final long seed;
+    private int maxFields = 6;
+    private int maxMethods = 4;
+    private double overloadChance = 0.5;
+    private double relationshipsPerClass = 1.5;
+    private final int[] typeWeights = new int[RelationshipType.values().length];
+
+    /**
+     * Creates a generator with the default seed.
+     */
+    public DiagramGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed The seed of the random choices.
+     */
+    public DiagramGenerator(long seed) {
+        this.seed = seed;
+        Arrays.fill(typeWeights, 1); // Every relationship type is equally likely
+    }
+
+    /**
+     * Sets the most fields a class can have. Each class has between none and this many.
+     *
+     * @param maxFields The most fields per class.
+     * @return This generator.
+     */
+    public DiagramGenerator maxFields(int maxFields) {
+        this.maxFields = requireNotNegative(maxFields, "maxFields");
+        return this;
+    }
+
+    /**
+     * Sets the most methods a class can have. Each class has between none and this many.
+     *
+     * @param maxMethods The most methods per class.
+     * @return This generator.
+     */
+    public DiagramGenerator maxMethods(int maxMethods) {
+        this.maxMethods = requireNotNegative(maxMethods, "maxMethods");
+        return this;
+    }
+
+    /**
+     * Sets how likely a method is to overload the one before it, with one more parameter.
+     *
+     * @param overloadChance The chance, from 0 to 1.
+     * @return This generator.
+     */
+    public DiagramGenerator overloadChance(double overloadChance) {
+        if (overloadChance < 0 || overloadChance > 1) {
+            throw new IllegalArgumentException("overloadChance must be between 0 and 1, was " + overloadChance);
+        }
+        this.overloadChance = overloadChance;
+        return this;
+    }
+
+    /**
+     * Sets how many relationships there are for each class. There can be no more than
+     * one relationship of each type between two classes, so very dense settings on small
+     * diagrams may give fewer.
+     *
+     * @param relationshipsPerClass The number of relationships divided by the number of classes.
+     * @return This generator.
+     */
+    public DiagramGenerator relationshipsPerClass(double relationshipsPerClass) {
+        if (relationshipsPerClass < 0) {
+            throw new IllegalArgumentException("relationshipsPerClass must not be negative, was "
+                    + relationshipsPerClass);
+        }
+        this.relationshipsPerClass = relationshipsPerClass;
+        return this;
+    }
+
+    /**
+     * Sets how common one relationship type is compared to the others. Every type has a
+     * weight of 1 unless it is set; a weight of 0 leaves the type out.
+     *
+     * @param type   The relationship type.
+     * @param weight The weight of the type.
+     * @return This generator.
+     */
+    public DiagramGenerator typeWeight(RelationshipType type, int weight) {
+        typeWeights[type.ordinal()] = requireNotNegative(weight, "weight");
+        return this;
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Generates a diagram in memory.
+     *
+     * @param classCount The number of classes, named {@code Class0}, {@code Class1} and so on.
+     * @return The diagram.
+     */
+    public UmlEditorModel generate(int classCount) {
+        requireNotNegative(classCount, "classCount");
+        Random random = new Random(seed);
+        UmlEditorModel model = new UmlEditorModel();
+        int columns = Math.max(1, (int) Math.ceil(Math.sqrt(classCount)));
+        for (int i = 0; i < classCount; i++) {
+            String name = "Class" + i;
+            model.addClass(name, new Point((i % columns) * SPACING_X, (i / columns) * SPACING_Y));
+            addMembers(model.getClass(name), random);
+        }
+        addRelationships(model, classCount, columns, random);
+        return model;
+    }
+
+    /**
+     * Generates a diagram and saves it with {@link JsonUtils}, in the binary format if the
+     * file name ends in {@link BinaryUtils#EXTENSION}.
+     *
+     * @param classCount The number of classes.
+     * @param filename   The file to write.
+     * @return The diagram that was saved.
+     * @throws IOException If the file cannot be written.
+     */
+    public UmlEditorModel write(int classCount, String filename) throws IOException {
+        UmlEditorModel model = generate(classCount);
+        JsonUtils.save(model, filename, false);
+        return model;
+    }
+
+    /**
+     * Generates a diagram file from command line arguments.
+     *
+     * @param args The class count and output file, optionally followed by {@code --seed <n>}.
+     * @return 0 on success, 1 if the file could not be written, 2 if the arguments are wrong.
+     */
+    public static int run(String[] args) {
+        long seed = DEFAULT_SEED;
+        int classCount;
+        try {
+            if (args.length == 4 && args[2].equals("--seed")) {
+                seed = Long.parseLong(args[3]);
+            } else if (args.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            classCount = Integer.parseInt(args[0]);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Usage: --generate <class count> <output file> [--seed <n>]");
+            return 2;
+        }
+        try {
+            long start = System.nanoTime();
+            UmlEditorModel model = new DiagramGenerator(seed).write(classCount, args[1]);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Generated " + model.getClasses().size() + " classes and "
+                    + model.getRelationships().size() + " relationships to " + args[1] + " ("
+                    + Files.size(Paths.get(args[1])) + " bytes) in " + millis + " ms.");
+            return 0;
+        } catch (IOException e) {
+            System.out.println("Failed to write " + args[1] + ": " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    // Gives a class its fields and methods
+    private void addMembers(UmlClass umlClass, Random random) {
+        int fields = random.nextInt(maxFields + 1);
+        for (int f = 0; f < fields; f++) {
+            umlClass.addField(TYPES[random.nextInt(TYPES.length)], "field" + f);
+        }
+
+        int methods = random.nextInt(maxMethods + 1);
+        List<String[]> previous = null;
+        String methodName = null;
+        for (int m = 0; m < methods; m++) {
+            List<String[]> parameters = new ArrayList<>();
+            if (previous != null && random.nextDouble() < overloadChance) {
+                parameters.addAll(previous); // An overload takes one more parameter than the method before it
+            } else {
+                methodName = "method" + m;
+            }
+            parameters.add(new String[] {TYPES[random.nextInt(TYPES.length)], "arg" + parameters.size()});
+            umlClass.addMethod(methodName, parameters, TYPES[random.nextInt(TYPES.length)]);
+            previous = parameters;
+        }
+    }
+
+    // Relates classes, mostly to others a few rows away in the grid
+    private void addRelationships(UmlEditorModel model, int classCount, int columns, Random random) {
+        int totalWeight = Arrays.stream(typeWeights).sum();
+        if (classCount < 2 || totalWeight == 0) {
+            return;
+        }
+        RelationshipType[] types = RelationshipType.values();
+        long wanted = Math.round(classCount * relationshipsPerClass);
+        long attempts = wanted * 4; // Give up on pairs that are already related rather than loop forever
+        long added = 0;
+        for (long a = 0; a < attempts && added < wanted; a++) {
+            int source = random.nextInt(classCount);
+            int offset = 1 + random.nextInt(Math.min(classCount - 1, 2 * columns));
+            int destination = (source + offset) % classCount;
+            int pick = random.nextInt(totalWeight);
+            int t = 0;
+            while (pick >= typeWeights[t]) {
+                pick -= typeWeights[t++];
+            }
+            if (model.addRelationship("Class" + source, "Class" + destination, types[t])) {
+                added++;
+            }
+        }
+    }
+
+    private static int requireNotNegative(int value, String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must not be negative, was " + value);
+        }
+        return value;
+    }
+}
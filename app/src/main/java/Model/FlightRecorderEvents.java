@@ -0,0 +1,127 @@
+package Model;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder events the editor emits, so a recording of a real session shows
+ * which edits, saves, loads, snapshots and repaints caused a pause. Each event covers the
+ * time the work took. When nothing is recording, creating and committing them costs next
+ * to nothing.
+ *
+ * Record a session with {@code -XX:StartFlightRecording=filename=session.jfr} or
+ * {@code jcmd <pid> JFR.start}, and open the file in JDK Mission Control, where the events
+ * are under "UML Editor".
+ */
+public final class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * One change made through {@code UmlEditor}, or an undo or redo.
+     */
+    @Name("uml.Edit")
+    @Label("Edit")
+    @Category("UML Editor")
+    @Description("A change made to the diagram")
+    @StackTrace(false)
+    public static class EditEvent extends Event {
+        @Label("Operation")
+        @Description("The change, such as \"add class\" or \"undo\"")
+        public String operation;
+
+        @Label("Class Name")
+        @Description("The class changed, or the source class of a relationship, if there is one")
+        public String className;
+
+        @Label("Succeeded")
+        @Description("False if the change was refused")
+        public boolean succeeded;
+    }
+
+    /**
+     * Saving a model to a file.
+     */
+    @Name("uml.Save")
+    @Label("Save")
+    @Category("UML Editor")
+    @Description("A diagram saved to a file")
+    @StackTrace(false)
+    public static class SaveEvent extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+
+        @Label("Classes")
+        public int classes;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    /**
+     * Loading a model from a file.
+     */
+    @Name("uml.Load")
+    @Label("Load")
+    @Category("UML Editor")
+    @Description("A diagram loaded from a file")
+    @StackTrace(false)
+    public static class LoadEvent extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+
+        @Label("Classes")
+        public int classes;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    /**
+     * Taking a snapshot of a model: a read-only view, the snapshot autosave writes out, or one kept for undo.
+     */
+    @Name("uml.Snapshot")
+    @Label("Snapshot")
+    @Category("UML Editor")
+    @Description("A snapshot of the diagram taken so it can be read, saved or restored")
+    @StackTrace(false)
+    public static class SnapshotEvent extends Event {
+        @Label("Kind")
+        @Description("What the snapshot was for: \"view\", \"autosave\" or \"undo\"")
+        public String kind;
+
+        @Label("Classes")
+        public int classes;
+
+        @Label("Relationships")
+        public int relationships;
+    }
+
+    /**
+     * Painting the diagram in the GUI.
+     */
+    @Name("uml.Repaint")
+    @Label("Repaint")
+    @Category("UML Editor")
+    @Description("The diagram painted in the editor window")
+    @StackTrace(false)
+    public static class RepaintEvent extends Event {
+        @Label("Shapes Drawn")
+        @Description("The class boxes and relationship lines painted")
+        public int shapes;
+    }
+}
@@ -0,0 +1,627 @@
+package Model;
+
+import java.awt.Point;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Autosaves a model by appending each change to a journal file, so a crash loses at most the
+ * last few changes. Each change is written as one short JSON line by a background thread, so
+ * recording a change only costs turning it into a line. Every so often the journal is compacted:
+ * the whole model is saved as a snapshot and a new, empty journal is started after it.
+ * <p>
+ * The files in the autosave directory are numbered by generation. Generation {@code n} is the
+ * snapshot {@code autosave-n.json} and the changes made after it, in {@code autosave-n.journal}.
+ * {@link #recover(Path)} loads the newest snapshot and replays its journal. Only one journal may
+ * write to a directory at a time, which {@link AutosaveLock} makes sure of.
+ * <p>
+ * The record methods must be called from the thread that edits the model, after each change is made.
+ */
+public class Journal implements Closeable {
+    /** The number of records written before the journal is compacted, when no number is given */
+    public static final int DEFAULT_COMPACT_EVERY = 5000;
+
+    /** The names of the snapshot and journal files, with the generation in the first group */
+    private static final Pattern FILE_NAME = Pattern.compile("autosave-(\\d+)\\.(json|journal)");
+
+    /** The directory the snapshots and journals are kept in */
+    private final Path directory;
+
+    /** The number of records written before the journal is compacted */
+    private final int compactEvery;
+
+    /** The thread that writes the records, in the order they were made */
+    private final ThreadPoolExecutor writer;
+
+    /** The model the changes are made to */
+    private UmlEditorModel model;
+
+    /** The generation of the newest snapshot asked for */
+    private long generation;
+
+    /** The number of records written since the last snapshot */
+    private int records;
+
+    /** The number of changes in the current journal that can be undone, and so are in its replay */
+    private int undoable;
+
+    /** The number of undone changes in the current journal that can be redone */
+    private int redoable;
+
+    /** Whether a transaction has begun and not ended */
+    private boolean inTransaction;
+
+    /** The open journal file, only used by the writer thread */
+    private BufferedWriter out;
+
+    /** The first error the writer thread hit, after which nothing more is written */
+    private volatile IOException failure;
+
+    /**
+     * Starts autosaving a model. A snapshot of the model is written first, so the directory
+     * always holds a complete copy of the model from then on.
+     *
+     * @param directory    The directory to keep the autosave files in, which is created if needed.
+     * @param model        The model to autosave.
+     * @param compactEvery The number of records written before the journal is compacted.
+     * @throws IOException If the directory cannot be created or read.
+     */
+    public Journal(Path directory, UmlEditorModel model, int compactEvery) throws IOException {
+        if (compactEvery < 1) {
+            throw new IllegalArgumentException("Compaction interval must be positive");
+        }
+        this.directory = directory;
+        this.compactEvery = compactEvery;
+        Files.createDirectories(directory);
+        this.generation = newestGeneration(directory);
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "Autosave journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compact(model);
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    /* RECORDING */
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Records a change that was just made to the model.
+     *
+     * @param command The command that made the change.
+     * @throws IllegalArgumentException If the command cannot be made again from its arguments.
+     */
+    public void recordCommand(Command command) {
+        Object[] arguments = command.getArguments();
+        if (arguments == null) {
+            throw new IllegalArgumentException("Cannot journal a " + command.getName() + " command");
+        }
+        append(arguments);
+        if (!inTransaction) {
+            undoable++;
+            redoable = 0;
+            compactIfDue();
+        }
+    }
+
+    /**
+     * Records that the last change was undone.
+     */
+    public void recordUndo() {
+        if (undoable == 0) {
+            // The change was made before the last snapshot, which is now out of date
+            compact(model);
+            return;
+        }
+        append(new Object[] {"undo"});
+        undoable--;
+        redoable++;
+        compactIfDue();
+    }
+
+    /**
+     * Records that the last undone change was redone.
+     */
+    public void recordRedo() {
+        if (redoable == 0) {
+            compact(model);
+            return;
+        }
+        append(new Object[] {"redo"});
+        redoable--;
+        undoable++;
+        compactIfDue();
+    }
+
+    /**
+     * Records that a transaction began.
+     */
+    public void recordBegin() {
+        append(new Object[] {"begin"});
+        inTransaction = true;
+    }
+
+    /**
+     * Records that a transaction was committed.
+     *
+     * @param changed {@code true} if the transaction changed the model, and so was added to the undo history.
+     */
+    public void recordCommit(boolean changed) {
+        append(new Object[] {"commit"});
+        inTransaction = false;
+        if (changed) {
+            undoable++;
+            redoable = 0;
+        }
+        compactIfDue();
+    }
+
+    /**
+     * Records that a transaction was rolled back.
+     */
+    public void recordRollback() {
+        append(new Object[] {"rollback"});
+        inTransaction = false;
+        compactIfDue();
+    }
+
+    /**
+     * Records that a class was moved, which is not part of the undo history.
+     *
+     * @param className The name of the class.
+     * @param position  The new position of the class.
+     */
+    public void recordPosition(String className, Point position) {
+        append(new Object[] {"position", className, position});
+        if (!inTransaction) {
+            compactIfDue();
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    /* COMPACTION */
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Writes a snapshot of a model and starts a new, empty journal after it, then deletes the
+     * older files. This is also how to switch the journal to a different model, such as after a file is loaded.
+     *
+     * @param newModel The model to save and keep recording changes to.
+     */
+    public void compact(UmlEditorModel newModel) {
+        model = newModel;
+        FlightRecorderEvents.SnapshotEvent event = new FlightRecorderEvents.SnapshotEvent();
+        event.begin();
+        ModelView view = newModel.view(); // Taken now, so later changes go in the new journal
+        ModelSnapshot.commitEvent(event, "autosave", newModel);
+        long snapshotGeneration = ++generation;
+        records = 0;
+        undoable = 0;
+        redoable = 0;
+        inTransaction = false;
+        submit(() -> {
+            JsonUtils.save(view, snapshotPath(directory, snapshotGeneration).toString(), false, null);
+            if (out != null) {
+                out.close();
+            }
+            out = Files.newBufferedWriter(journalPath(directory, snapshotGeneration), StandardCharsets.UTF_8);
+            deleteOlderThan(directory, snapshotGeneration);
+        });
+    }
+
+    // Compact once enough has been written, but never in the middle of a transaction
+    private void compactIfDue() {
+        if (records >= compactEvery && !inTransaction) {
+            compact(model);
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    /* WRITING */
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Waits until everything recorded so far has been written to the disk.
+     *
+     * @throws IOException If the journal could not be written.
+     */
+    public void flush() throws IOException {
+        try {
+            writer.submit(() -> {
+                if (out != null && failure == null) {
+                    out.flush();
+                }
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the journal", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not write the journal", e.getCause());
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Writes everything recorded so far and closes the journal. The files are left in the
+     * directory so the model can be recovered from them, until {@link #delete(Path)} is called.
+     *
+     * @throws IOException If the journal could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            submit(() -> {
+                if (out != null) {
+                    out.close();
+                    out = null;
+                }
+            });
+            flush();
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    // Turn the record into a line now, while its arguments cannot change, and write it later
+    private void append(Object[] record) {
+        String line = encode(record);
+        records++;
+        submit(() -> {
+            out.write(line);
+            out.newLine();
+            if (writer.getQueue().isEmpty()) {
+                out.flush(); // Only flush once a burst of changes has all been written
+            }
+        });
+    }
+
+    /**
+     * A piece of work for the writer thread that can fail.
+     */
+    private interface WriteTask {
+        void run() throws IOException;
+    }
+
+    // Run some work on the writer thread, unless it has already failed
+    private void submit(WriteTask task) {
+        writer.execute(() -> {
+            if (failure != null) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (IOException e) {
+                failure = e;
+                System.out.println("Autosave stopped: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Deletes the snapshots and journals in an autosave directory, such as after a clean exit,
+     * when there is nothing to recover. The journal writing to it must be closed first.
+     *
+     * @param directory The autosave directory.
+     * @throws IOException If a file cannot be deleted.
+     */
+    public static void delete(Path directory) throws IOException {
+        if (Files.isDirectory(directory)) {
+            deleteOlderThan(directory, Long.MAX_VALUE);
+        }
+    }
+
+    // Delete the snapshots and journals before a generation
+    private static void deleteOlderThan(Path directory, long keep) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches() && Long.parseLong(matcher.group(1)) < keep) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    /* RECOVERY */
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Rebuilds the autosaved model from the newest snapshot in a directory and the journal after it.
+     * A last line that was only partly written when the program stopped is ignored, and so is a
+     * transaction that was never committed.
+     *
+     * @param directory The autosave directory.
+     * @return The recovered model, or {@code null} if there is nothing to recover.
+     * @throws IOException If the snapshot or journal cannot be read.
+     */
+    public static UmlEditorModel recover(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        long newest = newestGeneration(directory);
+        Path snapshot = snapshotPath(directory, newest);
+        if (!Files.exists(snapshot)) {
+            return null;
+        }
+        UmlEditorModel model = JsonUtils.load(snapshot.toString());
+        Path journal = journalPath(directory, newest);
+        if (!Files.exists(journal)) {
+            return model;
+        }
+
+        // The undo history is not kept, only replayed so undo and redo records land on the right changes
+        Replay history = new Replay(model);
+        List<Command> transaction = null;
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                Object[] record;
+                try {
+                    record = decode(line);
+                } catch (IOException | IllegalStateException | NumberFormatException e) {
+                    System.out.println("Autosave journal ends early at line " + lineNumber);
+                    break;
+                }
+                boolean replayed;
+                try {
+                    replayed = history.replay(record, transaction);
+                } catch (RuntimeException e) {
+                    replayed = false;
+                }
+                if (!replayed) {
+                    System.out.println("Autosave journal could not replay line " + lineNumber);
+                    break;
+                }
+                if (record[0].equals("begin")) {
+                    transaction = new ArrayList<>();
+                } else if (record[0].equals("commit") || record[0].equals("rollback")) {
+                    transaction = null;
+                }
+            }
+        }
+        if (transaction != null) {
+            rollback(model, transaction);
+        }
+        return model;
+    }
+
+    /**
+     * Replays records into a model, keeping every change that can be undone with no limit,
+     * unlike a {@link CommandHistory}, since the editor that wrote them may have kept any number.
+     */
+    private static final class Replay {
+        private final UmlEditorModel model;
+        private final List<Command> done = new ArrayList<>();
+        private final List<Command> undone = new ArrayList<>();
+
+        Replay(UmlEditorModel model) {
+            this.model = model;
+        }
+
+        // Make the change in one record, adding it to the transaction if one has begun
+        boolean replay(Object[] record, List<Command> transaction) {
+            switch ((String) record[0]) {
+                case "undo":
+                    if (done.isEmpty()) {
+                        return false;
+                    }
+                    Command undo = done.remove(done.size() - 1);
+                    undo.invert(model);
+                    undone.add(undo);
+                    return true;
+                case "redo":
+                    if (undone.isEmpty()) {
+                        return false;
+                    }
+                    Command redo = undone.remove(undone.size() - 1);
+                    if (!redo.apply(model)) {
+                        return false;
+                    }
+                    done.add(redo);
+                    return true;
+                case "begin":
+                    if (transaction != null) {
+                        rollback(model, transaction);
+                    }
+                    return true;
+                case "commit":
+                    if (transaction != null && !transaction.isEmpty()) {
+                        done.add(Commands.batch("transaction", transaction));
+                        undone.clear();
+                    }
+                    return transaction != null;
+                case "rollback":
+                    if (transaction != null) {
+                        rollback(model, transaction);
+                    }
+                    return transaction != null;
+                case "position":
+                    model.updateClassPosition((String) record[1], (Point) record[2]);
+                    return true;
+                default:
+                    Command command;
+                    try {
+                        command = Commands.fromArguments(record);
+                    } catch (IllegalArgumentException e) {
+                        return false;
+                    }
+                    if (!command.apply(model)) {
+                        return false;
+                    }
+                    if (transaction != null) {
+                        transaction.add(command);
+                    } else {
+                        done.add(command);
+                        undone.clear();
+                    }
+                    return true;
+            }
+        }
+    }
+
+    // Reverse the changes of a transaction, newest first
+    private static void rollback(UmlEditorModel model, List<Command> transaction) {
+        for (int i = transaction.size() - 1; i >= 0; i--) {
+            transaction.get(i).invert(model);
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    /* RECORD FORMAT */
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Turns a record into one line of JSON: an array of the record name and its arguments.
+     * Parameter lists are arrays of arrays, points are objects, and relationship types are written by name.
+     */
+    static String encode(Object[] record) {
+        StringWriter line = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(line)) {
+            writer.beginArray();
+            for (Object value : record) {
+                writeValue(writer, value);
+            }
+            writer.endArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // A StringWriter does not throw
+        }
+        return line.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(JsonWriter writer, Object value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+        } else if (value instanceof Point) {
+            Point point = (Point) value;
+            writer.beginObject().name("x").value(point.x).name("y").value(point.y).endObject();
+        } else if (value instanceof String[]) {
+            writer.beginArray();
+            for (String part : (String[]) value) {
+                writer.value(part);
+            }
+            writer.endArray();
+        } else if (value instanceof List) {
+            writer.beginArray();
+            for (String[] parameter : (List<String[]>) value) {
+                writeValue(writer, parameter);
+            }
+            writer.endArray();
+        } else {
+            writer.value(value.toString()); // Strings and relationship types
+        }
+    }
+
+    /**
+     * Reads a record back from one line of JSON.
+     *
+     * @throws IOException If the line is not a whole record.
+     */
+    static Object[] decode(String line) throws IOException {
+        List<Object> record = new ArrayList<>();
+        JsonReader reader = new JsonReader(new StringReader(line));
+        reader.beginArray();
+        record.add(reader.nextString());
+        while (reader.hasNext()) {
+            record.add(readValue(reader));
+        }
+        reader.endArray();
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new IOException("Extra text after the record");
+        }
+        return record.toArray();
+    }
+
+    // Read a value written by writeValue. An array of strings is a parameter, an array of arrays a parameter list
+    private static Object readValue(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NULL:
+                reader.nextNull();
+                return null;
+            case BEGIN_OBJECT:
+                Point point = new Point();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (name.equals("x")) {
+                        point.x = reader.nextInt();
+                    } else if (name.equals("y")) {
+                        point.y = reader.nextInt();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                return point;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                if (reader.hasNext() && reader.peek() == JsonToken.STRING) {
+                    List<String> parts = new ArrayList<>();
+                    while (reader.hasNext()) {
+                        parts.add(reader.nextString());
+                    }
+                    reader.endArray();
+                    return parts.toArray(new String[0]);
+                }
+                List<String[]> parameters = new ArrayList<>();
+                while (reader.hasNext()) {
+                    parameters.add((String[]) readValue(reader));
+                }
+                reader.endArray();
+                return parameters;
+            default:
+                return reader.nextString();
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    private static Path snapshotPath(Path directory, long generation) {
+        return directory.resolve("autosave-" + generation + ".json");
+    }
+
+    private static Path journalPath(Path directory, long generation) {
+        return directory.resolve("autosave-" + generation + ".journal");
+    }
+
+    // The newest generation with a snapshot, or 0 if there is none
+    private static long newestGeneration(Path directory) throws IOException {
+        long newest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches() && matcher.group(2).equals("json")) {
+                    newest = Math.max(newest, Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        return newest;
+    }
+}
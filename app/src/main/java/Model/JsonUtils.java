@@ -1,31 +1,142 @@
 package Model;
 
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.awt.Point;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonParseException;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Utility class for saving and loading UML editor data in JSON format.
+ * The data is streamed one class, field, method, and relationship at a time,
+ * so no JSON tree of the whole diagram is ever built in memory.
+ * Files whose names end in {@value BinaryUtils#EXTENSION} are saved and loaded in the
+ * compact binary format of {@link BinaryUtils} instead.
  */
 public class JsonUtils {
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    /** The indent used for pretty printed files */
+    private static final String INDENT = "  ";
+
+    /** How long saves and loads take, whatever the format */
+    private static final OperationMetrics SAVE_METRICS = Metrics.operation("File", "save");
+    private static final OperationMetrics LOAD_METRICS = Metrics.operation("File", "load");
 
     /**
-     * Saves the UML editor data (classes and relationships) to a JSON file.
+     * Saves the UML editor data (classes and relationships) to a pretty printed JSON file.
      *
      * @param editorModel The {@link UmlEditorModel} containing the classes and relationships.
      * @param filename    The name of the file to save the data to.
      * @throws IOException If there is an issue writing to the file.
      */
     public static void save(UmlEditorModel editorModel, String filename) throws IOException, NullPointerException {
-        try (FileWriter writer = new FileWriter(filename)) {
-            gson.toJson(editorModel, writer);
+        save(editorModel, filename, true);
+    }
+
+    /**
+     * Saves the UML editor data (classes and relationships) to a JSON file.
+     *
+     * @param editorModel The {@link UmlEditorModel} containing the classes and relationships.
+     * @param filename    The name of the file to save the data to.
+     * @param pretty      {@code true} to indent the file for reading, {@code false} to write it compactly.
+     * @throws IOException If there is an issue writing to the file.
+     */
+    public static void save(UmlEditorModel editorModel, String filename, boolean pretty)
+            throws IOException, NullPointerException {
+        long start = System.nanoTime();
+        FlightRecorderEvents.SaveEvent event = new FlightRecorderEvents.SaveEvent();
+        event.begin();
+        boolean saved = false;
+        try {
+            Path path = Paths.get(filename);
+            if (BinaryUtils.isBinaryFile(filename)) {
+                try (OutputStream out = Files.newOutputStream(path)) {
+                    BinaryUtils.writeModel(out, editorModel.getClasses(), editorModel.getRelationships(),
+                            editorModel.getClassPositions(), null);
+                }
+            } else {
+                try (BufferedWriter buffered = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                        JsonWriter writer = new JsonWriter(buffered)) {
+                    if (pretty) {
+                        writer.setIndent(INDENT);
+                    }
+                    writeModel(writer, editorModel.getClasses(), editorModel.getRelationships(),
+                            editorModel.getClassPositions(), null);
+                }
+            }
+            saved = true;
+        } finally {
+            SAVE_METRICS.record(start, saved);
+            commitSaveEvent(event, filename, editorModel.getClasses().size(), saved);
+        }
+    }
+
+    /**
+     * Saves a view of a model, such as from a background thread while the model is still being edited.
+     * The file is written next to the target and then moved over it, so a save that fails or is
+     * cancelled leaves any existing file as it was. The save stops with an {@link InterruptedIOException}
+     * if the thread is interrupted.
+     *
+     * @param view       The view of the model to save.
+     * @param filename   The name of the file to save the data to.
+     * @param pretty     {@code true} to indent the file for reading, {@code false} to write it compactly.
+     * @param onProgress Called with the fraction of the classes written so far, from 0 to 1, or {@code null}.
+     * @throws IOException If there is an issue writing to the file.
+     */
+    public static void save(ModelView view, String filename, boolean pretty, DoubleConsumer onProgress)
+            throws IOException {
+        long start = System.nanoTime();
+        FlightRecorderEvents.SaveEvent event = new FlightRecorderEvents.SaveEvent();
+        event.begin();
+        Path path = Paths.get(filename).toAbsolutePath();
+        Path temp = path.resolveSibling(path.getFileName() + ".saving");
+        boolean saved = false;
+        try {
+            if (BinaryUtils.isBinaryFile(filename)) {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    BinaryUtils.writeModel(out, view.getClasses(), view.getRelationships(), view.getClassPositions(),
+                            onProgress);
+                }
+            } else {
+                try (BufferedWriter buffered = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+                        JsonWriter writer = new JsonWriter(buffered)) {
+                    if (pretty) {
+                        writer.setIndent(INDENT);
+                    }
+                    writeModel(writer, view.getClasses(), view.getRelationships(), view.getClassPositions(),
+                            onProgress);
+                }
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            saved = true;
+        } finally {
+            SAVE_METRICS.record(start, saved);
+            if (!saved) {
+                Files.deleteIfExists(temp);
+            }
+            commitSaveEvent(event, filename, view.getClasses().size(), saved);
         }
     }
 
@@ -37,13 +148,464 @@ public class JsonUtils {
      * @throws IOException If there is an issue reading the file or if the JSON is invalid.
      */
     public static UmlEditorModel load(String filename) throws IOException {
-        try (FileReader reader = new FileReader(filename)) {
-            Type type = new TypeToken<UmlEditorModel>() {}.getType();
+        return load(filename, null);
+    }
+
+    /**
+     * Loads the UML editor data (classes and relationships) from a JSON file,
+     * reporting each class as soon as it has been read.
+     *
+     * @param filename      The name of the file to load the data from.
+     * @param onClassLoaded Called with each class as it is read, or {@code null}.
+     * @return An {@link UmlEditorModel} instance populated with the loaded classes and relationships.
+     * @throws IOException If there is an issue reading the file or if the JSON is invalid.
+     */
+    public static UmlEditorModel load(String filename, Consumer<UmlClass> onClassLoaded) throws IOException {
+        return load(filename, onClassLoaded, null);
+    }
+
+    /**
+     * Loads the UML editor data from a JSON file, reporting how much of the file has been read.
+     * The load stops with an {@link InterruptedIOException} if the thread is interrupted,
+     * such as when a load running in the background is cancelled.
+     *
+     * @param filename      The name of the file to load the data from.
+     * @param onClassLoaded Called with each class as it is read, or {@code null}.
+     * @param onProgress    Called with the fraction of the file read so far, from 0 to 1, or {@code null}.
+     * @return An {@link UmlEditorModel} instance populated with the loaded classes and relationships.
+     * @throws IOException If there is an issue reading the file or if the JSON is invalid.
+     */
+    public static UmlEditorModel load(String filename, Consumer<UmlClass> onClassLoaded, DoubleConsumer onProgress)
+            throws IOException {
+        long start = System.nanoTime();
+        FlightRecorderEvents.LoadEvent event = new FlightRecorderEvents.LoadEvent();
+        event.begin();
+        UmlEditorModel model = null;
+        try {
+            model = readFile(filename, onClassLoaded, onProgress);
+            return model;
+        } finally {
+            LOAD_METRICS.record(start, model != null);
+            event.end();
+            if (event.shouldCommit()) {
+                event.file = filename;
+                event.bytes = sizeOf(filename);
+                event.classes = (model != null) ? model.getClasses().size() : 0;
+                event.succeeded = model != null;
+                event.commit();
+            }
+        }
+    }
+
+    // Fills in and commits a flight recorder event for a save that has finished, if it is being recorded
+    private static void commitSaveEvent(FlightRecorderEvents.SaveEvent event, String filename, int classes,
+            boolean saved) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = filename;
+            event.bytes = saved ? sizeOf(filename) : 0;
+            event.classes = classes;
+            event.succeeded = saved;
+            event.commit();
+        }
+    }
+
+    // The size of a file, or 0 if it cannot be read
+    private static long sizeOf(String filename) {
+        try {
+            return Files.size(Paths.get(filename));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // Reads a whole model file in whichever format its name says
+    private static UmlEditorModel readFile(String filename, Consumer<UmlClass> onClassLoaded,
+            DoubleConsumer onProgress) throws IOException {
+        Path path = Paths.get(filename);
+        long size = Files.size(path);
+        if (BinaryUtils.isBinaryFile(filename)) {
+            try (InputStream in = new ProgressInputStream(Files.newInputStream(path), size, onProgress)) {
+                return BinaryUtils.readModel(in, onClassLoaded);
+            }
+        }
+        try (InputStream in = new ProgressInputStream(Files.newInputStream(path), size, onProgress);
+                BufferedReader buffered = new BufferedReader(
+                        new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder()));
+                JsonReader reader = new JsonReader(buffered)) {
             try {
-                return gson.fromJson(reader, type);
-            } catch (JsonParseException e) {
+                UmlEditorModel model = readModel(reader, onClassLoaded);
+                if (reader.peek() != JsonToken.END_DOCUMENT) {
+                    throw new IOException("Invalid JSON format: unexpected data after the model");
+                }
+                return model;
+            } catch (IllegalStateException | IllegalArgumentException e) {
                 throw new IOException("Invalid JSON format", e);
             }
         }
     }
-}
\ No newline at end of file
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    // Writing
+
+    private static void writeModel(JsonWriter writer, Map<String, UmlClass> classes,
+            List<UmlRelationship> relationships, Map<String, Point> positions, DoubleConsumer onProgress)
+            throws IOException {
+        writer.beginObject();
+
+        writer.name("classes").beginObject();
+        int written = 0;
+        int reported = 0;
+        for (Map.Entry<String, UmlClass> entry : classes.entrySet()) {
+            writer.name(entry.getKey());
+            writeClass(writer, entry.getValue());
+            written++;
+            if (onProgress != null && written * 100L / classes.size() > reported) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Save cancelled");
+                }
+                reported = (int) (written * 100L / classes.size());
+                onProgress.accept(reported / 100.0);
+            }
+        }
+        writer.endObject();
+
+        writer.name("relationships").beginArray();
+        for (UmlRelationship relationship : relationships) {
+            writer.beginObject();
+            writer.name("source").value(relationship.getSource());
+            writer.name("destination").value(relationship.getDestination());
+            if (relationship.getType() != null) {
+                writer.name("type").value(relationship.getType().name());
+            }
+            writer.endObject();
+        }
+        writer.endArray();
+
+        writer.name("classPositions").beginObject();
+        for (Map.Entry<String, Point> entry : positions.entrySet()) {
+            if (entry.getValue() != null) {
+                writer.name(entry.getKey());
+                writePoint(writer, entry.getValue());
+            }
+        }
+        writer.endObject();
+
+        writer.endObject();
+    }
+
+    private static void writeClass(JsonWriter writer, UmlClass umlClass) throws IOException {
+        writer.beginObject();
+        if (umlClass.getName() != null) {
+            writer.name("name").value(umlClass.getName());
+        }
+
+        writer.name("fields").beginObject();
+        for (Map.Entry<String, String> field : umlClass.fieldsView().entrySet()) {
+            writer.name(field.getKey()).value(field.getValue());
+        }
+        writer.endObject();
+
+        writer.name("methods").beginArray();
+        for (UmlClass.Method method : umlClass.getMethodsList()) {
+            writer.beginObject();
+            if (method.getName() != null) {
+                writer.name("name").value(method.getName());
+            }
+            if (method.getReturnType() != null) {
+                writer.name("returnType").value(method.getReturnType());
+            }
+            if (method.getParameters() != null) {
+                writer.name("parameters");
+                writeParameters(writer, method.getParameters());
+            }
+            writer.endObject();
+        }
+        writer.endArray();
+
+        if (umlClass.getPosition() != null) {
+            writer.name("position");
+            writePoint(writer, umlClass.getPosition());
+        }
+        if (umlClass.getParametersNull() != null) {
+            writer.name("parametersNull");
+            writeParameters(writer, umlClass.getParametersNull());
+        }
+        writer.endObject();
+    }
+
+    private static void writeParameters(JsonWriter writer, List<String[]> parameters) throws IOException {
+        writer.beginArray();
+        for (String[] parameter : parameters) {
+            writer.beginArray();
+            for (String part : parameter) {
+                writer.value(part);
+            }
+            writer.endArray();
+        }
+        writer.endArray();
+    }
+
+    private static void writePoint(JsonWriter writer, Point point) throws IOException {
+        writer.beginObject();
+        writer.name("x").value(point.x);
+        writer.name("y").value(point.y);
+        writer.endObject();
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    // Reading
+
+    private static UmlEditorModel readModel(JsonReader reader, Consumer<UmlClass> onClassLoaded) throws IOException {
+        UmlEditorModel model = new UmlEditorModel();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "classes":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String className = reader.nextName();
+                        UmlClass umlClass = readClass(reader);
+                        model.putClass(className, umlClass);
+                        if (onClassLoaded != null) {
+                            onClassLoaded.accept(umlClass);
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "relationships":
+                    List<UmlRelationship> relationships = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        relationships.add(readRelationship(reader));
+                    }
+                    reader.endArray();
+                    model.setRelationships(relationships);
+                    break;
+                case "classPositions":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String className = reader.nextName();
+                        model.getClassPositions().put(className, readPoint(reader));
+                    }
+                    reader.endObject();
+                    break;
+                default:
+                    reader.skipValue(); // Ignore anything this version does not know about
+                    break;
+            }
+        }
+        reader.endObject();
+        return model;
+    }
+
+    private static UmlClass readClass(JsonReader reader) throws IOException {
+        UmlClass umlClass = new UmlClass((String) null);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "name":
+                    umlClass.setName(reader.nextString());
+                    break;
+                case "fields":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String fieldName = reader.nextName();
+                        umlClass.putLoadedField(fieldName, readNullableString(reader));
+                    }
+                    reader.endObject();
+                    break;
+                case "methods":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        umlClass.getMethodsList().add(readMethod(reader, umlClass));
+                    }
+                    reader.endArray();
+                    break;
+                case "position":
+                    umlClass.setPosition(readPoint(reader));
+                    break;
+                case "parametersNull":
+                    umlClass.setLoadedParametersNull(readParameters(reader));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return umlClass;
+    }
+
+    private static UmlClass.Method readMethod(JsonReader reader, UmlClass owner) throws IOException {
+        String name = null;
+        String returnType = null;
+        List<String[]> parameters = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String property = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (property) {
+                case "name":
+                    name = reader.nextString();
+                    break;
+                case "returnType":
+                    returnType = reader.nextString();
+                    break;
+                case "parameters":
+                    parameters = readParameters(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return owner.new Method(name, parameters, returnType);
+    }
+
+    private static List<String[]> readParameters(JsonReader reader) throws IOException {
+        List<String[]> parameters = new ArrayList<>();
+        List<String> parts = new ArrayList<>(2);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            parts.clear();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                parts.add(readNullableString(reader));
+            }
+            reader.endArray();
+            parameters.add(parts.toArray(new String[0]));
+        }
+        reader.endArray();
+        return parameters;
+    }
+
+    private static UmlRelationship readRelationship(JsonReader reader) throws IOException {
+        String source = null;
+        String destination = null;
+        RelationshipType type = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String property = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (property) {
+                case "source":
+                    source = reader.nextString();
+                    break;
+                case "destination":
+                    destination = reader.nextString();
+                    break;
+                case "type":
+                    type = RelationshipType.valueOf(reader.nextString());
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return new UmlRelationship(source, destination, type);
+    }
+
+    private static Point readPoint(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        Point point = new Point();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String property = reader.nextName();
+            switch (property) {
+                case "x":
+                    point.x = reader.nextInt();
+                    break;
+                case "y":
+                    point.y = reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return point;
+    }
+
+    private static String readNullableString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Counts the bytes read from a file to report progress, and stops the read
+     * when the reading thread is interrupted.
+     */
+    private static final class ProgressInputStream extends FilterInputStream {
+        private final long size;
+        private final DoubleConsumer onProgress;
+        private long read;
+        private int reported;
+
+        ProgressInputStream(InputStream in, long size, DoubleConsumer onProgress) {
+            super(in);
+            this.size = size;
+            this.onProgress = onProgress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Load cancelled");
+            }
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                advance(count);
+            }
+            return count;
+        }
+
+        // Report each whole percent once
+        private void advance(int count) {
+            read += count;
+            if (onProgress != null && size > 0) {
+                int percent = (int) Math.min(100, read * 100 / size);
+                if (percent > reported) {
+                    reported = percent;
+                    onProgress.accept(percent / 100.0);
+                }
+            }
+        }
+    }
+}
@@ -1,15 +1,20 @@
 package Model;
 
-import java.util.Stack;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 public class Memento {
 
-    private final Stack<UmlEditorModel> undoStack = new Stack<>();
-    private final Stack<UmlEditorModel> redoStack = new Stack<>();
+    // Snapshots are immutable, so they can move between the stacks without being copied
+    private final Deque<ModelSnapshot> undoStack = new ArrayDeque<>();
+    private final Deque<ModelSnapshot> redoStack = new ArrayDeque<>();
 
-    // Save the current state of the model by cloning it
+    // The most recent snapshot, which the next snapshot shares its unchanged classes with
+    private ModelSnapshot lastSnapshot;
+
+    // Save the current state of the model, copying only what changed since the last snapshot
     public void saveState(UmlEditorModel model) {
-        undoStack.push((UmlEditorModel) model.clone()); // Cast the clone to UmlEditorModel before pushing to the stack
+        undoStack.push(capture(model));
         redoStack.clear(); // Clear the redo stack on a new action
     }
 
@@ -18,9 +23,9 @@ public class Memento {
         if (undoStack.isEmpty()) {
             return null;
         }
-        UmlEditorModel state = undoStack.pop();
-        redoStack.push((UmlEditorModel) state.clone()); // Save for redo by cloning the state
-        return state;
+        ModelSnapshot state = undoStack.pop();
+        redoStack.push(state); // Save for redo
+        return state.toModel();
     }
 
     // Redo the last undone action by popping from the redo stack and pushing to the undo stack
@@ -28,8 +33,56 @@ public class Memento {
         if (redoStack.isEmpty()) {
             return null;
         }
-        UmlEditorModel state = redoStack.pop();
-        undoStack.push((UmlEditorModel) state.clone()); // Save for undo by cloning the state
-        return state;
+        ModelSnapshot state = redoStack.pop();
+        undoStack.push(state); // Save for undo
+        return state.toModel();
+    }
+
+    /**
+     * Undo the last action by restoring the given model in place to the last saved state.
+     * The current state of the model is kept so the undo can be redone.
+     *
+     * @param model The model to restore.
+     * @return {@code true} if a state was restored, {@code false} if there was nothing to undo.
+     */
+    public boolean undoState(UmlEditorModel model) {
+        if (undoStack.isEmpty()) {
+            return false;
+        }
+        ModelSnapshot state = undoStack.pop();
+        ModelSnapshot current = capture(model);
+        redoStack.push(current);
+        restore(model, state, current);
+        return true;
+    }
+
+    /**
+     * Redo the last undone action by restoring the given model in place.
+     * The current state of the model is kept so the redo can be undone.
+     *
+     * @param model The model to restore.
+     * @return {@code true} if a state was restored, {@code false} if there was nothing to redo.
+     */
+    public boolean redoState(UmlEditorModel model) {
+        if (redoStack.isEmpty()) {
+            return false;
+        }
+        ModelSnapshot state = redoStack.pop();
+        ModelSnapshot current = capture(model);
+        undoStack.push(current);
+        restore(model, state, current);
+        return true;
+    }
+
+    // Take a snapshot that shares everything unchanged with the previous one
+    private ModelSnapshot capture(UmlEditorModel model) {
+        lastSnapshot = ModelSnapshot.capture(model, lastSnapshot);
+        return lastSnapshot;
+    }
+
+    // Restore a snapshot, changing only what differs from the current one, and share with it from now on
+    private void restore(UmlEditorModel model, ModelSnapshot state, ModelSnapshot current) {
+        state.restoreInto(model, current);
+        lastSnapshot = state;
     }
 }
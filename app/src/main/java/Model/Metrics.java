@@ -0,0 +1,106 @@
+package Model;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Keeps the count, error count and latency of every kind of operation the editor times:
+ * each change made through {@code UmlEditor}, saving and loading files, and repainting the
+ * diagram. Each operation is registered as an MBean under the {@value #DOMAIN} domain the
+ * first time it runs, so it can be watched with JConsole or VisualVM on a user's machine,
+ * and {@link #report()} prints them all for the CLI {@code metrics} command.
+ */
+public final class Metrics {
+    /** The JMX domain the operations are registered under */
+    public static final String DOMAIN = "UmlEditor";
+
+    /** The operations, by group and then by name */
+    private static final Map<String, Map<String, OperationMetrics>> OPERATIONS = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the metrics of an operation, creating and registering them the first time.
+     *
+     * @param group The kind of thing the operation belongs to, such as "Edit" or "File".
+     * @param name  The operation, such as "add class".
+     * @return The metrics to record each run in.
+     */
+    public static OperationMetrics operation(String group, String name) {
+        Map<String, OperationMetrics> operations = OPERATIONS.computeIfAbsent(group, g -> new ConcurrentHashMap<>());
+        OperationMetrics metrics = operations.get(name);
+        if (metrics == null) {
+            metrics = operations.computeIfAbsent(name, n -> register(new OperationMetrics(group, n)));
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns every operation that has been timed, sorted by group and name.
+     *
+     * @return The operations.
+     */
+    public static List<OperationMetrics> getOperations() {
+        List<OperationMetrics> all = new ArrayList<>();
+        for (Map<String, OperationMetrics> operations : OPERATIONS.values()) {
+            all.addAll(operations.values());
+        }
+        all.sort(Comparator.comparing(OperationMetrics::getGroup).thenComparing(OperationMetrics::getName));
+        return all;
+    }
+
+    /**
+     * Describes every operation that has run, one per line, with times in milliseconds.
+     *
+     * @return The report.
+     */
+    public static String report() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%-34s %8s %7s %9s %9s %9s %9s %9s%n", "Operation (ms)", "Count", "Errors",
+                "Mean", "Median", "95%", "99%", "Max"));
+        int shown = 0;
+        for (OperationMetrics metrics : getOperations()) {
+            if (metrics.getCount() == 0) {
+                continue;
+            }
+            text.append(String.format("%-34s %8d %7d %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    metrics.getGroup() + ": " + metrics.getName(), metrics.getCount(), metrics.getErrorCount(),
+                    metrics.getMeanMillis(), metrics.getMedianMillis(), metrics.getPercentile95Millis(),
+                    metrics.getPercentile99Millis(), metrics.getMaxMillis()));
+            shown++;
+        }
+        if (shown == 0) {
+            text.append("Nothing has been timed yet.").append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Forgets the counts and times of every operation.
+     */
+    public static void reset() {
+        for (OperationMetrics metrics : getOperations()) {
+            metrics.reset();
+        }
+    }
+
+    // Makes the metrics visible to JMX tools. Timing still works if they cannot be registered.
+    private static OperationMetrics register(OperationMetrics metrics) {
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + ObjectName.quote(metrics.getGroup())
+                    + ",name=" + ObjectName.quote(metrics.getName()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+        } catch (JMException | SecurityException e) {
+            System.out.println("Could not register the " + metrics.getName() + " metrics with JMX: " + e.getMessage());
+        }
+        return metrics;
+    }
+}
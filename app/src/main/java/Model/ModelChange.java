@@ -0,0 +1,81 @@
+package Model;
+
+/**
+ * One change to a {@link UmlEditorModel}, as told to its {@link ModelListener}s. A change
+ * names the class it is about, so a listener only has to look at that class rather than
+ * the whole diagram.
+ */
+public final class ModelChange {
+
+    /**
+     * The kinds of change.
+     */
+    public enum Type {
+        /** A class was added, or put back by an undo */
+        CLASS_ADDED,
+        /** A class was renamed; the old name is given too */
+        CLASS_RENAMED,
+        /** A class was deleted */
+        CLASS_DELETED,
+        /** A field or method of a class was added, removed or edited */
+        MEMBER_CHANGED,
+        /** Relationships were added, removed or changed; no class is named */
+        RELATIONSHIP_CHANGED,
+        /** A class was moved */
+        POSITION_MOVED,
+        /** The whole model was replaced at once, so everything should be looked at again */
+        RELOADED
+    }
+
+    private final Type type;
+    private final String className;
+    private final String oldName;
+
+    /**
+     * Creates a change.
+     *
+     * @param type      The kind of change.
+     * @param className The class the change is about, or {@code null} if it is not about one class.
+     * @param oldName   The name the class had before a rename, or {@code null}.
+     */
+    ModelChange(Type type, String className, String oldName) {
+        this.type = type;
+        this.className = className;
+        this.oldName = oldName;
+    }
+
+    /**
+     * Returns the kind of change.
+     *
+     * @return The type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the class the change is about, by its name after the change.
+     *
+     * @return The class name, or {@code null} for changes to relationships or the whole model.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the name a renamed class had before.
+     *
+     * @return The old name, or {@code null} if the change is not a rename.
+     */
+    public String getOldName() {
+        return oldName;
+    }
+
+    @Override
+    public String toString() {
+        if (oldName != null) {
+            return type + " " + oldName + " -> " + className;
+        }
+        return (className != null) ? type + " " + className : type.toString();
+    }
+}
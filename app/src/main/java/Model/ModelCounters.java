@@ -0,0 +1,133 @@
+package Model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps count of the classes, fields, methods and relationships in a model, updated from
+ * its change events. The whole model is counted once; after that only the class a change
+ * names is counted again, so asking for the counts after each edit does not cost more as
+ * the diagram grows.
+ */
+public class ModelCounters implements ModelListener {
+
+    private final UmlEditorModel model;
+    /** The field and method counts of each class, as last counted */
+    private final Map<String, int[]> counted = new HashMap<>();
+    private int fieldCount;
+    private int methodCount;
+    private int relationshipCount;
+
+    /**
+     * Counts a model and starts listening to it.
+     *
+     * @param model The model to count.
+     */
+    public ModelCounters(UmlEditorModel model) {
+        this.model = model;
+        model.write(() -> {
+            recountAll();
+            model.addModelListener(this); // Added while locked, so no change is missed or counted twice
+            return null;
+        });
+    }
+
+    /**
+     * Stops listening to the model, such as when another model replaces it.
+     */
+    public void detach() {
+        model.removeModelListener(this);
+    }
+
+    @Override
+    public void modelChanged(ModelChange change) {
+        switch (change.getType()) {
+            case CLASS_ADDED:
+            case MEMBER_CHANGED:
+                recount(change.getClassName());
+                break;
+            case CLASS_RENAMED:
+                forget(change.getOldName());
+                recount(change.getClassName());
+                break;
+            case CLASS_DELETED:
+                forget(change.getClassName());
+                break;
+            case RELATIONSHIP_CHANGED:
+                relationshipCount = model.getRelationships().size();
+                break;
+            case RELOADED:
+                recountAll();
+                break;
+            default: // Moving a class changes no count
+                break;
+        }
+    }
+
+    // Count one class again, replacing what it counted before
+    private void recount(String name) {
+        forget(name);
+        UmlClass umlClass = model.getClasses().get(name);
+        if (umlClass != null) {
+            int[] counts = {umlClass.getFieldCount(), umlClass.getMethodsList().size()};
+            counted.put(name, counts);
+            fieldCount += counts[0];
+            methodCount += counts[1];
+        }
+    }
+
+    // Take away what a class counted, if it was counted
+    private void forget(String name) {
+        int[] counts = counted.remove(name);
+        if (counts != null) {
+            fieldCount -= counts[0];
+            methodCount -= counts[1];
+        }
+    }
+
+    private void recountAll() {
+        counted.clear();
+        fieldCount = 0;
+        methodCount = 0;
+        for (String name : model.getClasses().keySet()) {
+            recount(name);
+        }
+        relationshipCount = model.getRelationships().size();
+    }
+
+    /**
+     * Returns the number of classes.
+     *
+     * @return The class count.
+     */
+    public int getClassCount() {
+        return counted.size();
+    }
+
+    /**
+     * Returns the number of fields across all classes.
+     *
+     * @return The field count.
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the number of methods across all classes, counting each overload.
+     *
+     * @return The method count.
+     */
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    /**
+     * Returns the number of relationships.
+     *
+     * @return The relationship count.
+     */
+    public int getRelationshipCount() {
+        return relationshipCount;
+    }
+}
@@ -0,0 +1,20 @@
+package Model;
+
+/**
+ * Told about each change to a {@link UmlEditorModel}, so views, caches and counts can be
+ * kept up to date one change at a time instead of looking at the whole model again.
+ *
+ * Changes are told after the model has been unlocked, on the thread that made them, and
+ * in the order they were made. A change made as part of a larger one, such as while an
+ * undo or {@link UmlEditorModel#write} runs, is told when the larger change is finished.
+ */
+@FunctionalInterface
+public interface ModelListener {
+
+    /**
+     * Called after the model changed.
+     *
+     * @param change What changed.
+     */
+    void modelChanged(ModelChange change);
+}
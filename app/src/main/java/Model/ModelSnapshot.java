@@ -0,0 +1,349 @@
+package Model;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable copy of the state of a {@link UmlEditorModel}, used by {@link Memento}.
+ * Snapshots are stored in persistent maps and vectors, and each new snapshot is built
+ * from the previous one. Only classes that were edited in between are copied; every
+ * other class, position, and relationship is shared with the previous snapshot.
+ * The model reports which classes it changed, so building a snapshot only has to
+ * look at those classes.
+ */
+public final class ModelSnapshot {
+    /** The copied classes, keyed by class name */
+    private final PersistentMap<String, ClassEntry> classes;
+
+    /** The copied class positions, keyed by class name */
+    private final PersistentMap<String, Point> positions;
+
+    /** The copied relationships, in the same order as in the model */
+    private final PersistentVector<UmlRelationship> relationships;
+
+    /** The relationship list that was copied, used to tell if the model replaced it */
+    private final List<UmlRelationship> relationshipsSource;
+
+    /** The relationships version of the model when it was copied */
+    private final long relationshipsVersion;
+
+    /**
+     * A copied class along with the live class it was copied from.
+     */
+    private static final class ClassEntry {
+        /** The frozen copy of the class, which is never handed out or changed */
+        final UmlClass frozen;
+        /** The live class that was copied */
+        final UmlClass source;
+        /** The modification count of the live class when it was copied */
+        final long sourceModCount;
+
+        ClassEntry(UmlClass source) {
+            this.frozen = new UmlClass(source);
+            this.source = source;
+            this.sourceModCount = source.getModCount();
+        }
+
+        /**
+         * Returns whether a live class is still exactly the one this entry copied.
+         */
+        boolean matches(UmlClass live) {
+            return live == source && live.getModCount() == sourceModCount;
+        }
+    }
+
+    private ModelSnapshot(PersistentMap<String, ClassEntry> classes, PersistentMap<String, Point> positions,
+            PersistentVector<UmlRelationship> relationships, List<UmlRelationship> relationshipsSource,
+            long relationshipsVersion) {
+        this.classes = classes;
+        this.positions = positions;
+        this.relationships = relationships;
+        this.relationshipsSource = relationshipsSource;
+        this.relationshipsVersion = relationshipsVersion;
+    }
+
+    /**
+     * Takes a snapshot of a model, sharing everything that has not changed with a previous snapshot.
+     * If the model has been tracking its changes since the previous snapshot, only the changed
+     * classes are looked at, so the cost does not depend on the size of the diagram.
+     *
+     * @param model    The model to copy.
+     * @param previous The previous snapshot to share with, or {@code null} to copy everything.
+     * @return The new snapshot.
+     */
+    public static ModelSnapshot capture(UmlEditorModel model, ModelSnapshot previous) {
+        FlightRecorderEvents.SnapshotEvent event = new FlightRecorderEvents.SnapshotEvent();
+        event.begin();
+        long stamp = model.lockWrite();
+        try {
+            return captureLocked(model, previous);
+        } finally {
+            model.unlockWrite(stamp);
+            commitEvent(event, "undo", model);
+        }
+    }
+
+    /**
+     * Fills in and commits a flight recorder event for a snapshot that has been taken, if it is being recorded.
+     *
+     * @param event The event, begun when the snapshot was started.
+     * @param kind  What the snapshot was for.
+     * @param model The model the snapshot was taken of.
+     */
+    static void commitEvent(FlightRecorderEvents.SnapshotEvent event, String kind, UmlEditorModel model) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.classes = model.getClasses().size();
+            event.relationships = model.getRelationships().size();
+            event.commit();
+        }
+    }
+
+    private static ModelSnapshot captureLocked(UmlEditorModel model, ModelSnapshot previous) {
+        PersistentMap<String, ClassEntry> newClasses = (previous != null) ? previous.classes : PersistentMap.empty();
+        PersistentMap<String, Point> newPositions = (previous != null) ? previous.positions : PersistentMap.empty();
+        Map<String, UmlClass> liveClasses = model.getClasses();
+        Map<String, Point> livePositions = model.getClassPositions();
+
+        Set<String> changed = model.changesSince(previous);
+        if (changed != null) {
+            // Only the classes the model reported as changed can differ from the previous snapshot
+            for (String name : changed) {
+                newClasses = copyClass(newClasses, name, liveClasses.get(name));
+                newPositions = copyPosition(newPositions, name, livePositions);
+            }
+        } else {
+            // The changes are not known, so compare every class, and adopt them so they are known next time
+            for (Map.Entry<String, UmlClass> entry : liveClasses.entrySet()) {
+                newClasses = copyClass(newClasses, entry.getKey(), entry.getValue());
+                model.adopt(entry.getValue());
+            }
+            for (String name : livePositions.keySet()) {
+                newPositions = copyPosition(newPositions, name, livePositions);
+            }
+            if (newClasses.size() != liveClasses.size()) {
+                newClasses = dropMissing(newClasses, liveClasses);
+            }
+            if (newPositions.size() != livePositions.size()) {
+                newPositions = dropMissing(newPositions, livePositions);
+            }
+        }
+
+        // Reuse the relationships if they have not changed, otherwise copy them
+        // while still sharing every copied relationship that is equal to the live one
+        List<UmlRelationship> liveRelationships = model.getRelationships();
+        PersistentVector<UmlRelationship> newRelationships;
+        if (previous != null && previous.relationshipsSource == liveRelationships
+                && previous.relationshipsVersion == model.getRelationshipsVersion()) {
+            newRelationships = previous.relationships;
+        } else {
+            newRelationships = PersistentVector.empty();
+            int index = 0;
+            for (UmlRelationship relationship : liveRelationships) {
+                UmlRelationship old = (previous != null && index < previous.relationships.size())
+                        ? previous.relationships.get(index)
+                        : null;
+                newRelationships = newRelationships.plus(
+                        relationship.equals(old) ? old : new UmlRelationship(relationship));
+                index++;
+            }
+        }
+
+        ModelSnapshot snapshot = new ModelSnapshot(newClasses, newPositions, newRelationships, liveRelationships,
+                model.getRelationshipsVersion());
+        model.resetChanges(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Sets the state of a model back to this snapshot. Classes that have not been
+     * edited since the snapshot was taken are left in place; the others are replaced
+     * with fresh copies, so the snapshot itself is never changed by later edits.
+     *
+     * @param model The model to restore.
+     */
+    public void restoreInto(UmlEditorModel model) {
+        restoreInto(model, null);
+    }
+
+    /**
+     * Sets the state of a model back to this snapshot, given a snapshot of its current state.
+     * Only the classes that differ between the two snapshots are looked at.
+     *
+     * @param model   The model to restore.
+     * @param current A snapshot of the current state of the model, or {@code null} to check every class.
+     */
+    void restoreInto(UmlEditorModel model, ModelSnapshot current) {
+        long stamp = model.lockWrite();
+        try {
+            restoreLocked(model, current);
+        } finally {
+            model.unlockWrite(stamp);
+        }
+    }
+
+    private void restoreLocked(UmlEditorModel model, ModelSnapshot current) {
+        Map<String, UmlClass> liveClasses = model.getClasses();
+        Map<String, Point> livePositions = model.getClassPositions();
+        Set<String> changed = model.changesSince(current);
+        boolean incremental = changed != null && changed.isEmpty();
+        if (incremental) {
+            // The model still matches the current snapshot, so only the differences need restoring
+            current.classes.forEachDifference(classes, name -> restoreClass(model, liveClasses, name));
+            current.positions.forEachDifference(positions, name -> restorePosition(model, livePositions, name));
+        } else {
+            classes.forEach((name, entry) -> restoreClass(model, liveClasses, name));
+            if (liveClasses.size() != classes.size()) {
+                liveClasses.keySet().removeIf(name -> !classes.containsKey(name));
+            }
+            positions.forEach((name, position) -> restorePosition(model, livePositions, name));
+            if (livePositions.size() != positions.size()) {
+                livePositions.keySet().removeIf(name -> !positions.containsKey(name));
+            }
+            model.invalidateChanges(); // Classes were removed without being reported
+            model.notifyListeners(ModelChange.Type.RELOADED, null, null);
+        }
+
+        boolean relationshipsKept = incremental && current.relationships == relationships
+                && current.relationshipsSource == model.getRelationships()
+                && current.relationshipsVersion == model.getRelationshipsVersion();
+        if (!relationshipsKept && !sameRelationships(model.getRelationships())) {
+            model.setRelationships(copyRelationships());
+        }
+        model.resetChanges(this);
+    }
+
+    /**
+     * Creates a new, independent model holding the state of this snapshot.
+     *
+     * @return The new model.
+     */
+    public UmlEditorModel toModel() {
+        UmlEditorModel model = new UmlEditorModel();
+        classes.forEach((name, entry) -> {
+            UmlClass copy = new UmlClass(entry.frozen);
+            model.adopt(copy);
+            model.getClasses().put(name, copy);
+        });
+        positions.forEach((name, position) ->
+                model.getClassPositions().put(name, (position != null) ? new Point(position) : null));
+        model.setRelationships(copyRelationships());
+        return model;
+    }
+
+    /**
+     * Returns the number of classes in this snapshot.
+     *
+     * @return The number of classes.
+     */
+    public int size() {
+        return classes.size();
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Returns the classes with one class brought up to date with the model.
+     */
+    private static PersistentMap<String, ClassEntry> copyClass(PersistentMap<String, ClassEntry> classes,
+            String name, UmlClass live) {
+        if (live == null) {
+            return classes.minus(name);
+        }
+        ClassEntry old = classes.get(name);
+        return (old != null && old.matches(live)) ? classes : classes.plus(name, new ClassEntry(live));
+    }
+
+    /**
+     * Returns the positions with one position brought up to date with the model.
+     */
+    private static PersistentMap<String, Point> copyPosition(PersistentMap<String, Point> positions,
+            String name, Map<String, Point> livePositions) {
+        if (!livePositions.containsKey(name)) {
+            return positions.minus(name);
+        }
+        Point live = livePositions.get(name);
+        if (positions.containsKey(name) && Objects.equals(positions.get(name), live)) {
+            return positions;
+        }
+        return positions.plus(name, (live != null) ? new Point(live) : null);
+    }
+
+    /**
+     * Brings one live class back to its state in this snapshot.
+     */
+    private void restoreClass(UmlEditorModel model, Map<String, UmlClass> liveClasses, String name) {
+        ClassEntry entry = classes.get(name);
+        if (entry == null) {
+            if (liveClasses.remove(name) != null) {
+                model.classChanged(name);
+                model.notifyListeners(ModelChange.Type.CLASS_DELETED, name, null);
+            }
+        } else if (!entry.matches(liveClasses.get(name))) {
+            UmlClass copy = new UmlClass(entry.frozen);
+            model.adopt(copy);
+            liveClasses.put(name, copy);
+            model.classChanged(name);
+            model.notifyListeners(ModelChange.Type.CLASS_ADDED, name, null);
+        }
+    }
+
+    /**
+     * Brings one live position back to its state in this snapshot.
+     */
+    private void restorePosition(UmlEditorModel model, Map<String, Point> livePositions, String name) {
+        if (!positions.containsKey(name)) {
+            if (livePositions.containsKey(name)) {
+                livePositions.remove(name);
+                model.classChanged(name);
+                model.notifyListeners(ModelChange.Type.POSITION_MOVED, name, null);
+            }
+            return;
+        }
+        Point position = positions.get(name);
+        if (!livePositions.containsKey(name) || !Objects.equals(livePositions.get(name), position)) {
+            livePositions.put(name, (position != null) ? new Point(position) : null);
+            model.classChanged(name);
+            model.notifyListeners(ModelChange.Type.POSITION_MOVED, name, null);
+        }
+    }
+
+    /**
+     * Returns the map without the keys that are no longer in the model.
+     */
+    private static <V> PersistentMap<String, V> dropMissing(PersistentMap<String, V> copied, Map<String, ?> live) {
+        PersistentMap<String, V> result = copied;
+        for (Map.Entry<String, V> entry : copied) {
+            if (!live.containsKey(entry.getKey())) {
+                result = result.minus(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    private boolean sameRelationships(List<UmlRelationship> live) {
+        if (live.size() != relationships.size()) {
+            return false;
+        }
+        int index = 0;
+        for (UmlRelationship relationship : live) {
+            if (!relationship.equals(relationships.get(index++))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<UmlRelationship> copyRelationships() {
+        List<UmlRelationship> copy = new ArrayList<>(relationships.size());
+        for (UmlRelationship relationship : relationships) {
+            copy.add(new UmlRelationship(relationship));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,170 @@
+package Model;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A read-only copy of a {@link UmlEditorModel} that other threads can read while the model
+ * is being edited. A view never changes once it is built: the model builds a new one the
+ * first time a view is asked for after a change, copying only the classes that changed and
+ * sharing everything else with the previous view, so reading a view never takes a lock.
+ * The classes and relationships in a view are copies and must not be changed.
+ */
+public final class ModelView {
+    /** The copied classes, keyed by class name */
+    private final PersistentMap<String, UmlClass> classes;
+
+    /** The copied class positions, keyed by class name */
+    private final PersistentMap<String, Point> positions;
+
+    /** The copied relationships, in the same order as in the model */
+    private final List<UmlRelationship> relationships;
+
+    /** The relationship list that was copied, used to tell if the model replaced it */
+    private final List<UmlRelationship> relationshipsSource;
+
+    /** The relationships version of the model when it was copied */
+    private final long relationshipsVersion;
+
+    /** The change count of the model when it was copied */
+    private final long version;
+
+    private ModelView(PersistentMap<String, UmlClass> classes, PersistentMap<String, Point> positions,
+            List<UmlRelationship> relationships, List<UmlRelationship> relationshipsSource,
+            long relationshipsVersion, long version) {
+        this.classes = classes;
+        this.positions = positions;
+        this.relationships = relationships;
+        this.relationshipsSource = relationshipsSource;
+        this.relationshipsVersion = relationshipsVersion;
+        this.version = version;
+    }
+
+    /**
+     * Builds a view of a model, which must not be changed while this runs.
+     *
+     * @param model    The model to copy.
+     * @param previous The previous view to share with, or {@code null} to copy everything.
+     * @param changed  The names of the classes changed since the previous view, or {@code null} if not known.
+     * @param version  The change count of the model.
+     * @return The new view.
+     */
+    static ModelView build(UmlEditorModel model, ModelView previous, Set<String> changed, long version) {
+        PersistentMap<String, UmlClass> newClasses;
+        PersistentMap<String, Point> newPositions;
+        Map<String, UmlClass> liveClasses = model.getClasses();
+        Map<String, Point> livePositions = model.getClassPositions();
+        if (previous != null && changed != null) {
+            // Only the classes the model reported as changed can differ from the previous view
+            newClasses = previous.classes;
+            newPositions = previous.positions;
+            for (String name : changed) {
+                UmlClass live = liveClasses.get(name);
+                newClasses = (live != null) ? newClasses.plus(name, freeze(live)) : newClasses.minus(name);
+                Point position = livePositions.get(name);
+                newPositions = (position != null) ? newPositions.plus(name, new Point(position))
+                        : newPositions.minus(name);
+            }
+        } else {
+            newClasses = PersistentMap.empty();
+            newPositions = PersistentMap.empty();
+            for (Map.Entry<String, UmlClass> entry : liveClasses.entrySet()) {
+                newClasses = newClasses.plus(entry.getKey(), freeze(entry.getValue()));
+            }
+            for (Map.Entry<String, Point> entry : livePositions.entrySet()) {
+                if (entry.getValue() != null) {
+                    newPositions = newPositions.plus(entry.getKey(), new Point(entry.getValue()));
+                }
+            }
+        }
+
+        // Reuse the relationships if they have not changed, otherwise copy them
+        List<UmlRelationship> liveRelationships = model.getRelationships();
+        List<UmlRelationship> newRelationships;
+        if (previous != null && previous.relationshipsSource == liveRelationships
+                && previous.relationshipsVersion == model.getRelationshipsVersion()) {
+            newRelationships = previous.relationships;
+        } else {
+            List<UmlRelationship> copy = new ArrayList<>(liveRelationships.size());
+            for (UmlRelationship relationship : liveRelationships) {
+                copy.add(new UmlRelationship(relationship));
+            }
+            newRelationships = Collections.unmodifiableList(copy);
+        }
+
+        return new ModelView(newClasses, newPositions, newRelationships, liveRelationships,
+                model.getRelationshipsVersion(), version);
+    }
+
+    /**
+     * Returns the change count of the model when this view was built.
+     *
+     * @return The model version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a class by name.
+     *
+     * @param name The name of the class.
+     * @return The copy of the class, or {@code null} if there is no class with that name.
+     */
+    public UmlClass getUmlClass(String name) {
+        return (name != null) ? classes.get(name) : null;
+    }
+
+    /**
+     * Returns every class, keyed by name.
+     *
+     * @return An unmodifiable map of the classes.
+     */
+    public Map<String, UmlClass> getClasses() {
+        return classes.asMap();
+    }
+
+    /**
+     * Returns every relationship.
+     *
+     * @return An unmodifiable list of the relationships.
+     */
+    public List<UmlRelationship> getRelationships() {
+        return relationships;
+    }
+
+    /**
+     * Returns the position of every class that has one, keyed by class name.
+     *
+     * @return An unmodifiable map of the positions.
+     */
+    public Map<String, Point> getClassPositions() {
+        return positions.asMap();
+    }
+
+    /**
+     * Returns the position of a class.
+     *
+     * @param name The name of the class.
+     * @return The position, or {@code null} if the class has none.
+     */
+    public Point getClassPosition(String name) {
+        Point position = (name != null) ? positions.get(name) : null;
+        return (position != null) ? new Point(position) : null;
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Copies a class and builds its lazy indexes, so readers never write to the copy.
+     */
+    private static UmlClass freeze(UmlClass live) {
+        UmlClass copy = new UmlClass(live);
+        copy.buildCaches();
+        return copy;
+    }
+}
@@ -0,0 +1,116 @@
+package Model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The count, errors and times of one kind of operation, such as adding a class or
+ * loading a file. Get one from {@link Metrics#operation(String, String)} and time each
+ * run with it:
+ *
+ * <pre>
+ * long start = System.nanoTime();
+ * boolean succeeded = doTheWork();
+ * LOAD.record(start, succeeded);
+ * </pre>
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String group;
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Creates the metrics of an operation. Use {@link Metrics#operation(String, String)} so
+     * that they are registered with JMX and included in reports.
+     *
+     * @param group The kind of thing the operation belongs to, such as "Edit" or "File".
+     * @param name  The operation, such as "add class".
+     */
+    OperationMetrics(String group, String name) {
+        this.group = group;
+        this.name = name;
+    }
+
+    /**
+     * Records one run of the operation, which ends now.
+     *
+     * @param startNanos The {@link System#nanoTime()} when the run started.
+     * @param succeeded  {@code false} if the run failed or was refused.
+     */
+    public void record(long startNanos, boolean succeeded) {
+        latency.record(System.nanoTime() - startNanos);
+        if (!succeeded) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Returns the kind of thing the operation belongs to.
+     *
+     * @return The group, such as "Edit".
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * Returns the operation.
+     *
+     * @return The name, such as "add class".
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the times recorded, in nanoseconds.
+     *
+     * @return The histogram.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMedianMillis() {
+        return latency.getValueAtPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getPercentile95Millis() {
+        return latency.getValueAtPercentile(95) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getPercentile99Millis() {
+        return latency.getValueAtPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.reset();
+    }
+}
@@ -0,0 +1,62 @@
+package Model;
+
+/**
+ * What JMX tools such as JConsole and VisualVM see of one kind of operation, under
+ * {@code UmlEditor:type=<group>,name=<operation>}. Times are in milliseconds.
+ */
+public interface OperationMetricsMBean {
+
+    /**
+     * Returns how many times the operation has run.
+     *
+     * @return The count.
+     */
+    long getCount();
+
+    /**
+     * Returns how many times the operation failed or was refused.
+     *
+     * @return The error count.
+     */
+    long getErrorCount();
+
+    /**
+     * Returns the average time the operation took.
+     *
+     * @return The mean in milliseconds.
+     */
+    double getMeanMillis();
+
+    /**
+     * Returns the time half of the runs took no longer than.
+     *
+     * @return The median in milliseconds.
+     */
+    double getMedianMillis();
+
+    /**
+     * Returns the time 95% of the runs took no longer than.
+     *
+     * @return The 95th percentile in milliseconds.
+     */
+    double getPercentile95Millis();
+
+    /**
+     * Returns the time 99% of the runs took no longer than.
+     *
+     * @return The 99th percentile in milliseconds.
+     */
+    double getPercentile99Millis();
+
+    /**
+     * Returns the longest time the operation took.
+     *
+     * @return The maximum in milliseconds.
+     */
+    double getMaxMillis();
+
+    /**
+     * Forgets the counts and times recorded so far.
+     */
+    void reset();
+}
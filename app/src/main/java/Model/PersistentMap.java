@@ -0,0 +1,572 @@
+package Model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * An immutable hash map built as a hash array mapped trie.
+ * Adding or removing a key returns a new map that shares every untouched
+ * node with the old one, so each change only copies one path of the trie.
+ * Keys may not be {@code null}.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+public final class PersistentMap<K, V> implements Iterable<Map.Entry<K, V>> {
+    /** Marker returned by lookups that find nothing, since values may be null */
+    private static final Object NOT_FOUND = new Object();
+
+    /** The shared empty map */
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    /** The root node of the trie, or {@code null} when the map is empty */
+    private final Node root;
+
+    /** The number of entries in the map */
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     *
+     * @param <K> The type of the keys.
+     * @param <V> The type of the values.
+     * @return An empty map.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return The size of the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the map has no entries.
+     *
+     * @return {@code true} if the map is empty, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value stored for a key.
+     *
+     * @param key The key to look up.
+     * @return The value for the key, or {@code null} if the key is not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (root == null || key == null) {
+            return null;
+        }
+        Object value = root.find(0, hash(key), key);
+        return (value == NOT_FOUND) ? null : (V) value;
+    }
+
+    /**
+     * Returns whether the map has an entry for a key.
+     *
+     * @param key The key to look up.
+     * @return {@code true} if the key is in the map, {@code false} otherwise.
+     */
+    public boolean containsKey(Object key) {
+        return root != null && key != null && root.find(0, hash(key), key) != NOT_FOUND;
+    }
+
+    /**
+     * Returns a map with the given entry added or replaced.
+     *
+     * @param key   The key of the entry.
+     * @param value The value of the entry.
+     * @return The new map, or this map if the entry was already present.
+     */
+    public PersistentMap<K, V> plus(K key, V value) {
+        if (key == null) {
+            throw new NullPointerException("PersistentMap keys cannot be null");
+        }
+        boolean[] addedLeaf = new boolean[1];
+        Node start = (root == null) ? BitmapNode.EMPTY : root;
+        Node newRoot = start.assoc(0, hash(key), key, value, addedLeaf);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentMap<>(newRoot, addedLeaf[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without the entry for the given key.
+     *
+     * @param key The key to remove.
+     * @return The new map, or this map if the key was not present.
+     */
+    public PersistentMap<K, V> minus(Object key) {
+        if (root == null || key == null) {
+            return this;
+        }
+        Node newRoot = root.without(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Performs an action for every entry in the map.
+     *
+     * @param action The action to perform on each key and value.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach((BiConsumer<Object, Object>) action);
+        }
+    }
+
+    /**
+     * Returns an iterator over the entries of the map.
+     *
+     * @return An iterator over the entries.
+     */
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+    }
+
+    /**
+     * Returns a read-only {@link Map} backed by this map, for code that expects the standard
+     * interface. Lookups go straight to the trie; changing the returned map is not supported.
+     *
+     * @return An unmodifiable map with the same entries.
+     */
+    public Map<K, V> asMap() {
+        return new AbstractMap<K, V>() {
+            @Override
+            public Set<Map.Entry<K, V>> entrySet() {
+                return new AbstractSet<Map.Entry<K, V>>() {
+                    @Override
+                    public Iterator<Map.Entry<K, V>> iterator() {
+                        return PersistentMap.this.iterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                };
+            }
+
+            @Override
+            public V get(Object key) {
+                return PersistentMap.this.get(key);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return PersistentMap.this.containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Performs an action for every key whose value differs between this map and another,
+     * including keys that are only in one of the two maps. Parts of the trie that the
+     * two maps share are skipped, so comparing a map with one derived from it only costs
+     * as much as the changes between them. Values are compared by identity, and some
+     * keys with equal values may also be reported.
+     *
+     * @param other  The map to compare with.
+     * @param action The action to perform on each key that differs.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachDifference(PersistentMap<K, V> other, Consumer<? super K> action) {
+        difference(root, other.root, 0, (Consumer<Object>) action);
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Reports the keys that differ between two nodes at the same position in two tries.
+     */
+    private static void difference(Node a, Node b, int shift, Consumer<Object> action) {
+        if (a == b) {
+            return; // Shared, so nothing below here changed
+        }
+        if (!(a instanceof BitmapNode) || !(b instanceof BitmapNode)) {
+            forEachKey(a, action);
+            forEachKey(b, action);
+            return;
+        }
+        BitmapNode left = (BitmapNode) a;
+        BitmapNode right = (BitmapNode) b;
+        int bits = left.bitmap | right.bitmap;
+        while (bits != 0) {
+            int bit = Integer.lowestOneBit(bits);
+            bits ^= bit;
+            if ((left.bitmap & bit) == 0) {
+                forEachKey(right.array, right.index(bit), action);
+            } else if ((right.bitmap & bit) == 0) {
+                forEachKey(left.array, left.index(bit), action);
+            } else {
+                int leftIdx = 2 * left.index(bit);
+                int rightIdx = 2 * right.index(bit);
+                Object leftKey = left.array[leftIdx];
+                Object rightKey = right.array[rightIdx];
+                if (leftKey == null && rightKey == null) {
+                    difference((Node) left.array[leftIdx + 1], (Node) right.array[rightIdx + 1], shift + 5, action);
+                } else if (leftKey != null && leftKey.equals(rightKey)) {
+                    if (left.array[leftIdx + 1] != right.array[rightIdx + 1]) {
+                        action.accept(leftKey);
+                    }
+                } else {
+                    forEachKey(left.array, leftIdx / 2, action);
+                    forEachKey(right.array, rightIdx / 2, action);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports every key in a slot of a node array.
+     */
+    private static void forEachKey(Object[] array, int slot, Consumer<Object> action) {
+        if (array[2 * slot] != null) {
+            action.accept(array[2 * slot]);
+        } else {
+            forEachKey((Node) array[2 * slot + 1], action);
+        }
+    }
+
+    /**
+     * Reports every key below a node.
+     */
+    private static void forEachKey(Node node, Consumer<Object> action) {
+        if (node != null) {
+            node.forEach((key, value) -> action.accept(key));
+        }
+    }
+
+    /**
+     * Spreads the higher bits of a key's hash code into the lower bits.
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the bit for a hash at a given level of the trie.
+     */
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 0x1f);
+    }
+
+    /**
+     * A node of the trie.
+     */
+    private interface Node {
+        Object find(int shift, int hash, Object key);
+
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] addedLeaf);
+
+        Node without(int shift, int hash, Object key);
+
+        void forEach(BiConsumer<Object, Object> action);
+
+        Object[] array();
+    }
+
+    /**
+     * A node that stores up to 32 slots, using a bitmap to mark which ones are used.
+     * Each slot is a key and value pair, or a {@code null} key and a child node.
+     */
+    private static final class BitmapNode implements Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int idx = index(bit);
+            Object keyOrNull = array[2 * idx];
+            Object valueOrNode = array[2 * idx + 1];
+            if (keyOrNull == null) {
+                return ((Node) valueOrNode).find(shift + 5, hash, key);
+            }
+            return key.equals(keyOrNull) ? valueOrNode : NOT_FOUND;
+        }
+
+        @Override
+        public Node assoc(int shift, int hash, Object key, Object value, boolean[] addedLeaf) {
+            int bit = bitpos(hash, shift);
+            int idx = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object keyOrNull = array[2 * idx];
+                Object valueOrNode = array[2 * idx + 1];
+                if (keyOrNull == null) {
+                    Node child = ((Node) valueOrNode).assoc(shift + 5, hash, key, value, addedLeaf);
+                    if (child == valueOrNode) {
+                        return this;
+                    }
+                    return new BitmapNode(bitmap, cloneAndSet(array, 2 * idx + 1, child));
+                }
+                if (key.equals(keyOrNull)) {
+                    if (value == valueOrNode) {
+                        return this;
+                    }
+                    return new BitmapNode(bitmap, cloneAndSet(array, 2 * idx + 1, value));
+                }
+                // Two different keys share this slot, so push both down a level
+                addedLeaf[0] = true;
+                Node child = createNode(shift + 5, keyOrNull, valueOrNode, hash, key, value);
+                Object[] newArray = cloneAndSet(array, 2 * idx, null);
+                newArray[2 * idx + 1] = child;
+                return new BitmapNode(bitmap, newArray);
+            }
+
+            // Insert a new key and value pair into a free slot
+            int count = Integer.bitCount(bitmap);
+            Object[] newArray = new Object[2 * (count + 1)];
+            System.arraycopy(array, 0, newArray, 0, 2 * idx);
+            newArray[2 * idx] = key;
+            newArray[2 * idx + 1] = value;
+            System.arraycopy(array, 2 * idx, newArray, 2 * (idx + 1), 2 * (count - idx));
+            addedLeaf[0] = true;
+            return new BitmapNode(bitmap | bit, newArray);
+        }
+
+        @Override
+        public Node without(int shift, int hash, Object key) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int idx = index(bit);
+            Object keyOrNull = array[2 * idx];
+            Object valueOrNode = array[2 * idx + 1];
+            if (keyOrNull == null) {
+                Node child = ((Node) valueOrNode).without(shift + 5, hash, key);
+                if (child == valueOrNode) {
+                    return this;
+                }
+                if (child != null) {
+                    return new BitmapNode(bitmap, cloneAndSet(array, 2 * idx + 1, child));
+                }
+            } else if (!key.equals(keyOrNull)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null; // The node is now empty
+            }
+            return new BitmapNode(bitmap ^ bit, removePair(array, idx));
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+
+        @Override
+        public Object[] array() {
+            return array;
+        }
+    }
+
+    /**
+     * A node for keys whose full hash codes are equal.
+     */
+    private static final class CollisionNode implements Node {
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int idx = indexOf(key);
+            return (idx < 0) ? NOT_FOUND : array[idx + 1];
+        }
+
+        @Override
+        public Node assoc(int shift, int hash, Object key, Object value, boolean[] addedLeaf) {
+            if (hash == this.hash) {
+                int idx = indexOf(key);
+                if (idx >= 0) {
+                    if (array[idx + 1] == value) {
+                        return this;
+                    }
+                    return new CollisionNode(hash, cloneAndSet(array, idx + 1, value));
+                }
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, array.length);
+                newArray[array.length] = key;
+                newArray[array.length + 1] = value;
+                addedLeaf[0] = true;
+                return new CollisionNode(hash, newArray);
+            }
+            // A different hash, so nest this node inside a bitmap node
+            return new BitmapNode(bitpos(this.hash, shift), new Object[] { null, this })
+                    .assoc(shift, hash, key, value, addedLeaf);
+        }
+
+        @Override
+        public Node without(int shift, int hash, Object key) {
+            int idx = indexOf(key);
+            if (idx < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            return new CollisionNode(hash, removePair(array, idx / 2));
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                action.accept(array[i], array[i + 1]);
+            }
+        }
+
+        @Override
+        public Object[] array() {
+            return array;
+        }
+    }
+
+    /**
+     * Creates a node holding two entries whose keys landed in the same slot.
+     */
+    private static Node createNode(int shift, Object key1, Object value1, int key2Hash, Object key2, Object value2) {
+        int key1Hash = hash(key1);
+        if (key1Hash == key2Hash) {
+            return new CollisionNode(key1Hash, new Object[] { key1, value1, key2, value2 });
+        }
+        boolean[] addedLeaf = new boolean[1];
+        return BitmapNode.EMPTY
+                .assoc(shift, key1Hash, key1, value1, addedLeaf)
+                .assoc(shift, key2Hash, key2, value2, addedLeaf);
+    }
+
+    private static Object[] cloneAndSet(Object[] array, int index, Object value) {
+        Object[] clone = array.clone();
+        clone[index] = value;
+        return clone;
+    }
+
+    private static Object[] removePair(Object[] array, int pairIndex) {
+        Object[] newArray = new Object[array.length - 2];
+        System.arraycopy(array, 0, newArray, 0, 2 * pairIndex);
+        System.arraycopy(array, 2 * (pairIndex + 1), newArray, 2 * pairIndex, newArray.length - 2 * pairIndex);
+        return newArray;
+    }
+
+    /**
+     * Walks the trie depth first, one entry at a time.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Map.Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                arrays.push(root.array());
+                positions.push(0);
+            }
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (!arrays.isEmpty()) {
+                Object[] array = arrays.peek();
+                int position = positions.pop();
+                if (position >= array.length) {
+                    arrays.pop();
+                    continue;
+                }
+                positions.push(position + 2);
+                if (array[position] == null) {
+                    arrays.push(((Node) array[position + 1]).array());
+                    positions.push(0);
+                } else {
+                    next = new AbstractMap.SimpleImmutableEntry<>((K) array[position], (V) array[position + 1]);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> result = next;
+            advance();
+            return result;
+        }
+    }
+}
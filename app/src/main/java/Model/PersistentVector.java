@@ -0,0 +1,224 @@
+package Model;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable list built as a 32-way trie with a separate tail block.
+ * Appending or replacing an element returns a new vector that shares every
+ * untouched block with the old one, so each change only copies one path.
+ *
+ * @param <E> The type of the elements.
+ */
+public final class PersistentVector<E> implements Iterable<E> {
+    /** The number of bits of an index used at each level of the trie */
+    private static final int BITS = 5;
+
+    /** The number of slots in each block */
+    private static final int WIDTH = 1 << BITS;
+
+    /** The mask for the slot of an index within a block */
+    private static final int MASK = WIDTH - 1;
+
+    /** The shared empty vector */
+    private static final PersistentVector<?> EMPTY =
+            new PersistentVector<>(0, BITS, new Object[WIDTH], new Object[0]);
+
+    /** The number of elements in the vector */
+    private final int count;
+
+    /** The shift of the root level of the trie */
+    private final int shift;
+
+    /** The root block of the trie */
+    private final Object[] root;
+
+    /** The last, partially filled block, kept out of the trie so appends are cheap */
+    private final Object[] tail;
+
+    private PersistentVector(int count, int shift, Object[] root, Object[] tail) {
+        this.count = count;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Returns the empty vector.
+     *
+     * @param <E> The type of the elements.
+     * @return An empty vector.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * Returns the number of elements in the vector.
+     *
+     * @return The size of the vector.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns whether the vector has no elements.
+     *
+     * @return {@code true} if the vector is empty, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns the element at an index.
+     *
+     * @param index The index of the element.
+     * @return The element at the index.
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        return (E) blockFor(index)[index & MASK];
+    }
+
+    /**
+     * Returns a vector with an element added to the end.
+     *
+     * @param element The element to add.
+     * @return The new vector.
+     */
+    public PersistentVector<E> plus(E element) {
+        // Room left in the tail
+        if (count - tailOffset() < WIDTH) {
+            Object[] newTail = new Object[tail.length + 1];
+            System.arraycopy(tail, 0, newTail, 0, tail.length);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(count + 1, shift, root, newTail);
+        }
+
+        // The tail is full, so move it into the trie
+        Object[] newRoot;
+        int newShift = shift;
+        if ((count >>> BITS) > (1 << shift)) {
+            // The trie is full at this height, so grow a new root
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(count + 1, newShift, newRoot, new Object[] { element });
+    }
+
+    /**
+     * Returns a vector with the element at an index replaced.
+     *
+     * @param index   The index of the element to replace.
+     * @param element The new element.
+     * @return The new vector.
+     */
+    public PersistentVector<E> set(int index, E element) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(count, shift, root, newTail);
+        }
+        return new PersistentVector<>(count, shift, doSet(shift, root, index, element), tail);
+    }
+
+    /**
+     * Returns an iterator over the elements in order.
+     *
+     * @return An iterator over the elements.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int index = 0;
+            private Object[] block = (count > 0) ? blockFor(0) : null;
+
+            @Override
+            public boolean hasNext() {
+                return index < count;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (index >= count) {
+                    throw new NoSuchElementException();
+                }
+                if (index > 0 && (index & MASK) == 0) {
+                    block = blockFor(index); // Move to the next block
+                }
+                return (E) block[index++ & MASK];
+            }
+        };
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Returns the index of the first element in the tail.
+     */
+    private int tailOffset() {
+        return (count < WIDTH) ? 0 : ((count - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * Returns the block holding the element at an index.
+     */
+    private Object[] blockFor(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int subIndex = ((count - 1) >>> level) & MASK;
+        Object[] result = parent.clone();
+        Object[] nodeToInsert;
+        if (level == BITS) {
+            nodeToInsert = tailNode;
+        } else {
+            Object[] child = (Object[]) parent[subIndex];
+            nodeToInsert = (child != null) ? pushTail(level - BITS, child, tailNode) : newPath(level - BITS, tailNode);
+        }
+        result[subIndex] = nodeToInsert;
+        return result;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+
+    private static Object[] doSet(int level, Object[] node, int index, Object element) {
+        Object[] result = node.clone();
+        if (level == 0) {
+            result[index & MASK] = element;
+        } else {
+            int subIndex = (index >>> level) & MASK;
+            result[subIndex] = doSet(level - BITS, (Object[]) node[subIndex], index, element);
+        }
+        return result;
+    }
+}
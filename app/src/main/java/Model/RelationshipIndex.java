@@ -0,0 +1,584 @@
+package Model;
+
+import java.util.AbstractSequentialList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The relationships of a model, kept in the order they were added.
+ * Every relationship is also indexed by its source, destination, and type, and by the
+ * classes at both of its ends. Finding, adding, and deleting a relationship take the
+ * same time no matter how many relationships there are, and renaming or deleting a
+ * class only looks at the relationships that involve it.
+ * It is a list, so it can be used anywhere the relationships were used as a list before,
+ * but it never holds two equal relationships.
+ */
+public final class RelationshipIndex extends AbstractSequentialList<UmlRelationship> {
+
+    /**
+     * The source, destination, and type of a relationship. The type of a relationship can be
+     * changed, so the index keeps its own copy of them instead of hashing the relationship.
+     */
+    private record Key(String source, String destination, RelationshipType type) {
+        static Key of(UmlRelationship relationship) {
+            return new Key(relationship.getSource(), relationship.getDestination(), relationship.getType());
+        }
+    }
+
+    /**
+     * A link in the list of relationships.
+     */
+    private static final class Node {
+        UmlRelationship value;
+        Key key;
+        Node prev;
+        Node next;
+        boolean linked;
+
+        Node(UmlRelationship value) {
+            this.value = value;
+            this.key = Key.of(value);
+        }
+    }
+
+    /**
+     * Relationships that were removed together, along with where each one was,
+     * so they can be put back in the same places.
+     */
+    static final class Removal {
+        private final RelationshipIndex owner;
+        private final List<Node> nodes;
+        private final List<Node> successors;
+
+        private Removal(RelationshipIndex owner, List<Node> nodes, List<Node> successors) {
+            this.owner = owner;
+            this.nodes = nodes;
+            this.successors = successors;
+        }
+
+        /**
+         * Returns the number of relationships that were removed.
+         *
+         * @return The number of removed relationships.
+         */
+        int size() {
+            return nodes.size();
+        }
+    }
+
+    /** The first and last relationships */
+    private Node head;
+    private Node tail;
+
+    /** The number of relationships */
+    private int size;
+
+    /** Every relationship, keyed by its source, destination, and type */
+    private final Map<Key, Node> byKey = new HashMap<>();
+
+    /** The relationships leaving each class */
+    private final Map<String, Set<Node>> outgoing = new HashMap<>();
+
+    /** The relationships arriving at each class */
+    private final Map<String, Set<Node>> incoming = new HashMap<>();
+
+    /**
+     * Creates an empty index.
+     */
+    public RelationshipIndex() {
+    }
+
+    /**
+     * Creates an index holding the given relationships in order. Relationships equal
+     * to one already added are skipped.
+     *
+     * @param relationships The relationships to add.
+     */
+    public RelationshipIndex(Collection<? extends UmlRelationship> relationships) {
+        for (UmlRelationship relationship : relationships) {
+            add(relationship);
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public ListIterator<UmlRelationship> listIterator(int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new Cursor(index);
+    }
+
+    /**
+     * Adds a relationship to the end of the list, unless an equal relationship is already in it.
+     *
+     * @param relationship The relationship to add.
+     * @return {@code true} if the relationship was added, {@code false} if it was already there.
+     */
+    @Override
+    public boolean add(UmlRelationship relationship) {
+        Node node = new Node(relationship);
+        if (byKey.containsKey(node.key)) {
+            return false;
+        }
+        linkBefore(node, null);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return (o instanceof UmlRelationship relationship) && byKey.containsKey(Key.of(relationship));
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof UmlRelationship relationship)) {
+            return false;
+        }
+        Node node = byKey.get(Key.of(relationship));
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (Node node = head; node != null; node = node.next) {
+            node.linked = false;
+        }
+        head = null;
+        tail = null;
+        size = 0;
+        byKey.clear();
+        outgoing.clear();
+        incoming.clear();
+        modCount++;
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Finds the relationship with the given source, destination, and type.
+     *
+     * @param source      The source class.
+     * @param destination The destination class.
+     * @param type        The type of the relationship.
+     * @return The relationship, or {@code null} if there is none.
+     */
+    public UmlRelationship find(String source, String destination, RelationshipType type) {
+        Node node = byKey.get(new Key(source, destination, type));
+        return (node != null) ? node.value : null;
+    }
+
+    /**
+     * Returns the relationships leaving a class, in no particular order.
+     *
+     * @param className The name of the class.
+     * @return The relationships whose source is the class.
+     */
+    public List<UmlRelationship> outgoing(String className) {
+        return values(outgoing.get(className));
+    }
+
+    /**
+     * Returns the relationships arriving at a class, in no particular order.
+     *
+     * @param className The name of the class.
+     * @return The relationships whose destination is the class.
+     */
+    public List<UmlRelationship> incoming(String className) {
+        return values(incoming.get(className));
+    }
+
+    /**
+     * Changes the type of a relationship, keeping its place in the list.
+     *
+     * @param source      The source class.
+     * @param destination The destination class.
+     * @param currentType The current type of the relationship.
+     * @param newType     The new type of the relationship.
+     * @return {@code true} if the relationship has the new type, {@code false} if there is no such
+     *         relationship or one with the new type already exists.
+     */
+    public boolean changeType(String source, String destination, RelationshipType currentType,
+            RelationshipType newType) {
+        Node node = byKey.get(new Key(source, destination, currentType));
+        if (node == null) {
+            return false;
+        }
+        if (currentType == newType) {
+            return true; // Nothing to change
+        }
+        if (byKey.containsKey(new Key(source, destination, newType))) {
+            return false;
+        }
+        byKey.remove(node.key);
+        node.value.setType(newType);
+        node.key = Key.of(node.value);
+        byKey.put(node.key, node);
+        return true;
+    }
+
+    /**
+     * Points every relationship involving a class at its new name, keeping each one in its place.
+     *
+     * @param oldName The old name of the class.
+     * @param newName The new name of the class.
+     * @return The number of relationships that were changed.
+     */
+    public int renameClass(String oldName, String newName) {
+        Set<Node> affected = nodesOf(oldName);
+        for (Node node : affected) {
+            UmlRelationship old = node.value;
+            String source = old.getSource().equals(oldName) ? newName : old.getSource();
+            String destination = old.getDestination().equals(oldName) ? newName : old.getDestination();
+            UmlRelationship renamed = new UmlRelationship(source, destination, old.getType());
+            Key key = Key.of(renamed);
+            if (byKey.containsKey(key)) {
+                unlink(node); // The renamed relationship already exists, so keep only one of them
+            } else {
+                unindex(node);
+                node.value = renamed;
+                node.key = key;
+                index(node);
+            }
+        }
+        if (!affected.isEmpty()) {
+            modCount++;
+        }
+        return affected.size();
+    }
+
+    /**
+     * Removes every relationship involving a class.
+     *
+     * @param className The name of the class.
+     * @return The removed relationships, which {@link #restore(Removal)} can put back.
+     */
+    Removal removeClass(String className) {
+        return removeAll(nodesOf(className));
+    }
+
+    /**
+     * Removes the relationship with the given source, destination, and type.
+     *
+     * @param source      The source class.
+     * @param destination The destination class.
+     * @param type        The type of the relationship.
+     * @return The removed relationship, which {@link #restore(Removal)} can put back,
+     *         or {@code null} if there was no such relationship.
+     */
+    Removal remove(String source, String destination, RelationshipType type) {
+        Node node = byKey.get(new Key(source, destination, type));
+        if (node == null) {
+            return null;
+        }
+        Set<Node> nodes = new HashSet<>();
+        nodes.add(node);
+        return removeAll(nodes);
+    }
+
+    /**
+     * Puts relationships that were removed back where they were. This assumes the relationships
+     * around them are the same as when they were removed, as they are when an edit is undone;
+     * a relationship whose neighbour is gone is put back at the end instead.
+     *
+     * @param removal The removed relationships.
+     */
+    void restore(Removal removal) {
+        if (removal.owner != this) {
+            for (Node node : removal.nodes) {
+                add(node.value);
+            }
+            return;
+        }
+
+        // Each removed relationship goes right before the one that followed it. Put back the ones
+        // followed by a relationship still in the list first, then the ones that came before them.
+        Map<Node, Node> previousRemoved = new IdentityHashMap<>();
+        Set<Node> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        removed.addAll(removal.nodes);
+        for (int i = 0; i < removal.nodes.size(); i++) {
+            Node successor = removal.successors.get(i);
+            if (successor != null && removed.contains(successor)) {
+                previousRemoved.put(successor, removal.nodes.get(i));
+            }
+        }
+        for (int i = 0; i < removal.nodes.size(); i++) {
+            Node successor = removal.successors.get(i);
+            if (successor != null && removed.contains(successor)) {
+                continue;
+            }
+            Node node = removal.nodes.get(i);
+            Node before = (successor != null && successor.linked) ? successor : null;
+            while (node != null) {
+                if (!node.linked && !byKey.containsKey(node.key)) {
+                    linkBefore(node, before);
+                    before = node;
+                }
+                node = previousRemoved.get(node);
+            }
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Returns every relationship involving a class, in no particular order.
+     */
+    private Set<Node> nodesOf(String className) {
+        Set<Node> nodes = new LinkedHashSet<>();
+        Set<Node> out = outgoing.get(className);
+        Set<Node> in = incoming.get(className);
+        if (out != null) {
+            nodes.addAll(out);
+        }
+        if (in != null) {
+            nodes.addAll(in); // A relationship from a class to itself is only added once
+        }
+        return nodes;
+    }
+
+    private Removal removeAll(Set<Node> nodes) {
+        List<Node> removedNodes = new ArrayList<>(nodes.size());
+        List<Node> successors = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            removedNodes.add(node);
+            successors.add(node.next);
+        }
+        for (Node node : removedNodes) {
+            unlink(node);
+        }
+        return new Removal(this, removedNodes, successors);
+    }
+
+    private static List<UmlRelationship> values(Set<Node> nodes) {
+        List<UmlRelationship> result = new ArrayList<>((nodes != null) ? nodes.size() : 0);
+        if (nodes != null) {
+            for (Node node : nodes) {
+                result.add(node.value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Links a node into the list before another node, or at the end if that node is {@code null}.
+     */
+    private void linkBefore(Node node, Node before) {
+        Node after = (before != null) ? before.prev : tail;
+        node.prev = after;
+        node.next = before;
+        if (after != null) {
+            after.next = node;
+        } else {
+            head = node;
+        }
+        if (before != null) {
+            before.prev = node;
+        } else {
+            tail = node;
+        }
+        node.linked = true;
+        index(node);
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Takes a node out of the list.
+     */
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            head = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            tail = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.linked = false;
+        unindex(node);
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Replaces the relationship held by a node.
+     */
+    private void replace(Node node, UmlRelationship relationship) {
+        Key key = Key.of(relationship);
+        if (!key.equals(node.key) && byKey.containsKey(key)) {
+            throw new IllegalArgumentException("Duplicate relationship: " + relationship);
+        }
+        unindex(node);
+        node.value = relationship;
+        node.key = key;
+        index(node);
+    }
+
+    private void index(Node node) {
+        byKey.put(node.key, node);
+        outgoing.computeIfAbsent(node.key.source(), name -> new HashSet<>()).add(node);
+        incoming.computeIfAbsent(node.key.destination(), name -> new HashSet<>()).add(node);
+    }
+
+    private void unindex(Node node) {
+        byKey.remove(node.key);
+        removeFrom(outgoing, node.key.source(), node);
+        removeFrom(incoming, node.key.destination(), node);
+    }
+
+    private static void removeFrom(Map<String, Set<Node>> adjacency, String className, Node node) {
+        Set<Node> nodes = adjacency.get(className);
+        if (nodes != null && nodes.remove(node) && nodes.isEmpty()) {
+            adjacency.remove(className);
+        }
+    }
+
+    private Node nodeAt(int index) {
+        if (index == size) {
+            return null;
+        }
+        // Walk from whichever end is closer
+        if (index < size / 2) {
+            Node node = head;
+            for (int i = 0; i < index; i++) {
+                node = node.next;
+            }
+            return node;
+        }
+        Node node = tail;
+        for (int i = size - 1; i > index; i--) {
+            node = node.prev;
+        }
+        return node;
+    }
+
+    /**
+     * A position in the list, used by every list method that works by index.
+     */
+    private final class Cursor implements ListIterator<UmlRelationship> {
+        private Node next;
+        private int nextIndex;
+        private Node lastReturned;
+        private int expectedModCount = modCount;
+
+        Cursor(int index) {
+            this.next = nodeAt(index);
+            this.nextIndex = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < size;
+        }
+
+        @Override
+        public UmlRelationship next() {
+            checkForChanges();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = next.next;
+            nextIndex++;
+            return lastReturned.value;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return nextIndex > 0;
+        }
+
+        @Override
+        public UmlRelationship previous() {
+            checkForChanges();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            next = (next == null) ? tail : next.prev;
+            lastReturned = next;
+            nextIndex--;
+            return lastReturned.value;
+        }
+
+        @Override
+        public int nextIndex() {
+            return nextIndex;
+        }
+
+        @Override
+        public int previousIndex() {
+            return nextIndex - 1;
+        }
+
+        @Override
+        public void remove() {
+            checkForChanges();
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            Node lastNext = lastReturned.next;
+            unlink(lastReturned);
+            if (next == lastReturned) {
+                next = lastNext; // Removed after previous()
+            } else {
+                nextIndex--; // Removed after next()
+            }
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void set(UmlRelationship relationship) {
+            checkForChanges();
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            replace(lastReturned, relationship);
+        }
+
+        @Override
+        public void add(UmlRelationship relationship) {
+            checkForChanges();
+            Node node = new Node(relationship);
+            if (byKey.containsKey(node.key)) {
+                throw new IllegalArgumentException("Duplicate relationship: " + relationship);
+            }
+            lastReturned = null;
+            linkBefore(node, next);
+            nextIndex++;
+            expectedModCount = modCount;
+        }
+
+        private void checkForChanges() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
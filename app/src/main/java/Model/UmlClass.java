@@ -2,6 +2,8 @@ package Model;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -20,6 +22,42 @@ public class UmlClass {
     private Point position; // Position as a Point object
     /** An object to be used in the case that a method has no parameters */
     private List<String[]> parametersNull;
+    /** Counts every change made to this class, so snapshots can tell when it was edited */
+    private transient long modCount;
+    /** Counts the changes to what is drawn inside the class box, which moving the class does not change */
+    private transient long contentVersion;
+    /** The model this class belongs to, which is told about every change */
+    private transient UmlEditorModel owner;
+    /** The methods keyed by name and parameter types, built from the method list when first needed */
+    private transient Map<Signature, Method> methodsBySignature;
+    /** The methods with each name in the order they are declared, or null until it is needed again */
+    private transient Map<String, List<Method>> methodsByName;
+    /** The method list and its size when the indexes were built, to notice changes made through getMethodsList() */
+    private transient List<Method> indexedMethods;
+    private transient int indexedCount;
+    /** Whether two methods in the list have the same signature, so the signature index only holds the first */
+    private transient boolean duplicateSignatures;
+    /** The readable method signatures returned by getMethods(), or null until they are next asked for */
+    private transient List<String> methodStrings;
+    /** The method list and its size when the signatures were made, to notice changes made through getMethodsList() */
+    private transient List<Method> methodStringsSource;
+    private transient int methodStringsCount;
+
+    /**
+     * The name and parameter types of a method, which are what make two methods equal.
+     */
+    private record Signature(String name, List<String> parameterTypes) {
+        static Signature of(String name, List<String[]> parameters) {
+            if (parameters == null) {
+                return new Signature(name, null);
+            }
+            List<String> types = new ArrayList<>(parameters.size());
+            for (String[] element : parameters) {
+                types.add(element[0]);
+            }
+            return new Signature(name, types);
+        }
+    }
 
     /**
      * Constructs a new UmlClass with the specified name.
@@ -49,6 +87,21 @@ public class UmlClass {
         this.name = other.name;
         this.position = (other.position != null) ? new Point(other.position) : new Point(0, 0);
         this.fields = new LinkedHashMap<>(other.fields); // Deep copy of fields
+        this.parametersNull = other.parametersNull;
+
+        // Deep copy of methods, binding each copy to this class
+        this.methods = new ArrayList<>();
+        if (other.methods != null) {
+            for (Method method : other.methods) {
+                List<String[]> parameters = new ArrayList<>();
+                if (method.getParameters() != null) {
+                    for (String[] element : method.getParameters()) {
+                        parameters.add(element.clone());
+                    }
+                }
+                this.methods.add(new Method(method.getName(), parameters, method.getReturnType()));
+            }
+        }
     }
 
  /*----------------------------------------------------------------------------------------------------------------*/
@@ -65,13 +118,7 @@ public class UmlClass {
             return null;
         }
     
-        for (Method method : methods) {
-            if (method.getName().equals(methodName)) {
-                return method;
-            }
-        }
-    
-        return null; // Return null if the method is not found
+        return firstMethodNamed(methodName); // null if the method is not found
     }
     
     /**
@@ -90,6 +137,75 @@ public class UmlClass {
      */
     public void setPosition(Point position) {
         this.position = position;
+        moved();
+    }
+
+    /**
+     * Returns the number of changes made to this class since it was created.
+     * The count only ever grows, so two equal readings mean nothing changed in between.
+     * 
+     * @return The modification count.
+     */
+    public long getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Returns the number of changes made to the name, fields, or methods of this class.
+     * Unlike {@link #getModCount()}, moving the class does not count, so the GUI can keep
+     * the layout of the class box while it is dragged.
+     * 
+     * @return The content version.
+     */
+    public long getContentVersion() {
+        return contentVersion;
+    }
+
+    /**
+     * Sets the model that is told about changes to this class.
+     * 
+     * @param owner The model this class belongs to.
+     */
+    void setOwner(UmlEditorModel owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Returns the model that is told about changes to this class.
+     * 
+     * @return The owning model, or {@code null} if there is none.
+     */
+    UmlEditorModel getOwner() {
+        return owner;
+    }
+
+    /**
+     * Records a change to this class and reports it to the owning model.
+     */
+    private void changed() {
+        contentVersion++;
+        modCount++;
+        if (owner != null) {
+            owner.memberChanged(this);
+        }
+    }
+
+    /**
+     * Records a change to the position of this class and reports it to the owning model.
+     */
+    private void moved() {
+        modCount++;
+        if (owner != null) {
+            owner.classChanged(name);
+        }
+    }
+
+    /**
+     * Records a change to a method of this class, so the method signatures are made again.
+     */
+    private void methodsChanged() {
+        methodStrings = null;
+        changed();
     }
 
     /**
@@ -117,13 +233,8 @@ public class UmlClass {
             return null;
         }
 
-        for (Method method : methods) {
-            if (method.getName().equals(methodName)) {
-                return method.getParameters(); // Assumes Method class has getParameters() method
-            }
-        }
-
-        return null; // Return null if method is not found
+        Method method = firstMethodNamed(methodName);
+        return (method != null) ? method.getParameters() : null; // Return null if method is not found
     }
 
     /**
@@ -137,13 +248,8 @@ public class UmlClass {
             return null;
         }
 
-        for (Method method : methods) {
-            if (method.getName().equals(methodName)) {
-                return method.getReturnType(); // Assumes Method class has getReturnType method
-            }
-        }
-
-        return null; // Return null if method not found
+        Method method = firstMethodNamed(methodName);
+        return (method != null) ? method.getReturnType() : null; // Return null if method not found
     }
     
     /**
@@ -154,16 +260,15 @@ public class UmlClass {
      * @return {@code true} if the method name was changed, {@code false} otherwise.
      */
     public boolean renameMethod(String oldMethodName, String newMethodName) {
-        for (Method method : methods) {
-            if (method.getName().equals(oldMethodName)) {
-                if (methods.stream().anyMatch(m -> m.getName().equals(newMethodName))) {
-                    return false; // New method name already exists
-                }
-                method.setName(newMethodName);
-                return true; // Method renamed successfully
-            }
+        Method method = firstMethodNamed(oldMethodName);
+        if (method == null) {
+            return false; // Old method not found
+        }
+        if (firstMethodNamed(newMethodName) != null) {
+            return false; // New method name already exists
         }
-        return false; // Old method not found
+        method.setName(newMethodName);
+        return true; // Method renamed successfully
     }
     
     /**
@@ -173,14 +278,11 @@ public class UmlClass {
      * @return {@code true} if the method was deleted, {@code false} otherwise.
      */
     public boolean deleteMethod(String methodName) {
-        for (Iterator<Method> iterator = methods.iterator(); iterator.hasNext();) {
-            Method method = iterator.next();
-            if (method.getName().equals(methodName)) {
-                iterator.remove(); // Remove the method
-                return true;
-            }
+        Method method = firstMethodNamed(methodName);
+        if (method == null) {
+            return false; // Return false if the method was not found
         }
-        return false; // Return false if the method was not found
+        return removeMethod(method) >= 0; // Remove the method
     }
 
 /*----------------------------------------------------------------------------------------------------------------*/  
@@ -201,6 +303,7 @@ public class UmlClass {
      */
     public void setName(String name) {
         this.name = name;
+        changed();
     }
 
     /**
@@ -213,6 +316,15 @@ public class UmlClass {
         return new LinkedHashMap<>(fields); // Return a copy to prevent modification
     }
 
+    /**
+     * Returns the number of fields, without copying them.
+     * 
+     * @return The field count.
+     */
+    public int getFieldCount() {
+        return fields.size();
+    }
+
     /**
      * Returns the null parameter object.
      * 
@@ -231,37 +343,21 @@ public class UmlClass {
 
     /**
      * Gets the list of methods of the UML class in a readable format.
+     * The list is made once and kept until a method changes, so it cannot be modified.
      * 
      * @return A list of strings representing the methods and their parameters.
      */
-    public ArrayList<String> getMethods() {
-        ArrayList<String> methodsList = new ArrayList<>();
-
-        for (Method method : methods) {
-            StringBuilder methodString = new StringBuilder();
-            methodString.append(method.getReturnType()).append(" ");
-            methodString.append(method.getName()).append("(");
-
-            // Add method parameters
-            Iterator<String[]> paramIterator = method.getParameters().iterator();
-            if (paramIterator.hasNext()) {
-                String[] element = paramIterator.next();
-                methodString.append(element[0]).append(" ");
-                methodString.append(element[1]);
+    public List<String> getMethods() {
+        if (methodStrings == null || methodStringsSource != methods || methodStringsCount != methods.size()) {
+            List<String> methodsList = new ArrayList<>(methods.size());
+            for (Method method : methods) {
+                methodsList.add(method.singleMethodString());
             }
-            while (paramIterator.hasNext()) {
-                methodString.append(", ");
-
-                String[] element = paramIterator.next();
-                methodString.append(element[0]).append(" ");
-                methodString.append(element[1]);
-            }
-
-            methodString.append(")");
-            methodsList.add(methodString.toString());
+            methodStrings = Collections.unmodifiableList(methodsList);
+            methodStringsSource = methods;
+            methodStringsCount = methods.size();
         }
-
-        return methodsList;
+        return methodStrings;
     }
 
     /**
@@ -280,6 +376,8 @@ public class UmlClass {
      */
     public void setMethodsList(ArrayList<Method> methodList) {
         methods = methodList;
+        methodsBySignature = null; // Index the new list when it is first searched
+        methodsChanged();
     }
 
     public boolean addField(String fieldType, String fieldName) {
@@ -289,6 +387,7 @@ public class UmlClass {
         }
         // Add field to the map
         fields.put(fieldName, fieldType);
+        changed();
         return true;
     }
 
@@ -297,6 +396,7 @@ public class UmlClass {
         if (fields.containsKey(fieldName)) {
             // Remove the field from the map
             fields.remove(fieldName);
+            changed();
             return true; // Indicate successful removal
         } else {
             return false; // Indicate that the field was not found
@@ -320,6 +420,7 @@ public class UmlClass {
         // Rename the field
         String fieldType = fields.remove(oldName); // Remove the old entry
         fields.put(newName, fieldType); // Add the new entry with the renamed field
+        changed();
         return true; // Renaming successful
     }
 
@@ -328,6 +429,7 @@ public class UmlClass {
     public boolean updateFieldType(String fieldName, String newFieldType) {
         if (fields.containsKey(fieldName) && !newFieldType.isEmpty()) {
             fields.put(fieldName, newFieldType); // Update the field's type
+            changed();
             return true; // Type update successful
         }
         return false; // Field does not exist or new type is invalid
@@ -372,7 +474,10 @@ public class UmlClass {
          * @param newName The new name for the method.
          */
         public void setName(String newName) {
+            boolean indexed = unindex();
             this.name = newName;
+            reindex(indexed, true);
+            touch();
         }
 
         /**
@@ -385,12 +490,16 @@ public class UmlClass {
         }
 
         /**
-         * Changes the list of parameters to a completely new list.
+         * Changes the list of parameters to a copy of a completely new list, so later
+         * changes to the given list do not change the method.
          * 
          * @param parameters The new list of parameters.
          */
         public void setParameters(List<String[]> parameters) {
-            this.parameters = parameters;
+            boolean indexed = unindex();
+            this.parameters = (parameters != null) ? new ArrayList<>(parameters) : null;
+            reindex(indexed, false);
+            touch();
         }
 
         /**
@@ -404,7 +513,10 @@ public class UmlClass {
             int index = 0;
             for (String[] element : parameters) {
                 if (element[0].equals(parameterPair[0]) && element[1].equals(parameterPair[1])) {
+                    boolean indexed = unindex();
                     parameters.remove(index);
+                    reindex(indexed, false);
+                    touch();
                     return true;
                 }
 
@@ -430,6 +542,45 @@ public class UmlClass {
          */
         public void setReturnType(String newReturnType) {
             this.returnType = newReturnType;
+            touch();
+        }
+
+        /**
+         * Returns the name and parameter types of this method.
+         */
+        private Signature signature() {
+            return Signature.of(name, parameters);
+        }
+
+        /**
+         * Takes this method out of its class's signature index before its signature changes.
+         * 
+         * @return {@code true} if the method was in the index.
+         */
+        private boolean unindex() {
+            return UmlClass.this != null && UmlClass.this.unindexMethod(this);
+        }
+
+        /**
+         * Puts this method back into its class's signature index after its signature changed.
+         * 
+         * @param indexed     Whether the method was in the index before the change.
+         * @param nameChanged Whether the name of the method changed.
+         */
+        private void reindex(boolean indexed, boolean nameChanged) {
+            if (indexed) {
+                UmlClass.this.reindexMethod(this, nameChanged);
+            }
+        }
+
+        /**
+         * Records a change to this method on the class that owns it.
+         */
+        private void touch() {
+            // Methods read back by Gson are not bound to an owning class
+            if (UmlClass.this != null) {
+                UmlClass.this.methodsChanged();
+            }
         }
 
         /**
@@ -597,16 +748,19 @@ public class UmlClass {
             }
         }
 
-        // Loop through the methods to see if a method that equals
-        // the method we are trying to create already exists.
-        for (Method method : methods) {
-            if (method.equals(newMethod)) {
-                return false;
-            }
+        // Look up whether a method that equals the method
+        // we are trying to create already exists.
+        Map<Signature, Method> index = signatureIndex();
+        Signature signature = newMethod.signature();
+        if (index.containsKey(signature)) {
+            return false;
         }
 
         // Add the new method.
-        return methods.add(newMethod);
+        methods.add(newMethod);
+        methodAppended(newMethod, signature);
+        methodsChanged();
+        return true;
     }
 
     /**
@@ -619,15 +773,12 @@ public class UmlClass {
      *         was not found.
      */
     public boolean deleteMethod(String methodName, List<String[]> parameters, String returnType) {
-        // Loop through the methods to find and remove the given method.
-        Method testMethod = new Method(methodName, parameters, returnType);
-        for (Method method : methods) {
-            if (method.equals(testMethod)) {
-                return methods.remove(method);
-            }
+        // Look up the given method and remove it.
+        Method method = findMethod(methodName, parameters, returnType);
+        if (method == null) {
+            return false;
         }
-
-        return false;
+        return removeMethod(method) >= 0;
     }
 
     /**
@@ -647,23 +798,17 @@ public class UmlClass {
             return false;
         }
 
-        Method testMethod1 = new Method(newName, parameters, returnType);
-        // Loop through the methods to see if a method that equals
-        // the method we are trying to create already exists.
-        for (Method method : methods) {
-            if (method.equals(testMethod1)) {
-                return false;
-            }
+        // Look up whether a method that equals the method
+        // we are trying to create already exists.
+        if (findMethod(newName, parameters, returnType) != null) {
+            return false;
         }
 
-        Method testMethod2 = new Method(oldName, parameters, returnType);
-        // Loop through the methods and find the method with
-        // the old name and replace it with the new name.
-        for (Method method : methods) {
-            if (method.equals(testMethod2)) {
-                method.setName(newName);
-                return true;
-            }
+        // Find the method with the old name and replace it with the new name.
+        Method method = findMethod(oldName, parameters, returnType);
+        if (method != null) {
+            method.setName(newName);
+            return true;
         }
 
         return false;
@@ -684,14 +829,11 @@ public class UmlClass {
             return false;
         }
         
-        // Loop through the methods to find and change
-        //  the return type of the given method.
-        Method testMethod = new Method(methodName, parameters, oldType);
-        for (Method method : methods) {
-            if (method.equals(testMethod)) {
-                method.setReturnType(newType);
-                return true;
-            }
+        // Find and change the return type of the given method.
+        Method method = findMethod(methodName, parameters, oldType);
+        if (method != null) {
+            method.setReturnType(newType);
+            return true;
         }
 
         return false;
@@ -713,13 +855,10 @@ public class UmlClass {
             return false;
         }
 
-        Method testMethod = new Method(methodName, parameters, returnType);
-        // Loop through the methods, find the one we need,
-        // and remove the parameter
-        for (Method method : methods) {
-            if (method.equals(testMethod)) {
-                return method.removeParameter(parameterPair);
-            }
+        // Find the method we need and remove the parameter
+        Method method = findMethod(methodName, parameters, returnType);
+        if (method != null) {
+            return method.removeParameter(parameterPair);
         }
 
         return false;
@@ -756,26 +895,272 @@ public class UmlClass {
             }
         }
 
-        Method newMethod = new Method(methodName, newParameters, returnType);
         // Check that the new method being created does not already exist
-        for (Method method : methods) {
-            if (method.equals(newMethod)) {
-                return false;
-            }
+        if (findMethod(methodName, newParameters, returnType) != null) {
+            return false;
         }
         
-        Method findMethod = new Method(methodName, oldParameters, returnType);
         // Find the method and replace its parameters
-        for (Method method : methods) {
-            if (method.equals(findMethod)) {
-                method.setParameters(newParameters);
-                return true;
-            }
+        Method method = findMethod(methodName, oldParameters, returnType);
+        if (method != null) {
+            method.setParameters(newParameters);
+            return true;
         }
 
         return false;
     }
 
+    /*----------------------------------------------------------------------------------------------------------------*/
+    // Undo helpers
+
+    /**
+     * Returns the position of a field in the order the fields are listed.
+     * 
+     * @param fieldName The name of the field.
+     * @return The index of the field, or -1 if it does not exist.
+     */
+    int indexOfField(String fieldName) {
+        int index = 0;
+        for (String name : fields.keySet()) {
+            if (name.equals(fieldName)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Puts a field back at a given position in the order the fields are listed.
+     * 
+     * @param index     The index to insert the field at.
+     * @param fieldName The name of the field.
+     * @param fieldType The type of the field.
+     */
+    void insertField(int index, String fieldName, String fieldType) {
+        LinkedHashMap<String, String> reordered = new LinkedHashMap<>();
+        int position = 0;
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            if (position++ == index) {
+                reordered.put(fieldName, fieldType);
+            }
+            if (!field.getKey().equals(fieldName)) {
+                reordered.put(field.getKey(), field.getValue());
+            }
+        }
+        reordered.putIfAbsent(fieldName, fieldType); // The index was at the end of the list
+        fields = reordered;
+        changed();
+    }
+
+    /**
+     * Returns the fields themselves rather than a copy, for writers that only read them.
+     * 
+     * @return The map of field names to types.
+     */
+    Map<String, String> fieldsView() {
+        return fields;
+    }
+
+    /**
+     * Adds a field without checking the name, used when reading a saved diagram.
+     * 
+     * @param fieldName The name of the field.
+     * @param fieldType The type of the field.
+     */
+    void putLoadedField(String fieldName, String fieldType) {
+        fields.put(fieldName, fieldType);
+    }
+
+    /**
+     * Sets the null parameter object, used when reading a saved diagram.
+     * 
+     * @param parametersNull The null parameter object.
+     */
+    void setLoadedParametersNull(List<String[]> parametersNull) {
+        this.parametersNull = parametersNull;
+    }
+
+    /**
+     * Finds the method with a name, parameter types, and return type.
+     * 
+     * @param methodName The name of the method.
+     * @param parameters The parameters of the method.
+     * @param returnType The return type of the method.
+     * @return The method, or {@code null} if it does not exist.
+     */
+    Method findMethod(String methodName, List<String[]> parameters, String returnType) {
+        // Methods are equal when their names and parameter types are, so the return type is not part of the lookup
+        return signatureIndex().get(Signature.of(methodName, parameters));
+    }
+
+    /**
+     * Puts a method back at a given position in the list of methods.
+     * 
+     * @param index  The index to insert the method at.
+     * @param method The method to insert.
+     */
+    void insertMethod(int index, Method method) {
+        Map<Signature, Method> signatures = signatureIndex();
+        methods.add(Math.min(index, methods.size()), method);
+        if (signatures.putIfAbsent(method.signature(), method) != null) {
+            duplicateSignatures = true;
+        }
+        indexedCount = methods.size();
+        methodsByName = null; // The name index keeps declaration order, so rebuild it when next needed
+        methodsChanged();
+    }
+
+    /**
+     * Removes a method from the list of methods.
+     * 
+     * @param method The method to remove.
+     * @return The index the method was at, or -1 if it was not in the list.
+     */
+    int removeMethod(Method method) {
+        signatureIndex();
+        for (int i = 0; i < methods.size(); i++) {
+            if (methods.get(i) == method) {
+                methods.remove(i);
+                forgetMethod(method);
+                indexedCount = methods.size();
+                methodsChanged();
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    // Method indexes
+
+    /**
+     * Returns the methods keyed by signature, building the index again if the
+     * method list was replaced or grew through {@link #getMethodsList()}.
+     * 
+     * @return The signature index.
+     */
+    private Map<Signature, Method> signatureIndex() {
+        if (methods == null) {
+            return new HashMap<>();
+        }
+        if (methodsBySignature == null || indexedMethods != methods || indexedCount != methods.size()) {
+            methodsBySignature = new HashMap<>(Math.max(16, methods.size() * 2));
+            duplicateSignatures = false;
+            for (Method method : methods) {
+                if (methodsBySignature.putIfAbsent(method.signature(), method) != null) {
+                    duplicateSignatures = true; // Only the first one is found, as with a scan of the list
+                }
+            }
+            methodsByName = null;
+            indexedMethods = methods;
+            indexedCount = methods.size();
+        }
+        return methodsBySignature;
+    }
+
+    /**
+     * Builds the lazily made method strings and indexes now. A copy that is only read
+     * afterwards never writes to itself, so it can be shared between threads.
+     */
+    void buildCaches() {
+        getMethods();
+        firstMethodNamed("");
+    }
+
+    /**
+     * Returns the first declared method with a name.
+     * 
+     * @param methodName The name of the method.
+     * @return The method, or {@code null} if there is none.
+     */
+    private Method firstMethodNamed(String methodName) {
+        if (methods == null) {
+            return null;
+        }
+        signatureIndex();
+        if (methodsByName == null) {
+            methodsByName = new HashMap<>();
+            for (Method method : methods) {
+                methodsByName.computeIfAbsent(method.getName(), key -> new ArrayList<>(1)).add(method);
+            }
+        }
+        List<Method> named = methodsByName.get(methodName);
+        return (named != null) ? named.get(0) : null;
+    }
+
+    /**
+     * Adds a method that was just added to the end of the list to the indexes.
+     */
+    private void methodAppended(Method method, Signature signature) {
+        methodsBySignature.put(signature, method);
+        if (methodsByName != null) {
+            methodsByName.computeIfAbsent(method.getName(), key -> new ArrayList<>(1)).add(method);
+        }
+        indexedCount = methods.size();
+    }
+
+    /**
+     * Takes a method that was just removed from the list out of the indexes.
+     */
+    private void forgetMethod(Method method) {
+        if (duplicateSignatures) {
+            methodsBySignature = null; // Another method may have the same signature, so index the list again
+            return;
+        }
+        methodsBySignature.remove(method.signature(), method);
+        if (methodsByName != null) {
+            List<Method> named = methodsByName.get(method.getName());
+            if (named != null) {
+                named.removeIf(other -> other == method);
+                if (named.isEmpty()) {
+                    methodsByName.remove(method.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes a method out of the signature index before its signature changes.
+     * 
+     * @param method The method that is about to change.
+     * @return {@code true} if the method was taken out and has to be put back.
+     */
+    private boolean unindexMethod(Method method) {
+        if (methodsBySignature == null || methods == null || indexedMethods != methods
+                || indexedCount != methods.size()) {
+            return false; // The index is built again before it is next used
+        }
+        Signature signature = method.signature();
+        if (methodsBySignature.get(signature) != method) {
+            return false; // Not one of this class's methods, such as a copy used to look one up
+        }
+        if (duplicateSignatures) {
+            methodsBySignature = null;
+            return false;
+        }
+        methodsBySignature.remove(signature);
+        return true;
+    }
+
+    /**
+     * Puts a method back into the signature index after its signature changed.
+     * 
+     * @param method      The method that changed.
+     * @param nameChanged Whether the name of the method changed.
+     */
+    private void reindexMethod(Method method, boolean nameChanged) {
+        if (methodsBySignature == null) {
+            return;
+        }
+        if (methodsBySignature.putIfAbsent(method.signature(), method) != null) {
+            methodsBySignature = null; // The change made two methods equal, so index the list again
+        }
+        if (nameChanged) {
+            methodsByName = null;
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder stringBuilder = new StringBuilder();
@@ -1,100 +1,197 @@
 package Model;
 
-import java.lang.reflect.Type;
+import java.awt.Point;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 /**
- * Adapter class for converting UmlClass objects into JSON format.
+ * Adapter class for converting UmlClass objects to and from JSON format.
  * Implements the Adapter design pattern to facilitate custom serialization
  * of UmlClass attributes, methods, and position.
+ * 
+ * The adapter writes straight from the {@link UmlClass.Method} objects, so types
+ * with commas or brackets, such as {@code Map<K,V>}, are saved exactly as entered.
+ * It holds no state, so one instance can be shared by every Gson instance.
  */
-public class UmlClassAdapter implements JsonSerializer<UmlClass> {
+public class UmlClassAdapter extends TypeAdapter<UmlClass> {
 
     /**
-     * Converts a UmlClass object into its JSON representation,
-     * including its name, fields, methods, and position.
+     * Writes a UmlClass object as JSON, including its name, fields, methods, and position.
      */
     @Override
-    public JsonElement serialize(UmlClass src, Type typeOfSrc, JsonSerializationContext context) {
-        JsonObject jsonClass = new JsonObject();
+    public void write(JsonWriter out, UmlClass src) throws IOException {
+        if (src == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
 
         // Add name
-        jsonClass.addProperty("name", src.getName());
+        out.name("name").value(src.getName());
 
         // Serialize fields as an array of objects
-        ArrayList<JsonObject> fieldsArray = new ArrayList<>();
-        for (Map.Entry<String, String> entry : src.getFields().entrySet()) {
-            JsonObject field = new JsonObject();
-            field.addProperty("name", entry.getKey());
-            field.addProperty("type", entry.getValue());
-            fieldsArray.add(field);
+        out.name("fields").beginArray();
+        for (Map.Entry<String, String> entry : src.fieldsView().entrySet()) {
+            out.beginObject();
+            out.name("name").value(entry.getKey());
+            out.name("type").value(entry.getValue());
+            out.endObject();
         }
-        jsonClass.add("fields", context.serialize(fieldsArray));
+        out.endArray();
 
         // Serialize methods as an array of objects (name, return_type, params)
-        ArrayList<JsonObject> methodsList = new ArrayList<>();
-        for (String methodString : src.getMethods()) {
-            JsonObject methodObj = new JsonObject();
-
-            try {
-                // Extract method details (methodName(returnType, params))
-                String[] methodParts = methodString.split("\\(");
-                if (methodParts.length < 1)
-                    continue; // Skip if no method name or params
-
-                String methodNameWithReturnType = methodParts[0].trim(); // Example: "setPSI"
-                String[] nameAndType = methodNameWithReturnType.split(" ");
-                if (nameAndType.length < 2)
-                    continue; // Skip if no return type or method name
+        out.name("methods").beginArray();
+        for (UmlClass.Method method : src.getMethodsList()) {
+            out.beginObject();
+            out.name("name").value(method.getName());
+            out.name("return_type").value(method.getReturnType());
+            out.name("params").beginArray();
+            if (method.getParameters() != null) {
+                for (String[] parameter : method.getParameters()) {
+                    out.beginObject();
+                    out.name("name").value(parameter[1]);
+                    out.name("type").value(parameter[0]);
+                    out.endObject();
+                }
+            }
+            out.endArray();
+            out.endObject();
+        }
+        out.endArray();
 
-                String returnType = nameAndType[0].trim(); // Extract return type
-                String methodName = nameAndType[1].trim(); // Extract method name
+        // Only add position if it is not null
+        if (src.getPosition() != null) {
+            out.name("position").beginObject();
+            out.name("x").value(src.getPosition().x);
+            out.name("y").value(src.getPosition().y);
+            out.endObject();
+        }
 
-                methodObj.addProperty("name", methodName);
-                methodObj.addProperty("return_type", returnType);
+        out.endObject();
+    }
 
-                // Extract parameters
-                ArrayList<JsonObject> paramsList = new ArrayList<>();
-                if (methodParts.length > 1 && methodParts[1].contains(")")) {
-                    String paramString = methodParts[1].split("\\)")[0].trim(); // Extract the part inside parentheses
-                    if (!paramString.isEmpty()) {
-                        String[] params = paramString.split(",");
-                        for (String param : params) {
-                            JsonObject paramObj = new JsonObject();
-                            String[] paramParts = param.trim().split(" "); // Assuming "type name" format
-                            if (paramParts.length == 2) {
-                                paramObj.addProperty("name", paramParts[1]);
-                                paramObj.addProperty("type", paramParts[0]);
-                            }
-                            paramsList.add(paramObj);
-                        }
+    /**
+     * Reads a UmlClass object written by {@link #write}.
+     * Properties that are not recognized are skipped.
+     */
+    @Override
+    public UmlClass read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        UmlClass umlClass = new UmlClass((String) null);
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "name":
+                    umlClass.setName(in.nextString());
+                    break;
+                case "fields":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        String[] field = readNameAndType(in);
+                        umlClass.putLoadedField(field[1], field[0]);
                     }
-                }
-                methodObj.add("params", context.serialize(paramsList));
-                methodsList.add(methodObj);
-            } catch (Exception e) {
-                System.err.println("Error serializing method: " + methodString);
-                e.printStackTrace(); // Log the error for debugging
+                    in.endArray();
+                    break;
+                case "methods":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        umlClass.getMethodsList().add(readMethod(in, umlClass));
+                    }
+                    in.endArray();
+                    break;
+                case "position":
+                    umlClass.setPosition(readPosition(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
             }
         }
+        in.endObject();
+        return umlClass;
+    }
 
-        jsonClass.add("methods", context.serialize(methodsList));
-
-        // Only add position if it is not null
-        if (src.getPosition() != null) {
-            JsonObject position = new JsonObject();
-            position.addProperty("x", src.getPosition().getX());
-            position.addProperty("y", src.getPosition().getY());
-            jsonClass.add("position", position);
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    private UmlClass.Method readMethod(JsonReader in, UmlClass owner) throws IOException {
+        String name = null;
+        String returnType = null;
+        List<String[]> parameters = new ArrayList<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "name":
+                    name = in.nextString();
+                    break;
+                case "return_type":
+                    returnType = in.nextString();
+                    break;
+                case "params":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        parameters.add(readNameAndType(in));
+                    }
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
         }
+        in.endObject();
+        return owner.new Method(name, parameters, returnType);
+    }
 
-        return jsonClass;
+    /**
+     * Reads a {"name": ..., "type": ...} object into a type and name pair.
+     */
+    private String[] readNameAndType(JsonReader in) throws IOException {
+        String[] pair = new String[2];
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "name":
+                    pair[1] = in.nextString();
+                    break;
+                case "type":
+                    pair[0] = in.nextString();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return pair;
     }
 
+    private Point readPosition(JsonReader in) throws IOException {
+        Point position = new Point();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "x":
+                    position.x = (int) in.nextDouble(); // Older files wrote the coordinates as decimals
+                    break;
+                case "y":
+                    position.y = (int) in.nextDouble();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return position;
+    }
 }
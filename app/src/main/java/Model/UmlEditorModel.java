@@ -4,36 +4,53 @@ import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
 public class UmlEditorModel implements Cloneable {
-    // Static instance of the class
-    private static UmlEditorModel instance;
-
     // Instance variables
     private Map<String, UmlClass> classes;
     private List<UmlRelationship> relationships;
     private Map<String, Point> classPositions;
+    /** Counts changes to the relationships, so snapshots can tell when they were edited */
+    private transient long relationshipsVersion;
+    /** Names of the classes changed since the last snapshot, or null if they are not being tracked */
+    private transient Set<String> changedClasses;
+    /** The snapshot the changed classes are counted from */
+    private transient Object changesBase;
+    /** Serializes changes, and keeps them apart from building views for other threads */
+    private transient StampedLock lock = new StampedLock();
+    /** The thread holding the write lock, so a change made as part of another does not wait on itself */
+    private transient Thread writer;
+    /** Counts every change, so a view can tell whether it is out of date */
+    private transient volatile long version;
+    /** The most recent read-only view, or null if no view has been asked for */
+    private transient volatile ModelView view;
+    /** Names of the classes changed since the view was built, or null if they are not known */
+    private transient Set<String> viewChanges;
+    /** Told about each change once the write lock is released */
+    private transient List<ModelListener> listeners = new CopyOnWriteArrayList<>();
+    /** Changes made while the write lock is held, waiting to be told to the listeners */
+    private transient List<ModelChange> pendingChanges = new ArrayList<>();
 
     // A string used in testing the model
     public String testString = "";
 
-    // Private constructor to prevent instantiation
-    private UmlEditorModel() {
+    /**
+     * Creates an empty model. Models share no state, so any number of them can be
+     * loaded and edited at once, each on its own thread.
+     */
+    public UmlEditorModel() {
         this.classes = new HashMap<>();
-        this.relationships = new ArrayList<>();
+        this.relationships = new RelationshipIndex();
         this.classPositions = new HashMap<>();
     }
 
-    // Public static method to get the instance
-    public static UmlEditorModel getInstance() {
-        if (instance == null) {
-            instance = new UmlEditorModel();
-        }
-        return instance;
-    }
-
     /**
      * Clone the model.
      * 
@@ -51,8 +68,15 @@ public class UmlEditorModel implements Cloneable {
             // Perform deep copy for mutable fields to ensure the clone is independent of
             // the original
             cloned.classes = new HashMap<>(this.classes); // Deep copy of classes map
-            cloned.relationships = new ArrayList<>(this.relationships); // Deep copy of relationships list
+            cloned.relationships = new RelationshipIndex(this.relationships); // Deep copy of relationships list
             cloned.classPositions = new HashMap<>(this.classPositions); // Deep copy of class positions map
+            cloned.lock = new StampedLock(); // The clone is edited on its own, so it gets its own lock and views
+            cloned.writer = null;
+            cloned.view = null;
+            cloned.viewChanges = null;
+            cloned.listeners = new CopyOnWriteArrayList<>(); // Listeners follow the model they were added to
+            cloned.pendingChanges = new ArrayList<>();
+            cloned.invalidateChanges(); // The clone shares its classes, so it cannot trust their change reports
 
             // Deep copy any other mutable fields if necessary...
 
@@ -72,11 +96,16 @@ public class UmlEditorModel implements Cloneable {
      * @return {@code true} if the method was rename, {@code false} otherwise.
      */
     public boolean renameMethod(String className, String oldMethodName, String newMethodName) {
-        UmlClass umlClass = classes.get(className);
-        if (umlClass == null) {
-            return false; // Class not found
+        long stamp = lockWrite();
+        try {
+            UmlClass umlClass = classes.get(className);
+            if (umlClass == null) {
+                return false; // Class not found
+            }
+            return umlClass.renameMethod(oldMethodName, newMethodName);
+        } finally {
+            unlockWrite(stamp);
         }
-        return umlClass.renameMethod(oldMethodName, newMethodName);
     }
 
     /**
@@ -87,11 +116,16 @@ public class UmlEditorModel implements Cloneable {
      * @return {@code true} if the method was deleted, {@code false} otherwise.
      */
     public boolean deleteMethod(String className, String methodName) {
-        UmlClass umlClass = classes.get(className);
-        if (umlClass == null) {
-            return false;
+        long stamp = lockWrite();
+        try {
+            UmlClass umlClass = classes.get(className);
+            if (umlClass == null) {
+                return false;
+            }
+            return umlClass.deleteMethod(methodName);
+        } finally {
+            unlockWrite(stamp);
         }
-        return umlClass.deleteMethod(methodName);
     }
 
     /**
@@ -173,8 +207,14 @@ public class UmlEditorModel implements Cloneable {
      * @param classes The new map of classes.
      */
     public void setClasses(Map<String, UmlClass> classes) {
-        this.classes = classes;
-
+        long stamp = lockWrite();
+        try {
+            this.classes = classes;
+            invalidateChanges();
+            notifyListeners(ModelChange.Type.RELOADED, null, null);
+        } finally {
+            unlockWrite(stamp);
+        }
     }
 
     /**
@@ -183,16 +223,268 @@ public class UmlEditorModel implements Cloneable {
      * @return The set of relationships.
      */
     public List<UmlRelationship> getRelationships() {
-        return relationships;
+        return index();
     }
 
     /**
-     * Set all of the relationships.
+     * Set all of the relationships. The relationships are copied into the model's index,
+     * so later changes to the given list do not affect the model.
      * 
      * @param relationships The new set of relationship.
      */
     public void setRelationships(List<UmlRelationship> relationships) {
-        this.relationships = relationships;
+        long stamp = lockWrite();
+        try {
+            this.relationships = (relationships != null) ? new RelationshipIndex(relationships) : new RelationshipIndex();
+            relationshipsChanged();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the relationship index. A model filled in by reflection, such as by Gson,
+     * holds a plain list, which is indexed the first time it is needed.
+     * 
+     * @return The relationship index.
+     */
+    private RelationshipIndex index() {
+        if (!(relationships instanceof RelationshipIndex)) {
+            relationships = (relationships != null) ? new RelationshipIndex(relationships) : new RelationshipIndex();
+        }
+        return (RelationshipIndex) relationships;
+    }
+
+    /**
+     * Returns the number of changes made to the relationships through this model.
+     * Two equal readings mean the relationships did not change in between.
+     * 
+     * @return The relationships version.
+     */
+    public long getRelationshipsVersion() {
+        return relationshipsVersion;
+    }
+
+    /**
+     * Get the map of class positions.
+     * 
+     * @return The map of class names to positions.
+     */
+    Map<String, Point> getClassPositions() {
+        return classPositions;
+    }
+
+    /**
+     * Records that a class was added, removed, moved, or edited.
+     * 
+     * @param name The name of the class that changed.
+     */
+    void classChanged(String name) {
+        if (changedClasses != null) {
+            changedClasses.add(name);
+        }
+        if (viewChanges != null) {
+            viewChanges.add(name);
+        }
+        version++;
+    }
+
+    // Count a change to the relationships, for snapshots and views
+    private void relationshipsChanged() {
+        relationshipsVersion++;
+        version++;
+        notifyListeners(ModelChange.Type.RELATIONSHIP_CHANGED, null, null);
+    }
+
+    /**
+     * Records that a field or method of a class was added, removed, or edited.
+     * 
+     * @param umlClass The class that changed.
+     */
+    void memberChanged(UmlClass umlClass) {
+        String name = umlClass.getName();
+        classChanged(name);
+        // A class being renamed, or not yet added, is reported by the rename or the add
+        if (classes.get(name) == umlClass) {
+            notifyListeners(ModelChange.Type.MEMBER_CHANGED, name, null);
+        }
+    }
+
+    /**
+     * Returns the names of the classes changed since a snapshot was taken.
+     * 
+     * @param base The snapshot to count changes from.
+     * @return The names of the changed classes, or {@code null} if the changes
+     *         since that snapshot are not known and every class has to be checked.
+     */
+    Set<String> changesSince(Object base) {
+        return (base != null && base == changesBase) ? changedClasses : null;
+    }
+
+    /**
+     * Starts counting changes from a new snapshot.
+     * 
+     * @param base The snapshot that matches the current state of the model.
+     */
+    void resetChanges(Object base) {
+        changedClasses = new HashSet<>();
+        changesBase = base;
+    }
+
+    /**
+     * Stops trusting the changes recorded so far, so the next snapshot checks every class.
+     */
+    void invalidateChanges() {
+        changedClasses = null;
+        changesBase = null;
+        viewChanges = null;
+        version++;
+    }
+
+    /**
+     * Makes this model the owner of a class, so it is told about changes to it.
+     * A class can only report to one model, so its previous owner stops trusting its changes.
+     * 
+     * @param umlClass The class to own.
+     */
+    void adopt(UmlClass umlClass) {
+        UmlEditorModel previous = umlClass.getOwner();
+        if (previous != this) {
+            if (previous != null) {
+                previous.invalidateChanges();
+            }
+            umlClass.setOwner(this);
+        }
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+    // Concurrency
+
+    /**
+     * Returns a read-only view of the model that any thread can read while the model is being
+     * edited. Reading a view never takes a lock. The view is only rebuilt the first time it is
+     * asked for after a change, and then only the classes that changed are copied.
+     * 
+     * @return The current view.
+     */
+    public ModelView view() {
+        ModelView current = view;
+        if (current != null && current.getVersion() == version) {
+            return current; // Nothing changed since it was built
+        }
+        FlightRecorderEvents.SnapshotEvent event = new FlightRecorderEvents.SnapshotEvent();
+        event.begin();
+        boolean built = false;
+        long stamp = lockWrite();
+        try {
+            current = view;
+            if (current == null || current.getVersion() != version) {
+                current = ModelView.build(this, current, viewChanges, version);
+                viewChanges = new HashSet<>();
+                view = current;
+                built = true;
+            }
+            return current;
+        } finally {
+            unlockWrite(stamp);
+            if (built) {
+                ModelSnapshot.commitEvent(event, "view", this);
+            }
+        }
+    }
+
+    /**
+     * Makes a change while holding the write lock, so it does not overlap with other changes
+     * or with a view being built. The model's own methods already lock; this is for changes
+     * made to its classes directly, or for several changes that belong together.
+     * 
+     * @param <T>    The type of the result.
+     * @param change The change to make.
+     * @return The result of the change.
+     */
+    public <T> T write(Supplier<T> change) {
+        long stamp = lockWrite();
+        try {
+            return change.get();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds a listener that is told about each change to this model.
+     * 
+     * @param listener The listener to add.
+     */
+    public void addModelListener(ModelListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addModelListener(ModelListener)}.
+     * 
+     * @param listener The listener to remove.
+     */
+    public void removeModelListener(ModelListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Tells the listeners about a change. A change made while the write lock is held is kept
+     * until the lock is released, so listeners never see a change half made and may read or
+     * edit the model themselves.
+     * 
+     * @param type      The kind of change.
+     * @param className The class the change is about, or {@code null}.
+     * @param oldName   The name the class had before a rename, or {@code null}.
+     */
+    void notifyListeners(ModelChange.Type type, String className, String oldName) {
+        if (listeners.isEmpty()) {
+            return; // Nothing to tell, so nothing is created
+        }
+        ModelChange change = new ModelChange(type, className, oldName);
+        if (writer == Thread.currentThread()) {
+            pendingChanges.add(change);
+        } else {
+            for (ModelListener listener : listeners) {
+                listener.modelChanged(change);
+            }
+        }
+    }
+
+    /**
+     * Takes the write lock, unless this thread already holds it for a change this one is part of.
+     * 
+     * @return The stamp to unlock with, or 0 if the lock was already held.
+     */
+    long lockWrite() {
+        if (writer == Thread.currentThread()) {
+            return 0;
+        }
+        long stamp = lock.writeLock();
+        writer = Thread.currentThread();
+        return stamp;
+    }
+
+    /**
+     * Releases the write lock taken by {@link #lockWrite()}.
+     * 
+     * @param stamp The stamp returned when the lock was taken.
+     */
+    void unlockWrite(long stamp) {
+        if (stamp != 0) {
+            List<ModelChange> changes = pendingChanges;
+            if (!changes.isEmpty()) {
+                pendingChanges = new ArrayList<>(); // Taken while locked, so another writer gets a list of its own
+            }
+            writer = null;
+            lock.unlockWrite(stamp);
+            for (ModelChange change : changes) {
+                for (ModelListener listener : listeners) {
+                    listener.modelChanged(change);
+                }
+            }
+        }
     }
 
     /**
@@ -214,13 +506,19 @@ public class UmlEditorModel implements Cloneable {
      * @param position The classes new position.
      */
     public void updateClassPosition(String className, Point position) {
-        if (classes.containsKey(className)) {
-            // Update the position in the model
-            classPositions.put(className, position); // Assuming you have a map for positions in the model
-            UmlClass umlClass = classes.get(className);
-            // Set the position in the UmlClass object if needed
-            umlClass.setPosition(position); // Ensure UmlClass has a setPosition method
-            
+        long stamp = lockWrite();
+        try {
+            if (classes.containsKey(className)) {
+                // Update the position in the model
+                classPositions.put(className, position); // Assuming you have a map for positions in the model
+                classChanged(className);
+                UmlClass umlClass = classes.get(className);
+                // Set the position in the UmlClass object if needed
+                umlClass.setPosition(position); // Ensure UmlClass has a setPosition method
+                notifyListeners(ModelChange.Type.POSITION_MOVED, className, null);
+            }
+        } finally {
+            unlockWrite(stamp);
         }
     }
 
@@ -283,16 +581,25 @@ public class UmlEditorModel implements Cloneable {
      * @return {@code true} if the class was added, {@code false} otherwise.
      */
     public boolean addClass(String name, Point position) {
-        // Return false if name is null, empty, class already exists, or the name has
-        // white space
-        if (classes.containsKey(name) || name == null || name.isEmpty() 
-                || name.contains(" ")) {
-            return false;
-        }
+        long stamp = lockWrite();
+        try {
+            // Return false if name is null, empty, class already exists, or the name has
+            // white space
+            if (classes.containsKey(name) || name == null || name.isEmpty() 
+                    || name.contains(" ")) {
+                return false;
+            }
 
-        classes.put(name, new UmlClass(name, position)); // Pass the position to the UmlClass constructor
-        classPositions.put(name, position);
-        return true;
+            UmlClass umlClass = new UmlClass(name, position); // Pass the position to the UmlClass constructor
+            adopt(umlClass);
+            classes.put(name, umlClass);
+            classPositions.put(name, position);
+            classChanged(name);
+            notifyListeners(ModelChange.Type.CLASS_ADDED, name, null);
+            return true;
+        } finally {
+            unlockWrite(stamp);
+        }
     }
 
     /**
@@ -303,14 +610,23 @@ public class UmlEditorModel implements Cloneable {
      * @return {@code true} if the class was added, {@code false} otherwise.
      */
     public boolean addClass(String name) {
-        // Return false if name is null, empty, class already exists, or the name has
-        // white space
-        if (classes.containsKey(name) || name == null || name.isEmpty() || name.contains(" ")) {
-            return false;
-        }
+        long stamp = lockWrite();
+        try {
+            // Return false if name is null, empty, class already exists, or the name has
+            // white space
+            if (classes.containsKey(name) || name == null || name.isEmpty() || name.contains(" ")) {
+                return false;
+            }
 
-        classes.put(name, new UmlClass(name));
-        return true;
+            UmlClass umlClass = new UmlClass(name);
+            adopt(umlClass);
+            classes.put(name, umlClass);
+            classChanged(name);
+            notifyListeners(ModelChange.Type.CLASS_ADDED, name, null);
+            return true;
+        } finally {
+            unlockWrite(stamp);
+        }
     }
 
     /**
@@ -320,17 +636,33 @@ public class UmlEditorModel implements Cloneable {
      * @return {@code true} if the class was deleted, {@code false} otherwise.
      */
     public boolean deleteClass(String name) {
-        if (name == null || name.isEmpty()) {
-            return false;
-        }
+        return deleteClassForUndo(name) != null;
+    }
+
+    /**
+     * Deletes a class and all relationships involving that class, keeping the relationships
+     * so they can be put back where they were.
+     * 
+     * @param name The name of the class to be deleted.
+     * @return The removed relationships, or {@code null} if the class was not deleted.
+     */
+    RelationshipIndex.Removal deleteClassForUndo(String name) {
+        long stamp = lockWrite();
+        try {
+            if (name == null || name.isEmpty() || !classes.containsKey(name)) {
+                return null;
+            }
 
-        if (classes.containsKey(name)) {
             classes.remove(name);
-            // Remove relationships involving the class
-            relationships.removeIf(rel -> rel.getSource().equals(name) || rel.getDestination().equals(name));
-            return true;
+            classChanged(name);
+            notifyListeners(ModelChange.Type.CLASS_DELETED, name, null);
+            // Remove relationships involving the class, found through the index
+            RelationshipIndex.Removal removal = index().removeClass(name);
+            relationshipsChanged();
+            return removal;
+        } finally {
+            unlockWrite(stamp);
         }
-        return false;
     }
 
     /**
@@ -342,31 +674,31 @@ public class UmlEditorModel implements Cloneable {
      * @return {@code true} if the class was renamed, {@code false} otherwise.
      */
     public boolean renameClass(String oldName, String newName) {
-        // Check for null or empty newName, if oldName exists, if the new name already exists and if the new name has white space
-        if (newName == null || newName.isEmpty()
-                || !classes.containsKey(oldName)
-                || classes.containsKey(newName)
-                || newName.contains(" ")) {
-            return false; // Invalid conditions
-        }
-
-        UmlClass umlClass = classes.remove(oldName);
-        umlClass.setName(newName);
-        classes.put(newName, umlClass);
-
-        // Update relationships with the new class name
-        List<UmlRelationship> updatedRelationships = new ArrayList<>();
-        for (UmlRelationship rel : relationships) {
-            if (rel.getSource().equals(oldName)) {
-                updatedRelationships.add(new UmlRelationship(newName, rel.getDestination(), rel.getType()));
-            } else if (rel.getDestination().equals(oldName)) {
-                updatedRelationships.add(new UmlRelationship(rel.getSource(), newName, rel.getType()));
-            } else {
-                updatedRelationships.add(rel);
+        long stamp = lockWrite();
+        try {
+            // Check for null or empty newName, if oldName exists, if the new name already exists and if the new name has white space
+            if (newName == null || newName.isEmpty()
+                    || !classes.containsKey(oldName)
+                    || classes.containsKey(newName)
+                    || newName.contains(" ")) {
+                return false; // Invalid conditions
+            }
+
+            UmlClass umlClass = classes.remove(oldName);
+            umlClass.setName(newName);
+            classes.put(newName, umlClass);
+            classChanged(oldName);
+            classChanged(newName);
+            notifyListeners(ModelChange.Type.CLASS_RENAMED, newName, oldName);
+
+            // Update relationships with the new class name, touching only the ones involving the class
+            if (index().renameClass(oldName, newName) > 0) {
+                relationshipsChanged();
             }
+            return true;
+        } finally {
+            unlockWrite(stamp);
         }
-        relationships = updatedRelationships;
-        return true;
     }
 
     /*----------------------------------------------------------------------------------------------------------------*/
@@ -381,27 +713,30 @@ public class UmlEditorModel implements Cloneable {
      *         relationship was not added.
      */
     public boolean addRelationship(String source, String destination, RelationshipType type) {
-        // If any of the parameters are empty, return false.
-        if (source.isEmpty() || destination.isEmpty() || type == null) {
-            return false;
-        }
+        long stamp = lockWrite();
+        try {
+            // If any of the parameters are empty, return false.
+            if (source.isEmpty() || destination.isEmpty() || type == null) {
+                return false;
+            }
 
-        // Check that both classes exist.
-        if (!classExist(source) || !classExist(destination)) {
-            return false;
-        }
+            // Check that both classes exist.
+            if (!classExist(source) || !classExist(destination)) {
+                return false;
+            }
 
-        // Create a new relationship and add it to the list.
-        UmlRelationship newRelationship = new UmlRelationship(source, destination, type);
+            // Create a new relationship and add it to the list.
+            UmlRelationship newRelationship = new UmlRelationship(source, destination, type);
 
-        // Checks if there is a relationship already equal to the new relationship.
-        for (UmlRelationship relationship : relationships) {
-            if (relationship.equals(newRelationship)) {
+            // The index refuses a relationship equal to one it already has.
+            if (!index().add(newRelationship)) {
                 return false;
             }
+            relationshipsChanged();
+            return true;
+        } finally {
+            unlockWrite(stamp);
         }
-
-        return relationships.add(newRelationship);
     }
 
     /**
@@ -415,19 +750,33 @@ public class UmlEditorModel implements Cloneable {
      *         {@code false} if the relationship could not be deleted.
      */
     public boolean deleteRelationship(String source, String destination, RelationshipType type) {
-        // If any of the parameters are empty, return false.
-        if (source.isEmpty() || destination.isEmpty() || type == null) {
-            return false;
-        }
+        return deleteRelationshipForUndo(source, destination, type) != null;
+    }
 
-        // Finds the relationship and deletes it.
-        UmlRelationship relationship = findRelationship(source, destination, type);
-        if (relationship != null) {
-            return relationships.remove(relationship); // Remove the relationship if found.
-        }
+    /**
+     * Deletes an existing relationship, keeping it so it can be put back where it was.
+     * 
+     * @param source      The source entity.
+     * @param destination The destination entity.
+     * @param type        The type of the relationship.
+     * @return The removed relationship, or {@code null} if no relationship was deleted.
+     */
+    RelationshipIndex.Removal deleteRelationshipForUndo(String source, String destination, RelationshipType type) {
+        long stamp = lockWrite();
+        try {
+            // If any of the parameters are empty, nothing is deleted.
+            if (source.isEmpty() || destination.isEmpty() || type == null) {
+                return null;
+            }
 
-        // If no matching relationship is found.
-        return false;
+            RelationshipIndex.Removal removal = index().remove(source, destination, type);
+            if (removal != null) {
+                relationshipsChanged();
+            }
+            return removal; // null if no matching relationship is found
+        } finally {
+            unlockWrite(stamp);
+        }
     }
 
     /**
@@ -441,20 +790,79 @@ public class UmlEditorModel implements Cloneable {
      */
     public boolean changeRelationshipType(String source, String destination, RelationshipType currentType,
             RelationshipType newType) {
-        // If any of the parameters are empty, return false.
-        if (source.isEmpty() || destination.isEmpty() || currentType == null || newType == null) {
+        long stamp = lockWrite();
+        try {
+            // If any of the parameters are empty, return false.
+            if (source.isEmpty() || destination.isEmpty() || currentType == null || newType == null) {
+                return false;
+            }
+
+            // Finds the relationship and changes its type, unless a relationship with the new type already exists.
+            if (index().changeType(source, destination, currentType, newType)) {
+                relationshipsChanged();
+                return true;
+            }
+
+            // If no matching relationship is found.
             return false;
+        } finally {
+            unlockWrite(stamp);
         }
+    }
 
-        // Finds the relationship and changes its type to the new type.
-        UmlRelationship relationship = findRelationship(source, destination, currentType);
-        if (relationship != null) {
-            relationship.setType(newType);
-            return true;
+    /**
+     * Puts a class back into the model under a name, such as when a delete is undone.
+     * 
+     * @param name     The name to store the class under.
+     * @param umlClass The class to put back.
+     */
+    void putClass(String name, UmlClass umlClass) {
+        long stamp = lockWrite();
+        try {
+            adopt(umlClass);
+            classes.put(name, umlClass);
+            classChanged(name);
+            notifyListeners(ModelChange.Type.CLASS_ADDED, name, null);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Sets or removes the stored position of a class, such as when an add is undone.
+     * 
+     * @param name     The name of the class.
+     * @param present  {@code true} to store the position, {@code false} to remove it.
+     * @param position The position to store.
+     */
+    void restoreClassPosition(String name, boolean present, Point position) {
+        long stamp = lockWrite();
+        try {
+            if (present) {
+                classPositions.put(name, position);
+            } else {
+                classPositions.remove(name);
+            }
+            classChanged(name);
+            notifyListeners(ModelChange.Type.POSITION_MOVED, name, null);
+        } finally {
+            unlockWrite(stamp);
         }
+    }
 
-        // If no matching relationship is found.
-        return false;
+    /**
+     * Puts deleted relationships back where they were, such as when a delete is undone.
+     * 
+     * @param removal The relationships that were deleted.
+     */
+    void restoreRelationships(RelationshipIndex.Removal removal) {
+        long stamp = lockWrite();
+        try {
+            index().restore(removal);
+            relationshipsChanged();
+        } finally {
+            unlockWrite(stamp);
+        }
     }
 
     /**
@@ -467,14 +875,7 @@ public class UmlEditorModel implements Cloneable {
      *         otherwise.
      */
     public UmlRelationship findRelationship(String source, String destination, RelationshipType type) {
-        for (UmlRelationship relationship : relationships) {
-            if (relationship.getSource().equals(source) &&
-                    relationship.getDestination().equals(destination) &&
-                    relationship.getType() == type) { // Check for relationship type
-                return relationship; // Return the found relationship
-            }
-        }
-        return null; // Return null if no relationship is found
+        return index().find(source, destination, type); // null if no relationship is found
     }
 }
 
@@ -55,11 +55,15 @@ public class CLI {
         System.out.println("  list-classes         - List all classes and their methods");
         System.out.println("  list-class           - List the contents of a specified class");
         System.out.println("  list-relationships   - List all relationships");
+        System.out.println("  metrics              - Show how often each operation ran and how long it took");
         
         // Data management
         System.out.println("Data Management:");
         System.out.println("  save                 - Save data to a JSON file");
         System.out.println("  load                 - Load data from a JSON file");
+        System.out.println("  export-image         - Export the diagram to a PNG image");
+        System.out.println("  export-svg           - Export the diagram to an SVG vector image");
+        System.out.println("  run-script           - Run a file of commands, one per line, without prompts");
         
         // Miscellaneous
         System.out.println("Miscellaneous:");
@@ -78,7 +82,7 @@ public class CLI {
      * @param args command-line arguments (not used).
      */
     public static void main(String[] args) {
-        UmlEditorModel model = UmlEditorModel.getInstance(); // Use the singleton method
+        UmlEditorModel model = new UmlEditorModel(); // Create the model to edit
         UmlEditor umlEditor = new UmlEditor(model); // Instantiate your UML editor
         CLI cliView = new CLI(); // Instantiate the CLI view
         UmlCliController controller = new UmlCliController(model, umlEditor, cliView); // Create the controller
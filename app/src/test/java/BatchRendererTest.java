@@ -0,0 +1,110 @@
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.BatchRenderer;
+import Model.JsonUtils;
+import Model.RelationshipType;
+import Model.UmlEditorModel;
+
+/**
+ * A test class for BatchRenderer.
+ */
+public class BatchRendererTest {
+
+    private Path directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("batch-render");
+        UmlEditorModel model = new UmlEditorModel();
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+
+        // Save a few diagrams of different sizes
+        for (int file = 1; file <= 3; file++) {
+            for (int i = 0; i < file * 4; i++) {
+                model.addClass("Class" + file + "_" + i, new Point(i * 150, 50));
+            }
+            model.addRelationship("Class" + file + "_0", "Class" + file + "_1", RelationshipType.Inheritance);
+            JsonUtils.save(model, directory.resolve("diagram" + file + ".json").toString());
+        }
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that every model file in a directory is rendered to an image in the output directory.
+     */
+    @Test
+    @DisplayName ("RenderAll: Every model in a directory is rendered")
+    public void testRenderDirectory() throws IOException {
+        Path out = directory.resolve("images");
+        List<Path> modelFiles = BatchRenderer.findModelFiles(List.of(directory));
+        assertEquals(3, modelFiles.size());
+
+        int failures = new BatchRenderer(out, "png", 3).renderAll(modelFiles);
+        assertEquals(0, failures);
+        for (int file = 1; file <= 3; file++) {
+            BufferedImage image = ImageIO.read(out.resolve("diagram" + file + ".png").toFile());
+            assertNotNull(image);
+            assertTrue(image.getWidth() > 150 * (file * 4 - 1));
+        }
+    }
+
+    /**
+     * Test that a broken model file is counted as a failure without stopping the others.
+     */
+    @Test
+    @DisplayName ("RenderAll: A broken file fails on its own")
+    public void testBrokenFile() throws IOException {
+        Files.writeString(directory.resolve("broken.json"), "{ \"classes\": [");
+        List<Path> modelFiles = BatchRenderer.findModelFiles(List.of(directory));
+
+        assertEquals(1, new BatchRenderer(null, "png", 2).renderAll(modelFiles));
+        assertTrue(Files.exists(directory.resolve("diagram3.png")));
+        assertFalse(Files.exists(directory.resolve("broken.png")));
+    }
+
+    /**
+     * Test the exit status of the command line.
+     */
+    @Test
+    @DisplayName ("Run: The exit status reports bad arguments and failures")
+    public void testRun() {
+        assertEquals(2, BatchRenderer.run(new String[0]));
+        assertEquals(2, BatchRenderer.run(new String[] { directory.toString(), "--format", "gif" }));
+        assertEquals(2, BatchRenderer.run(new String[] { directory.resolve("missing.json").toString() }));
+        assertEquals(0, BatchRenderer.run(new String[] { directory.toString(), "--threads", "2" }));
+        assertEquals(0, BatchRenderer.run(new String[] { directory.toString(), "--format", "svg" }));
+        assertTrue(Files.exists(directory.resolve("diagram1.svg")));
+    }
+}
@@ -0,0 +1,208 @@
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.UmlEditor;
+import Model.BinaryUtils;
+import Model.JsonUtils;
+import Model.RelationshipType;
+import Model.UmlClass;
+import Model.UmlEditorModel;
+import Model.UmlRelationship;
+
+/**
+ * A test class for BinaryUtils, the binary model format.
+ */
+public class BinaryUtilsTest {
+
+    private Path directory;
+    private UmlEditorModel model;
+    private UmlEditor editor;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("binary-format");
+        model = new UmlEditorModel();
+        editor = new UmlEditor(model);
+        editor.setQuiet(true);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private String file(String name) {
+        return directory.resolve(name).toString();
+    }
+
+    // A diagram of many similar classes, like a real one
+    private void addClasses(int count) {
+        List<String[]> parameters = new ArrayList<>();
+        parameters.add(new String[] {"String", "name"});
+        parameters.add(new String[] {"Map<String, Integer>", "counts"});
+        for (int i = 0; i < count; i++) {
+            String name = "Class" + i;
+            editor.addClass(name, new Point(i * 10, -i));
+            editor.addField(name, "int", "id");
+            editor.addField(name, "String", "label");
+            editor.addMethod(name, "update", parameters, "void");
+            editor.addMethod(name, "update", new ArrayList<>(), "boolean");
+            if (i > 0) {
+                editor.addRelationship(name, "Class" + (i - 1), RelationshipType.values()[i % 4]);
+            }
+        }
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that a model saved in the binary format loads back the same as from JSON.
+     */
+    @Test
+    @DisplayName ("Binary: A saved model loads back the same")
+    public void testRoundTrip() throws IOException {
+        addClasses(20);
+        editor.addClass("Ünïcode", new Point(5, 5));
+        editor.addField("Ünïcode", "List<Ärger>", "名前");
+        editor.moveClass("Class3", new Point(-40, 70000));
+
+        JsonUtils.save(model, file("model.umlb"));
+        JsonUtils.save(model.view(), file("view.umlb"), false, null);
+        JsonUtils.save(model, file("model.json"));
+
+        String expected = describe(JsonUtils.load(file("model.json")));
+        assertEquals(expected, describe(JsonUtils.load(file("model.umlb"))));
+        assertEquals(expected, describe(JsonUtils.load(file("view.umlb"))));
+        assertTrue(BinaryUtils.isBinaryFile("Diagram.UMLB"));
+        assertFalse(BinaryUtils.isBinaryFile("diagram.json"));
+    }
+
+    /**
+     * Test that binary files are several times smaller than JSON, since repeated names are written once.
+     */
+    @Test
+    @DisplayName ("Binary: Files are much smaller than JSON")
+    public void testSize() throws IOException {
+        addClasses(2000);
+        JsonUtils.save(model, file("model.umlb"));
+        JsonUtils.save(model, file("compact.json"), false);
+        JsonUtils.save(model, file("pretty.json"));
+
+        long binary = Files.size(directory.resolve("model.umlb"));
+        assertTrue(binary * 3 < Files.size(directory.resolve("compact.json")));
+        assertTrue(binary * 6 < Files.size(directory.resolve("pretty.json")));
+    }
+
+    /**
+     * Test that converting between the formats in both directions keeps the model.
+     */
+    @Test
+    @DisplayName ("Binary: Convert between JSON and binary")
+    public void testConvert() throws IOException {
+        addClasses(50);
+        JsonUtils.save(model, file("original.json"));
+
+        assertEquals(2, BinaryUtils.run(new String[] {file("original.json")}));
+        assertEquals(1, BinaryUtils.run(new String[] {file("missing.json"), file("out.umlb")}));
+        assertEquals(0, BinaryUtils.run(new String[] {file("original.json"), file("converted.umlb")}));
+        BinaryUtils.convert(file("converted.umlb"), file("back.json"));
+
+        assertEquals(describe(model), describe(JsonUtils.load(file("converted.umlb"))));
+        assertEquals(describe(model), describe(JsonUtils.load(file("back.json"))));
+    }
+
+    /**
+     * Test that files that are not binary models, are cut short, or come from a newer version are rejected.
+     */
+    @Test
+    @DisplayName ("Binary: Bad files are rejected")
+    public void testBadFiles() throws IOException {
+        addClasses(5);
+        JsonUtils.save(model, file("model.umlb"));
+        byte[] bytes = Files.readAllBytes(directory.resolve("model.umlb"));
+
+        Files.write(directory.resolve("truncated.umlb"), Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> JsonUtils.load(file("truncated.umlb")));
+
+        byte[] newer = bytes.clone();
+        newer[4] = 99; // The version follows the four magic bytes
+        Files.write(directory.resolve("newer.umlb"), newer);
+        IOException e = assertThrows(IOException.class, () -> JsonUtils.load(file("newer.umlb")));
+        assertTrue(e.getMessage().contains("version"));
+
+        JsonUtils.save(model, file("model.json"));
+        Files.copy(directory.resolve("model.json"), directory.resolve("renamed.umlb"));
+        assertThrows(IOException.class, () -> JsonUtils.load(file("renamed.umlb")));
+    }
+
+    /**
+     * Test that damaged counts, lengths and relationship types are reported as bad files, without
+     * making room for more items than the file could hold.
+     */
+    @Test
+    @DisplayName ("BinaryUtils: Damaged counts and types are reported as bad files")
+    public void testDamagedCounts() throws IOException {
+        byte[] header = {'U', 'M', 'L', 'B', 1};
+        byte[] huge = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}; // The largest int
+
+        // No classes, then a relationship count far beyond what follows
+        assertBadFile("relationships.umlb", header, new byte[] {0}, huge);
+        // One class whose name is a new string far longer than the file
+        assertBadFile("string.umlb", header, new byte[] {1, 1}, huge);
+        // No classes, then one relationship between unnamed classes with a negative type
+        assertBadFile("type.umlb", header, new byte[] {0, 1, 0, 0},
+                new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+    }
+
+    // Write the parts as one file and check that loading it fails with an IOException
+    private void assertBadFile(String name, byte[]... parts) throws IOException {
+        try (OutputStream out = Files.newOutputStream(directory.resolve(name))) {
+            for (byte[] part : parts) {
+                out.write(part);
+            }
+        }
+        assertThrows(IOException.class, () -> JsonUtils.load(file(name)));
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    // Everything in a model that is saved, in a form that can be compared
+    private static String describe(UmlEditorModel model) {
+        StringBuilder text = new StringBuilder();
+        Map<String, UmlClass> classes = new TreeMap<>(model.getClasses());
+        for (Map.Entry<String, UmlClass> entry : classes.entrySet()) {
+            UmlClass umlClass = entry.getValue();
+            text.append(entry.getKey()).append(' ').append(umlClass.getName()).append(' ')
+                    .append(umlClass.getFields()).append(' ').append(umlClass.getMethods()).append(' ')
+                    .append(umlClass.getPosition()).append(' ')
+                    .append(model.view().getClassPosition(entry.getKey())).append('\n');
+        }
+        for (UmlRelationship relationship : model.getRelationships()) {
+            text.append(relationship.getSource()).append(" -> ").append(relationship.getDestination()).append(' ')
+                    .append(relationship.getType()).append('\n');
+        }
+        return text.toString();
+    }
+}
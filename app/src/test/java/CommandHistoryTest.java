@@ -0,0 +1,320 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.UmlEditor;
+import Model.CommandHistory;
+import Model.RelationshipType;
+import Model.UmlClass;
+import Model.UmlEditorModel;
+import Model.UmlRelationship;
+
+/**
+ * A test class for undoing and redoing commands through the UmlEditor.
+ */
+public class CommandHistoryTest {
+
+    /** A UmlEditor object that will be tested on. */
+    private UmlEditor umlEditor;
+
+    /** The model that holds the classes and relationships for this test file */
+    private UmlEditorModel model;
+
+    /**
+     * Creates an instance of a UmlEditor object to be used in tests.
+     */
+    @BeforeEach
+    public void setUp() {
+        model = new UmlEditorModel();
+        umlEditor = new UmlEditor(model);
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test undoing and redoing adding a class.
+     */
+    @Test
+    @DisplayName ("Undo: Undo and redo adding a class")
+    public void testUndoAddClass() {
+        umlEditor.addClass("ClassA");
+
+        umlEditor.undo();
+        assertFalse(model.classExist("ClassA"));
+
+        umlEditor.redo();
+        assertTrue(model.classExist("ClassA"));
+    }
+
+    /**
+     * Test that undoing a delete puts back the class and its relationships in order.
+     */
+    @Test
+    @DisplayName ("Undo: Undo deleting a class with relationships")
+    public void testUndoDeleteClass() {
+        umlEditor.addClass("ClassA");
+        umlEditor.addClass("ClassB");
+        umlEditor.addClass("ClassC");
+        umlEditor.addRelationship("ClassB", "ClassC", RelationshipType.Composition);
+        umlEditor.addRelationship("ClassA", "ClassB", RelationshipType.Aggregation);
+        umlEditor.addRelationship("ClassA", "ClassC", RelationshipType.Inheritance);
+        umlEditor.addField("ClassA", "int", "count");
+        List<UmlRelationship> before = new ArrayList<>(model.getRelationships());
+        UmlClass classA = model.getClass("ClassA");
+
+        umlEditor.deleteClass("ClassA");
+        assertEquals(1, model.getRelationships().size());
+
+        umlEditor.undo();
+        assertSame(classA, model.getClass("ClassA"));
+        assertEquals(before, model.getRelationships());
+        assertEquals("int", model.getClass("ClassA").getFields().get("count"));
+    }
+
+    /**
+     * Test undoing and redoing renaming a class.
+     */
+    @Test
+    @DisplayName ("Undo: Undo and redo renaming a class")
+    public void testUndoRenameClass() {
+        umlEditor.addClass("ClassA");
+        umlEditor.addClass("ClassB");
+        umlEditor.addRelationship("ClassA", "ClassB", RelationshipType.Aggregation);
+        umlEditor.renameClass("ClassA", "ClassC");
+
+        umlEditor.undo();
+        assertTrue(model.classExist("ClassA"));
+        assertFalse(model.classExist("ClassC"));
+        assertEquals("ClassA", model.getRelationships().getFirst().getSource());
+
+        umlEditor.redo();
+        assertTrue(model.classExist("ClassC"));
+        assertEquals("ClassC", model.getRelationships().getFirst().getSource());
+    }
+
+    /**
+     * Test that undoing field changes keeps the order of the fields.
+     */
+    @Test
+    @DisplayName ("Undo: Undo field changes and keep the field order")
+    public void testUndoFields() {
+        umlEditor.addClass("ClassA");
+        umlEditor.addField("ClassA", "int", "first");
+        umlEditor.addField("ClassA", "String", "second");
+        umlEditor.addField("ClassA", "double", "third");
+        List<String> order = umlEditor.getFields("ClassA");
+
+        umlEditor.renameField("ClassA", "first", "renamed");
+        umlEditor.undo();
+        assertEquals(order, umlEditor.getFields("ClassA"));
+
+        umlEditor.deleteField("ClassA", "second");
+        umlEditor.undo();
+        assertEquals(order, umlEditor.getFields("ClassA"));
+
+        umlEditor.updateFieldType("ClassA", "third", "float");
+        umlEditor.undo();
+        assertEquals("double", model.getClass("ClassA").getFields().get("third"));
+    }
+
+    /**
+     * Test undoing and redoing method changes.
+     */
+    @Test
+    @DisplayName ("Undo: Undo and redo method changes")
+    public void testUndoMethods() {
+        List<String[]> parameters = new ArrayList<>();
+        parameters.add(new String[] {"int", "x"});
+        parameters.add(new String[] {"int", "y"});
+        umlEditor.addClass("ClassA");
+        umlEditor.addMethod("ClassA", "move", parameters, "void");
+        UmlClass.Method method = model.getClass("ClassA").getMethodsList().getFirst();
+
+        umlEditor.renameMethod("ClassA", "move", parameters, "void", "jump");
+        umlEditor.changeReturnType("ClassA", "jump", parameters, "void", "boolean");
+        umlEditor.removeParameter("ClassA", "jump", parameters, "boolean", new String[] {"int", "y"});
+        assertEquals(1, method.getParameters().size());
+
+        umlEditor.undo();
+        umlEditor.undo();
+        umlEditor.undo();
+        assertEquals("move", method.getName());
+        assertEquals("void", method.getReturnType());
+        assertEquals(2, method.getParameters().size());
+
+        umlEditor.redo();
+        assertEquals("jump", method.getName());
+
+        umlEditor.deleteMethod("ClassA", "jump", parameters, "void");
+        assertTrue(model.getClass("ClassA").getMethodsList().isEmpty());
+        umlEditor.undo();
+        assertSame(method, model.getClass("ClassA").getMethodsList().getFirst());
+    }
+
+    /**
+     * Test that a parameter list given to a change is copied, so later changes to the method
+     * do not change what redo puts back.
+     */
+    @Test
+    @DisplayName ("Undo: Redo puts back the parameters the change was made with")
+    public void testRedoChangedParameters() {
+        List<String[]> parameters = new ArrayList<>();
+        parameters.add(new String[] {"int", "x"});
+        parameters.add(new String[] {"int", "y"});
+        umlEditor.addClass("ClassA");
+        umlEditor.addMethod("ClassA", "run", new ArrayList<>(), "void");
+        umlEditor.changeParameters("ClassA", "run", new ArrayList<>(), "void", parameters);
+        umlEditor.removeParameter("ClassA", "run", parameters, "void", new String[] {"int", "y"});
+        assertEquals(2, parameters.size()); // The caller's list is not the method's
+
+        umlEditor.undo();
+        umlEditor.undo();
+        assertTrue(umlEditor.redo());
+        assertEquals("void run(int x, int y)", model.getClass("ClassA").getMethods().getFirst());
+        assertTrue(umlEditor.redo());
+        assertEquals("void run(int x)", model.getClass("ClassA").getMethods().getFirst());
+    }
+
+    /**
+     * Test that method edits made with the method's own parameter list, as the GUI and CLI do,
+     * can still be redone after the list changes.
+     */
+    @Test
+    @DisplayName ("Undo: Redo method edits made with the method's own parameter list")
+    public void testRedoWithLiveParameters() {
+        List<String[]> parameters = new ArrayList<>();
+        parameters.add(new String[] {"int", "x"});
+        parameters.add(new String[] {"int", "y"});
+        umlEditor.addClass("ClassA");
+        umlEditor.addMethod("ClassA", "run", parameters, "void");
+        UmlClass.Method method = model.getClass("ClassA").getMethodsList().getFirst();
+
+        umlEditor.renameMethod("ClassA", "run", method.getParameters(), "void", "walk");
+        umlEditor.removeParameter("ClassA", "walk", method.getParameters(), "void", new String[] {"int", "y"});
+        assertEquals("void walk(int x)", model.getClass("ClassA").getMethods().getFirst());
+
+        umlEditor.undo();
+        umlEditor.undo();
+        assertEquals("void run(int x, int y)", model.getClass("ClassA").getMethods().getFirst());
+        assertTrue(umlEditor.redo());
+        assertTrue(umlEditor.redo());
+        assertEquals("void walk(int x)", model.getClass("ClassA").getMethods().getFirst());
+    }
+
+    /**
+     * Test that a redo that no longer applies is refused and leaves the history where it was.
+     */
+    @Test
+    @DisplayName ("Redo: A change that no longer applies is not redone, failure test")
+    public void testRedoNoLongerApplies() {
+        umlEditor.addClass("ClassA");
+        umlEditor.undo();
+        model.addClass("ClassA"); // Made outside the editor, so the redo cannot add it again
+
+        assertFalse(umlEditor.redo());
+        assertTrue(umlEditor.getHistory().canRedo());
+        assertEquals(0, umlEditor.getHistory().getUndoCount());
+    }
+
+    /**
+     * Test undoing relationship changes.
+     */
+    @Test
+    @DisplayName ("Undo: Undo relationship changes")
+    public void testUndoRelationships() {
+        umlEditor.addClass("ClassA");
+        umlEditor.addClass("ClassB");
+        umlEditor.addRelationship("ClassA", "ClassB", RelationshipType.Aggregation);
+        umlEditor.changeRelationshipType("ClassA", "ClassB", RelationshipType.Aggregation,
+                RelationshipType.Composition);
+
+        umlEditor.undo();
+        assertEquals(RelationshipType.Aggregation, model.getRelationships().getFirst().getType());
+
+        umlEditor.deleteRelationship("ClassA", "ClassB", RelationshipType.Aggregation);
+        assertTrue(model.getRelationships().isEmpty());
+        umlEditor.undo();
+        assertEquals(1, model.getRelationships().size());
+    }
+
+    /**
+     * Test that failed changes are not recorded.
+     */
+    @Test
+    @DisplayName ("Execute: A failed change is not recorded, failure test")
+    public void testFailedChangeNotRecorded() {
+        umlEditor.addClass("ClassA");
+        umlEditor.addClass("ClassA");
+
+        assertEquals(1, umlEditor.getHistory().getUndoCount());
+    }
+
+    /**
+     * Test that a new change clears the changes that could be redone.
+     */
+    @Test
+    @DisplayName ("Execute: A new change clears the redo history")
+    public void testNewChangeClearsRedo() {
+        umlEditor.addClass("ClassA");
+        umlEditor.undo();
+        assertTrue(umlEditor.getHistory().canRedo());
+
+        umlEditor.addClass("ClassB");
+        assertFalse(umlEditor.getHistory().canRedo());
+    }
+
+    /**
+     * Test that the history keeps only the most recent changes.
+     */
+    @Test
+    @DisplayName ("Depth: Only the most recent changes are kept")
+    public void testHistoryDepth() {
+        umlEditor = new UmlEditor(model, 3, CommandHistory.DEFAULT_MAX_BYTES);
+        for (int i = 0; i < 5; i++) {
+            umlEditor.addClass("Class" + i);
+        }
+
+        assertEquals(3, umlEditor.getHistory().getUndoCount());
+        for (int i = 0; i < 5; i++) {
+            umlEditor.undo();
+        }
+        assertTrue(model.classExist("Class0"));
+        assertTrue(model.classExist("Class1"));
+        assertFalse(model.classExist("Class2"));
+    }
+
+    /**
+     * Test that the history drops old changes when it goes over its memory budget.
+     */
+    @Test
+    @DisplayName ("Budget: Old changes are dropped to stay within the memory budget")
+    public void testHistoryMemoryBudget() {
+        umlEditor = new UmlEditor(model, 100, 500);
+        for (int i = 0; i < 20; i++) {
+            umlEditor.addClass("Class" + i);
+        }
+
+        CommandHistory history = umlEditor.getHistory();
+        assertTrue(history.getEstimatedBytes() <= 500);
+        assertTrue(history.getUndoCount() < 20);
+        assertTrue(history.getUndoCount() > 0);
+    }
+
+    /**
+     * Test that the history rejects limits that are not positive.
+     */
+    @Test
+    @DisplayName ("Limits: Limits must be positive, failure test")
+    public void testInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new CommandHistory(0, 100));
+        assertThrows(IllegalArgumentException.class, () -> new CommandHistory(10, 0));
+    }
+}
@@ -0,0 +1,125 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Model.DiagramGenerator;
+import Model.JsonUtils;
+import Model.RelationshipType;
+import Model.UmlClass;
+import Model.UmlEditorModel;
+import Model.UmlRelationship;
+
+/**
+ * A test class for DiagramGenerator, which builds large diagrams for testing.
+ */
+public class DiagramGeneratorTest {
+
+    private Path directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("generator");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that the same seed gives the same diagram and a different seed a different one.
+     */
+    @Test
+    @DisplayName ("DiagramGenerator: The same seed gives the same diagram")
+    public void testSeed() {
+        String first = describe(new DiagramGenerator(7).generate(500));
+        assertEquals(first, describe(new DiagramGenerator(7).generate(500)));
+        assertNotEquals(first, describe(new DiagramGenerator(8).generate(500)));
+    }
+
+    /**
+     * Test that the settings control the members, overloads, relationship count and relationship types.
+     */
+    @Test
+    @DisplayName ("DiagramGenerator: The settings shape the diagram")
+    public void testSettings() {
+        UmlEditorModel model = new DiagramGenerator()
+                .maxFields(2)
+                .maxMethods(6)
+                .overloadChance(1)
+                .relationshipsPerClass(3)
+                .typeWeight(RelationshipType.Aggregation, 0)
+                .typeWeight(RelationshipType.Composition, 0)
+                .generate(1000);
+
+        assertEquals(1000, model.getClasses().size());
+        assertEquals(3000, model.getRelationships().size());
+        boolean overloaded = false;
+        for (UmlClass umlClass : model.getClasses().values()) {
+            assertTrue(umlClass.getFields().size() <= 2);
+            assertTrue(umlClass.getMethodsList().size() <= 6);
+            // Every method overloads the first, so they all share its name
+            overloaded |= umlClass.getMethodsList().size() > 1;
+            assertTrue(umlClass.getMethodNames().stream().distinct().count() <= 1);
+        }
+        assertTrue(overloaded);
+        for (UmlRelationship relationship : model.getRelationships()) {
+            assertTrue(relationship.getType() == RelationshipType.Inheritance
+                    || relationship.getType() == RelationshipType.Realization);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new DiagramGenerator().maxFields(-1));
+        assertThrows(IllegalArgumentException.class, () -> new DiagramGenerator().overloadChance(2));
+    }
+
+    /**
+     * Test that generated diagrams are written in the format their file name asks for.
+     */
+    @Test
+    @DisplayName ("DiagramGenerator: Write a diagram to a file")
+    public void testWrite() throws IOException {
+        String json = directory.resolve("big.json").toString();
+        String binary = directory.resolve("big.umlb").toString();
+        UmlEditorModel model = new DiagramGenerator().write(2000, json);
+
+        assertEquals(0, DiagramGenerator.run(new String[] {"2000", binary, "--seed", "420"}));
+        assertEquals(2, DiagramGenerator.run(new String[] {"many", binary}));
+        assertEquals(describe(model), describe(JsonUtils.load(json)));
+        assertEquals(describe(model), describe(JsonUtils.load(binary)));
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    // Everything in a model that is saved, in a form that can be compared
+    private static String describe(UmlEditorModel model) {
+        StringBuilder text = new StringBuilder();
+        Map<String, UmlClass> classes = new TreeMap<>(model.getClasses());
+        for (UmlClass umlClass : classes.values()) {
+            text.append(umlClass.getName()).append(' ').append(umlClass.getFields()).append(' ')
+                    .append(umlClass.getMethods()).append(' ').append(umlClass.getPosition()).append('\n');
+        }
+        for (UmlRelationship relationship : model.getRelationships()) {
+            text.append(relationship.getSource()).append(" -> ").append(relationship.getDestination()).append(' ')
+                    .append(relationship.getType()).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,159 @@
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.DiagramScene;
+import Model.RelationshipType;
+import Model.UmlEditorModel;
+
+/**
+ * A test class for DiagramScene.
+ */
+public class DiagramSceneTest {
+
+    private UmlEditorModel model;
+    private Map<String, Point> positions;
+    private DiagramScene scene;
+    private Graphics2D graphics;
+    private FontMetrics metrics;
+
+    @BeforeEach
+    public void setUp() {
+        model = new UmlEditorModel();
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+        positions = new HashMap<>();
+        scene = new DiagramScene();
+        graphics = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB).createGraphics();
+        metrics = graphics.getFontMetrics();
+
+        // A chain of classes, each related to the next
+        for (int i = 0; i < 500; i++) {
+            model.addClass("Class" + i);
+            model.getClass("Class" + i).addField("int", "field" + i);
+            positions.put("Class" + i, new Point(i * 10, i * 10));
+            if (i > 0) {
+                model.addRelationship("Class" + (i - 1), "Class" + i, RelationshipType.Aggregation);
+            }
+        }
+        scene.update(model, positions, metrics, metrics);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        graphics.dispose();
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that the first update lays out every box and line, and a second one lays out nothing.
+     */
+    @Test
+    @DisplayName ("Update: Nothing is laid out again when nothing changed")
+    public void testUnchangedKeepsLayout() {
+        assertEquals(500, scene.getBoxLayouts());
+        assertEquals(499, scene.getEdgeLayouts());
+
+        scene.update(model, positions, metrics, metrics);
+        scene.paint(graphics);
+        assertEquals(500, scene.getBoxLayouts());
+        assertEquals(499, scene.getEdgeLayouts());
+    }
+
+    /**
+     * Test that moving a class only moves its box and lays out the lines attached to it.
+     */
+    @Test
+    @DisplayName ("Update: Moving a class only lays out its own lines")
+    public void testMoveLaysOutIncidentEdges() {
+        positions.put("Class250", new Point(1000, 40));
+        scene.update(model, positions, metrics, metrics);
+
+        assertEquals(500, scene.getBoxLayouts());
+        assertEquals(499 + 2, scene.getEdgeLayouts());
+        assertEquals(new Point(1000, 40), scene.getBox("Class250").getBounds().getLocation());
+        assertEquals(2, scene.getEdges("Class250").size());
+    }
+
+    /**
+     * Test that changing a class lays out its box again with the new size.
+     */
+    @Test
+    @DisplayName ("Update: Changing a class lays out its box again")
+    public void testChangeLaysOutBox() {
+        int height = scene.getBox("Class10").getHeight();
+        model.getClass("Class10").addMethod("run", new ArrayList<>(), "void");
+        scene.update(model, positions, metrics, metrics);
+
+        assertEquals(501, scene.getBoxLayouts());
+        assertEquals(499 + 2, scene.getEdgeLayouts());
+        assertEquals(height + 15, scene.getBox("Class10").getHeight());
+    }
+
+    /**
+     * Test that deleting a class drops its box, and the lines to it are rebuilt.
+     */
+    @Test
+    @DisplayName ("Update: Deleting a class drops its box and lines")
+    public void testDeleteClass() {
+        model.deleteClass("Class0");
+        positions.remove("Class0");
+        scene.update(model, positions, metrics, metrics);
+
+        assertNull(scene.getBox("Class0"));
+        assertNotNull(scene.getBox("Class1"));
+        assertTrue(scene.getEdges("Class0").isEmpty());
+        assertEquals(1, scene.getEdges("Class1").size());
+    }
+
+    /**
+     * Test that the area to repaint for a dragged class covers its box and the lines attached to it.
+     */
+    @Test
+    @DisplayName ("GetDirtyBounds: The area covers the box and its lines")
+    public void testDirtyBounds() {
+        Rectangle dirty = scene.getDirtyBounds("Class250");
+
+        assertTrue(dirty.contains(scene.getBox("Class250").getPaintBounds()));
+        for (DiagramScene.Edge edge : scene.getEdges("Class250")) {
+            assertTrue(dirty.contains(edge.getBounds()));
+        }
+        assertFalse(dirty.intersects(scene.getBox("Class400").getPaintBounds()));
+        assertNull(scene.getDirtyBounds("Missing"));
+    }
+
+    /**
+     * Test that clicking a box picks it, and clicking empty space or a moved box's old place picks nothing.
+     */
+    @Test
+    @DisplayName ("FindBoxAt: The box under the point is found")
+    public void testFindBoxAt() {
+        positions.put("Class250", new Point(20000, 20000));
+        scene.update(model, positions, metrics, metrics);
+
+        assertEquals("Class250", scene.findBoxAt(new Point(20005, 20005)).getName());
+        assertEquals("Class0", scene.findBoxAt(new Point(1, 1)).getName());
+        assertNotEquals("Class250", scene.findBoxAt(new Point(2505, 2505)).getName());
+        assertNull(scene.findBoxAt(new Point(-50, -50)));
+        assertNull(scene.findBoxAt(new Point(30000, 100)));
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.UmlEditor;
+import Model.Journal;
+import Model.JsonUtils;
+import Model.Memento;
+import Model.UmlEditorModel;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * A test class for FlightRecorderEvents, the events the editor emits to Java Flight Recorder.
+ */
+public class FlightRecorderEventsTest {
+
+    private UmlEditorModel model;
+    private UmlEditor editor;
+    private Recording recording;
+    private List<RecordedEvent> recorded;
+    private Path directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        model = new UmlEditorModel();
+        editor = new UmlEditor(model);
+        editor.setQuiet(true);
+        directory = Files.createTempDirectory("flight-recorder");
+        recording = new Recording();
+        for (String name : new String[] {"uml.Edit", "uml.Save", "uml.Load", "uml.Snapshot"}) {
+            recording.enable(name);
+        }
+        recording.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        recording.close();
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(directory);
+    }
+
+    // Stop recording the first time it is called, and read back the events with the given name
+    private List<RecordedEvent> events(String name) throws IOException {
+        if (recorded == null) {
+            recording.stop();
+            Path file = directory.resolve("recording.jfr");
+            recording.dump(file);
+            recorded = RecordingFile.readAllEvents(file);
+        }
+        return recorded.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that each edit is recorded with its operation, class and result.
+     */
+    @Test
+    @DisplayName ("FlightRecorderEvents: Edits are recorded")
+    public void testEdits() throws IOException {
+        editor.addClass("Shape");
+        editor.addField("Shape", "int", "sides");
+        editor.addClass("Shape"); // Refused, the class exists
+        editor.undo();
+
+        List<RecordedEvent> edits = events("uml.Edit");
+        assertEquals(4, edits.size());
+        assertEquals("add class", edits.get(0).getString("operation"));
+        assertEquals("Shape", edits.get(0).getString("className"));
+        assertTrue(edits.get(0).getBoolean("succeeded"));
+        assertEquals("add field", edits.get(1).getString("operation"));
+        assertFalse(edits.get(2).getBoolean("succeeded"));
+        assertEquals("undo", edits.get(3).getString("operation"));
+    }
+
+    /**
+     * Test that saves and loads are recorded with the file size and number of classes.
+     */
+    @Test
+    @DisplayName ("FlightRecorderEvents: Saves and loads are recorded")
+    public void testFiles() throws IOException {
+        editor.addClass("Shape");
+        editor.addClass("Circle");
+        String file = directory.resolve("model.json").toString();
+        JsonUtils.save(model, file);
+        JsonUtils.load(file);
+        long size = Files.size(Path.of(file));
+
+        RecordedEvent save = events("uml.Save").get(0);
+        assertEquals(file, save.getString("file"));
+        assertEquals(size, save.getLong("bytes"));
+        assertEquals(2, save.getInt("classes"));
+        RecordedEvent load = events("uml.Load").get(0);
+        assertEquals(size, load.getLong("bytes"));
+        assertEquals(2, load.getInt("classes"));
+        assertTrue(load.getBoolean("succeeded"));
+    }
+
+    /**
+     * Test that views, autosave snapshots and undo snapshots are recorded with their kind and the size of the model.
+     */
+    @Test
+    @DisplayName ("FlightRecorderEvents: Snapshots are recorded")
+    public void testSnapshots() throws IOException {
+        editor.addClass("Shape");
+        editor.addClass("Circle");
+        model.view();
+        model.view(); // Nothing changed, so no new view is built
+        Journal journal = new Journal(directory, model, Journal.DEFAULT_COMPACT_EVERY);
+        journal.close();
+        Memento memento = new Memento();
+        memento.saveState(model);
+
+        List<RecordedEvent> snapshots = events("uml.Snapshot");
+        assertEquals(List.of("view", "autosave", "undo"),
+                snapshots.stream().map(event -> event.getString("kind")).collect(Collectors.toList()));
+        assertEquals(2, snapshots.get(0).getInt("classes"));
+        assertEquals(0, snapshots.get(0).getInt("relationships"));
+    }
+}
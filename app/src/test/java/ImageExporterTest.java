@@ -0,0 +1,133 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.DiagramScene;
+import Controller.ImageExporter;
+import Model.RelationshipType;
+import Model.UmlEditorModel;
+
+/**
+ * A test class for ImageExporter.
+ */
+public class ImageExporterTest {
+
+    private UmlEditorModel model;
+    private Map<String, Point> positions;
+
+    @BeforeEach
+    public void setUp() {
+        model = new UmlEditorModel();
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+        positions = new HashMap<>();
+
+        // Classes spread over several tiles, with lines crossing tile edges
+        for (int i = 0; i < 6; i++) {
+            model.addClass("Class" + i);
+            model.getClass("Class" + i).addField("String", "name" + i);
+            positions.put("Class" + i, new Point(i * 230, (i % 3) * 420));
+        }
+        model.addRelationship("Class0", "Class5", RelationshipType.Composition);
+        model.addRelationship("Class2", "Class3", RelationshipType.Realization);
+        model.addRelationship("Class4", "Class4", RelationshipType.Inheritance);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that drawing in tiles on several threads gives the same picture as drawing the diagram in one piece.
+     */
+    @Test
+    @DisplayName ("ExportDiagram: Tiled image matches a single drawing of the diagram")
+    public void testTilesMatchWholeImage() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Dimension size = ImageExporter.exportDiagram(model, positions, out, 3);
+        BufferedImage exported = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertNotNull(exported);
+        assertEquals(size.width, exported.getWidth());
+        assertEquals(size.height, exported.getHeight());
+
+        // Draw the same diagram into one image
+        DiagramScene scene = new DiagramScene();
+        Font font = new Font(Font.DIALOG, Font.PLAIN, 12);
+        BufferedImage whole = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = whole.createGraphics();
+        scene.update(model, positions, g.getFontMetrics(font), g.getFontMetrics(font));
+        Rectangle area = scene.getBounds();
+        area.grow(20, 20);
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, size.width, size.height);
+        g.setColor(Color.BLACK);
+        g.setFont(font);
+        g.translate(-area.x, -area.y);
+        g.setClip(area);
+        scene.paint(g);
+        g.dispose();
+
+        int differences = 0;
+        for (int y = 0; y < size.height; y++) {
+            for (int x = 0; x < size.width; x++) {
+                if ((exported.getRGB(x, y) & 0xFFFFFF) != (whole.getRGB(x, y) & 0xFFFFFF)) {
+                    differences++;
+                }
+            }
+        }
+        assertEquals(0, differences);
+    }
+
+    /**
+     * Test that an empty diagram exports a small blank image.
+     */
+    @Test
+    @DisplayName ("ExportDiagram: An empty diagram is a blank image")
+    public void testEmptyDiagram() throws IOException {
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Dimension size = ImageExporter.exportDiagram(model, new HashMap<>(), out, 2);
+        BufferedImage exported = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(new Dimension(40, 40), size);
+        assertEquals(0xFFFFFF, exported.getRGB(20, 20) & 0xFFFFFF);
+    }
+
+    /**
+     * Test that classes without a position are placed apart from each other.
+     */
+    @Test
+    @DisplayName ("PositionsOf: Classes without a position are placed in a grid")
+    public void testPositionsOf() {
+        model.getClass("Class0").setPosition(new Point(7, 8));
+        Map<String, Point> placed = ImageExporter.positionsOf(model);
+
+        assertEquals(6, placed.size());
+        assertEquals(new Point(7, 8), placed.get("Class0"));
+        assertEquals(5, placed.values().stream().filter(p -> !p.equals(new Point(7, 8))).distinct().count());
+    }
+}
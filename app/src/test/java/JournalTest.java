@@ -0,0 +1,280 @@
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.UmlEditor;
+import Model.AutosaveLock;
+import Model.Journal;
+import Model.RelationshipType;
+import Model.UmlClass;
+import Model.UmlEditorModel;
+import Model.UmlRelationship;
+
+/**
+ * A test class for Journal, the autosave journal.
+ */
+public class JournalTest {
+
+    private Path directory;
+    private UmlEditorModel model;
+    private UmlEditor editor;
+    private Journal journal;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("autosave");
+        model = new UmlEditorModel();
+        editor = new UmlEditor(model);
+        editor.setQuiet(true);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private void startJournal(int compactEvery) throws IOException {
+        journal = new Journal(directory, model, compactEvery);
+        editor.setJournal(journal);
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that every kind of change, with undo and redo, is recovered from the journal.
+     */
+    @Test
+    @DisplayName ("Journal: Every kind of change is replayed")
+    public void testReplay() throws IOException {
+        editor.addClass("Before");
+        startJournal(Journal.DEFAULT_COMPACT_EVERY);
+
+        List<String[]> parameters = new ArrayList<>();
+        parameters.add(new String[] {"Map<String, Integer>", "counts"});
+        parameters.add(new String[] {"int", "limit"});
+        editor.addClass("Shape", new Point(10, 20));
+        editor.addClass("Circle");
+        editor.addField("Shape", "int", "sides");
+        editor.renameField("Shape", "sides", "corners");
+        editor.updateFieldType("Shape", "corners", "long");
+        editor.addMethod("Shape", "scale", parameters, "void");
+        editor.renameMethod("Shape", "scale", parameters, "void", "resize");
+        editor.removeParameter("Shape", "resize", parameters, "void", new String[] {"int", "limit"});
+        editor.addMethod("Circle", "area", new ArrayList<>(), "double");
+        editor.changeReturnType("Circle", "area", new ArrayList<>(), "double", "float");
+        editor.addRelationship("Circle", "Shape", RelationshipType.Inheritance);
+        editor.changeRelationshipType("Circle", "Shape", RelationshipType.Inheritance, RelationshipType.Realization);
+        editor.moveClass("Circle", new Point(300, 40));
+        editor.renameClass("Before", "After");
+        editor.deleteClass("After");
+        editor.undo();
+        editor.undo();
+        editor.redo();
+        journal.close();
+        journal = null;
+
+        UmlEditorModel recovered = Journal.recover(directory);
+        assertNotNull(recovered);
+        assertEquals(describe(model), describe(recovered));
+        assertTrue(recovered.classExist("After"));
+        assertEquals(new Point(300, 40), recovered.view().getClassPosition("Circle"));
+    }
+
+    /**
+     * Test that committed transactions are replayed and undone as one change, and that rolled back
+     * or unfinished transactions leave nothing behind.
+     */
+    @Test
+    @DisplayName ("Journal: Transactions are replayed as one change")
+    public void testTransactions() throws IOException {
+        startJournal(Journal.DEFAULT_COMPACT_EVERY);
+        editor.addClass("Keep");
+        editor.runInTransaction(() -> {
+            editor.addClass("Gone");
+            editor.addField("Gone", "int", "x");
+        });
+        editor.undo();
+        editor.runInTransaction(() -> editor.addClass("Stays"));
+        editor.beginTransaction();
+        editor.addClass("RolledBack");
+        editor.rollbackTransaction();
+
+        // The program stops in the middle of a transaction
+        editor.beginTransaction();
+        editor.addClass("Unfinished");
+        journal.flush();
+
+        UmlEditorModel recovered = Journal.recover(directory);
+        assertTrue(recovered.classExist("Keep"));
+        assertTrue(recovered.classExist("Stays"));
+        assertFalse(recovered.classExist("Gone"));
+        assertFalse(recovered.classExist("RolledBack"));
+        assertFalse(recovered.classExist("Unfinished"));
+        editor.rollbackTransaction();
+    }
+
+    /**
+     * Test that compaction leaves a single snapshot and journal, including when a change from
+     * before the last snapshot is undone.
+     */
+    @Test
+    @DisplayName ("Journal: Compaction keeps only the newest snapshot")
+    public void testCompaction() throws IOException {
+        startJournal(10);
+        for (int i = 0; i < 45; i++) {
+            editor.addClass("Class" + i);
+            editor.addField("Class" + i, "int", "x");
+        }
+        for (int i = 0; i < 15; i++) {
+            editor.undo(); // Some of these undo changes from before the last snapshot
+        }
+        editor.redo();
+        journal.flush();
+
+        List<String> names;
+        try (Stream<Path> files = Files.list(directory)) {
+            names = files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+        assertEquals(2, names.size());
+        assertTrue(names.get(0).endsWith(".journal"));
+        assertTrue(names.get(1).endsWith(".json"));
+        assertEquals(describe(model), describe(Journal.recover(directory)));
+    }
+
+    /**
+     * Test that removing a parameter through the method's own parameter list, as the GUI and CLI
+     * do, is journaled with the list it was removed from, so it can be recovered.
+     */
+    @Test
+    @DisplayName ("Journal: A parameter removed through the method's own list is recovered")
+    public void testRemoveParameterLiveList() throws IOException {
+        startJournal(Journal.DEFAULT_COMPACT_EVERY);
+        List<String[]> parameters = new ArrayList<>();
+        parameters.add(new String[] {"int", "x"});
+        parameters.add(new String[] {"int", "y"});
+        editor.addClass("Shape");
+        editor.addMethod("Shape", "run", parameters, "void");
+        UmlClass.Method method = model.getClass("Shape").getMethodsList().getFirst();
+        editor.removeParameter("Shape", "run", method.getParameters(), "void", new String[] {"int", "y"});
+        journal.close();
+        journal = null;
+
+        UmlEditorModel recovered = Journal.recover(directory);
+        assertEquals(List.of("void run(int x)"), recovered.getClass("Shape").getMethods());
+    }
+
+    /**
+     * Test that dragging a class does not journal each step, only the final position.
+     */
+    @Test
+    @DisplayName ("Journal: Only the end of a drag is journaled")
+    public void testDrag() throws IOException {
+        startJournal(Journal.DEFAULT_COMPACT_EVERY);
+        editor.addClass("Shape", new Point(0, 0));
+        for (int x = 1; x <= 100; x++) {
+            editor.dragClass("Shape", new Point(x, x));
+        }
+        editor.moveClass("Shape", new Point(100, 100));
+        journal.flush();
+
+        Path file;
+        try (Stream<Path> files = Files.list(directory)) {
+            file = files.filter(path -> path.toString().endsWith(".journal")).findFirst().orElseThrow();
+        }
+        assertEquals(2, Files.readAllLines(file, StandardCharsets.UTF_8).size()); // The add and the final move
+        assertEquals(new Point(100, 100), Journal.recover(directory).view().getClassPosition("Shape"));
+    }
+
+    /**
+     * Test that a last line that was only partly written is skipped.
+     */
+    @Test
+    @DisplayName ("Journal: A torn last line is ignored")
+    public void testTornLine() throws IOException {
+        startJournal(Journal.DEFAULT_COMPACT_EVERY);
+        editor.addClass("Shape");
+        editor.addField("Shape", "int", "sides");
+        journal.close();
+        journal = null;
+
+        Path journalFile;
+        try (Stream<Path> files = Files.list(directory)) {
+            journalFile = files.filter(path -> path.toString().endsWith(".journal")).findFirst().get();
+        }
+        Files.write(journalFile, "[\"addClass\",\"Hal".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        UmlEditorModel recovered = Journal.recover(directory);
+        assertEquals(describe(model), describe(recovered));
+        assertFalse(recovered.classExist("Hal"));
+        assertNull(Journal.recover(directory.resolve("missing")));
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    // Everything in a model that is saved, in a form that can be compared
+    private static String describe(UmlEditorModel model) {
+        StringBuilder text = new StringBuilder();
+        Map<String, UmlClass> classes = new TreeMap<>(model.getClasses());
+        for (UmlClass umlClass : classes.values()) {
+            text.append(umlClass.getName()).append(' ').append(umlClass.getFields()).append(' ')
+                    .append(umlClass.getMethods()).append(' ')
+                    .append(model.view().getClassPosition(umlClass.getName())).append('\n');
+        }
+        for (UmlRelationship relationship : model.getRelationships()) {
+            text.append(relationship.getSource()).append(" -> ").append(relationship.getDestination()).append(' ')
+                    .append(relationship.getType()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Test that only one lock on a directory is held at a time, and that deleting the files after
+     * a clean close leaves nothing to recover.
+     */
+    @Test
+    @DisplayName ("Journal: One window autosaves to a directory, and a clean close deletes its files")
+    public void testLockAndDelete() throws IOException {
+        AutosaveLock lock = AutosaveLock.tryLock(directory);
+        assertNotNull(lock);
+        assertNull(AutosaveLock.tryLock(directory)); // Held by the first
+
+        startJournal(Journal.DEFAULT_COMPACT_EVERY);
+        editor.addClass("Shape");
+        journal.close();
+        journal = null;
+        assertNotNull(Journal.recover(directory));
+
+        Journal.delete(directory);
+        assertNull(Journal.recover(directory));
+        lock.close();
+        AutosaveLock again = AutosaveLock.tryLock(directory);
+        assertNotNull(again);
+        again.close();
+    }
+}
@@ -1,9 +1,16 @@
+import java.awt.Point;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -13,7 +20,9 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import Model.JsonUtils;
+import Model.ModelView;
 import Model.RelationshipType;
+import Model.UmlClass;
 import Model.UmlEditorModel;
 
 /**
@@ -32,7 +41,7 @@ public class JsonUtilsTest {
      */
     @BeforeEach
     public void setUp() {
-        editorModel = UmlEditorModel.getInstance();
+        editorModel = new UmlEditorModel();
 
         editorModel.addClass("ClassA"); // Add a sample class
         editorModel.addClass("ClassB"); // Add another sample class
@@ -112,4 +121,141 @@ public class JsonUtilsTest {
         });
     }
 
+    /**
+     * Test that fields, methods, and positions survive a compact save and load.
+     * 
+     * @throws IOException
+     */
+    @Test
+    @DisplayName ("Save and Load: Save a compact JSON file and load every detail back")
+    public void testCompactSaveAndLoad() throws IOException {
+        List<String[]> parameters = new ArrayList<>();
+        parameters.add(new String[] {"Map<K,V>", "values"});
+        editorModel.getClass("ClassA").addField("int", "count");
+        editorModel.getClass("ClassA").addMethod("update", parameters, "void");
+        editorModel.updateClassPosition("ClassA", new Point(10, 20));
+
+        JsonUtils.save(editorModel, TEST_FILENAME, false);
+        assertFalse(Files.readString(Path.of(TEST_FILENAME)).contains("\n"));
+
+        UmlEditorModel loadedEditor = JsonUtils.load(TEST_FILENAME);
+        UmlClass loadedClass = loadedEditor.getClass("ClassA");
+        assertEquals("int", loadedClass.getFields().get("count"));
+        assertEquals("update", loadedClass.getMethodsList().getFirst().getName());
+        assertEquals("Map<K,V>", loadedClass.getMethodsList().getFirst().getParameters().getFirst()[0]);
+        assertEquals(new Point(10, 20), loadedEditor.getClassPosition("ClassA"));
+        assertEquals(RelationshipType.Aggregation, loadedEditor.getRelationships().getFirst().getType());
+
+        //Clean up
+        editorModel.getClass("ClassA").deleteField("count");
+        editorModel.getClass("ClassA").deleteMethod("update");
+    }
+
+    /**
+     * Test that each class is reported as soon as it is loaded.
+     * 
+     * @throws IOException
+     */
+    @Test
+    @DisplayName ("Load: Report each class as it is loaded")
+    public void testLoadReportsClasses() throws IOException {
+        JsonUtils.save(editorModel, TEST_FILENAME);
+
+        List<String> loaded = new ArrayList<>();
+        UmlEditorModel loadedEditor = JsonUtils.load(TEST_FILENAME, umlClass -> loaded.add(umlClass.getName()));
+
+        assertEquals(loadedEditor.getClasses().size(), loaded.size());
+        assertTrue(loaded.contains("ClassA"));
+    }
+
+    /**
+     * Test that properties this version does not know about are skipped.
+     * 
+     * @throws IOException
+     */
+    @Test
+    @DisplayName ("Load: Skip unknown properties in a JSON file")
+    public void testLoadUnknownProperties() throws IOException {
+        try (FileWriter writer = new FileWriter(TEST_FILENAME)) {
+            writer.write("{\"version\": 2, \"classes\": {\"ClassC\": {\"name\": \"ClassC\", \"color\": [1, 2], "
+                    + "\"fields\": {}, \"methods\": []}}, \"relationships\": [], \"testString\": \"\"}");
+        }
+
+        UmlEditorModel loadedEditor = JsonUtils.load(TEST_FILENAME);
+        assertEquals(1, loadedEditor.getClasses().size());
+        assertTrue(loadedEditor.classExist("ClassC"));
+    }
+
+    /**
+     * Test loading a relationship with a type that does not exist, should fail.
+     */
+    @Test
+    @DisplayName("Load: Load a relationship with an unknown type, failure test")
+    public void testLoadInvalidRelationshipType() throws IOException {
+        try (FileWriter writer = new FileWriter(TEST_FILENAME)) {
+            writer.write("{\"relationships\": [{\"source\": \"A\", \"destination\": \"B\", \"type\": \"Friend\"}]}");
+        }
+
+        assertThrows(IOException.class, () -> {
+            JsonUtils.load(TEST_FILENAME);
+        });
+    }
+
+    /**
+     * Test that a load reports its progress through the whole file, and stops when its thread is interrupted.
+     */
+    @Test
+    @DisplayName ("Load: Progress is reported and an interrupted load stops")
+    public void testLoadProgress() throws IOException {
+        for (int i = 0; i < 2000; i++) {
+            editorModel.addClass("Class" + i, new Point(i, i));
+            editorModel.getClass("Class" + i).addField("int", "field");
+        }
+        JsonUtils.save(editorModel, TEST_FILENAME);
+
+        List<Double> progress = new ArrayList<>();
+        UmlEditorModel loaded = JsonUtils.load(TEST_FILENAME, null, progress::add);
+        assertEquals(2002, loaded.getClasses().size());
+        assertTrue(progress.size() > 10);
+        assertEquals(1.0, progress.get(progress.size() - 1), 0.0);
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i) > progress.get(i - 1));
+        }
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedIOException.class, () -> JsonUtils.load(TEST_FILENAME, null, null));
+        } finally {
+            Thread.interrupted(); // Clear the flag for the other tests
+        }
+    }
+
+    /**
+     * Test that saving a view writes the model as it was when the view was taken, and
+     * that a cancelled save leaves the existing file alone.
+     */
+    @Test
+    @DisplayName ("Save: Save a view of the model while it changes")
+    public void testSaveView() throws IOException {
+        ModelView view = editorModel.view();
+        editorModel.addClass("ClassC");
+        editorModel.deleteRelationship("ClassA", "ClassB", RelationshipType.Aggregation);
+
+        List<Double> progress = new ArrayList<>();
+        JsonUtils.save(view, TEST_FILENAME, false, progress::add);
+        UmlEditorModel loaded = JsonUtils.load(TEST_FILENAME);
+        assertEquals(2, loaded.getClasses().size());
+        assertNotNull(loaded.findRelationship("ClassA", "ClassB", RelationshipType.Aggregation));
+        assertEquals(1.0, progress.get(progress.size() - 1), 0.0);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedIOException.class,
+                    () -> JsonUtils.save(editorModel.view(), TEST_FILENAME, false, fraction -> { }));
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(2, JsonUtils.load(TEST_FILENAME).getClasses().size());
+        assertFalse(Files.exists(Path.of(TEST_FILENAME + ".saving")));
+    }
 }
@@ -1,7 +1,15 @@
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import Model.Memento;
+import Model.UmlClass;
 import Model.UmlEditorModel;
 
 /**
@@ -17,7 +25,7 @@ public class MementoTest {
     @Test
     @DisplayName ("saveState: Save the current state of the model")
     public void testSaveState() {
-        UmlEditorModel model = UmlEditorModel.getInstance();
+        UmlEditorModel model = new UmlEditorModel();
         memento.saveState(model);
     }
 
@@ -36,7 +44,7 @@ public class MementoTest {
     @Test
     @DisplayName ("undoState: Undo the last action")
     public void testUndoState() {
-        UmlEditorModel model = UmlEditorModel.getInstance();
+        UmlEditorModel model = new UmlEditorModel();
         model.addClass("ClassA");
         memento.saveState(model);
 
@@ -62,7 +70,7 @@ public class MementoTest {
     @Test
     @DisplayName ("redoState: Redo the last action")
     public void testRedoState() {
-        UmlEditorModel model = UmlEditorModel.getInstance();
+        UmlEditorModel model = new UmlEditorModel();
         model.addClass("ClassA");
         memento.saveState(model);
 
@@ -73,4 +81,106 @@ public class MementoTest {
         model.deleteClass("ClassA");
     }
 
+    /**
+     * Test undoing and redoing in place on the model
+     */
+    @Test
+    @DisplayName ("undoState: Undo and redo the last action in place")
+    public void testUndoRedoInPlace() {
+        UmlEditorModel model = new UmlEditorModel();
+        model.addClass("ClassA");
+        memento.saveState(model);
+        model.getClass("ClassA").addField("int", "count");
+
+        assertTrue(memento.undoState(model));
+        assertTrue(model.getClass("ClassA").getFields().isEmpty());
+
+        assertTrue(memento.redoState(model));
+        assertEquals("int", model.getClass("ClassA").getFields().get("count"));
+
+        //Clean up
+        model.deleteClass("ClassA");
+    }
+
+    /**
+     * Test undoing in place when there is nothing to undo or redo
+     */
+    @Test
+    @DisplayName ("undoState: Undo and redo in place when the state is empty")
+    public void testUndoRedoInPlaceIsEmpty() {
+        UmlEditorModel model = new UmlEditorModel();
+        assertFalse(memento.undoState(model));
+        assertFalse(memento.redoState(model));
+    }
+
+    /**
+     * Test that classes which were not edited are kept when undoing
+     */
+    @Test
+    @DisplayName ("undoState: Classes that were not edited are kept when undoing")
+    public void testUndoKeepsUnchangedClasses() {
+        UmlEditorModel model = new UmlEditorModel();
+        model.addClass("ClassA");
+        model.addClass("ClassB");
+        memento.saveState(model);
+        UmlClass classA = model.getClass("ClassA");
+        UmlClass classB = model.getClass("ClassB");
+        classB.addField("String", "name");
+
+        memento.undoState(model);
+
+        assertSame(classA, model.getClass("ClassA"));
+        assertNotSame(classB, model.getClass("ClassB"));
+        assertTrue(model.getClass("ClassB").getFields().isEmpty());
+
+        //Clean up
+        model.deleteClass("ClassA");
+        model.deleteClass("ClassB");
+    }
+
+    /**
+     * Test that a saved state is not changed by later edits
+     */
+    @Test
+    @DisplayName ("saveState: A saved state is not changed by later edits")
+    public void testSaveStateIsIsolated() {
+        UmlEditorModel model = new UmlEditorModel();
+        model.addClass("ClassA");
+        model.getClass("ClassA").addMethod("run", new ArrayList<>(), "void");
+        memento.saveState(model);
+        model.getClass("ClassA").getMethodsList().getFirst().setName("walk");
+
+        UmlEditorModel saved = memento.undoState();
+        assertEquals("run", saved.getClass("ClassA").getMethodsList().getFirst().getName());
+
+        //Clean up
+        model.deleteClass("ClassA");
+    }
+
+    /**
+     * Test undoing and redoing a rename and a delete in place
+     */
+    @Test
+    @DisplayName ("undoState: Undo and redo a rename and a delete in place")
+    public void testUndoRedoRenameAndDelete() {
+        UmlEditorModel model = new UmlEditorModel();
+        model.addClass("ClassA");
+        model.addClass("ClassB");
+        memento.saveState(model);
+        model.renameClass("ClassA", "ClassC");
+        model.deleteClass("ClassB");
+
+        memento.undoState(model);
+        assertTrue(model.classExist("ClassA"));
+        assertTrue(model.classExist("ClassB"));
+        assertFalse(model.classExist("ClassC"));
+
+        memento.redoState(model);
+        assertFalse(model.classExist("ClassA"));
+        assertFalse(model.classExist("ClassB"));
+        assertTrue(model.classExist("ClassC"));
+
+        //Clean up
+        model.deleteClass("ClassC");
+    }
 }
@@ -0,0 +1,147 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.UmlEditor;
+import Model.JsonUtils;
+import Model.LatencyHistogram;
+import Model.Metrics;
+import Model.OperationMetrics;
+import Model.UmlEditorModel;
+
+/**
+ * A test class for Metrics, the operation counts and latencies shown by JMX and the metrics command.
+ */
+public class MetricsTest {
+
+    private UmlEditorModel model;
+    private UmlEditor editor;
+
+    @BeforeEach
+    public void setUp() {
+        model = new UmlEditorModel();
+        editor = new UmlEditor(model);
+        editor.setQuiet(true);
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that percentiles from the histogram are within a few percent of the exact values.
+     */
+    @Test
+    @DisplayName ("LatencyHistogram: Percentiles are close to the exact values")
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+
+        Random random = new Random(1);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 25); // From 1 ns to over a minute
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        for (double percentile : new double[] {1, 50, 90, 99, 99.9, 100}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = histogram.getValueAtPercentile(percentile);
+            assertTrue(estimate >= exact && estimate <= exact * 1.04 + 1,
+                    percentile + "%: exact " + exact + ", estimated " + estimate);
+        }
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    /**
+     * Test that each change made through the editor is counted under its name, with refused changes as errors.
+     */
+    @Test
+    @DisplayName ("Metrics: Edits are counted, with refused edits as errors")
+    public void testEdits() {
+        OperationMetrics addClass = Metrics.operation("Edit", "add class");
+        OperationMetrics undo = Metrics.operation("Edit", "undo");
+        long count = addClass.getCount();
+        long errors = addClass.getErrorCount();
+        long undos = undo.getCount();
+        long undoErrors = undo.getErrorCount();
+
+        editor.addClass("Shape");
+        editor.addClass("Circle");
+        editor.addClass("Shape"); // Refused, the class exists
+        editor.undo();
+        editor.undo();
+        editor.undo(); // Nothing left to undo
+
+        assertEquals(count + 3, addClass.getCount());
+        assertEquals(errors + 1, addClass.getErrorCount());
+        assertEquals(undos + 3, undo.getCount());
+        assertEquals(undoErrors + 1, undo.getErrorCount());
+        assertTrue(addClass.getMaxMillis() >= addClass.getMedianMillis());
+    }
+
+    /**
+     * Test that saves and loads are counted, and that a file that cannot be read is an error.
+     */
+    @Test
+    @DisplayName ("Metrics: Saves and loads are counted")
+    public void testFiles() throws IOException {
+        OperationMetrics save = Metrics.operation("File", "save");
+        OperationMetrics load = Metrics.operation("File", "load");
+        long saves = save.getCount();
+        long loads = load.getCount();
+        long loadErrors = load.getErrorCount();
+
+        editor.addClass("Shape");
+        File file = File.createTempFile("metrics", ".json");
+        try {
+            JsonUtils.save(model, file.getPath());
+            JsonUtils.load(file.getPath());
+            Files.writeString(file.toPath(), "{ not json");
+            assertThrows(IOException.class, () -> JsonUtils.load(file.getPath()));
+        } finally {
+            file.delete();
+        }
+
+        assertEquals(saves + 1, save.getCount());
+        assertEquals(loads + 2, load.getCount());
+        assertEquals(loadErrors + 1, load.getErrorCount());
+    }
+
+    /**
+     * Test that operations can be read through JMX and are listed in the report.
+     */
+    @Test
+    @DisplayName ("Metrics: Operations are registered with JMX and reported")
+    public void testJmxAndReport() throws Exception {
+        editor.addClass("Shape");
+        editor.renameClass("Shape", "Circle");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.DOMAIN + ":type=\"Edit\",name=\"rename class\"");
+        assertTrue(server.isRegistered(name));
+        long count = (Long) server.getAttribute(name, "Count");
+        assertEquals(Metrics.operation("Edit", "rename class").getCount(), count);
+
+        String report = Metrics.report();
+        assertTrue(report.contains("Edit: rename class"));
+        assertTrue(report.contains("Edit: add class"));
+    }
+}
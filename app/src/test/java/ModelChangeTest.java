@@ -0,0 +1,133 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.UmlEditor;
+import Model.ModelCounters;
+import Model.RelationshipType;
+import Model.UmlClass;
+import Model.UmlEditorModel;
+
+/**
+ * A test class for the change events a model tells its listeners, and the counters kept from them.
+ */
+public class ModelChangeTest {
+
+    private UmlEditorModel model;
+    private UmlEditor editor;
+    private List<String> changes;
+
+    @BeforeEach
+    public void setUp() {
+        model = new UmlEditorModel();
+        editor = new UmlEditor(model);
+        editor.setQuiet(true);
+        changes = new ArrayList<>();
+        model.addModelListener(change -> changes.add(change.toString()));
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that each kind of edit is told to listeners as its own change, naming the class.
+     */
+    @Test
+    @DisplayName ("ModelChange: Each edit is told to listeners")
+    public void testChanges() {
+        editor.addClass("Shape");
+        editor.addClass("Circle");
+        editor.addField("Shape", "int", "sides");
+        editor.renameClass("Shape", "Polygon");
+        editor.addRelationship("Circle", "Polygon", RelationshipType.Inheritance);
+        editor.moveClass("Circle", new Point(50, 60));
+        editor.deleteClass("Circle");
+        editor.addClass("Polygon"); // Refused, so nothing is told
+
+        assertEquals(List.of(
+                "CLASS_ADDED Shape",
+                "CLASS_ADDED Circle",
+                "MEMBER_CHANGED Shape",
+                "CLASS_RENAMED Shape -> Polygon",
+                "RELATIONSHIP_CHANGED",
+                "POSITION_MOVED Circle",
+                "CLASS_DELETED Circle",
+                "RELATIONSHIP_CHANGED"), changes);
+    }
+
+    /**
+     * Test that changes made while the model is locked are told once it is unlocked, in order,
+     * and that a clone does not tell the listeners of the model it was cloned from.
+     */
+    @Test
+    @DisplayName ("ModelChange: Changes are told after the lock is released")
+    public void testDelivery() {
+        List<Integer> sizesSeen = new ArrayList<>();
+        model.addModelListener(change -> sizesSeen.add(model.getClasses().size()));
+
+        model.write(() -> {
+            model.addClass("Shape");
+            model.addClass("Circle");
+            assertTrue(changes.isEmpty()); // Still locked
+            return null;
+        });
+        assertEquals(List.of("CLASS_ADDED Shape", "CLASS_ADDED Circle"), changes);
+        assertEquals(List.of(2, 2), sizesSeen); // Both told once the whole change was made
+
+        changes.clear();
+        UmlEditorModel copy = model.clone();
+        copy.addClass("Square"); // A clone does not tell the original's listeners
+        assertTrue(changes.isEmpty());
+    }
+
+    /**
+     * Test that the counters match a full count of the model after random edits, undos and redos.
+     */
+    @Test
+    @DisplayName ("ModelCounters: Counts match the model after random edits")
+    public void testCounters() {
+        ModelCounters counters = new ModelCounters(model);
+        Random random = new Random(25);
+        for (int i = 0; i < 2_000; i++) {
+            String name = "C" + random.nextInt(20);
+            String other = "C" + random.nextInt(20);
+            switch (random.nextInt(10)) {
+                case 0: case 1: editor.addClass(name); break;
+                case 2: editor.deleteClass(name); break;
+                case 3: editor.renameClass(name, other); break;
+                case 4: editor.addField(name, "int", "f" + random.nextInt(4)); break;
+                case 5: editor.deleteField(name, "f" + random.nextInt(4)); break;
+                case 6: editor.addMethod(name, "m" + random.nextInt(4), new ArrayList<>(), "void"); break;
+                case 7: editor.addRelationship(name, other, RelationshipType.Aggregation); break;
+                case 8: editor.undo(); break;
+                default: editor.redo(); break;
+            }
+            assertCounted(counters, i);
+        }
+
+        counters.detach();
+        editor.addClass("Unseen");
+        assertEquals(counters.getClassCount() + 1, model.getClasses().size());
+    }
+
+    // Compare the counters against a count of every class
+    private void assertCounted(ModelCounters counters, int step) {
+        int fields = 0;
+        int methods = 0;
+        for (UmlClass umlClass : model.getClasses().values()) {
+            fields += umlClass.getFields().size();
+            methods += umlClass.getMethodsList().size();
+        }
+        assertEquals(model.getClasses().size(), counters.getClassCount(), "classes after step " + step);
+        assertEquals(fields, counters.getFieldCount(), "fields after step " + step);
+        assertEquals(methods, counters.getMethodCount(), "methods after step " + step);
+        assertEquals(model.getRelationships().size(), counters.getRelationshipCount(),
+                "relationships after step " + step);
+    }
+}
@@ -0,0 +1,172 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.UmlEditor;
+import Model.Memento;
+import Model.ModelView;
+import Model.RelationshipType;
+import Model.UmlClass;
+import Model.UmlEditorModel;
+import Model.UmlRelationship;
+
+/**
+ * A test class for ModelView and reading a model from other threads while it is edited.
+ */
+public class ModelViewTest {
+
+    private UmlEditorModel model;
+    private UmlEditor editor;
+
+    @BeforeEach
+    public void setUp() {
+        model = new UmlEditorModel();
+        editor = new UmlEditor(model);
+        editor.setQuiet(true);
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that a view keeps the state from when it was built, and is reused until the model changes.
+     */
+    @Test
+    @DisplayName ("View: A view does not change after it is built")
+    public void testViewIsFixed() {
+        editor.addClass("Shape", new Point(10, 20));
+        editor.addField("Shape", "int", "sides");
+        ModelView first = model.view();
+        assertSame(first, model.view());
+
+        editor.addField("Shape", "int", "corners");
+        editor.addClass("Circle");
+        editor.addRelationship("Circle", "Shape", RelationshipType.Inheritance);
+        ModelView second = model.view();
+
+        assertNotSame(first, second);
+        assertEquals(1, first.getClasses().size());
+        assertEquals(1, first.getUmlClass("Shape").getFields().size());
+        assertTrue(first.getRelationships().isEmpty());
+        assertEquals(new Point(10, 20), first.getClassPosition("Shape"));
+        assertEquals(2, second.getUmlClass("Shape").getFields().size());
+        assertEquals(1, second.getRelationships().size());
+        assertNull(second.getUmlClass("Missing"));
+    }
+
+    /**
+     * Test that undoing through the editor and through a memento both show up in the next view.
+     */
+    @Test
+    @DisplayName ("View: Undo is seen by the next view")
+    public void testUndoSeen() {
+        Memento memento = new Memento();
+        editor.addClass("Shape");
+        memento.saveState(model);
+        editor.addClass("Circle");
+        editor.renameClass("Shape", "Polygon");
+        assertTrue(model.view().getClasses().containsKey("Polygon"));
+
+        editor.undo();
+        assertTrue(model.view().getClasses().containsKey("Shape"));
+        assertTrue(memento.undoState(model));
+        assertEquals(List.of("Shape"), new ArrayList<>(model.view().getClasses().keySet()));
+    }
+
+    /**
+     * Test that many threads can scan the model while another thread edits it, and always
+     * see a state the model was really in.
+     */
+    @Test
+    @DisplayName ("View: Readers scan the model while it is edited")
+    public void testReadersAndWriter() throws Exception {
+        int readerCount = 8;
+        int rounds = 3000;
+        ExecutorService pool = Executors.newFixedThreadPool(readerCount);
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(readerCount);
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int r = 0; r < readerCount; r++) {
+            readers.add(pool.submit(() -> {
+                started.countDown();
+                int scans = 0;
+                while (!done.get()) {
+                    checkConsistent(model.view());
+                    scans++;
+                }
+                checkConsistent(model.view());
+                return scans;
+            }));
+        }
+        started.await();
+
+        // Each class is added with its two fields and a relationship in one change, so readers never see half of it
+        for (int i = 0; i < rounds; i++) {
+            String name = "Class" + i;
+            String previous = "Class" + (i - 1);
+            model.write(() -> {
+                editor.addClass(name);
+                editor.addField(name, "int", "x");
+                editor.addField(name, "int", "y");
+                editor.addMethod(name, "area", new ArrayList<>(), "double");
+                if (model.classExist(previous)) {
+                    editor.addRelationship(name, previous, RelationshipType.Aggregation);
+                }
+                return null;
+            });
+            if (i % 3 == 0) {
+                editor.deleteClass(name);
+            } else if (i % 7 == 0) {
+                editor.renameClass(name, "Renamed" + i);
+                editor.undo();
+            }
+        }
+        done.set(true);
+        pool.shutdown();
+
+        int scans = 0;
+        for (Future<Integer> reader : readers) {
+            scans += reader.get(60, TimeUnit.SECONDS); // Rethrows anything a reader failed with
+        }
+        assertTrue(scans > 0);
+        assertEquals(2 * rounds / 3, model.view().getClasses().size());
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    private static void checkConsistent(ModelView view) {
+        Map<String, UmlClass> classes = view.getClasses();
+        int count = 0;
+        for (Map.Entry<String, UmlClass> entry : classes.entrySet()) {
+            UmlClass umlClass = entry.getValue();
+            if (!umlClass.getName().equals(entry.getKey()) || umlClass.getFields().size() != 2
+                    || umlClass.getMethods().size() != 1) {
+                throw new AssertionError("Half made class " + entry.getKey());
+            }
+            count++;
+        }
+        if (count != classes.size()) {
+            throw new AssertionError("Size does not match the classes");
+        }
+        for (UmlRelationship relationship : view.getRelationships()) {
+            if (!classes.containsKey(relationship.getSource()) || !classes.containsKey(relationship.getDestination())) {
+                throw new AssertionError("Relationship to a missing class " + relationship);
+            }
+        }
+    }
+}
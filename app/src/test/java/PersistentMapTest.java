@@ -0,0 +1,166 @@
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Model.PersistentMap;
+
+/**
+ * A test class for PersistentMap.
+ */
+public class PersistentMapTest {
+
+    /**
+     * A key whose hash code is chosen by the test, to force hash collisions.
+     */
+    private static final class CollidingKey {
+        private final String name;
+
+        CollidingKey(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CollidingKey && ((CollidingKey) obj).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that adding entries returns a new map and leaves the old one unchanged.
+     */
+    @Test
+    @DisplayName ("Plus: Adding an entry leaves the old map unchanged")
+    public void testPlus() {
+        PersistentMap<String, Integer> empty = PersistentMap.empty();
+        PersistentMap<String, Integer> one = empty.plus("ClassA", 1);
+        PersistentMap<String, Integer> two = one.plus("ClassB", 2);
+
+        assertEquals(0, empty.size());
+        assertEquals(1, one.size());
+        assertEquals(2, two.size());
+        assertNull(one.get("ClassB"));
+        assertEquals(1, (int) two.get("ClassA"));
+        assertEquals(2, (int) two.get("ClassB"));
+    }
+
+    /**
+     * Test that replacing a value keeps the size and returns the same map when nothing changes.
+     */
+    @Test
+    @DisplayName ("Plus: Replace the value of an existing key")
+    public void testPlusReplace() {
+        Integer value = 1;
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().plus("ClassA", value);
+
+        assertSame(map, map.plus("ClassA", value));
+        PersistentMap<String, Integer> replaced = map.plus("ClassA", 5);
+        assertEquals(1, replaced.size());
+        assertEquals(5, (int) replaced.get("ClassA"));
+        assertEquals(1, (int) map.get("ClassA"));
+    }
+
+    /**
+     * Test removing entries, including ones that do not exist.
+     */
+    @Test
+    @DisplayName ("Minus: Remove entries from the map")
+    public void testMinus() {
+        PersistentMap<String, Integer> map = PersistentMap.empty();
+        for (int i = 0; i < 1000; i++) {
+            map = map.plus("Class" + i, i);
+        }
+
+        PersistentMap<String, Integer> smaller = map;
+        for (int i = 0; i < 1000; i += 2) {
+            smaller = smaller.minus("Class" + i);
+        }
+
+        assertSame(smaller, smaller.minus("Missing"));
+        assertEquals(1000, map.size());
+        assertEquals(500, smaller.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) map.get("Class" + i));
+            assertEquals(i % 2 == 0, !smaller.containsKey("Class" + i));
+        }
+    }
+
+    /**
+     * Test that keys with equal hash codes are kept apart.
+     */
+    @Test
+    @DisplayName ("Collision: Keys with the same hash code are stored separately")
+    public void testCollisions() {
+        PersistentMap<CollidingKey, String> map = PersistentMap.empty();
+        map = map.plus(new CollidingKey("A"), "A").plus(new CollidingKey("B"), "B").plus(new CollidingKey("C"), "C");
+
+        assertEquals(3, map.size());
+        assertEquals("B", map.get(new CollidingKey("B")));
+
+        map = map.minus(new CollidingKey("B"));
+        assertEquals(2, map.size());
+        assertFalse(map.containsKey(new CollidingKey("B")));
+        assertEquals("C", map.get(new CollidingKey("C")));
+    }
+
+    /**
+     * Test that iterating visits every entry once.
+     */
+    @Test
+    @DisplayName ("Iterator: Visit every entry in the map")
+    public void testIterator() {
+        PersistentMap<String, Integer> map = PersistentMap.empty();
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            map = map.plus("Class" + i, i);
+            expected.put("Class" + i, i);
+        }
+
+        Map<String, Integer> seen = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : map) {
+            assertTrue(seen.put(entry.getKey(), entry.getValue()) == null);
+        }
+        assertEquals(expected, seen);
+
+        Map<String, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    /**
+     * Test that comparing two maps reports the keys that changed between them.
+     */
+    @Test
+    @DisplayName ("Difference: Report the keys that differ between two maps")
+    public void testForEachDifference() {
+        PersistentMap<String, Integer> map = PersistentMap.empty();
+        for (int i = 0; i < 2000; i++) {
+            map = map.plus("Class" + i, i);
+        }
+        PersistentMap<String, Integer> changed = map.plus("Class5", -5).minus("Class7").plus("New", 1);
+
+        Set<String> differences = new HashSet<>();
+        map.forEachDifference(changed, differences::add);
+        assertTrue(differences.containsAll(List.of("Class5", "Class7", "New")));
+
+        differences.clear();
+        map.forEachDifference(map, differences::add);
+        assertTrue(differences.isEmpty());
+    }
+}
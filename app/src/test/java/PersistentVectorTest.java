@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Model.PersistentVector;
+
+/**
+ * A test class for PersistentVector.
+ */
+public class PersistentVectorTest {
+
+    /**
+     * Test appending elements across several levels of the trie.
+     */
+    @Test
+    @DisplayName ("Plus: Append elements and read them back")
+    public void testPlus() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        for (int i = 0; i < 40000; i++) {
+            vector = vector.plus(i);
+        }
+
+        assertEquals(40000, vector.size());
+        for (int i = 0; i < 40000; i++) {
+            assertEquals(i, (int) vector.get(i));
+        }
+    }
+
+    /**
+     * Test that appending leaves the old vector unchanged.
+     */
+    @Test
+    @DisplayName ("Plus: Appending leaves the old vector unchanged")
+    public void testPlusPersistent() {
+        PersistentVector<String> empty = PersistentVector.empty();
+        PersistentVector<String> one = empty.plus("ClassA");
+        PersistentVector<String> two = one.plus("ClassB");
+
+        assertTrue(empty.isEmpty());
+        assertEquals(1, one.size());
+        assertEquals(2, two.size());
+        assertEquals("ClassB", two.get(1));
+    }
+
+    /**
+     * Test replacing elements in the trie and in the tail.
+     */
+    @Test
+    @DisplayName ("Set: Replace elements and keep the old vector unchanged")
+    public void testSet() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        for (int i = 0; i < 2000; i++) {
+            vector = vector.plus(i);
+        }
+
+        PersistentVector<Integer> changed = vector.set(5, -5).set(1999, -1999);
+        assertEquals(-5, (int) changed.get(5));
+        assertEquals(-1999, (int) changed.get(1999));
+        assertEquals(5, (int) vector.get(5));
+        assertEquals(1999, (int) vector.get(1999));
+    }
+
+    /**
+     * Test that indexes outside the vector are rejected.
+     */
+    @Test
+    @DisplayName ("Get: Reading outside the vector fails, failure test")
+    public void testGetOutOfBounds() {
+        PersistentVector<Integer> vector = PersistentVector.<Integer>empty().plus(1);
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.set(-1, 0));
+    }
+
+    /**
+     * Test that iterating visits the elements in order.
+     */
+    @Test
+    @DisplayName ("Iterator: Visit the elements in order")
+    public void testIterator() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            vector = vector.plus(i);
+            expected.add(i);
+        }
+
+        List<Integer> seen = new ArrayList<>();
+        for (Integer element : vector) {
+            seen.add(element);
+        }
+        assertEquals(expected, seen);
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.UmlEditor;
+import Model.RelationshipIndex;
+import Model.RelationshipType;
+import Model.UmlEditorModel;
+import Model.UmlRelationship;
+
+/**
+ * A test class for RelationshipIndex.
+ */
+public class RelationshipIndexTest {
+
+    private UmlEditorModel model;
+
+    @BeforeEach
+    public void setUp() {
+        model = new UmlEditorModel();
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that relationships are kept in order and can be found by source, destination, and type.
+     */
+    @Test
+    @DisplayName ("Find: Relationships keep their order and are found by key")
+    public void testAddAndFind() {
+        RelationshipIndex index = new RelationshipIndex();
+        UmlRelationship ab = new UmlRelationship("ClassA", "ClassB", RelationshipType.Aggregation);
+        UmlRelationship bc = new UmlRelationship("ClassB", "ClassC", RelationshipType.Composition);
+
+        assertTrue(index.add(ab));
+        assertTrue(index.add(bc));
+        assertFalse(index.add(new UmlRelationship("ClassA", "ClassB", RelationshipType.Aggregation)));
+
+        assertEquals(List.of(ab, bc), index);
+        assertEquals(List.of(ab, bc).toString(), index.toString());
+        assertSame(bc, index.find("ClassB", "ClassC", RelationshipType.Composition));
+        assertNull(index.find("ClassB", "ClassC", RelationshipType.Aggregation));
+        assertTrue(index.contains(new UmlRelationship("ClassA", "ClassB", RelationshipType.Aggregation)));
+        assertEquals(1, index.outgoing("ClassB").size());
+        assertEquals(1, index.incoming("ClassB").size());
+    }
+
+    /**
+     * Test that the index stays correct when changed through its list methods.
+     */
+    @Test
+    @DisplayName ("List: Removing through an iterator and by index updates the index")
+    public void testListMethods() {
+        RelationshipIndex index = new RelationshipIndex();
+        for (int i = 0; i < 5; i++) {
+            index.add(new UmlRelationship("Class" + i, "Class" + (i + 1), RelationshipType.Realization));
+        }
+
+        Iterator<UmlRelationship> iterator = index.iterator();
+        iterator.next();
+        iterator.remove();
+        index.remove(1);
+        index.add(0, new UmlRelationship("ClassX", "ClassY", RelationshipType.Inheritance));
+
+        assertEquals(4, index.size());
+        assertEquals("ClassX", index.get(0).getSource());
+        assertEquals("Class1", index.get(1).getSource());
+        assertEquals("Class3", index.get(2).getSource());
+        assertNull(index.find("Class0", "Class1", RelationshipType.Realization));
+        assertNull(index.find("Class2", "Class3", RelationshipType.Realization));
+        assertTrue(index.incoming("Class1").isEmpty());
+    }
+
+    /**
+     * Test that changing the type of a relationship keeps its place and moves its key.
+     */
+    @Test
+    @DisplayName ("ChangeType: The relationship keeps its place and is found by its new type")
+    public void testChangeType() {
+        model.addClass("ClassA");
+        model.addClass("ClassB");
+        model.addRelationship("ClassA", "ClassB", RelationshipType.Aggregation);
+        model.addRelationship("ClassB", "ClassA", RelationshipType.Aggregation);
+        model.addRelationship("ClassA", "ClassB", RelationshipType.Composition);
+
+        assertTrue(model.changeRelationshipType("ClassA", "ClassB", RelationshipType.Aggregation,
+                RelationshipType.Inheritance));
+        assertEquals(RelationshipType.Inheritance, model.getRelationships().get(0).getType());
+        assertNull(model.findRelationship("ClassA", "ClassB", RelationshipType.Aggregation));
+        assertSame(model.getRelationships().get(0),
+                model.findRelationship("ClassA", "ClassB", RelationshipType.Inheritance));
+
+        // Changing to a type that already exists between the classes would make a duplicate
+        assertFalse(model.changeRelationshipType("ClassA", "ClassB", RelationshipType.Inheritance,
+                RelationshipType.Composition));
+        assertEquals(3, model.getRelationships().size());
+    }
+
+    /**
+     * Test that renaming a class renames its relationships in place, including one from the class to itself.
+     */
+    @Test
+    @DisplayName ("RenameClass: Relationships involving the class are renamed in place")
+    public void testRenameClass() {
+        model.addClass("ClassA");
+        model.addClass("ClassB");
+        model.addClass("ClassC");
+        model.addRelationship("ClassA", "ClassB", RelationshipType.Aggregation);
+        model.addRelationship("ClassB", "ClassC", RelationshipType.Composition);
+        model.addRelationship("ClassC", "ClassA", RelationshipType.Inheritance);
+        model.addRelationship("ClassA", "ClassA", RelationshipType.Realization);
+
+        assertTrue(model.renameClass("ClassA", "ClassD"));
+
+        List<UmlRelationship> relationships = model.getRelationships();
+        assertEquals(new UmlRelationship("ClassD", "ClassB", RelationshipType.Aggregation), relationships.get(0));
+        assertEquals(new UmlRelationship("ClassB", "ClassC", RelationshipType.Composition), relationships.get(1));
+        assertEquals(new UmlRelationship("ClassC", "ClassD", RelationshipType.Inheritance), relationships.get(2));
+        assertEquals(new UmlRelationship("ClassD", "ClassD", RelationshipType.Realization), relationships.get(3));
+        assertNull(model.findRelationship("ClassA", "ClassB", RelationshipType.Aggregation));
+        assertTrue(model.deleteRelationship("ClassC", "ClassD", RelationshipType.Inheritance));
+    }
+
+    /**
+     * Test that undoing a class delete puts its relationships back in their old places.
+     */
+    @Test
+    @DisplayName ("DeleteClass: Undo puts the relationships back in order")
+    public void testDeleteClassUndoKeepsOrder() {
+        UmlEditor umlEditor = new UmlEditor(model);
+        for (String name : new String[] { "ClassA", "ClassB", "ClassC", "ClassD" }) {
+            umlEditor.addClass(name);
+        }
+        umlEditor.addRelationship("ClassA", "ClassB", RelationshipType.Aggregation);
+        umlEditor.addRelationship("ClassB", "ClassC", RelationshipType.Composition);
+        umlEditor.addRelationship("ClassC", "ClassB", RelationshipType.Inheritance);
+        umlEditor.addRelationship("ClassC", "ClassD", RelationshipType.Realization);
+        umlEditor.addRelationship("ClassB", "ClassB", RelationshipType.Realization);
+        umlEditor.addRelationship("ClassA", "ClassD", RelationshipType.Composition);
+        List<UmlRelationship> before = new ArrayList<>(model.getRelationships());
+
+        assertTrue(umlEditor.deleteClass("ClassB"));
+        assertEquals(2, model.getRelationships().size());
+        assertTrue(model.getRelationships().stream()
+                .noneMatch(r -> r.getSource().equals("ClassB") || r.getDestination().equals("ClassB")));
+
+        umlEditor.undo();
+        assertEquals(before, model.getRelationships());
+
+        assertTrue(umlEditor.deleteRelationship("ClassC", "ClassD", RelationshipType.Realization));
+        umlEditor.undo();
+        assertEquals(before, model.getRelationships());
+    }
+
+    /**
+     * Test that setting the relationships copies them, so the model does not change with the given list.
+     */
+    @Test
+    @DisplayName ("SetRelationships: The model keeps its own indexed copy")
+    public void testSetRelationshipsCopies() {
+        List<UmlRelationship> list = new ArrayList<>();
+        list.add(new UmlRelationship("ClassA", "ClassB", RelationshipType.Aggregation));
+        model.setRelationships(list);
+        list.clear();
+
+        assertEquals(1, model.getRelationships().size());
+        assertTrue(model.getRelationships() instanceof RelationshipIndex);
+        assertTrue(model.findRelationship("ClassA", "ClassB", RelationshipType.Aggregation) != null);
+    }
+}
@@ -0,0 +1,182 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import Controller.UmlEditor;
+import Model.CommandHistory;
+import Model.DiagramGenerator;
+import Model.JsonUtils;
+import Model.ModelView;
+import Model.RelationshipType;
+import Model.UmlEditorModel;
+
+/**
+ * Checks that the editor stays fast on large generated diagrams. Whole-diagram operations
+ * such as saving and loading get a budget for every thousand classes, so they may grow no
+ * faster than the diagram does. Single edits get the same budget at every size.
+ *
+ * The budgets are only about twice what a development machine needs for the slowest
+ * operations, and wall-clock times depend on the machine and what else it is running. So these
+ * tests are tagged "scale" and left out of the normal build; run them with
+ * {@code ./gradlew scaleTest}, which also prints each time against its budget.
+ */
+@Tag("scale")
+public class ScaleTest {
+
+    /** Milliseconds per thousand classes to generate a diagram */
+    private static final long GENERATE = 80;
+    /** Milliseconds per thousand classes to save or load compact JSON */
+    private static final long JSON = 100;
+    /** Milliseconds per thousand classes to save or load the binary format */
+    private static final long BINARY = 40;
+    /** Milliseconds per thousand classes to build the first read-only view */
+    private static final long VIEW = 30;
+    /** Milliseconds to rebuild the view after one class changed, at any size */
+    private static final long VIEW_AFTER_EDIT = 50;
+    /** Milliseconds for a fixed number of single edits and their undos, at any size */
+    private static final long EDITS = 500;
+    /** The number of edits timed against {@link #EDITS} */
+    private static final int EDIT_COUNT = 200;
+
+    /** The size of the diagram everything is run on once before timing */
+    private static final int WARM_UP_CLASSES = 5_000;
+
+    private static boolean warmedUp;
+    private Path directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("scale");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    @Test
+    @DisplayName ("Scale: 10,000 classes stay within budget")
+    public void test10k() throws IOException {
+        checkBudgets(10_000);
+    }
+
+    @Test
+    @DisplayName ("Scale: 50,000 classes stay within budget")
+    public void test50k() throws IOException {
+        checkBudgets(50_000);
+    }
+
+    @Test
+    @DisplayName ("Scale: 100,000 classes stay within budget")
+    public void test100k() throws IOException {
+        checkBudgets(100_000);
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    // Times each operation on a diagram of the given size and compares it to its budget
+    private void checkBudgets(int classCount) throws IOException {
+        warmUp();
+        long perThousand = Math.max(1, classCount / 1000);
+        UmlEditorModel[] model = new UmlEditorModel[1];
+        UmlEditorModel[] loaded = new UmlEditorModel[1];
+
+        time("generate", GENERATE * perThousand, classCount,
+                () -> model[0] = new DiagramGenerator().generate(classCount));
+        assertEquals(classCount, model[0].getClasses().size());
+
+        String json = directory.resolve("model.json").toString();
+        time("save JSON", JSON * perThousand, classCount, () -> JsonUtils.save(model[0], json, false));
+        time("load JSON", JSON * perThousand, classCount, () -> loaded[0] = JsonUtils.load(json));
+        assertEquals(classCount, loaded[0].getClasses().size());
+        loaded[0] = null;
+
+        String binary = directory.resolve("model.umlb").toString();
+        time("save binary", BINARY * perThousand, classCount, () -> JsonUtils.save(model[0], binary));
+        time("load binary", BINARY * perThousand, classCount, () -> loaded[0] = JsonUtils.load(binary));
+        assertEquals(model[0].getRelationships().size(), loaded[0].getRelationships().size());
+        loaded[0] = null;
+
+        ModelView[] view = new ModelView[1];
+        time("view", VIEW * perThousand, classCount, () -> view[0] = model[0].view());
+        assertEquals(classCount, view[0].getClasses().size());
+        model[0].getClass("Class1").addField("int", "changed");
+        time("view after an edit", VIEW_AFTER_EDIT, classCount, () -> view[0] = model[0].view());
+        assertTrue(view[0].getUmlClass("Class1").getFields().containsKey("changed"));
+        view[0] = null;
+
+        UmlEditor editor = new UmlEditor(model[0], EDIT_COUNT * 4, CommandHistory.DEFAULT_MAX_BYTES);
+        editor.setQuiet(true);
+        time(EDIT_COUNT * 4 + " edits and undos", EDITS, classCount, () -> {
+            for (int i = 0; i < EDIT_COUNT; i++) {
+                String name = "Class" + (i * (classCount / EDIT_COUNT));
+                editor.addField(name, "int", "extra");
+                editor.renameClass(name, name + "Renamed");
+                editor.addRelationship(name + "Renamed", "Class" + (classCount - 1 - i),
+                        RelationshipType.Composition);
+                editor.deleteClass(name + "Renamed");
+            }
+            for (int i = 0; i < EDIT_COUNT * 4; i++) {
+                editor.undo();
+            }
+        });
+        assertEquals(classCount, model[0].getClasses().size());
+        assertTrue(model[0].classExist("Class0"));
+    }
+
+    // Runs everything once on a small diagram, so the first sizes are not timed before the code is compiled
+    private void warmUp() throws IOException {
+        if (warmedUp) {
+            return;
+        }
+        warmedUp = true;
+        UmlEditorModel model = new DiagramGenerator().generate(WARM_UP_CLASSES);
+        String json = directory.resolve("warm-up.json").toString();
+        String binary = directory.resolve("warm-up.umlb").toString();
+        for (int i = 0; i < 3; i++) {
+            JsonUtils.save(model, json, false);
+            JsonUtils.load(json);
+            JsonUtils.save(model, binary);
+            JsonUtils.load(binary);
+            model.view();
+        }
+    }
+
+    // Runs an operation and fails if it takes longer than its budget. Garbage left by earlier
+    // operations is collected first, so a collection it did not cause is not counted against it.
+    private static void time(String operation, long budgetMillis, int classCount, Executable run) {
+        System.gc();
+        long start = System.nanoTime();
+        try {
+            run.execute();
+        } catch (Throwable e) {
+            throw new AssertionError(operation + " failed at " + classCount + " classes", e);
+        }
+        check(operation, start, budgetMillis, classCount);
+    }
+
+    // Fails if more than the budget has passed since the start
+    private static void check(String operation, long start, long budgetMillis, int classCount) {
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println(operation + " at " + classCount + " classes: " + millis + " ms (budget " + budgetMillis
+                + " ms)");
+        assertTrue(millis <= budgetMillis, operation + " took " + millis + " ms at " + classCount
+                + " classes, over the budget of " + budgetMillis + " ms");
+    }
+}
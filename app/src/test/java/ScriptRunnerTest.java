@@ -0,0 +1,176 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.ScriptRunner;
+import Controller.UmlEditor;
+import Model.RelationshipType;
+import Model.UmlEditorModel;
+
+/**
+ * A test class for ScriptRunner.
+ */
+public class ScriptRunnerTest {
+
+    private UmlEditorModel model;
+    private ScriptRunner runner;
+
+    @BeforeEach
+    public void setUp() {
+        model = new UmlEditorModel();
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+        runner = new ScriptRunner(model, new UmlEditor(model));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+    }
+
+    private ScriptRunner.Result run(String script) throws IOException {
+        return runner.run(new BufferedReader(new StringReader(script)));
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that every kind of command in a script is applied to the model.
+     */
+    @Test
+    @DisplayName ("Run: Every command in the script is applied")
+    public void testCommands() throws IOException {
+        ScriptRunner.Result result = run(String.join("\n",
+                "# Shapes",
+                "add-class Shape",
+                "add-class Circle",
+                "add-class Temp",
+                "",
+                "add-field Shape int sides",
+                "rename-field Shape sides corners",
+                "change-field-type Shape corners long",
+                "add-method Shape scale(double factor, boolean keepCenter) void",
+                "rename-method Shape scale(double factor, boolean keepCenter) void resize",
+                "change-return-type Shape resize(double factor, boolean keepCenter) void Shape",
+                "remove-parameter Shape resize(double factor, boolean keepCenter) Shape keepCenter",
+                "change-parameters Shape resize(double factor) Shape (int width, int height)",
+                "add-method Circle area() double",
+                "delete-method Circle area() double",
+                "add-relationship Circle Shape inheritance",
+                "change-relationship-type Circle Shape Inheritance Realization",
+                "rename-class Temp Scratch",
+                "delete-class Scratch"));
+
+        assertEquals(17, result.getCommands());
+        assertEquals(0, result.getFailureCount());
+        assertEquals("long", model.getClass("Shape").getFields().get("corners"));
+        assertTrue(model.getClass("Shape").getMethods().get(0).startsWith("Shape resize(int width, int height)"));
+        assertTrue(model.getClass("Circle").getMethodsList().isEmpty());
+        assertNotNull(model.findRelationship("Circle", "Shape", RelationshipType.Realization));
+        assertNull(model.getClass("Temp"));
+        assertNull(model.getClass("Scratch"));
+    }
+
+    /**
+     * Test that failed lines are counted and reported with their line numbers, and the rest of the script still runs.
+     */
+    @Test
+    @DisplayName ("Run: Failures are collected and the script carries on")
+    public void testFailures() throws IOException {
+        ScriptRunner.Result result = run(String.join("\n",
+                "add-class Shape",
+                "add-class Shape",
+                "add-field Missing int x",
+                "add-relationship Shape Shape Friendship",
+                "add-field Shape int",
+                "fly-away",
+                "add-method Shape draw void",
+                "add-class Circle"));
+
+        assertEquals(8, result.getCommands());
+        assertEquals(6, result.getFailureCount());
+        assertEquals(2, result.getFailures().get(0).getLineNumber());
+        assertEquals("rejected by the model", result.getFailures().get(0).getReason());
+        assertTrue(result.getFailures().get(2).getReason().contains("Friendship"));
+        assertTrue(result.getFailures().get(3).getReason().startsWith("usage: add-field"));
+        assertTrue(result.getFailures().get(4).getReason().contains("unknown command"));
+        assertNotNull(model.getClass("Circle"));
+        assertTrue(result.summary().contains("6 failed"));
+    }
+
+    /**
+     * Test that a script can undo and redo its own changes.
+     */
+    @Test
+    @DisplayName ("Run: Undo and redo in a script")
+    public void testUndoRedo() throws IOException {
+        ScriptRunner.Result result = run("add-class A\nadd-class B\nundo\nundo\nundo\nredo\n");
+
+        assertEquals(1, result.getFailureCount());
+        assertEquals("nothing to undo", result.getFailures().get(0).getReason());
+        assertNotNull(model.getClass("A"));
+        assertFalse(model.classExist("B"));
+    }
+
+    /**
+     * Test that a transaction in a script is undone as one change, and an unfinished one is rolled back.
+     */
+    @Test
+    @DisplayName ("Run: Transactions in a script")
+    public void testTransactions() throws IOException {
+        ScriptRunner.Result result = run(String.join("\n",
+                "add-class A",
+                "begin",
+                "add-class B",
+                "add-field B int x",
+                "undo",
+                "commit",
+                "undo",
+                "begin",
+                "add-class C",
+                "rollback",
+                "begin",
+                "add-class D"));
+
+        assertEquals(2, result.getFailureCount());
+        assertEquals("cannot undo inside a transaction", result.getFailures().get(0).getReason());
+        assertEquals(12, result.getFailures().get(1).getLineNumber());
+        assertNotNull(model.getClass("A"));
+        assertFalse(model.classExist("B"));
+        assertFalse(model.classExist("C"));
+        assertFalse(model.classExist("D"));
+    }
+
+    /**
+     * Test that a large script runs without prompting.
+     */
+    @Test
+    @DisplayName ("Run: Many edits in one script")
+    public void testManyEdits() throws IOException {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            script.append("add-class Class").append(i).append('\n');
+            for (int j = 0; j < 4; j++) {
+                script.append("add-field Class").append(i).append(" int field").append(j).append('\n');
+            }
+        }
+        ScriptRunner.Result result = run(script.toString());
+
+        assertEquals(10000, result.getCommands());
+        assertEquals(0, result.getFailureCount());
+        assertEquals(4, model.getClass("Class1999").getFields().size());
+    }
+}
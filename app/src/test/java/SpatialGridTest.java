@@ -0,0 +1,79 @@
+import java.awt.Rectangle;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.SpatialGrid;
+
+/**
+ * A test class for SpatialGrid.
+ */
+public class SpatialGridTest {
+
+    private SpatialGrid<String> grid;
+
+    @BeforeEach
+    public void setUp() {
+        grid = new SpatialGrid<>(100);
+        grid.put("small", new Rectangle(10, 10, 20, 20));
+        grid.put("wide", new Rectangle(50, 50, 300, 30)); // Spans four cells
+        grid.put("negative", new Rectangle(-150, -150, 40, 40));
+        grid.put("huge", new Rectangle(0, 0, 100000, 100000)); // Too big to file under cells
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that a point finds only the shapes containing it.
+     */
+    @Test
+    @DisplayName ("At: Finds the shapes containing a point")
+    public void testAt() {
+        assertEquals(List.of("huge", "small"), grid.at(15, 15));
+        assertEquals(List.of("huge", "wide"), grid.at(300, 60));
+        assertEquals(List.of("negative"), grid.at(-140, -140));
+        assertTrue(grid.at(-10, -10).isEmpty());
+    }
+
+    /**
+     * Test that a search reports each shape in the area once, even if it spans several cells.
+     */
+    @Test
+    @DisplayName ("Query: Each shape in the area is found once")
+    public void testQuery() {
+        List<String> found = grid.query(new Rectangle(0, 0, 400, 400));
+        assertEquals(3, found.size());
+        assertTrue(found.containsAll(List.of("small", "wide", "huge")));
+
+        assertEquals(List.of("huge", "wide"), grid.query(new Rectangle(250, 45, 10, 10)));
+        assertTrue(grid.query(new Rectangle(-500, 200, 10, 10)).isEmpty());
+    }
+
+    /**
+     * Test that moving and removing shapes updates what is found.
+     */
+    @Test
+    @DisplayName ("Put/Remove: Moved and removed shapes are found in their new place")
+    public void testMoveAndRemove() {
+        grid.put("small", new Rectangle(1000, 1000, 20, 20));
+        assertFalse(grid.at(15, 15).contains("small"));
+        assertTrue(grid.at(1010, 1010).contains("small"));
+        assertEquals(new Rectangle(1000, 1000, 20, 20), grid.getBounds("small"));
+
+        assertTrue(grid.remove("wide"));
+        assertFalse(grid.remove("wide"));
+        assertTrue(grid.query(new Rectangle(300, 60, 1, 1)).equals(List.of("huge")));
+        assertNull(grid.getBounds("wide"));
+        assertEquals(3, grid.size());
+
+        grid.clear();
+        assertEquals(0, grid.size());
+        assertTrue(grid.at(1010, 1010).isEmpty());
+    }
+}
@@ -0,0 +1,134 @@
+import java.awt.Dimension;
+import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import Controller.SvgExporter;
+import Model.RelationshipType;
+import Model.UmlEditorModel;
+
+/**
+ * A test class for SvgExporter.
+ */
+public class SvgExporterTest {
+
+    private UmlEditorModel model;
+    private Map<String, Point> positions;
+
+    @BeforeEach
+    public void setUp() {
+        model = new UmlEditorModel();
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+        positions = new HashMap<>();
+
+        model.addClass("Shape");
+        model.addClass("Circle");
+        model.getClass("Circle").addField("List<Point>", "points");
+        model.getClass("Circle").addMethod("area", new ArrayList<>(), "double");
+        positions.put("Shape", new Point(0, 0));
+        positions.put("Circle", new Point(300, 200));
+        model.addRelationship("Circle", "Shape", RelationshipType.Inheritance);
+        model.addRelationship("Shape", "Shape", RelationshipType.Composition);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        model.setClasses(new HashMap<>());
+        model.setRelationships(new ArrayList<>());
+    }
+
+/*----------------------------------------------------------------------------------------------------------------*/
+
+    /**
+     * Test that the SVG is well formed and has a box for every class and a line for every relationship.
+     */
+    @Test
+    @DisplayName ("ExportDiagram: Every class and relationship is written")
+    public void testShapesWritten() throws Exception {
+        Document document = export();
+        Element root = document.getDocumentElement();
+        assertEquals("svg", root.getTagName());
+
+        assertEquals(2, count(document, "rect", "box"));
+        // The self relationship only has an arrowhead
+        assertEquals(1, count(document, "line", "Inheritance"));
+        assertEquals(0, count(document, "line", "Composition"));
+        assertEquals(1, count(document, "polygon", "Inheritance-head"));
+        assertEquals(1, count(document, "polygon", "Composition-head"));
+    }
+
+    /**
+     * Test that the text of the boxes is written, with characters that are special in XML escaped.
+     */
+    @Test
+    @DisplayName ("ExportDiagram: Box text is written and escaped")
+    public void testText() throws Exception {
+        Document document = export();
+        List<String> text = new ArrayList<>();
+        NodeList nodes = document.getElementsByTagName("text");
+        for (int i = 0; i < nodes.getLength(); i++) {
+            text.add(nodes.item(i).getTextContent());
+        }
+
+        assertTrue(text.contains("Shape"));
+        assertTrue(text.contains("Circle"));
+        assertTrue(text.contains("List<Point> points"));
+        assertTrue(text.contains(model.getClass("Circle").getMethods().get(0)));
+    }
+
+    /**
+     * Test that the same model always gives the same file, and its size matches the PNG export.
+     */
+    @Test
+    @DisplayName ("ExportDiagram: Output is the same every time")
+    public void testRepeatable() throws IOException {
+        StringWriter first = new StringWriter();
+        StringWriter second = new StringWriter();
+        Dimension size = SvgExporter.exportDiagram(model, positions, first);
+        SvgExporter.exportDiagram(model, positions, second);
+
+        assertEquals(first.toString(), second.toString());
+        assertTrue(first.toString().contains("width=\"" + size.width + "\""));
+    }
+
+    /*----------------------------------------------------------------------------------------------------------------*/
+
+    private Document export() throws Exception {
+        StringWriter out = new StringWriter();
+        SvgExporter.exportDiagram(model, positions, out);
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        return factory.newDocumentBuilder()
+                .parse(new ByteArrayInputStream(out.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static int count(Document document, String tag, String styleClass) {
+        int count = 0;
+        NodeList nodes = document.getElementsByTagName(tag);
+        for (int i = 0; i < nodes.getLength(); i++) {
+            if (styleClass.equals(((Element) nodes.item(i)).getAttribute("class"))) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,91 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import Model.UmlClass;
+import Model.UmlClassAdapter;
+
+/**
+ * A test class for UmlClassAdapter.
+ */
+public class UmlClassAdapterTest {
+
+    /** A Gson instance that uses the adapter for UML classes */
+    private final Gson gson = new GsonBuilder().registerTypeAdapter(UmlClass.class, new UmlClassAdapter()).create();
+
+    /**
+     * Test that a class with generic types is written and read back unchanged.
+     */
+    @Test
+    @DisplayName ("Write and Read: A class with generic types survives a round trip")
+    public void testRoundTrip() {
+        UmlClass umlClass = new UmlClass("ClassA", new Point(5, 7));
+        umlClass.addField("Map<K,V>", "values");
+        List<String[]> parameters = new ArrayList<>();
+        parameters.add(new String[] {"Map<K,V>", "map"});
+        parameters.add(new String[] {"int", "count"});
+        umlClass.addMethod("merge", parameters, "List<String>");
+
+        UmlClass loaded = gson.fromJson(gson.toJson(umlClass), UmlClass.class);
+
+        assertEquals("ClassA", loaded.getName());
+        assertEquals("Map<K,V>", loaded.getFields().get("values"));
+        UmlClass.Method method = loaded.getMethodsList().getFirst();
+        assertEquals("merge", method.getName());
+        assertEquals("List<String>", method.getReturnType());
+        assertEquals("Map<K,V>", method.getParameters().get(0)[0]);
+        assertEquals("map", method.getParameters().get(0)[1]);
+        assertEquals("count", method.getParameters().get(1)[1]);
+        assertEquals(new Point(5, 7), loaded.getPosition());
+    }
+
+    /**
+     * Test the layout of the written JSON.
+     */
+    @Test
+    @DisplayName ("Write: Write fields and methods as arrays of objects")
+    public void testWriteLayout() {
+        UmlClass umlClass = new UmlClass("ClassA");
+        umlClass.addField("int", "count");
+        umlClass.addMethod("run", new ArrayList<>(), "void");
+
+        String json = gson.toJson(umlClass);
+
+        assertEquals("{\"name\":\"ClassA\",\"fields\":[{\"name\":\"count\",\"type\":\"int\"}],"
+                + "\"methods\":[{\"name\":\"run\",\"return_type\":\"void\",\"params\":[]}]}", json);
+    }
+
+    /**
+     * Test reading a position written with decimal coordinates and unknown properties.
+     */
+    @Test
+    @DisplayName ("Read: Read decimal positions and skip unknown properties")
+    public void testReadOlderLayout() {
+        String json = "{\"name\":\"ClassA\",\"color\":\"red\",\"fields\":[],\"methods\":[],"
+                + "\"position\":{\"x\":10.0,\"y\":20.0}}";
+
+        UmlClass loaded = gson.fromJson(json, UmlClass.class);
+
+        assertEquals(new Point(10, 20), loaded.getPosition());
+        assertTrue(loaded.getMethodsList().isEmpty());
+    }
+
+    /**
+     * Test that a null class is written and read as null.
+     */
+    @Test
+    @DisplayName ("Write and Read: A null class is written as null")
+    public void testNull() {
+        assertEquals("null", gson.toJson(null, UmlClass.class));
+        assertNull(gson.fromJson("null", UmlClass.class));
+    }
+}
@@ -8,6 +8,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -1657,6 +1659,76 @@ public class UmlClassTest {
                      \t\tvoid Method2(int P1, String P2)
                      """, umlClass.toString());
     }
+
+    /**
+     * Test that overloaded methods are told apart by their parameter types and keep their declared order.
+     */
+    @Test
+    @DisplayName ("Overloads: Methods with the same name and different parameter types are kept in order")
+    public void testOverloadedMethods() {
+        for (int i = 0; i < 200; i++) {
+            List<String[]> parameters = new ArrayList<>();
+            for (int j = 0; j <= i % 3; j++) {
+                parameters.add(new String[] {"Type" + i, "p" + j});
+            }
+            assertTrue(umlClass.addMethod("run", parameters, "void"));
+        }
+        List<String[]> duplicate = new ArrayList<>();
+        duplicate.add(new String[] {"Type6", "other"});
+        assertFalse(umlClass.addMethod("run", duplicate, "int"));
+
+        assertEquals(200, umlClass.getMethodsList().size());
+        assertEquals("Type0", umlClass.getMethodParameters("run").getFirst()[0]);
+        assertTrue(umlClass.deleteMethod("run", duplicate, "void"));
+        assertEquals("Type7", umlClass.getMethodsList().get(6).getParameters().getFirst()[0]);
+        assertTrue(umlClass.addMethod("run", duplicate, "void"));
+        assertEquals("void run(Type6 other)", umlClass.getMethods().getLast());
+    }
+
+    /**
+     * Test that lookups follow a method whose name or parameters change.
+     */
+    @Test
+    @DisplayName ("Overloads: Lookups follow a method whose signature changes")
+    public void testSignatureChanges() {
+        List<String[]> parameters = new ArrayList<>();
+        parameters.add(new String[] {"int", "P1"});
+        umlClass.addMethod("Method1", new ArrayList<>(), "int");
+        umlClass.addMethod("Method1", parameters, "int");
+
+        umlClass.getMethodsList().getFirst().setName("Method2");
+        assertEquals(1, umlClass.getMethodParameters("Method1").size());
+        assertTrue(umlClass.changeReturnType("Method2", new ArrayList<>(), "int", "String"));
+        assertFalse(umlClass.renameMethod("Method2", new ArrayList<>(), "String", "Method2"));
+
+        assertTrue(umlClass.changeParameters("Method1", parameters, "int", new ArrayList<>()));
+        assertFalse(umlClass.deleteMethod("Method1", parameters, "int"));
+        assertTrue(umlClass.addMethod("Method1", parameters, "int"));
+
+        // A method added straight to the list is found too
+        umlClass.getMethodsList().add(umlClass.new Method("Method3", new ArrayList<>(), "void"));
+        assertEquals("void", umlClass.getMethodReturnType("Method3"));
+        assertFalse(umlClass.addMethod("Method3", new ArrayList<>(), "void"));
+    }
+
+    /**
+     * Test that the method signatures are kept between calls and made again when a method changes.
+     */
+    @Test
+    @DisplayName ("GetMethods: The signatures are kept until a method changes")
+    public void testGetMethodsCached() {
+        umlClass.addMethod("Method1", new ArrayList<>(), "int");
+        List<String> methods = umlClass.getMethods();
+
+        assertSame(methods, umlClass.getMethods());
+        assertThrows(UnsupportedOperationException.class, () -> methods.add("void Method2()"));
+
+        umlClass.getMethodsList().getFirst().setReturnType("String");
+        assertEquals("[String Method1()]", umlClass.getMethods().toString());
+        umlClass.addMethod("Method2", new ArrayList<>(), "void");
+        assertEquals("[String Method1(), void Method2()]", umlClass.getMethods().toString());
+        assertEquals("[int Method1()]", methods.toString());
+    }
 }
 
 /*----------------------------------------------------------------------------------------------------------------*/
@@ -26,7 +26,7 @@ public class UmlCliControllerTest {
      */
     @BeforeEach
     public void setUp() {
-        model = UmlEditorModel.getInstance();
+        model = new UmlEditorModel();
         umlEditor = new UmlEditor(model);
         view = new CLI();
 
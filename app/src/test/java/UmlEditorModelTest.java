@@ -4,6 +4,10 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -14,6 +18,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import Controller.UmlEditor;
+import Model.Memento;
 import Model.RelationshipType;
 import Model.UmlClass;
 import Model.UmlEditorModel;
@@ -31,7 +37,7 @@ public class UmlEditorModelTest {
      */
     @BeforeEach
     public void setUp() {
-        model = UmlEditorModel.getInstance();
+        model = new UmlEditorModel();
     }
 
 /*----------------------------------------------------------------------------------------------------------------*/
@@ -1040,7 +1046,52 @@ public class UmlEditorModelTest {
         model.deleteRelationship("ClassB", "ClassC", typeB);
     }
 
-
+    /**
+     * Test that separate models, each with its own editor and memento, can be edited at the same time
+     * without seeing each other's changes.
+     */
+    @Test
+    @DisplayName ("Constructor: Models are edited in parallel independently")
+    public void testIndependentModels() throws Exception {
+        int modelCount = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(modelCount);
+        List<Future<UmlEditorModel>> results = new ArrayList<>();
+        for (int m = 0; m < modelCount; m++) {
+            String prefix = "Model" + m + "_";
+            results.add(pool.submit(() -> {
+                UmlEditorModel own = new UmlEditorModel();
+                UmlEditor editor = new UmlEditor(own);
+                editor.setQuiet(true);
+                Memento memento = new Memento();
+                for (int i = 0; i < 500; i++) {
+                    editor.addClass(prefix + i);
+                    editor.addField(prefix + i, "int", "field");
+                    if (i > 0) {
+                        editor.addRelationship(prefix + i, prefix + (i - 1), RelationshipType.Inheritance);
+                    }
+                }
+                memento.saveState(own);
+                editor.deleteClass(prefix + 0);
+                editor.undo();
+                editor.addClass(prefix + "Extra");
+                memento.undoState(own);
+                return own;
+            }));
+        }
+        pool.shutdown();
+
+        for (int m = 0; m < modelCount; m++) {
+            UmlEditorModel own = results.get(m).get(30, TimeUnit.SECONDS);
+            assertEquals(500, own.getClasses().size());
+            assertEquals(499, own.getRelationships().size());
+            assertNotNull(own.getClass("Model" + m + "_0"));
+            assertNull(own.getClass("Model" + m + "_Extra"));
+            for (String name : own.getClasses().keySet()) {
+                assertTrue(name.startsWith("Model" + m + "_"));
+            }
+        }
+        assertTrue(model.getClasses().isEmpty());
+    }
 }
 
 /*----------------------------------------------------------------------------------------------------------------*/
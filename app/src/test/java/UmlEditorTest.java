@@ -30,7 +30,7 @@ public class UmlEditorTest {
      */
     @BeforeEach
     public void setUp() {
-        model = UmlEditorModel.getInstance();
+        model = new UmlEditorModel();
         umlEditor = new UmlEditor(model);
     }
 
@@ -1084,7 +1084,86 @@ public class UmlEditorTest {
         umlEditor.deleteClass("ClassA");
     }
 
+    /**
+     * Test that the changes in a committed transaction are undone and redone together.
+     */
+    @Test
+    @DisplayName ("CommitTransaction: A transaction is a single undo step")
+    public void testCommitTransaction() {
+        umlEditor.addClass("TxClassA");
+        umlEditor.beginTransaction();
+        assertTrue(umlEditor.isInTransaction());
+        umlEditor.addClass("TxClassB");
+        umlEditor.addField("TxClassB", "int", "F");
+        umlEditor.addRelationship("TxClassB", "TxClassA", RelationshipType.Inheritance);
+        assertFalse(umlEditor.addClass("TxClassB"));
+        assertTrue(umlEditor.commitTransaction());
+        assertFalse(umlEditor.isInTransaction());
+
+        umlEditor.undo();
+        assertNull(umlEditor.getClass("TxClassB"));
+        assertTrue(model.getRelationships().isEmpty());
+        assertNotNull(umlEditor.getClass("TxClassA"));
+
+        umlEditor.redo();
+        assertTrue(umlEditor.getClass("TxClassB").getFields().containsKey("F"));
+        assertNotNull(model.findRelationship("TxClassB", "TxClassA", RelationshipType.Inheritance));
+
+        //Clean up
+        umlEditor.deleteClass("TxClassA");
+        umlEditor.deleteClass("TxClassB");
+    }
 
+    /**
+     * Test that rolling back a transaction reverses its changes and leaves the history alone.
+     */
+    @Test
+    @DisplayName ("RollbackTransaction: A rolled back transaction leaves no trace")
+    public void testRollbackTransaction() {
+        umlEditor.addClass("TxClassA");
+        int undoCount = umlEditor.getHistory().getUndoCount();
+        umlEditor.beginTransaction();
+        umlEditor.renameClass("TxClassA", "TxClassB");
+        umlEditor.addField("TxClassB", "int", "F");
+        umlEditor.addClass("TxClassC");
+        umlEditor.rollbackTransaction();
+
+        assertNotNull(umlEditor.getClass("TxClassA"));
+        assertTrue(umlEditor.getClass("TxClassA").getFields().isEmpty());
+        assertNull(umlEditor.getClass("TxClassB"));
+        assertNull(umlEditor.getClass("TxClassC"));
+        assertTrue(umlEditor.getHistory().getUndoCount() == undoCount);
+
+        //Clean up
+        umlEditor.deleteClass("TxClassA");
+    }
 
+    /**
+     * Test that a transaction whose changes throw is rolled back, and that transactions cannot be misused.
+     */
+    @Test
+    @DisplayName ("RunInTransaction: A failed transaction is rolled back")
+    public void testRunInTransaction() {
+        try {
+            umlEditor.runInTransaction(() -> {
+                umlEditor.addClass("TxClassA");
+                throw new IllegalArgumentException("Stop");
+            });
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        assertFalse(umlEditor.isInTransaction());
+        assertNull(umlEditor.getClass("TxClassA"));
+
+        umlEditor.beginTransaction();
+        boolean nestedRejected = false;
+        try {
+            umlEditor.beginTransaction();
+        } catch (IllegalStateException e) {
+            nestedRejected = true;
+        }
+        assertTrue(nestedRejected);
+        assertFalse(umlEditor.commitTransaction());
+    }
 }
 /*----------------------------------------------------------------------------------------------------------------*/
@@ -0,0 +1,98 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import Model.DiagramGenerator;
+import Model.JsonUtils;
+import Model.UmlEditorModel;
+
+/**
+ * Compares saving and loading a diagram as compact JSON against the binary format,
+ * and a full round trip through each. The file sizes are printed during setup.
+ *
+ * Run with {@code ./gradlew :benchmarks:jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BinaryBenchmark {
+
+    /** The number of classes in the diagram */
+    @Param({"100", "1000", "10000", "100000"})
+    public int classCount;
+
+    private UmlEditorModel model;
+    private File json;
+    private File binary;
+
+    /**
+     * Build the diagram and save it once in each format, so there are files to load.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        model = new DiagramGenerator().generate(classCount);
+        json = File.createTempFile("uml-benchmark", ".json");
+        binary = File.createTempFile("uml-benchmark", ".umlb");
+        JsonUtils.save(model, json.getAbsolutePath(), false);
+        JsonUtils.save(model, binary.getAbsolutePath());
+        System.out.println("JSON " + json.length() + " bytes, binary " + binary.length() + " bytes");
+    }
+
+    /**
+     * Remove the files written by the benchmark.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        json.delete();
+        binary.delete();
+    }
+
+    @Benchmark
+    public void saveJson() throws IOException {
+        JsonUtils.save(model, json.getAbsolutePath(), false);
+    }
+
+    @Benchmark
+    public void saveBinary() throws IOException {
+        JsonUtils.save(model, binary.getAbsolutePath());
+    }
+
+    @Benchmark
+    public UmlEditorModel loadJson() throws IOException {
+        return JsonUtils.load(json.getAbsolutePath());
+    }
+
+    @Benchmark
+    public UmlEditorModel loadBinary() throws IOException {
+        return JsonUtils.load(binary.getAbsolutePath());
+    }
+
+    /**
+     * Save the model and load it back as JSON.
+     */
+    @Benchmark
+    public UmlEditorModel roundTripJson() throws IOException {
+        JsonUtils.save(model, json.getAbsolutePath(), false);
+        return JsonUtils.load(json.getAbsolutePath());
+    }
+
+    /**
+     * Save the model and load it back in the binary format.
+     */
+    @Benchmark
+    public UmlEditorModel roundTripBinary() throws IOException {
+        JsonUtils.save(model, binary.getAbsolutePath());
+        return JsonUtils.load(binary.getAbsolutePath());
+    }
+}
@@ -0,0 +1,108 @@
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import Model.DiagramGenerator;
+import Model.JsonUtils;
+import Model.UmlEditorModel;
+
+/**
+ * Compares saving and loading a diagram through a Gson tree, as JsonUtils
+ * used to, against the streaming JsonUtils.
+ *
+ * Run with {@code ./gradlew :benchmarks:jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JsonBenchmark {
+
+    /** The number of classes in the diagram */
+    @Param({"100", "1000", "10000", "100000"})
+    public int classCount;
+
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private UmlEditorModel model;
+    private File saved;
+    private File scratch;
+
+    /**
+     * Build the diagram and save it once, so there is a file to load.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        model = new DiagramGenerator().generate(classCount);
+        saved = File.createTempFile("uml-benchmark", ".json");
+        scratch = File.createTempFile("uml-benchmark-out", ".json");
+        JsonUtils.save(model, saved.getAbsolutePath());
+    }
+
+    /**
+     * Remove the files written by the benchmark.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        saved.delete();
+        scratch.delete();
+    }
+
+    /**
+     * The previous save path: build the JSON through Gson and a FileWriter.
+     */
+    @Benchmark
+    public void saveWithGson() throws IOException {
+        try (FileWriter writer = new FileWriter(scratch)) {
+            gson.toJson(model, writer);
+        }
+    }
+
+    /**
+     * Stream a pretty printed file.
+     */
+    @Benchmark
+    public void saveStreaming() throws IOException {
+        JsonUtils.save(model, scratch.getAbsolutePath(), true);
+    }
+
+    /**
+     * Stream a compact file.
+     */
+    @Benchmark
+    public void saveStreamingCompact() throws IOException {
+        JsonUtils.save(model, scratch.getAbsolutePath(), false);
+    }
+
+    /**
+     * The previous load path: read the whole file through Gson and a FileReader.
+     */
+    @Benchmark
+    public UmlEditorModel loadWithGson() throws IOException {
+        try (FileReader reader = new FileReader(saved)) {
+            return gson.fromJson(reader, UmlEditorModel.class);
+        }
+    }
+
+    /**
+     * Stream the file back one class at a time.
+     */
+    @Benchmark
+    public UmlEditorModel loadStreaming() throws IOException {
+        return JsonUtils.load(saved.getAbsolutePath());
+    }
+}
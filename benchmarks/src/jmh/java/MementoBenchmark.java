@@ -0,0 +1,95 @@
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import Model.DiagramGenerator;
+import Model.Memento;
+import Model.UmlClass;
+import Model.UmlEditorModel;
+
+/**
+ * Compares the cost of saving an undo state by cloning the whole model
+ * against saving it in a {@link Memento}, which shares unchanged classes
+ * with the previous snapshot.
+ *
+ * Run with {@code ./gradlew :benchmarks:jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MementoBenchmark {
+
+    /** The number of classes in the diagram */
+    @Param({"100", "1000", "10000", "100000"})
+    public int classCount;
+
+    private UmlEditorModel model;
+    private Memento memento;
+    private UmlClass edited;
+    private int edits;
+
+    /**
+     * Build the diagram, making sure the class that is edited has the field that is renamed.
+     */
+    @Setup(Level.Trial)
+    public void setUpModel() {
+        model = new DiagramGenerator().generate(classCount);
+        edited = model.getClass("Class0");
+        edited.addField("int", "field0");
+    }
+
+    /**
+     * Start every iteration with an empty history so snapshots do not pile up.
+     */
+    @Setup(Level.Iteration)
+    public void setUpHistory() {
+        memento = new Memento();
+        memento.saveState(model);
+    }
+
+    /**
+     * Make a small edit to a single class, as a user action would.
+     */
+    private void edit() {
+        edited.renameField("field0", "field" + (++edits));
+        edited.renameField("field" + edits, "field0");
+    }
+
+    /**
+     * The previous approach: copy the whole model for every saved state.
+     */
+    @Benchmark
+    public void saveByClone(Blackhole blackhole) {
+        edit();
+        blackhole.consume(model.clone());
+    }
+
+    /**
+     * Save a state that shares every unchanged class with the previous one.
+     */
+    @Benchmark
+    public void saveBySnapshot() {
+        edit();
+        memento.saveState(model);
+    }
+
+    /**
+     * Save a state, then undo and redo it in place.
+     */
+    @Benchmark
+    public void undoRedoBySnapshot(Blackhole blackhole) {
+        edit();
+        memento.saveState(model);
+        blackhole.consume(memento.undoState(model));
+        blackhole.consume(memento.redoState(model));
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import Model.DiagramGenerator;
+import Model.UmlClass;
+import Model.UmlEditorModel;
+
+/**
+ * Measures single edits to a diagram, which should cost the same however many classes it has.
+ * Each benchmark undoes its own change so the diagram keeps the same size.
+ *
+ * Run with {@code ./gradlew :benchmarks:jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModelBenchmark {
+
+    /** The number of classes in the diagram */
+    @Param({"100", "1000", "10000", "100000"})
+    public int classCount;
+
+    private UmlEditorModel model;
+    private UmlClass middle;
+    private String middleName;
+    private List<String[]> parameters;
+
+    /**
+     * Build the diagram.
+     */
+    @Setup(Level.Trial)
+    public void setUpModel() {
+        model = new DiagramGenerator().generate(classCount);
+        middleName = "Class" + (classCount / 2);
+        middle = model.getClass(middleName);
+        parameters = new ArrayList<>();
+        parameters.add(new String[] {"String", "name"});
+        parameters.add(new String[] {"int", "count"});
+    }
+
+    /**
+     * Add a class and delete it again.
+     */
+    @Benchmark
+    public boolean addClass() {
+        model.addClass("Extra");
+        return model.deleteClass("Extra");
+    }
+
+    /**
+     * Add a method overload to a class and delete it again.
+     */
+    @Benchmark
+    public boolean addMethod() {
+        middle.addMethod("extra", parameters, "void");
+        return middle.deleteMethod("extra", parameters, "void");
+    }
+
+    /**
+     * Rename a class and its relationships, then rename it back.
+     */
+    @Benchmark
+    public boolean renameClass() {
+        model.renameClass(middleName, "Renamed");
+        return model.renameClass("Renamed", middleName);
+    }
+
+    /**
+     * List the method signatures of a class, as the diagram and menus do.
+     */
+    @Benchmark
+    public List<String> getMethods() {
+        return middle.getMethods();
+    }
+}
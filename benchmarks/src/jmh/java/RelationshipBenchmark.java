@@ -0,0 +1,85 @@
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import Model.RelationshipType;
+import Model.UmlEditorModel;
+import Model.UmlRelationship;
+
+/**
+ * Measures the relationship operations of {@link UmlEditorModel} on diagrams
+ * with many relationships, which the relationship index keeps from scanning
+ * the whole list.
+ *
+ * Run with {@code ./gradlew :benchmarks:jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RelationshipBenchmark {
+
+    /** The number of relationships in the diagram */
+    @Param({"10000", "100000"})
+    public int relationshipCount;
+
+    private UmlEditorModel model;
+    private int classCount;
+    private int next;
+    private UmlRelationship last;
+
+    /**
+     * Fill the model with a chain of classes, each related to the next few.
+     */
+    @Setup(Level.Trial)
+    public void setUpModel() {
+        model = new UmlEditorModel();
+        model.getClasses().clear();
+        model.getRelationships().clear();
+        classCount = relationshipCount / 4;
+        for (int i = 0; i < classCount; i++) {
+            model.addClass("Class" + i);
+        }
+        RelationshipType[] types = RelationshipType.values();
+        for (int i = 0; i < relationshipCount; i++) {
+            String source = "Class" + (i % classCount);
+            String destination = "Class" + ((i / classCount + 1 + i) % classCount);
+            model.addRelationship(source, destination, types[i % types.length]);
+        }
+        last = model.getRelationships().get(model.getRelationships().size() - 1);
+    }
+
+    /**
+     * Find the last relationship in the list.
+     */
+    @Benchmark
+    public UmlRelationship find() {
+        return model.findRelationship(last.getSource(), last.getDestination(), last.getType());
+    }
+
+    /**
+     * Add a relationship and delete it again.
+     */
+    @Benchmark
+    public boolean addAndDelete() {
+        model.addRelationship("Class0", "Class" + (classCount - 1), RelationshipType.Realization);
+        return model.deleteRelationship("Class0", "Class" + (classCount - 1), RelationshipType.Realization);
+    }
+
+    /**
+     * Rename a class and rename it back, which updates only its own relationships.
+     */
+    @Benchmark
+    public boolean renameClass() {
+        String name = "Class" + (next++ % classCount);
+        model.renameClass(name, "Renamed");
+        return model.renameClass("Renamed", name);
+    }
+}
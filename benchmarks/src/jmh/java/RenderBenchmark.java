@@ -0,0 +1,114 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import Controller.DiagramScene;
+import Controller.ImageExporter;
+import Model.DiagramGenerator;
+import Model.UmlEditorModel;
+
+/**
+ * Measures the work of a repaint of the diagram panel: bringing the retained layout up to
+ * date and drawing the part of the diagram in the window, drawn here into an image the size
+ * of a large window so no display is needed.
+ *
+ * Run with {@code ./gradlew :benchmarks:jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark {
+
+    /** The size of the window the diagram is drawn in */
+    private static final int WIDTH = 1600;
+    private static final int HEIGHT = 1000;
+
+    /** The number of classes in the diagram */
+    @Param({"100", "1000", "10000", "100000"})
+    public int classCount;
+
+    private UmlEditorModel model;
+    private Map<String, Point> positions;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private FontMetrics metrics;
+    private DiagramScene scene;
+    private int moves;
+
+    /**
+     * Build the diagram and lay it out once, as the first repaint does.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("java.awt.headless", "true");
+        model = new DiagramGenerator().generate(classCount);
+        positions = ImageExporter.positionsOf(model);
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+        metrics = graphics.getFontMetrics();
+        scene = new DiagramScene();
+        scene.update(model, positions, metrics, metrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    /**
+     * Lay out the whole diagram from nothing, as after a file is loaded.
+     */
+    @Benchmark
+    public DiagramScene layOut() {
+        DiagramScene fresh = new DiagramScene();
+        fresh.update(model, positions, metrics, metrics);
+        return fresh;
+    }
+
+    /**
+     * Repaint the window when nothing has changed.
+     */
+    @Benchmark
+    public void repaint() {
+        graphics.setClip(0, 0, WIDTH, HEIGHT);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, WIDTH, HEIGHT);
+        scene.update(model, positions, metrics, metrics);
+        scene.paint(graphics);
+    }
+
+    /**
+     * Move a class a little and repaint only where it was and where it is now, as dragging does.
+     */
+    @Benchmark
+    public void drag() {
+        Rectangle dirty = scene.getDirtyBounds("Class0");
+        Point position = positions.get("Class0");
+        int step = ((moves++ & 1) == 0) ? 3 : -3;
+        positions.put("Class0", new Point(position.x + step, position.y + step));
+        scene.update(model, positions, metrics, metrics);
+        dirty.add(scene.getDirtyBounds("Class0"));
+        graphics.setClip(dirty);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(dirty.x, dirty.y, dirty.width, dirty.height);
+        scene.paint(graphics);
+    }
+}
@@ -0,0 +1,74 @@
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import Controller.UmlEditor;
+import Model.DiagramGenerator;
+import Model.UmlEditorModel;
+
+/**
+ * Measures edits made through the editor, which records each one in the undo history,
+ * and undoing and redoing them.
+ *
+ * Run with {@code ./gradlew :benchmarks:jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UndoBenchmark {
+
+    /** The number of classes in the diagram */
+    @Param({"100", "1000", "10000", "100000"})
+    public int classCount;
+
+    private UmlEditor editor;
+    private String className;
+
+    /**
+     * Build the diagram and an editor for it.
+     */
+    @Setup(Level.Trial)
+    public void setUpModel() {
+        UmlEditorModel model = new DiagramGenerator().generate(classCount);
+        editor = new UmlEditor(model);
+        editor.setQuiet(true);
+        className = "Class" + (classCount / 2);
+    }
+
+    /**
+     * Make an edit and undo it.
+     */
+    @Benchmark
+    public boolean editAndUndo() {
+        editor.addField(className, "int", "extra");
+        return editor.undo();
+    }
+
+    /**
+     * Make an edit, undo it, redo it, and undo it again.
+     */
+    @Benchmark
+    public boolean undoAndRedo() {
+        editor.addField(className, "int", "extra");
+        editor.undo();
+        editor.redo();
+        return editor.undo();
+    }
+
+    /**
+     * Delete a class with its relationships and undo it, which puts them all back.
+     */
+    @Benchmark
+    public boolean deleteClassAndUndo() {
+        editor.deleteClass(className);
+        return editor.undo();
+    }
+}